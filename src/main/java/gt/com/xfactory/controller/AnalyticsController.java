@@ -0,0 +1,63 @@
+package gt.com.xfactory.controller;
+
+import gt.com.xfactory.dto.response.*;
+import gt.com.xfactory.entity.enums.*;
+import gt.com.xfactory.service.impl.*;
+import jakarta.annotation.security.*;
+import jakarta.enterprise.context.*;
+import jakarta.inject.*;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.*;
+
+import java.time.*;
+import java.util.*;
+
+@RequestScoped
+@Path("/api/v1/analytics")
+@Produces(MediaType.APPLICATION_JSON)
+@RolesAllowed("admin")
+public class AnalyticsController {
+
+    @Inject
+    AnalyticsService analyticsService;
+
+    @Inject
+    AnalyticsRollupService analyticsRollupService;
+
+    @GET
+    @Path("/appointments")
+    public List<AppointmentTrendDto> getAppointmentTrends(@QueryParam("from") LocalDate from,
+                                                          @QueryParam("to") LocalDate to,
+                                                          @QueryParam("grain") AnalyticsGrain grain,
+                                                          @QueryParam("groupBy") String groupBy,
+                                                          @QueryParam("clinicId") UUID clinicId,
+                                                          @QueryParam("doctorId") UUID doctorId,
+                                                          @QueryParam("specialtyId") UUID specialtyId) {
+        return analyticsService.getAppointmentTrends(from, to, grain, groupBy, clinicId, doctorId, specialtyId);
+    }
+
+    @GET
+    @Path("/diagnoses/top")
+    public List<DiagnosisRankingDto> getTopDiagnoses(@QueryParam("from") LocalDate from,
+                                                     @QueryParam("to") LocalDate to,
+                                                     @QueryParam("grain") AnalyticsGrain grain,
+                                                     @QueryParam("limit") @DefaultValue("10") int limit,
+                                                     @QueryParam("clinicId") UUID clinicId,
+                                                     @QueryParam("doctorId") UUID doctorId,
+                                                     @QueryParam("specialtyId") UUID specialtyId) {
+        return analyticsService.getTopDiagnoses(from, to, grain, limit, clinicId, doctorId, specialtyId);
+    }
+
+    /**
+     * Encola el recálculo de los rollups de [from, to]; lo aplica el job incremental.
+     */
+    @POST
+    @Path("/refresh")
+    public Response refresh(@QueryParam("from") LocalDate from, @QueryParam("to") LocalDate to) {
+        if (from == null || to == null || from.isAfter(to)) {
+            throw new BadRequestException("from y to son obligatorios y from no puede ser posterior a to");
+        }
+        int days = analyticsRollupService.requestRefresh(from, to);
+        return Response.accepted(Map.of("daysMarked", days)).build();
+    }
+}
@@ -73,4 +73,18 @@ public class ClinicController {
             @BeanParam MedicalAppointmentFilterDto filter) {
         return clinicService.getAppointmentsByClinic(clinicId, filter);
     }
+
+    @GET
+    @Path("/{id}/appointments/export")
+    @Produces({"application/x-ndjson", "text/csv"})
+    @RolesAllowed("admin")
+    public Response exportAppointmentsByClinic(
+            @PathParam("id") UUID clinicId,
+            @BeanParam MedicalAppointmentFilterDto filter,
+            @QueryParam("format") @DefaultValue("ndjson") String format) {
+        ListingExportService.Format exportFormat = ListingExportService.Format.fromValue(format);
+        return Response.ok(clinicService.exportAppointmentsByClinic(clinicId, filter, exportFormat), exportFormat.mediaType())
+                .header("Content-Disposition", "attachment; filename=\"citas-clinica-" + clinicId + "." + exportFormat.extension() + "\"")
+                .build();
+    }
 }
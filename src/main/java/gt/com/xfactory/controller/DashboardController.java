@@ -3,12 +3,15 @@ package gt.com.xfactory.controller;
 import gt.com.xfactory.dto.request.*;
 import gt.com.xfactory.dto.response.*;
 import gt.com.xfactory.service.impl.*;
+import io.smallrye.common.annotation.*;
+import io.smallrye.mutiny.*;
 import jakarta.annotation.security.*;
 import jakarta.enterprise.context.*;
 import jakarta.inject.*;
 import jakarta.validation.Valid;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.*;
+import org.jboss.resteasy.reactive.*;
 
 import java.util.*;
 
@@ -24,6 +27,9 @@ public class DashboardController {
     @Inject
     DashboardWidgetService dashboardWidgetService;
 
+    @Inject
+    DashboardStreamService dashboardStreamService;
+
     @GET
     public DashboardDto getDashboard(@QueryParam("clinicId") UUID clinicId,
                                      @QueryParam("doctorId") UUID doctorId) {
@@ -49,4 +55,18 @@ public class DashboardController {
                                           @QueryParam("doctorId") UUID doctorId) {
         return dashboardWidgetService.getWidgets(clinicId, doctorId);
     }
+
+    /**
+     * Widgets en vivo por SSE: primero el dashboard completo y luego solo los cambios
+     * cada vez que se modifica una cita de la clínica/médico.
+     */
+    @GET
+    @Path("/widgets/stream")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    @RestStreamElementType(MediaType.APPLICATION_JSON)
+    @Blocking
+    public Multi<DashboardWidgetsDto> streamWidgets(@QueryParam("clinicId") UUID clinicId,
+                                                    @QueryParam("doctorId") UUID doctorId) {
+        return dashboardStreamService.register(clinicId, doctorId);
+    }
 }
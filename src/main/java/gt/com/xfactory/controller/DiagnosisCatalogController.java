@@ -29,6 +29,14 @@ public class DiagnosisCatalogController {
         return diagnosisCatalogService.search(filter, pageRequest);
     }
 
+    @GET
+    @Path("/autocomplete")
+    public List<DiagnosisCatalogDto> autocomplete(
+            @QueryParam("q") String q,
+            @QueryParam("limit") @DefaultValue("10") int limit) {
+        return diagnosisCatalogService.autocomplete(q, limit);
+    }
+
     @GET
     @Path("/{id}")
     public DiagnosisCatalogDto getById(@PathParam("id") UUID id) {
@@ -0,0 +1,38 @@
+package gt.com.xfactory.controller;
+
+import gt.com.xfactory.dto.response.*;
+import gt.com.xfactory.service.impl.*;
+import jakarta.annotation.security.*;
+import jakarta.enterprise.context.*;
+import jakarta.inject.*;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.*;
+
+import java.util.*;
+
+@RequestScoped
+@Path("/api/v1/exports")
+@Produces(MediaType.APPLICATION_JSON)
+@RolesAllowed("admin")
+public class ExportController {
+
+    @Inject
+    ExportService exportService;
+
+    @GET
+    public List<ExportFileDto> listExports() {
+        return exportService.listExports();
+    }
+
+    /**
+     * Inicia la exportación del dataset (appointments, appointment-diagnoses, lab-results, y sus bajas
+     * con el sufijo -deleted); el archivo aparece en el listado al terminar.
+     */
+    @POST
+    @Path("/{dataset}")
+    public Response startExport(@PathParam("dataset") String dataset,
+                                @QueryParam("incremental") @DefaultValue("true") boolean incremental) {
+        exportService.start(dataset, incremental);
+        return Response.accepted(Map.of("dataset", dataset, "incremental", incremental)).build();
+    }
+}
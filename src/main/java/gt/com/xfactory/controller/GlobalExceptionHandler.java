@@ -1,11 +1,13 @@
 package gt.com.xfactory.controller;
 
 import gt.com.xfactory.dto.response.*;
+import jakarta.persistence.*;
 import jakarta.validation.*;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.*;
 import jakarta.ws.rs.ext.*;
 import lombok.extern.slf4j.*;
+import org.hibernate.StaleStateException;
 
 import java.util.stream.*;
 
@@ -39,6 +41,11 @@ public class GlobalExceptionHandler implements ExceptionMapper<Exception> {
             return buildResponse(Response.Status.CONFLICT, exception.getMessage());
         }
 
+        if (isOptimisticLockFailure(exception)) {
+            return buildResponse(Response.Status.CONFLICT,
+                    "El registro fue modificado por otro usuario; vuelva a cargarlo e intente de nuevo");
+        }
+
         if (exception instanceof ConstraintViolationException cve) {
             String message = cve.getConstraintViolations().stream()
                     .map(ConstraintViolation::getMessage)
@@ -50,6 +57,16 @@ public class GlobalExceptionHandler implements ExceptionMapper<Exception> {
         return buildResponse(Response.Status.INTERNAL_SERVER_ERROR, "Error interno del servidor");
     }
 
+    // Hibernate la lanza en el flush; si ocurre al confirmar la transacción llega envuelta
+    private static boolean isOptimisticLockFailure(Throwable exception) {
+        for (Throwable t = exception; t != null; t = t.getCause()) {
+            if (t instanceof OptimisticLockException || t instanceof StaleStateException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private Response buildResponse(Response.Status status, String message) {
         return Response.status(status)
                 .entity(new ErrorResponse(status.getStatusCode(), message))
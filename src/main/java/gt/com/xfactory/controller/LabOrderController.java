@@ -4,6 +4,7 @@ import gt.com.xfactory.dto.request.*;
 import gt.com.xfactory.dto.request.filter.*;
 import gt.com.xfactory.dto.response.*;
 import gt.com.xfactory.service.impl.*;
+import gt.com.xfactory.utils.*;
 import jakarta.annotation.security.*;
 import jakarta.enterprise.context.*;
 import jakarta.inject.*;
@@ -34,6 +35,19 @@ public class LabOrderController {
         return labOrderService.getLabOrders(filter, pageRequest);
     }
 
+    @GET
+    @Path("/export")
+    @Produces({"application/x-ndjson", "text/csv"})
+    @RolesAllowed("admin")
+    public Response exportLabOrders(
+            @BeanParam LabOrderFilterDto filter,
+            @QueryParam("format") @DefaultValue("ndjson") String format) {
+        ListingExportService.Format exportFormat = ListingExportService.Format.fromValue(format);
+        return Response.ok(labOrderService.exportLabOrders(filter, exportFormat), exportFormat.mediaType())
+                .header("Content-Disposition", "attachment; filename=\"ordenes-laboratorio." + exportFormat.extension() + "\"")
+                .build();
+    }
+
     @GET
     @Path("/{id}")
     public LabOrderDto getLabOrderById(@PathParam("id") UUID id) {
@@ -42,8 +56,19 @@ public class LabOrderController {
 
     @GET
     @Path("/patient/{patientId}")
-    public List<LabOrderDto> getLabOrdersByPatientId(@PathParam("patientId") UUID patientId) {
-        return labOrderService.getLabOrdersByPatientId(patientId);
+    public Response getLabOrdersByPatientId(
+            @PathParam("patientId") UUID patientId,
+            @Valid @BeanParam PatientHistoryRequest window) {
+        return labOrderService.getLabOrdersByPatientId(patientId, window).toResponse();
+    }
+
+    @GET
+    @Path("/patient/{patientId}/page")
+    public PageResponse<LabOrderDto> getLabOrdersPageByPatientId(
+            @PathParam("patientId") UUID patientId,
+            @Valid @BeanParam PatientHistoryRequest window,
+            @Valid @BeanParam CommonPageRequest pageRequest) {
+        return labOrderService.getLabOrdersPageByPatientId(patientId, window, pageRequest);
     }
 
     @GET
@@ -128,11 +153,28 @@ public class LabOrderController {
     @GET
     @Path("/attachments/{attachmentId}/download")
     @RolesAllowed("doctor")
-    public Response downloadAttachment(@PathParam("attachmentId") UUID attachmentId) {
-        AttachmentDownloadInfo info = labOrderService.getAttachmentDownload(attachmentId);
-        String sanitizedFileName = info.getFileName().replaceAll("[^a-zA-Z0-9._-]", "_");
-        return Response.ok(info.getData(), info.getContentType())
-                .header("Content-Disposition", "attachment; filename=\"" + sanitizedFileName + "\"")
+    public Response downloadAttachment(@PathParam("attachmentId") UUID attachmentId,
+                                       @HeaderParam("Range") String range,
+                                       @HeaderParam("If-Range") String ifRange,
+                                       @HeaderParam(HttpHeaders.ACCEPT_ENCODING) String acceptEncoding,
+                                       @Context Request request) {
+        AttachmentDownloadInfo info = labOrderService.getAttachmentDownload(attachmentId, acceptsGzip(acceptEncoding));
+        // Un adjunto comprimido se envía con o sin Content-Encoding según el cliente
+        return fileResponse(info, "attachment", range, ifRange, request)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .build();
+    }
+
+    @GET
+    @Path("/attachments/{attachmentId}/preview")
+    @RolesAllowed("doctor")
+    public Response previewAttachment(@PathParam("attachmentId") UUID attachmentId, @Context Request request) {
+        // La vista previa depende solo del contenido, que no cambia: el navegador puede reutilizarla
+        CacheControl cacheControl = new CacheControl();
+        cacheControl.setPrivate(true);
+        cacheControl.setMaxAge(86400);
+        return fileResponse(labOrderService.getAttachmentPreview(attachmentId), "inline", null, null, request)
+                .cacheControl(cacheControl)
                 .build();
     }
 
@@ -143,4 +185,59 @@ public class LabOrderController {
         labOrderService.deleteAttachment(attachmentId);
         return Response.noContent().build();
     }
+
+    private Response.ResponseBuilder fileResponse(AttachmentDownloadInfo info, String disposition, String range,
+                                                  String ifRange, Request request) {
+        EntityTag etag = new EntityTag(info.getEtag());
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(etag);
+        if (notModified != null) {
+            return notModified.tag(etag);
+        }
+
+        long size = info.getSize();
+        Optional<ByteRange> byteRange = ifRange == null || ifRangeMatches(ifRange, info.getEtag())
+                ? ByteRange.parse(range, size) : Optional.empty();
+        if (byteRange.isPresent() && !byteRange.get().satisfiable()) {
+            return Response.status(Response.Status.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header("Content-Range", "bytes */" + size);
+        }
+
+        String sanitizedFileName = info.getFileName().replaceAll("[^a-zA-Z0-9._-]", "_");
+        Response.ResponseBuilder response = byteRange
+                .map(r -> Response.status(Response.Status.PARTIAL_CONTENT)
+                        .entity(info.getBody().range(r.offset(), r.length()))
+                        .header("Content-Range", r.contentRange(size))
+                        .header(HttpHeaders.CONTENT_LENGTH, r.length()))
+                .orElseGet(() -> Response.ok(info.getBody().range(0, size))
+                        .header(HttpHeaders.CONTENT_LENGTH, size));
+        if (info.getContentEncoding() != null) {
+            response.header(HttpHeaders.CONTENT_ENCODING, info.getContentEncoding());
+        }
+        return response.type(info.getContentType())
+                .tag(etag)
+                .header("Accept-Ranges", "bytes")
+                .header("Content-Disposition", disposition + "; filename=\"" + sanitizedFileName + "\"");
+    }
+
+    /**
+     * If-Range solo admite un ETag fuerte igual al actual (RFC 9110 §13.1.5). Con uno débil (W/),
+     * otro ETag o una fecha se envía el contenido completo.
+     */
+    private static boolean ifRangeMatches(String ifRange, String etag) {
+        String validator = ifRange.trim();
+        return !validator.startsWith("W/") && validator.equals("\"" + etag + "\"");
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length < 2 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
 }
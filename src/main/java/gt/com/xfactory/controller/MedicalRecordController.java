@@ -30,8 +30,19 @@ public class MedicalRecordController {
 
     @GET
     @Path("/patient/{patientId}")
-    public List<MedicalRecordDto> getMedicalRecordsByPatientId(@PathParam("patientId") UUID patientId) {
-        return medicalRecordService.getMedicalRecordsByPatientId(patientId);
+    public Response getMedicalRecordsByPatientId(
+            @PathParam("patientId") UUID patientId,
+            @Valid @BeanParam PatientHistoryRequest window) {
+        return medicalRecordService.getMedicalRecordsByPatientId(patientId, window).toResponse();
+    }
+
+    @GET
+    @Path("/patient/{patientId}/page")
+    public PageResponse<MedicalRecordDto> getMedicalRecordsPageByPatientId(
+            @PathParam("patientId") UUID patientId,
+            @Valid @BeanParam PatientHistoryRequest window,
+            @Valid @BeanParam CommonPageRequest pageRequest) {
+        return medicalRecordService.getMedicalRecordsPageByPatientId(patientId, window, pageRequest);
     }
 
     @GET
@@ -76,14 +87,27 @@ public class MedicalRecordController {
 
     @GET
     @Path("/prescriptions/patient/{patientId}")
-    public List<PrescriptionDto> getPrescriptionsByPatientId(@PathParam("patientId") UUID patientId) {
-        return prescriptionService.getPrescriptionsByPatientId(patientId);
+    public Response getPrescriptionsByPatientId(
+            @PathParam("patientId") UUID patientId,
+            @Valid @BeanParam PatientHistoryRequest window) {
+        return prescriptionService.getPrescriptionsByPatientId(patientId, window).toResponse();
+    }
+
+    @GET
+    @Path("/prescriptions/patient/{patientId}/page")
+    public PageResponse<PrescriptionDto> getPrescriptionsPageByPatientId(
+            @PathParam("patientId") UUID patientId,
+            @Valid @BeanParam PatientHistoryRequest window,
+            @Valid @BeanParam CommonPageRequest pageRequest) {
+        return prescriptionService.getPrescriptionsPageByPatientId(patientId, window, pageRequest);
     }
 
     @GET
     @Path("/prescriptions/patient/{patientId}/active")
-    public List<PrescriptionDto> getActivePrescriptionsByPatientId(@PathParam("patientId") UUID patientId) {
-        return prescriptionService.getActivePrescriptionsByPatientId(patientId);
+    public Response getActivePrescriptionsByPatientId(
+            @PathParam("patientId") UUID patientId,
+            @Valid @BeanParam PatientHistoryRequest window) {
+        return prescriptionService.getActivePrescriptionsByPatientId(patientId, window).toResponse();
     }
 
     @GET
@@ -3,11 +3,13 @@ package gt.com.xfactory.controller;
 import gt.com.xfactory.dto.request.*;
 import gt.com.xfactory.dto.request.filter.*;
 import gt.com.xfactory.dto.response.*;
+import gt.com.xfactory.entity.enums.*;
 import gt.com.xfactory.service.impl.*;
 import jakarta.annotation.security.*;
 import jakarta.enterprise.context.*;
 import jakarta.inject.*;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.*;
 
@@ -26,6 +28,9 @@ public class PatientController {
     @Inject
     MedicalAppointmentService medicalAppointmentService;
 
+    @Inject
+    PatientTimelineService patientTimelineService;
+
     @GET
     public PageResponse<PatientDto> getPatients(
             @Valid @BeanParam PatientFilterDto filter,
@@ -33,6 +38,19 @@ public class PatientController {
         return patientService.getPatients(filter, pageRequest);
     }
 
+    @GET
+    @Path("/export")
+    @Produces({"application/x-ndjson", "text/csv"})
+    @RolesAllowed("admin")
+    public Response exportPatients(
+            @Valid @BeanParam PatientFilterDto filter,
+            @QueryParam("format") @DefaultValue("ndjson") String format) {
+        ListingExportService.Format exportFormat = ListingExportService.Format.fromValue(format);
+        return Response.ok(patientService.exportPatients(filter, exportFormat), exportFormat.mediaType())
+                .header("Content-Disposition", "attachment; filename=\"pacientes." + exportFormat.extension() + "\"")
+                .build();
+    }
+
     @GET
     @Path("/search")
     public List<PatientSearchDto> searchPatients(@QueryParam("q") String q) {
@@ -66,6 +84,21 @@ public class PatientController {
         return Response.noContent().build();
     }
 
+    /**
+     * Citas, expedientes, recetas, órdenes de laboratorio y antecedentes del paciente en una sola
+     * lista, del más reciente al más antiguo. Paginación por cursor: se envía el nextCursor de la
+     * respuesta anterior (sort y total no aplican).
+     */
+    @GET
+    @Path("/{id}/timeline")
+    @RolesAllowed({"admin", "doctor"})
+    public PageResponse<PatientTimelineEventDto> getTimeline(
+            @PathParam("id") UUID patientId,
+            @QueryParam("type") List<TimelineEventType> types,
+            @Valid @BeanParam CommonPageRequest pageRequest) {
+        return patientTimelineService.getTimeline(patientId, types, pageRequest);
+    }
+
     @GET
     @Path("/{id}/medical-history-pathological-fam")
     public List<MedicalHistoryPathologicalFamDto> getMedicalHistoryPathologicalFam(@PathParam("id") UUID patientId) {
@@ -96,10 +129,20 @@ public class PatientController {
 
     @GET
     @Path("/{id}/appointments")
-    public List<MedicalAppointmentDto> getMedicalAppointments(
+    public Response getMedicalAppointments(
+            @PathParam("id") UUID patientId,
+            @BeanParam MedicalAppointmentFilterDto filter,
+            @QueryParam("limit") @Min(1) Integer limit) {
+        return medicalAppointmentService.getMedicalAppointmentsByPatientId(patientId, filter, limit).toResponse();
+    }
+
+    @GET
+    @Path("/{id}/appointments/page")
+    public PageResponse<MedicalAppointmentDto> getMedicalAppointmentsPage(
             @PathParam("id") UUID patientId,
-            @BeanParam MedicalAppointmentFilterDto filter) {
-        return medicalAppointmentService.getMedicalAppointmentsByPatientId(patientId, filter);
+            @BeanParam MedicalAppointmentFilterDto filter,
+            @Valid @BeanParam CommonPageRequest pageRequest) {
+        return medicalAppointmentService.getMedicalAppointmentsPageByPatientId(patientId, filter, pageRequest);
     }
 
     @POST
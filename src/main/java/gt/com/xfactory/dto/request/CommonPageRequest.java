@@ -20,4 +20,32 @@ public class CommonPageRequest {
 
     @QueryParam("sort")
     private List<String> sort;
+
+    // Estrategia de totalItems: exact | estimated | capped | cached (por defecto pagination.total.strategy)
+    @QueryParam("total")
+    private String total;
+
+    /**
+     * Paginación por cursor (solo endpoints que la soportan): "cursor" para la primera página,
+     * luego se envía el nextCursor de la respuesta anterior. No calcula totales.
+     */
+    @QueryParam("pagination")
+    private String pagination;
+
+    @QueryParam("cursor")
+    private String cursor;
+
+    public boolean isKeyset() {
+        return cursor != null || "cursor".equalsIgnoreCase(pagination);
+    }
+
+    /**
+     * Para listados que solo se sirven por cursor: activa el keyset y usa defaultSort si no se pidió orden.
+     */
+    public void forceKeyset(String defaultSort) {
+        if (sort == null || sort.isEmpty()) {
+            sort = List.of(defaultSort);
+        }
+        pagination = "cursor";
+    }
 }
@@ -0,0 +1,25 @@
+package gt.com.xfactory.dto.request;
+
+import jakarta.validation.constraints.*;
+import jakarta.ws.rs.*;
+import lombok.*;
+
+import java.time.*;
+
+/**
+ * Ventana de fechas para los listados del historial de un paciente (expedientes, recetas,
+ * órdenes de laboratorio). Sin fechas se devuelve lo más reciente primero, hasta el tope.
+ */
+@Data
+public class PatientHistoryRequest {
+    @QueryParam("startDate")
+    private LocalDateTime startDate;
+
+    @QueryParam("endDate")
+    private LocalDateTime endDate;
+
+    // Filas máximas de los listados sin paginar; PatientHistoryLimits lo recorta a patient-history.max-rows
+    @QueryParam("limit")
+    @Min(1)
+    private Integer limit;
+}
@@ -0,0 +1,22 @@
+package gt.com.xfactory.dto.response;
+
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.*;
+import java.util.*;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppointmentTrendDto implements Serializable {
+    private LocalDate periodStart;
+    private UUID groupId;
+    private String groupName;
+    private long totalAppointments;
+    private long completed;
+    private long cancelled;
+    private long noShow;
+    private double noShowRate;
+}
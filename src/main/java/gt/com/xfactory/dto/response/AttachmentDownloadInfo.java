@@ -9,5 +9,18 @@ import lombok.*;
 public class AttachmentDownloadInfo {
     private String fileName;
     private String contentType;
-    private byte[] data;
+    private String etag;
+    // Content-Encoding del cuerpo (null si va sin codificar)
+    private String contentEncoding;
+    private long size;
+    private Body body;
+
+    /**
+     * Cuerpo de la respuesta para los bytes [offset, offset + length): PathPart (sendfile desde
+     * el BlobStore) o StreamingOutput. El contenido no pasa completo por memoria.
+     */
+    @FunctionalInterface
+    public interface Body {
+        Object range(long offset, long length);
+    }
 }
@@ -0,0 +1,17 @@
+package gt.com.xfactory.dto.response;
+
+import lombok.*;
+
+import java.io.Serializable;
+import java.util.*;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DiagnosisRankingDto implements Serializable {
+    private UUID diagnosisId;
+    private String code;
+    private String name;
+    private long count;
+}
@@ -0,0 +1,17 @@
+package gt.com.xfactory.dto.response;
+
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.*;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExportFileDto implements Serializable {
+    private String dataset;
+    private String fileName;
+    private long size;
+    private LocalDateTime createdAt;
+}
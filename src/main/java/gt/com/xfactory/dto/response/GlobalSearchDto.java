@@ -18,6 +18,9 @@ public class GlobalSearchDto implements Serializable {
     private List<ClinicResult> clinics;
     private List<RecordResult> records;
     private List<MedicationResult> medications;
+    private List<DiagnosisResult> diagnoses;
+    // Secciones que no respondieron antes del deadline (modo paralelo); vienen vacías
+    private List<String> timedOutSections;
 
     @Data @Builder @NoArgsConstructor @AllArgsConstructor
     public static class PatientResult implements Serializable {
@@ -68,4 +71,11 @@ public class GlobalSearchDto implements Serializable {
         private String code;
         private String concentration;
     }
+
+    @Data @Builder @NoArgsConstructor @AllArgsConstructor
+    public static class DiagnosisResult implements Serializable {
+        private UUID id;
+        private String code;
+        private String name;
+    }
 }
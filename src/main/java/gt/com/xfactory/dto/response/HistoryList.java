@@ -0,0 +1,42 @@
+package gt.com.xfactory.dto.response;
+
+import jakarta.ws.rs.core.Response;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Listado sin paginar del historial de un paciente. Los servicios piden una fila de más: si llega,
+ * se descarta y hasMore queda en true para que el cliente pase a la versión paginada.
+ */
+public class HistoryList<T> {
+    public static final String HAS_MORE_HEADER = "X-Has-More";
+
+    public List<T> content;
+    public boolean hasMore;
+
+    public HistoryList(List<T> content, boolean hasMore) {
+        this.content = content;
+        this.hasMore = hasMore;
+    }
+
+    /**
+     * Recorta a limit las filas obtenidas con limit + 1.
+     */
+    public static <T> HistoryList<T> of(List<T> rows, int limit) {
+        return rows.size() > limit
+                ? new HistoryList<>(rows.subList(0, limit), true)
+                : new HistoryList<>(rows, false);
+    }
+
+    /**
+     * Respuesta de los endpoints: la lista como cuerpo y hasMore en X-Has-More.
+     */
+    public Response toResponse() {
+        return Response.ok(content).header(HAS_MORE_HEADER, hasMore).build();
+    }
+
+    public <R> HistoryList<R> map(Function<? super T, R> converter) {
+        return new HistoryList<>(content.stream().map(converter).toList(), hasMore);
+    }
+}
@@ -1,10 +1,21 @@
 package gt.com.xfactory.dto.response;
 
 import gt.com.xfactory.dto.request.CommonPageRequest;
+import gt.com.xfactory.repository.ProjectionRepository;
+import gt.com.xfactory.service.impl.TotalCountService;
+import gt.com.xfactory.service.impl.TotalCountService.TotalCount;
+import gt.com.xfactory.utils.KeysetCursor;
+import gt.com.xfactory.utils.Projection;
+import gt.com.xfactory.utils.QueryUtils;
 import gt.com.xfactory.utils.SortUtils;
+import gt.com.xfactory.utils.SortUtils.SortKey;
+import io.quarkus.hibernate.orm.panache.PanacheQuery;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
 import io.quarkus.panache.common.Sort;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
@@ -15,6 +26,19 @@ public class PageResponse<T> {
     public int currentPage;
     public int totalPages;
     public long totalItems;
+    // Cómo se obtuvo totalItems: exact, estimated, capped (totalItems es un mínimo), cached o none
+    public String totalStrategy = TotalCountService.EXACT;
+    // Solo en paginación por cursor: token para la página siguiente (null si no hay más)
+    public String nextCursor;
+
+    /**
+     * Cómo obtener totalItems; los servicios pasan TotalCountService::count.
+     */
+    @FunctionalInterface
+    public interface TotalCounter {
+        TotalCount count(PanacheRepository<?> repository, String query, Map<String, Object> params,
+                         PanacheQuery<?> panacheQuery, String requestedStrategy);
+    }
 
     public PageResponse(List<T> content, int currentPage, int totalPages, long totalItems) {
         this.content = content;
@@ -28,11 +52,13 @@ public class PageResponse<T> {
             StringBuilder query,
             CommonPageRequest pageRequest,
             Map<String, Object> params,
-            Function<E, D> converter) {
+            Function<E, D> converter,
+            TotalCounter totalCounter) {
 
         Sort panacheSort = SortUtils.parseSortParameters(pageRequest.getSort());
         var panacheQuery = repository.find(query.toString(), panacheSort, params);
-        long totalItems = panacheQuery.count();
+        TotalCount total = totalCounter.count(repository, query.toString(), params, panacheQuery, pageRequest.getTotal());
+        long totalItems = total.value();
         int totalPages = (int) Math.ceil((double) totalItems / pageRequest.getSize());
 
         List<E> dataList = panacheQuery
@@ -43,6 +69,84 @@ public class PageResponse<T> {
                 .map(converter)
                 .collect(Collectors.toList());
 
-        return new PageResponse<>(content, pageRequest.getPage(), totalPages, totalItems);
+        PageResponse<D> response = new PageResponse<>(content, pageRequest.getPage(), totalPages, totalItems);
+        response.totalStrategy = total.strategy();
+        return response;
+    }
+
+    /**
+     * Igual que toPageResponse pero construye los DTOs con una consulta de tuplas (sin entidades en sesión).
+     */
+    public static <E, D, R extends PanacheRepository<E> & ProjectionRepository<E>> PageResponse<D> toPageResponse(
+            R repository,
+            StringBuilder query,
+            CommonPageRequest pageRequest,
+            Map<String, Object> params,
+            Projection<D> projection,
+            TotalCounter totalCounter) {
+
+        String where = query.toString();
+        TotalCount total = totalCounter.count(repository, where, params, repository.find(where, params), pageRequest.getTotal());
+        int totalPages = (int) Math.ceil((double) total.value() / pageRequest.getSize());
+
+        List<D> content = repository.project(projection, where, SortUtils.toOrderBy(pageRequest.getSort()), params,
+                pageRequest.getPage() * pageRequest.getSize(), pageRequest.getSize());
+
+        PageResponse<D> response = new PageResponse<>(content, pageRequest.getPage(), totalPages, total.value());
+        response.totalStrategy = total.strategy();
+        return response;
+    }
+
+    /**
+     * Paginación por keyset sobre una proyección: filtra "después del cursor" según las claves de
+     * ordenamiento en lugar de OFFSET y no ejecuta count(); totalPages y totalItems quedan en -1.
+     * Las claves se seleccionan delante de las rutas de la proyección para armar el cursor.
+     */
+    public static <E, D, R extends PanacheRepository<E> & ProjectionRepository<E>> PageResponse<D> toKeysetPageResponse(
+            R repository,
+            StringBuilder query,
+            CommonPageRequest pageRequest,
+            Map<String, Object> params,
+            Projection<D> projection) {
+
+        List<SortKey> keys = SortUtils.parseSortKeys(pageRequest.getSort());
+        Map<String, Object> queryParams = new HashMap<>(params);
+        String where = keysetWhere(repository, query, pageRequest, keys, queryParams);
+
+        List<String> paths = new ArrayList<>(keys.stream().map(SortKey::field).toList());
+        paths.addAll(projection.paths());
+
+        int size = pageRequest.getSize();
+        List<Object[]> rows = repository.projectRows(paths, where, SortUtils.toKeysetOrderBy(keys), queryParams, 0, size + 1);
+
+        String nextCursor = null;
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            nextCursor = KeysetCursor.encodeValues(keys, Arrays.asList(rows.get(size - 1)).subList(0, keys.size()));
+        }
+
+        List<D> content = rows.stream()
+                .map(row -> projection.map(row, keys.size()))
+                .collect(Collectors.toList());
+
+        return keysetResponse(content, nextCursor);
+    }
+
+    private static String keysetWhere(Object repository, StringBuilder query, CommonPageRequest pageRequest,
+                                      List<SortKey> keys, Map<String, Object> queryParams) {
+        String where = query.toString();
+        if (pageRequest.getCursor() != null) {
+            List<Object> values = KeysetCursor.decode(pageRequest.getCursor(), keys, QueryUtils.entityClassOf(repository));
+            String keyset = KeysetCursor.buildPredicate(keys, values, queryParams);
+            where = where.isBlank() ? keyset : "(" + where + ") AND " + keyset;
+        }
+        return where;
+    }
+
+    private static <D> PageResponse<D> keysetResponse(List<D> content, String nextCursor) {
+        PageResponse<D> response = new PageResponse<>(content, 0, -1, -1);
+        response.nextCursor = nextCursor;
+        response.totalStrategy = "none";
+        return response;
     }
 }
@@ -0,0 +1,24 @@
+package gt.com.xfactory.dto.response;
+
+import gt.com.xfactory.entity.enums.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.*;
+import java.util.*;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientTimelineEventDto implements Serializable {
+    private TimelineEventType eventType;
+    // Id de la cita, expediente, receta, orden o antecedente para abrir el detalle
+    private UUID sourceId;
+    private LocalDateTime occurredAt;
+    private String title;
+    private String summary;
+    private String status;
+    private UUID doctorId;
+    private String doctorName;
+}
@@ -0,0 +1,57 @@
+package gt.com.xfactory.entity;
+
+import gt.com.xfactory.entity.enums.*;
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.TenantId;
+
+import java.time.*;
+import java.util.*;
+
+/**
+ * Citas de un periodo (día, semana o mes) por clínica, médico y especialidad. Solo lectura desde JPA:
+ * las filas las recalcula AnalyticsRollupRepository con SQL nativo.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "analytics_appointment_rollup")
+@NoArgsConstructor
+public class AnalyticsAppointmentRollupEntity extends PanacheEntityBase {
+
+    @Id
+    @Column(name = "id")
+    private UUID id;
+
+    @Column(name = "grain", nullable = false, length = 5)
+    private AnalyticsGrain grain;
+
+    @Column(name = "period_start", nullable = false)
+    private LocalDate periodStart;
+
+    @Column(name = "clinic_id", nullable = false)
+    private UUID clinicId;
+
+    @Column(name = "doctor_id", nullable = false)
+    private UUID doctorId;
+
+    @Column(name = "specialty_id")
+    private UUID specialtyId;
+
+    @Column(name = "total_count", nullable = false)
+    private Integer totalCount;
+
+    @Column(name = "completed_count", nullable = false)
+    private Integer completedCount;
+
+    @Column(name = "cancelled_count", nullable = false)
+    private Integer cancelledCount;
+
+    @Column(name = "no_show_count", nullable = false)
+    private Integer noShowCount;
+
+    @TenantId
+    @Column(name = "organization_id", nullable = false, columnDefinition = "uuid")
+    private String organizationId;
+}
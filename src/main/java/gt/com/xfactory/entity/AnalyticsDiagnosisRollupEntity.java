@@ -0,0 +1,51 @@
+package gt.com.xfactory.entity;
+
+import gt.com.xfactory.entity.enums.*;
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.TenantId;
+
+import java.time.*;
+import java.util.*;
+
+/**
+ * Diagnósticos CIE-10 registrados en un periodo por clínica, médico y especialidad.
+ * Solo lectura desde JPA, igual que AnalyticsAppointmentRollupEntity.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "analytics_diagnosis_rollup")
+@NoArgsConstructor
+public class AnalyticsDiagnosisRollupEntity extends PanacheEntityBase {
+
+    @Id
+    @Column(name = "id")
+    private UUID id;
+
+    @Column(name = "grain", nullable = false, length = 5)
+    private AnalyticsGrain grain;
+
+    @Column(name = "period_start", nullable = false)
+    private LocalDate periodStart;
+
+    @Column(name = "clinic_id", nullable = false)
+    private UUID clinicId;
+
+    @Column(name = "doctor_id", nullable = false)
+    private UUID doctorId;
+
+    @Column(name = "specialty_id")
+    private UUID specialtyId;
+
+    @Column(name = "diagnosis_id", nullable = false)
+    private UUID diagnosisId;
+
+    @Column(name = "diagnosis_count", nullable = false)
+    private Integer diagnosisCount;
+
+    @TenantId
+    @Column(name = "organization_id", nullable = false, columnDefinition = "uuid")
+    private String organizationId;
+}
@@ -0,0 +1,28 @@
+package gt.com.xfactory.entity;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.TenantId;
+
+/**
+ * Cantidad de citas de un día por clínica, médico y estado. Solo lectura desde JPA:
+ * las filas se actualizan con upserts nativos (AppointmentDailyStatsRepository.increment).
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "appointment_daily_stats")
+@NoArgsConstructor
+public class AppointmentDailyStatsEntity extends PanacheEntityBase {
+
+    @EmbeddedId
+    private AppointmentDailyStatsId id;
+
+    @Column(name = "appointment_count", nullable = false)
+    private Integer appointmentCount;
+
+    @TenantId
+    @Column(name = "organization_id", nullable = false, columnDefinition = "uuid")
+    private String organizationId;
+}
@@ -0,0 +1,28 @@
+package gt.com.xfactory.entity;
+
+import gt.com.xfactory.entity.enums.*;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.*;
+import java.time.*;
+import java.util.*;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Embeddable
+public class AppointmentDailyStatsId implements Serializable {
+
+    @Column(name = "clinic_id", nullable = false)
+    private UUID clinicId;
+
+    @Column(name = "doctor_id", nullable = false)
+    private UUID doctorId;
+
+    @Column(name = "day", nullable = false)
+    private LocalDate day;
+
+    @Column(name = "status", nullable = false, length = 20)
+    private AppointmentStatus status;
+}
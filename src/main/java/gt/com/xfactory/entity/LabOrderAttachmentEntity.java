@@ -1,5 +1,6 @@
 package gt.com.xfactory.entity;
 
+import gt.com.xfactory.entity.enums.*;
 import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
 import jakarta.persistence.*;
 import lombok.*;
@@ -38,9 +39,18 @@ public class LabOrderAttachmentEntity extends PanacheEntityBase implements Seria
     @Column(name = "file_size", nullable = false)
     private Long fileSize;
 
+    // SHA-256 del contenido en el BlobStore
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    // Codificación del objeto en el BlobStore (gzip si se comprimió al guardarlo)
+    @Column(name = "content_encoding", nullable = false)
+    private ContentEncoding contentEncoding = ContentEncoding.identity;
+
+    // Solo filas anteriores al BlobStore, hasta que el job de migración las mueve
     @NotAudited
     @Basic(fetch = FetchType.LAZY)
-    @Column(name = "file_data", nullable = false)
+    @Column(name = "file_data")
     private byte[] fileData;
 
     @Column(name = "uploaded_by", length = 100)
@@ -97,6 +97,11 @@ public class MedicalAppointmentEntity extends PanacheEntityBase implements Seria
     @Column(name = "organization_id", nullable = false, columnDefinition = "uuid")
     private String organizationId;
 
+    // Las actualizaciones nativas de estado (AppointmentSchedulerService) también lo incrementan
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -90,6 +90,11 @@ public class PatientEntity extends PanacheEntityBase implements Serializable {
     @Column(name = "has_pathological_history", nullable = false)
     private Boolean hasPathologicalHistory = false;
 
+    // Nombre + DPI + teléfono normalizados (minúsculas, sin tildes); indexado con pg_trgm
+    @NotAudited
+    @Column(name = "search_text", length = 600)
+    private String searchText;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
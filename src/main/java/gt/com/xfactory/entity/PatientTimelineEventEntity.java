@@ -0,0 +1,54 @@
+package gt.com.xfactory.entity;
+
+import gt.com.xfactory.entity.enums.*;
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.TenantId;
+
+import java.time.*;
+import java.util.*;
+
+/**
+ * Evento del timeline de un paciente, copia resumida de la fila de origen (source_id).
+ * Solo lectura desde JPA: las filas se escriben con upserts nativos (PatientTimelineRepository).
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "patient_timeline_event")
+@NoArgsConstructor
+public class PatientTimelineEventEntity extends PanacheEntityBase {
+
+    @Id
+    @Column(name = "source_id")
+    private UUID sourceId;
+
+    @Column(name = "event_type", nullable = false)
+    private TimelineEventType eventType;
+
+    @Column(name = "patient_id", nullable = false)
+    private UUID patientId;
+
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDateTime occurredAt;
+
+    @Column(name = "title")
+    private String title;
+
+    @Column(name = "summary")
+    private String summary;
+
+    @Column(name = "status")
+    private String status;
+
+    @Column(name = "doctor_id")
+    private UUID doctorId;
+
+    @Column(name = "doctor_name")
+    private String doctorName;
+
+    @TenantId
+    @Column(name = "organization_id", nullable = false, columnDefinition = "uuid")
+    private String organizationId;
+}
@@ -0,0 +1,29 @@
+package gt.com.xfactory.entity.converter;
+
+import gt.com.xfactory.entity.enums.AnalyticsGrain;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+@Converter(autoApply = true)
+public class AnalyticsGrainConverter implements AttributeConverter<AnalyticsGrain, String> {
+
+    @Override
+    public String convertToDatabaseColumn(AnalyticsGrain status) {
+        if (status == null) {
+            return null;
+        }
+        return status.name();
+    }
+
+    @Override
+    public AnalyticsGrain convertToEntityAttribute(String dbData) {
+        if (dbData == null || dbData.isEmpty()) {
+            return null;
+        }
+        try {
+            return AnalyticsGrain.valueOf(dbData);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package gt.com.xfactory.entity.converter;
+
+import gt.com.xfactory.entity.enums.ContentEncoding;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+@Converter(autoApply = true)
+public class ContentEncodingConverter implements AttributeConverter<ContentEncoding, String> {
+
+    @Override
+    public String convertToDatabaseColumn(ContentEncoding encoding) {
+        if (encoding == null) {
+            return null;
+        }
+        return encoding.name();
+    }
+
+    @Override
+    public ContentEncoding convertToEntityAttribute(String dbData) {
+        if (dbData == null || dbData.isEmpty()) {
+            return null;
+        }
+        try {
+            return ContentEncoding.valueOf(dbData);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
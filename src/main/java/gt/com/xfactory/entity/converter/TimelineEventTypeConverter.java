@@ -0,0 +1,29 @@
+package gt.com.xfactory.entity.converter;
+
+import gt.com.xfactory.entity.enums.TimelineEventType;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+@Converter(autoApply = true)
+public class TimelineEventTypeConverter implements AttributeConverter<TimelineEventType, String> {
+
+    @Override
+    public String convertToDatabaseColumn(TimelineEventType status) {
+        if (status == null) {
+            return null;
+        }
+        return status.name();
+    }
+
+    @Override
+    public TimelineEventType convertToEntityAttribute(String dbData) {
+        if (dbData == null || dbData.isEmpty()) {
+            return null;
+        }
+        try {
+            return TimelineEventType.valueOf(dbData);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package gt.com.xfactory.entity.enums;
+
+import java.time.*;
+import java.time.temporal.*;
+
+public enum AnalyticsGrain {
+    day,
+    week,
+    month;
+
+    /**
+     * Inicio del periodo que contiene date (las semanas empiezan el lunes, como date_trunc).
+     */
+    public LocalDate periodStart(LocalDate date) {
+        return switch (this) {
+            case day -> date;
+            case week -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case month -> date.withDayOfMonth(1);
+        };
+    }
+
+    public LocalDate next(LocalDate periodStart) {
+        return switch (this) {
+            case day -> periodStart.plusDays(1);
+            case week -> periodStart.plusWeeks(1);
+            case month -> periodStart.plusMonths(1);
+        };
+    }
+}
@@ -0,0 +1,10 @@
+package gt.com.xfactory.entity.enums;
+
+/**
+ * Codificación con la que un objeto está guardado en el BlobStore; el nombre es el valor del
+ * header Content-Encoding.
+ */
+public enum ContentEncoding {
+    identity,
+    gzip
+}
@@ -0,0 +1,9 @@
+package gt.com.xfactory.entity.enums;
+
+public enum TimelineEventType {
+    appointment,
+    medical_record,
+    prescription,
+    lab_order,
+    medical_history
+}
@@ -0,0 +1,202 @@
+package gt.com.xfactory.repository;
+
+import gt.com.xfactory.entity.*;
+import gt.com.xfactory.entity.enums.*;
+import io.quarkus.hibernate.orm.panache.*;
+import jakarta.enterprise.context.*;
+
+import java.sql.Date;
+import java.time.*;
+import java.util.*;
+
+/**
+ * Mantenimiento de los rollups de analítica (analytics_*_rollup) con SQL nativo. Las consultas
+ * llevan organization_id explícito porque se ejecutan desde jobs sin tenant en contexto.
+ */
+@ApplicationScoped
+public class AnalyticsRollupRepository implements PanacheRepositoryBase<AnalyticsAppointmentRollupEntity, UUID> {
+
+    public void markDirty(String organizationId, LocalDate day) {
+        getEntityManager().createNativeQuery("""
+                        INSERT INTO analytics_dirty_day (organization_id, day) VALUES (:organizationId, :day)
+                        ON CONFLICT DO NOTHING
+                        """)
+                .setParameter("organizationId", organizationId)
+                .setParameter("day", day)
+                .executeUpdate();
+    }
+
+    /**
+     * Marca como pendientes los días de [from, to) con citas o con rollups (para borrar los que
+     * ya no tienen citas). organizationId null marca todas las organizaciones.
+     */
+    public int markDirtyRange(String organizationId, LocalDate from, LocalDate to) {
+        return getEntityManager().createNativeQuery("""
+                        INSERT INTO analytics_dirty_day (organization_id, day)
+                        SELECT DISTINCT organization_id, CAST(appointment_date AS DATE) FROM medical_appointment
+                         WHERE appointment_date >= :from AND appointment_date < :to
+                           AND (CAST(:organizationId AS VARCHAR) IS NULL OR organization_id = :organizationId)
+                        UNION
+                        SELECT DISTINCT organization_id, period_start FROM analytics_appointment_rollup
+                         WHERE grain = 'day' AND period_start >= :from AND period_start < :to
+                           AND (CAST(:organizationId AS VARCHAR) IS NULL OR organization_id = :organizationId)
+                        ON CONFLICT DO NOTHING
+                        """)
+                .setParameter("organizationId", organizationId)
+                .setParameter("from", from.atStartOfDay())
+                .setParameter("to", to.atStartOfDay())
+                .executeUpdate();
+    }
+
+    /**
+     * Toma (y borra) hasta limit días pendientes. Las filas quedan bloqueadas hasta el commit, así que
+     * una cita que cambie mientras tanto vuelve a marcar su día después de este recálculo.
+     */
+    public Map<String, List<LocalDate>> claimDirtyDays(int limit) {
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = getEntityManager().createNativeQuery("""
+                        SELECT organization_id, day FROM analytics_dirty_day
+                         ORDER BY organization_id, day
+                         LIMIT :limit
+                         FOR UPDATE SKIP LOCKED
+                        """)
+                .setParameter("limit", limit)
+                .getResultList();
+
+        Map<String, List<LocalDate>> days = new TreeMap<>();
+        for (Object[] row : rows) {
+            days.computeIfAbsent(row[0].toString(), k -> new ArrayList<>()).add(toLocalDate(row[1]));
+        }
+        days.forEach((organizationId, orgDays) -> getEntityManager()
+                .createNativeQuery("DELETE FROM analytics_dirty_day WHERE organization_id = :organizationId AND day IN (:days)")
+                .setParameter("organizationId", organizationId)
+                .setParameter("days", orgDays)
+                .executeUpdate());
+        return days;
+    }
+
+    /**
+     * Recalcula los rollups diarios de citas y diagnósticos de los días indicados.
+     */
+    public void rebuildDays(String organizationId, List<LocalDate> days) {
+        LocalDate from = Collections.min(days);
+        LocalDate to = Collections.max(days).plusDays(1);
+
+        lock(organizationId);
+        deletePeriods("analytics_appointment_rollup", organizationId, AnalyticsGrain.day, days);
+        getEntityManager().createNativeQuery("""
+                        INSERT INTO analytics_appointment_rollup (grain, period_start, clinic_id, doctor_id, specialty_id,
+                                total_count, completed_count, cancelled_count, no_show_count, organization_id)
+                        SELECT 'day', CAST(ma.appointment_date AS DATE), ma.clinic_id, ma.doctor_id, ma.specialty_id,
+                               COUNT(*),
+                               COUNT(*) FILTER (WHERE ma.status = 'completed'),
+                               COUNT(*) FILTER (WHERE ma.status = 'cancelled'),
+                               COUNT(*) FILTER (WHERE ma.status = 'no_show'),
+                               ma.organization_id
+                          FROM medical_appointment ma
+                         WHERE ma.organization_id = :organizationId
+                           AND ma.appointment_date >= :from AND ma.appointment_date < :to
+                           AND CAST(ma.appointment_date AS DATE) IN (:days)
+                         GROUP BY CAST(ma.appointment_date AS DATE), ma.clinic_id, ma.doctor_id, ma.specialty_id,
+                                  ma.organization_id
+                        """)
+                .setParameter("organizationId", organizationId)
+                .setParameter("from", from.atStartOfDay())
+                .setParameter("to", to.atStartOfDay())
+                .setParameter("days", days)
+                .executeUpdate();
+
+        deletePeriods("analytics_diagnosis_rollup", organizationId, AnalyticsGrain.day, days);
+        getEntityManager().createNativeQuery("""
+                        INSERT INTO analytics_diagnosis_rollup (grain, period_start, clinic_id, doctor_id, specialty_id,
+                                diagnosis_id, diagnosis_count, organization_id)
+                        SELECT 'day', CAST(ma.appointment_date AS DATE), ma.clinic_id, ma.doctor_id, ma.specialty_id,
+                               ad.diagnosis_id, COUNT(*), ma.organization_id
+                          FROM appointment_diagnosis ad
+                          JOIN medical_appointment ma ON ma.id = ad.appointment_id
+                         WHERE ma.organization_id = :organizationId
+                           AND ma.appointment_date >= :from AND ma.appointment_date < :to
+                           AND CAST(ma.appointment_date AS DATE) IN (:days)
+                         GROUP BY CAST(ma.appointment_date AS DATE), ma.clinic_id, ma.doctor_id, ma.specialty_id,
+                                  ad.diagnosis_id, ma.organization_id
+                        """)
+                .setParameter("organizationId", organizationId)
+                .setParameter("from", from.atStartOfDay())
+                .setParameter("to", to.atStartOfDay())
+                .setParameter("days", days)
+                .executeUpdate();
+    }
+
+    /**
+     * Recalcula los periodos semanales o mensuales indicados sumando sus rollups diarios.
+     */
+    public void rebuildPeriods(String organizationId, AnalyticsGrain grain, List<LocalDate> periods) {
+        LocalDate from = Collections.min(periods);
+        LocalDate to = grain.next(Collections.max(periods));
+
+        lock(organizationId);
+        deletePeriods("analytics_appointment_rollup", organizationId, grain, periods);
+        getEntityManager().createNativeQuery("""
+                        INSERT INTO analytics_appointment_rollup (grain, period_start, clinic_id, doctor_id, specialty_id,
+                                total_count, completed_count, cancelled_count, no_show_count, organization_id)
+                        SELECT :grain, CAST(date_trunc(:grain, CAST(period_start AS TIMESTAMP)) AS DATE), clinic_id, doctor_id, specialty_id,
+                               SUM(total_count), SUM(completed_count), SUM(cancelled_count), SUM(no_show_count),
+                               organization_id
+                          FROM analytics_appointment_rollup
+                         WHERE organization_id = :organizationId AND grain = 'day'
+                           AND period_start >= :from AND period_start < :to
+                           AND CAST(date_trunc(:grain, CAST(period_start AS TIMESTAMP)) AS DATE) IN (:periods)
+                         GROUP BY 2, clinic_id, doctor_id, specialty_id, organization_id
+                        """)
+                .setParameter("grain", grain.name())
+                .setParameter("organizationId", organizationId)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .setParameter("periods", periods)
+                .executeUpdate();
+
+        deletePeriods("analytics_diagnosis_rollup", organizationId, grain, periods);
+        getEntityManager().createNativeQuery("""
+                        INSERT INTO analytics_diagnosis_rollup (grain, period_start, clinic_id, doctor_id, specialty_id,
+                                diagnosis_id, diagnosis_count, organization_id)
+                        SELECT :grain, CAST(date_trunc(:grain, CAST(period_start AS TIMESTAMP)) AS DATE), clinic_id, doctor_id, specialty_id,
+                               diagnosis_id, SUM(diagnosis_count), organization_id
+                          FROM analytics_diagnosis_rollup
+                         WHERE organization_id = :organizationId AND grain = 'day'
+                           AND period_start >= :from AND period_start < :to
+                           AND CAST(date_trunc(:grain, CAST(period_start AS TIMESTAMP)) AS DATE) IN (:periods)
+                         GROUP BY 2, clinic_id, doctor_id, specialty_id, diagnosis_id, organization_id
+                        """)
+                .setParameter("grain", grain.name())
+                .setParameter("organizationId", organizationId)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .setParameter("periods", periods)
+                .executeUpdate();
+    }
+
+    private void deletePeriods(String table, String organizationId, AnalyticsGrain grain, List<LocalDate> periods) {
+        getEntityManager().createNativeQuery("DELETE FROM " + table
+                        + " WHERE organization_id = :organizationId AND grain = :grain AND period_start IN (:periods)")
+                .setParameter("organizationId", organizationId)
+                .setParameter("grain", grain.name())
+                .setParameter("periods", periods)
+                .executeUpdate();
+    }
+
+    /**
+     * Serializa los recálculos de la organización hasta el fin de la transacción: dos jobs con días de la
+     * misma semana o mes borrarían los mismos periodos y los insertarían dos veces.
+     */
+    private void lock(String organizationId) {
+        getEntityManager().createNativeQuery("SELECT pg_advisory_xact_lock(hashtextextended(:key, 0))")
+                .setParameter("key", "analytics_rollup:" + organizationId)
+                .getResultList();
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        if (value instanceof LocalDate date) return date;
+        if (value instanceof Date date) return date.toLocalDate();
+        throw new IllegalArgumentException("Cannot convert to LocalDate: " + value.getClass());
+    }
+}
@@ -0,0 +1,57 @@
+package gt.com.xfactory.repository;
+
+import gt.com.xfactory.entity.*;
+import io.quarkus.hibernate.orm.panache.*;
+import jakarta.enterprise.context.*;
+
+import java.time.*;
+
+@ApplicationScoped
+public class AppointmentDailyStatsRepository implements PanacheRepositoryBase<AppointmentDailyStatsEntity, AppointmentDailyStatsId> {
+
+    /**
+     * Suma delta al contador de la fila (la crea si no existe). Nativo porque el upsert
+     * debe ser atómico frente a cambios concurrentes de otras citas del mismo día.
+     */
+    public void increment(String organizationId, AppointmentDailyStatsId id, int delta) {
+        getEntityManager().createNativeQuery("""
+                        INSERT INTO appointment_daily_stats (clinic_id, doctor_id, day, status, appointment_count, organization_id)
+                        VALUES (:clinicId, :doctorId, :day, :status, :delta, :organizationId)
+                        ON CONFLICT (clinic_id, doctor_id, day, status)
+                        DO UPDATE SET appointment_count = appointment_daily_stats.appointment_count + EXCLUDED.appointment_count
+                        """)
+                .setParameter("clinicId", id.getClinicId())
+                .setParameter("doctorId", id.getDoctorId())
+                .setParameter("day", id.getDay())
+                .setParameter("status", id.getStatus().name())
+                .setParameter("delta", delta)
+                .setParameter("organizationId", organizationId)
+                .executeUpdate();
+    }
+
+    /**
+     * Recalcula desde medical_appointment los contadores de [from, to) de todas las organizaciones.
+     * Bloquea la tabla frente a los increment concurrentes: los cambios ya contados quedan en el
+     * recálculo y los que llegan después se aplican sobre él.
+     */
+    public int recomputeDays(LocalDate from, LocalDate to) {
+        getEntityManager().createNativeQuery("LOCK TABLE appointment_daily_stats IN SHARE ROW EXCLUSIVE MODE")
+                .executeUpdate();
+        getEntityManager().createNativeQuery("DELETE FROM appointment_daily_stats WHERE day >= :from AND day < :to")
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .executeUpdate();
+        return getEntityManager().createNativeQuery("""
+                        INSERT INTO appointment_daily_stats (clinic_id, doctor_id, day, status, appointment_count, organization_id)
+                        SELECT clinic_id, doctor_id, CAST(appointment_date AS DATE), CAST(status AS VARCHAR), COUNT(*),
+                               organization_id
+                          FROM medical_appointment
+                         WHERE appointment_date >= :from AND appointment_date < :to
+                         GROUP BY clinic_id, doctor_id, CAST(appointment_date AS DATE), CAST(status AS VARCHAR),
+                                  organization_id
+                        """)
+                .setParameter("from", from.atStartOfDay())
+                .setParameter("to", to.atStartOfDay())
+                .executeUpdate();
+    }
+}
@@ -5,6 +5,7 @@ import io.quarkus.hibernate.orm.panache.PanacheRepository;
 import jakarta.enterprise.context.ApplicationScoped;
 
 import java.util.*;
+import java.util.stream.*;
 
 @ApplicationScoped
 public class AppointmentDiagnosisRepository implements PanacheRepository<AppointmentDiagnosisEntity> {
@@ -13,6 +14,13 @@ public class AppointmentDiagnosisRepository implements PanacheRepository<Appoint
         return list("appointment.id", appointmentId);
     }
 
+    public Map<UUID, List<AppointmentDiagnosisEntity>> findByAppointmentIds(Collection<UUID> appointmentIds) {
+        if (appointmentIds == null || appointmentIds.isEmpty()) return Collections.emptyMap();
+        return find("FROM AppointmentDiagnosisEntity ad JOIN FETCH ad.diagnosis WHERE ad.appointment.id IN ?1", appointmentIds)
+                .stream()
+                .collect(Collectors.groupingBy(ad -> ad.getAppointment().getId()));
+    }
+
     public long deleteByAppointmentId(UUID appointmentId) {
         return delete("appointment.id", appointmentId);
     }
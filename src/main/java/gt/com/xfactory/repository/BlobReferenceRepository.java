@@ -0,0 +1,81 @@
+package gt.com.xfactory.repository;
+
+import gt.com.xfactory.entity.enums.*;
+import jakarta.enterprise.context.*;
+import jakarta.inject.*;
+import jakarta.persistence.*;
+
+import java.util.*;
+
+/**
+ * Contador de referencias de cada objeto del BlobStore (blob_object). Es global: el mismo contenido
+ * subido en dos organizaciones se guarda una vez. Cada operación toma antes un advisory lock de
+ * transacción sobre el hash, así que tomar una referencia y purgar el objeto no se cruzan.
+ */
+@ApplicationScoped
+public class BlobReferenceRepository {
+
+    @Inject
+    EntityManager em;
+
+    /**
+     * Referencia tomada: codificación con la que está (o quedará) guardado el objeto, y si esta
+     * llamada creó la fila, en cuyo caso quien la toma debe publicar el contenido.
+     */
+    public record Reference(ContentEncoding encoding, boolean created) {
+    }
+
+    /**
+     * Toma una referencia al objeto. Si ya existía conserva su codificación, aunque encoding sea otra.
+     */
+    public Reference acquire(String hash, long size, ContentEncoding encoding) {
+        lock(hash);
+        Object[] row = (Object[]) em.createNativeQuery("""
+                        INSERT INTO blob_object (hash, size_bytes, ref_count, codec, created_at)
+                        VALUES (:hash, :size, 1, :codec, now())
+                        ON CONFLICT (hash) DO UPDATE SET ref_count = blob_object.ref_count + 1
+                        RETURNING codec, (xmax = 0)
+                        """)
+                .setParameter("hash", hash)
+                .setParameter("size", size)
+                .setParameter("codec", encoding.name())
+                .getSingleResult();
+        return new Reference(ContentEncoding.valueOf((String) row[0]), (Boolean) row[1]);
+    }
+
+    /**
+     * Suelta una referencia y devuelve las que quedan (0 si el objeto ya no se usa).
+     */
+    public int release(String hash) {
+        lock(hash);
+        List<?> remaining = em.createNativeQuery(
+                        "UPDATE blob_object SET ref_count = ref_count - 1 WHERE hash = :hash RETURNING ref_count")
+                .setParameter("hash", hash)
+                .getResultList();
+        return remaining.isEmpty() ? 0 : ((Number) remaining.get(0)).intValue();
+    }
+
+    /**
+     * Borra la fila si el objeto no tiene referencias. Devuelve true si el contenido puede eliminarse
+     * (tampoco se borra si otra transacción lo volvió a referenciar).
+     */
+    public boolean removeIfUnreferenced(String hash) {
+        lock(hash);
+        List<?> refs = em.createNativeQuery("SELECT ref_count FROM blob_object WHERE hash = :hash")
+                .setParameter("hash", hash)
+                .getResultList();
+        if (!refs.isEmpty() && ((Number) refs.get(0)).intValue() > 0) {
+            return false;
+        }
+        em.createNativeQuery("DELETE FROM blob_object WHERE hash = :hash")
+                .setParameter("hash", hash)
+                .executeUpdate();
+        return true;
+    }
+
+    private void lock(String hash) {
+        em.createNativeQuery("SELECT pg_advisory_xact_lock(hashtextextended(:hash, 0))")
+                .setParameter("hash", hash)
+                .getResultList();
+    }
+}
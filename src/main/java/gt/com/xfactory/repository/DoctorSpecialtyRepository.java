@@ -27,7 +27,7 @@ public class DoctorSpecialtyRepository implements PanacheRepository<DoctorSpecia
 
     public Map<UUID, List<DoctorSpecialtyEntity>> findByDoctorIds(List<UUID> doctorIds) {
         if (doctorIds == null || doctorIds.isEmpty()) return Collections.emptyMap();
-        return find("id.doctorId in ?1", doctorIds)
+        return find("FROM DoctorSpecialtyEntity ds JOIN FETCH ds.specialty WHERE ds.id.doctorId in ?1", doctorIds)
                 .stream()
                 .collect(Collectors.groupingBy(ds -> ds.getId().getDoctorId()));
     }
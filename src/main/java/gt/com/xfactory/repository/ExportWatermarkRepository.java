@@ -0,0 +1,44 @@
+package gt.com.xfactory.repository;
+
+import jakarta.enterprise.context.*;
+import jakarta.inject.*;
+import jakarta.persistence.*;
+
+import java.sql.Timestamp;
+import java.time.*;
+import java.util.*;
+
+/**
+ * Marcas de agua de export_watermark. SQL nativo con organization_id explícito: las exportaciones
+ * corren fuera del request que las pidió.
+ */
+@ApplicationScoped
+public class ExportWatermarkRepository {
+
+    @Inject
+    EntityManager em;
+
+    public Optional<LocalDateTime> find(String organizationId, String dataset) {
+        List<?> watermarks = em.createNativeQuery("SELECT watermark FROM export_watermark "
+                        + "WHERE organization_id = :organizationId AND dataset = :dataset")
+                .setParameter("organizationId", organizationId)
+                .setParameter("dataset", dataset)
+                .getResultList();
+        return watermarks.stream()
+                .findFirst()
+                .map(value -> value instanceof Timestamp ts ? ts.toLocalDateTime() : (LocalDateTime) value);
+    }
+
+    public void save(String organizationId, String dataset, LocalDateTime watermark) {
+        em.createNativeQuery("""
+                        INSERT INTO export_watermark (organization_id, dataset, watermark, exported_at)
+                        VALUES (:organizationId, :dataset, :watermark, now())
+                        ON CONFLICT (organization_id, dataset)
+                        DO UPDATE SET watermark = EXCLUDED.watermark, exported_at = EXCLUDED.exported_at
+                        """)
+                .setParameter("organizationId", organizationId)
+                .setParameter("dataset", dataset)
+                .setParameter("watermark", watermark)
+                .executeUpdate();
+    }
+}
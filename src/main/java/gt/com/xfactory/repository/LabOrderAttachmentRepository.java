@@ -1,13 +1,15 @@
 package gt.com.xfactory.repository;
 
 import gt.com.xfactory.entity.LabOrderAttachmentEntity;
+import gt.com.xfactory.entity.enums.ContentEncoding;
+import gt.com.xfactory.utils.Projection;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
 import jakarta.enterprise.context.ApplicationScoped;
 
 import java.util.*;
 
 @ApplicationScoped
-public class LabOrderAttachmentRepository implements PanacheRepository<LabOrderAttachmentEntity> {
+public class LabOrderAttachmentRepository implements PanacheRepository<LabOrderAttachmentEntity>, ProjectionRepository<LabOrderAttachmentEntity> {
 
     public List<LabOrderAttachmentEntity> findByLabOrderId(UUID labOrderId) {
         return find("labOrder.id", labOrderId).list();
@@ -16,4 +18,86 @@ public class LabOrderAttachmentRepository implements PanacheRepository<LabOrderA
     public Optional<LabOrderAttachmentEntity> findByIdOptional(UUID id) {
         return find("id", id).firstResultOptional();
     }
+
+    /**
+     * content_hash de cada adjunto de la orden (uno por adjunto, repetido si dos adjuntos comparten
+     * contenido); los que aún están en file_data no aparecen.
+     */
+    public List<String> findContentHashesByLabOrderId(UUID labOrderId) {
+        return getEntityManager()
+                .createQuery("SELECT a.contentHash FROM LabOrderAttachmentEntity a WHERE a.labOrder.id = :labOrderId AND a.contentHash IS NOT NULL", String.class)
+                .setParameter("labOrderId", labOrderId)
+                .getResultList();
+    }
+
+    // ========== Migración de file_data al BlobStore (SQL nativo: todas las organizaciones) ==========
+
+    public record LegacyAttachment(UUID id, String contentType) {
+    }
+
+    /**
+     * Bloquea hasta limit adjuntos que aún guardan el contenido en file_data, saltando los que otra
+     * instancia ya está migrando.
+     */
+    @SuppressWarnings("unchecked")
+    public List<LegacyAttachment> lockLegacy(int limit) {
+        return ((List<Object[]>) getEntityManager().createNativeQuery("""
+                        SELECT id, content_type FROM lab_order_attachment WHERE content_hash IS NULL
+                        ORDER BY created_at LIMIT :limit FOR UPDATE SKIP LOCKED
+                        """)
+                .setParameter("limit", limit)
+                .getResultList()).stream()
+                .map(row -> new LegacyAttachment(
+                        row[0] instanceof UUID uuid ? uuid : UUID.fromString(row[0].toString()), (String) row[1]))
+                .toList();
+    }
+
+    public byte[] findLegacyData(UUID id) {
+        return (byte[]) getEntityManager()
+                .createNativeQuery("SELECT file_data FROM lab_order_attachment WHERE id = :id")
+                .setParameter("id", id)
+                .getSingleResult();
+    }
+
+    /**
+     * Tamaño de file_data, o null si la fila no tiene contenido.
+     */
+    public Long findLegacyDataLength(UUID id) {
+        Object length = getEntityManager()
+                .createNativeQuery("SELECT octet_length(file_data) FROM lab_order_attachment WHERE id = :id")
+                .setParameter("id", id)
+                .getSingleResult();
+        return length != null ? ((Number) length).longValue() : null;
+    }
+
+    /**
+     * Tramo de file_data desde offset (base 0), para leerlo por partes sin cargar la columna completa.
+     */
+    public byte[] findLegacyDataChunk(UUID id, long offset, int length) {
+        return (byte[]) getEntityManager()
+                .createNativeQuery("SELECT substring(file_data FROM :start FOR :length) FROM lab_order_attachment WHERE id = :id")
+                .setParameter("start", offset + 1)
+                .setParameter("length", length)
+                .setParameter("id", id)
+                .getSingleResult();
+    }
+
+    public void moveToBlob(UUID id, String contentHash, ContentEncoding encoding, long size) {
+        getEntityManager()
+                .createNativeQuery("""
+                        UPDATE lab_order_attachment
+                        SET content_hash = :hash, content_encoding = :encoding, file_size = :size, file_data = NULL
+                        WHERE id = :id
+                        """)
+                .setParameter("hash", contentHash)
+                .setParameter("encoding", encoding.name())
+                .setParameter("size", size)
+                .setParameter("id", id)
+                .executeUpdate();
+    }
+
+    public <D> List<D> projectByLabOrderIds(Projection<D> projection, Collection<UUID> labOrderIds) {
+        if (labOrderIds.isEmpty()) return List.of();
+        return project(projection, "labOrder.id IN :labOrderIds", "createdAt", Map.of("labOrderIds", labOrderIds));
+    }
 }
@@ -2,19 +2,43 @@ package gt.com.xfactory.repository;
 
 import gt.com.xfactory.entity.LabOrderEntity;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import io.quarkus.panache.common.Sort;
 import jakarta.enterprise.context.ApplicationScoped;
 
+import java.time.LocalDateTime;
 import java.util.*;
 
 @ApplicationScoped
-public class LabOrderRepository implements PanacheRepository<LabOrderEntity> {
-
-    public List<LabOrderEntity> findByPatientId(UUID patientId) {
-        return find("patient.id", patientId).list();
+public class LabOrderRepository implements PanacheRepository<LabOrderEntity>, ProjectionRepository<LabOrderEntity> {
+
+    /**
+     * Órdenes del paciente con fecha de orden dentro de [from, to] (extremos opcionales), de la más
+     * reciente a la más antigua, hasta limit filas.
+     */
+    public List<LabOrderEntity> findByPatientId(UUID patientId, LocalDateTime from, LocalDateTime to, int limit) {
+        return findByPatientIdAndDoctorId(patientId, null, from, to, limit);
     }
 
-    public List<LabOrderEntity> findByPatientIdAndDoctorId(UUID patientId, UUID doctorId) {
-        return find("patient.id = ?1 AND doctor.id = ?2", patientId, doctorId).list();
+    public List<LabOrderEntity> findByPatientIdAndDoctorId(UUID patientId, UUID doctorId, LocalDateTime from,
+                                                           LocalDateTime to, int limit) {
+        StringBuilder query = new StringBuilder("patient.id = :patientId");
+        Map<String, Object> params = new HashMap<>();
+        params.put("patientId", patientId);
+        if (doctorId != null) {
+            query.append(" AND doctor.id = :doctorId");
+            params.put("doctorId", doctorId);
+        }
+        if (from != null) {
+            query.append(" AND orderDate >= :from");
+            params.put("from", from);
+        }
+        if (to != null) {
+            query.append(" AND orderDate <= :to");
+            params.put("to", to);
+        }
+        return find(query.toString(), Sort.descending("orderDate", "id"), params)
+                .range(0, limit - 1)
+                .list();
     }
 
     public List<LabOrderEntity> findByDoctorId(UUID doctorId) {
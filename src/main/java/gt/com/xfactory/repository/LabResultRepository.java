@@ -1,13 +1,14 @@
 package gt.com.xfactory.repository;
 
 import gt.com.xfactory.entity.LabResultEntity;
+import gt.com.xfactory.utils.Projection;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
 import jakarta.enterprise.context.ApplicationScoped;
 
 import java.util.*;
 
 @ApplicationScoped
-public class LabResultRepository implements PanacheRepository<LabResultEntity> {
+public class LabResultRepository implements PanacheRepository<LabResultEntity>, ProjectionRepository<LabResultEntity> {
 
     public List<LabResultEntity> findByLabOrderId(UUID labOrderId) {
         return find("labOrder.id", labOrderId).list();
@@ -16,4 +17,9 @@ public class LabResultRepository implements PanacheRepository<LabResultEntity> {
     public Optional<LabResultEntity> findByIdOptional(UUID id) {
         return find("id", id).firstResultOptional();
     }
+
+    public <D> List<D> projectByLabOrderIds(Projection<D> projection, Collection<UUID> labOrderIds) {
+        if (labOrderIds.isEmpty()) return List.of();
+        return project(projection, "labOrder.id IN :labOrderIds", null, Map.of("labOrderIds", labOrderIds));
+    }
 }
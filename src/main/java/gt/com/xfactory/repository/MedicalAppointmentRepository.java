@@ -2,60 +2,97 @@ package gt.com.xfactory.repository;
 
 import gt.com.xfactory.dto.request.filter.MedicalAppointmentFilterDto;
 import gt.com.xfactory.entity.MedicalAppointmentEntity;
+import io.quarkus.hibernate.orm.panache.PanacheQuery;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
 import jakarta.enterprise.context.ApplicationScoped;
+import org.hibernate.jpa.HibernateHints;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @ApplicationScoped
 public class MedicalAppointmentRepository implements PanacheRepository<MedicalAppointmentEntity> {
 
+    // Listados: paciente, médico, clínica y especialidad se leen siempre al mapear a DTO
+    private static final String FETCH_FOR_LIST = "FROM MedicalAppointmentEntity a"
+            + " JOIN FETCH a.patient JOIN FETCH a.doctor JOIN FETCH a.clinic LEFT JOIN FETCH a.specialty WHERE ";
+
     public List<MedicalAppointmentEntity> findByPatientId(UUID patientId) {
         return find("patient.id", patientId).list();
     }
 
-    public List<MedicalAppointmentEntity> findByPatientIdWithFilters(UUID patientId, MedicalAppointmentFilterDto filter) {
-        StringBuilder query = new StringBuilder("patient.id = :patientId");
+    /**
+     * Citas del paciente que cumplen el filtro, de la más reciente a la más antigua, hasta limit filas.
+     */
+    public List<MedicalAppointmentEntity> findByPatientIdWithFilters(UUID patientId, MedicalAppointmentFilterDto filter,
+                                                                     int limit) {
+        return patientQuery(patientId, filter, null, null).range(0, limit - 1).list();
+    }
+
+    /**
+     * Página por keyset en el mismo orden (appointmentDate DESC, id DESC): filas posteriores a la
+     * cita (afterDate, afterId) de la página anterior, o desde el inicio si afterId es null.
+     */
+    public List<MedicalAppointmentEntity> findPageByPatientId(UUID patientId, MedicalAppointmentFilterDto filter,
+                                                              LocalDateTime afterDate, UUID afterId, int limit) {
+        return patientQuery(patientId, filter, afterDate, afterId).range(0, limit - 1).list();
+    }
+
+    private PanacheQuery<MedicalAppointmentEntity> patientQuery(UUID patientId, MedicalAppointmentFilterDto filter,
+                                                                LocalDateTime afterDate, UUID afterId) {
+        StringBuilder query = new StringBuilder(FETCH_FOR_LIST + "a.patient.id = :patientId");
         Map<String, Object> params = new HashMap<>();
         params.put("patientId", patientId);
 
         if (filter != null) {
             if (filter.doctorId != null) {
-                query.append(" AND doctor.id = :doctorId");
+                query.append(" AND a.doctor.id = :doctorId");
                 params.put("doctorId", filter.doctorId);
             }
             if (filter.clinicId != null) {
-                query.append(" AND clinic.id = :clinicId");
+                query.append(" AND a.clinic.id = :clinicId");
                 params.put("clinicId", filter.clinicId);
             }
             if (filter.specialtyId != null) {
-                query.append(" AND specialty.id = :specialtyId");
+                query.append(" AND a.specialty.id = :specialtyId");
                 params.put("specialtyId", filter.specialtyId);
             }
             if (filter.source != null) {
-                query.append(" AND source = :source");
+                query.append(" AND a.source = :source");
                 params.put("source", filter.source);
             }
             if (filter.startDate != null) {
-                query.append(" AND appointmentDate >= :startDate");
+                query.append(" AND a.appointmentDate >= :startDate");
                 params.put("startDate", filter.startDate);
             }
             if (filter.endDate != null) {
-                query.append(" AND appointmentDate <= :endDate");
+                query.append(" AND a.appointmentDate <= :endDate");
                 params.put("endDate", filter.endDate);
             }
             if (filter.status != null) {
-                query.append(" AND status = :status");
+                query.append(" AND a.status = :status");
                 params.put("status", filter.status);
             }
         }
 
-        return find(query.toString(), params).list();
+        if (afterId != null) {
+            query.append(" AND (a.appointmentDate < :afterDate OR (a.appointmentDate = :afterDate AND a.id < :afterId))");
+            params.put("afterDate", afterDate);
+            params.put("afterId", afterId);
+        }
+
+        query.append(" ORDER BY a.appointmentDate DESC, a.id DESC");
+
+        return find(query.toString(), params);
     }
 
     public Optional<MedicalAppointmentEntity> findByIdOptional(UUID id) {
@@ -63,44 +100,60 @@ public class MedicalAppointmentRepository implements PanacheRepository<MedicalAp
     }
 
     public List<MedicalAppointmentEntity> findByClinicId(UUID clinicId, MedicalAppointmentFilterDto filter) {
-        StringBuilder query = new StringBuilder("clinic.id = :clinicId");
+        return clinicQuery(clinicId, filter).list();
+    }
+
+    /**
+     * Mismo filtro y orden que findByClinicId, recorrido con un cursor de solo avance (exportaciones).
+     * Las entidades leídas quedan en la sesión: quien consume el Stream debe limpiarla por lotes.
+     */
+    public Stream<MedicalAppointmentEntity> streamByClinicId(UUID clinicId, MedicalAppointmentFilterDto filter,
+                                                            int fetchSize) {
+        return clinicQuery(clinicId, filter)
+                .withHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .withHint(HibernateHints.HINT_READ_ONLY, true)
+                .stream();
+    }
+
+    private PanacheQuery<MedicalAppointmentEntity> clinicQuery(UUID clinicId, MedicalAppointmentFilterDto filter) {
+        StringBuilder query = new StringBuilder(FETCH_FOR_LIST + "a.clinic.id = :clinicId");
         Map<String, Object> params = new HashMap<>();
         params.put("clinicId", clinicId);
 
         if (filter != null) {
             if (filter.doctorId != null) {
-                query.append(" AND doctor.id = :doctorId");
+                query.append(" AND a.doctor.id = :doctorId");
                 params.put("doctorId", filter.doctorId);
             }
             if (filter.patientId != null) {
-                query.append(" AND patient.id = :patientId");
+                query.append(" AND a.patient.id = :patientId");
                 params.put("patientId", filter.patientId);
             }
             if (filter.specialtyId != null) {
-                query.append(" AND specialty.id = :specialtyId");
+                query.append(" AND a.specialty.id = :specialtyId");
                 params.put("specialtyId", filter.specialtyId);
             }
             if (filter.source != null) {
-                query.append(" AND source = :source");
+                query.append(" AND a.source = :source");
                 params.put("source", filter.source);
             }
             if (filter.startDate != null) {
-                query.append(" AND appointmentDate >= :startDate");
+                query.append(" AND a.appointmentDate >= :startDate");
                 params.put("startDate", filter.startDate);
             }
             if (filter.endDate != null) {
-                query.append(" AND appointmentDate <= :endDate");
+                query.append(" AND a.appointmentDate <= :endDate");
                 params.put("endDate", filter.endDate);
             }
             if (filter.status != null) {
-                query.append(" AND status = :status");
+                query.append(" AND a.status = :status");
                 params.put("status", filter.status);
             }
         }
 
-        query.append(" ORDER BY appointmentDate ASC");
+        query.append(" ORDER BY a.appointmentDate ASC");
 
-        return find(query.toString(), params).list();
+        return find(query.toString(), params);
     }
 
     public Optional<UUID> findChildFollowUpId(UUID parentId) {
@@ -110,4 +163,16 @@ public class MedicalAppointmentRepository implements PanacheRepository<MedicalAp
                 .getResultStream()
                 .findFirst();
     }
+
+    /**
+     * Follow-up hijo de cada cita padre (una sola consulta para todo el listado).
+     */
+    public Map<UUID, UUID> findChildFollowUpIds(Collection<UUID> parentIds) {
+        if (parentIds == null || parentIds.isEmpty()) return Collections.emptyMap();
+        return getEntityManager()
+                .createQuery("SELECT a.followUpAppointment.id, a.id FROM MedicalAppointmentEntity a WHERE a.followUpAppointment.id IN :parentIds", Object[].class)
+                .setParameter("parentIds", parentIds)
+                .getResultStream()
+                .collect(Collectors.toMap(row -> (UUID) row[0], row -> (UUID) row[1], (first, second) -> first));
+    }
 }
@@ -2,21 +2,47 @@ package gt.com.xfactory.repository;
 
 import gt.com.xfactory.entity.MedicalRecordEntity;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import io.quarkus.panache.common.Sort;
 import jakarta.enterprise.context.ApplicationScoped;
 
+import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
 @ApplicationScoped
-public class MedicalRecordRepository implements PanacheRepository<MedicalRecordEntity> {
-
-    public List<MedicalRecordEntity> findByPatientId(UUID patientId) {
-        return find("patient.id", patientId).list();
+public class MedicalRecordRepository implements PanacheRepository<MedicalRecordEntity>, ProjectionRepository<MedicalRecordEntity> {
+
+    /**
+     * Expedientes del paciente dentro de la ventana [from, to] (extremos opcionales), del más
+     * reciente al más antiguo, hasta limit filas.
+     */
+    public List<MedicalRecordEntity> findByPatientId(UUID patientId, LocalDateTime from, LocalDateTime to, int limit) {
+        return findByPatientIdAndDoctorId(patientId, null, from, to, limit);
     }
 
-    public List<MedicalRecordEntity> findByPatientIdAndDoctorId(UUID patientId, UUID doctorId) {
-        return find("patient.id = ?1 AND doctor.id = ?2", patientId, doctorId).list();
+    public List<MedicalRecordEntity> findByPatientIdAndDoctorId(UUID patientId, UUID doctorId, LocalDateTime from,
+                                                                LocalDateTime to, int limit) {
+        StringBuilder query = new StringBuilder("patient.id = :patientId");
+        Map<String, Object> params = new HashMap<>();
+        params.put("patientId", patientId);
+        if (doctorId != null) {
+            query.append(" AND doctor.id = :doctorId");
+            params.put("doctorId", doctorId);
+        }
+        if (from != null) {
+            query.append(" AND createdAt >= :from");
+            params.put("from", from);
+        }
+        if (to != null) {
+            query.append(" AND createdAt <= :to");
+            params.put("to", to);
+        }
+        return find(query.toString(), Sort.descending("createdAt", "id"), params)
+                .range(0, limit - 1)
+                .list();
     }
 
     public List<MedicalRecordEntity> findByAppointmentId(UUID appointmentId) {
@@ -1,15 +1,23 @@
 package gt.com.xfactory.repository;
 
 import gt.com.xfactory.entity.PatientEntity;
+import gt.com.xfactory.utils.DbKindUtils;
 import gt.com.xfactory.utils.FilterBuilder;
+import gt.com.xfactory.utils.SearchTextUtils;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
 import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import java.time.*;
 import java.util.*;
 
 @ApplicationScoped
-public class PatientRepository implements PanacheRepository<PatientEntity> {
+public class PatientRepository implements PanacheRepository<PatientEntity>, ProjectionRepository<PatientEntity> {
+
+    private static final int SEARCH_LIMIT = 20;
+
+    @ConfigProperty(name = "quarkus.datasource.db-kind")
+    String dbKind;
 
     public Optional<PatientEntity> findByIdOptional(UUID id) {
         return find("id", id).firstResultOptional();
@@ -26,14 +34,25 @@ public class PatientRepository implements PanacheRepository<PatientEntity> {
 
     public List<PatientEntity> searchByTerm(String q) {
         Map<String, Object> params = new HashMap<>();
-        String nameCondition = FilterBuilder.buildNameTokenCondition(q, "firstName", "lastName", params, "n");
-        params.put("dpi", q);
-        params.put("phone", q);
-        return find(nameCondition +
-                " OR dpi LIKE CONCAT('%', :dpi, '%')" +
-                " OR phone LIKE CONCAT('%', :phone, '%')",
-                params)
-                .page(0, 20)
+        return find(buildSearchQuery(q, params, DbKindUtils.isPostgres(dbKind)), params)
+                .page(0, SEARCH_LIMIT)
                 .list();
     }
+
+    /**
+     * Query sobre search_text: cada token filtra con LIKE (índice trigram en PostgreSQL)
+     * y los resultados se ordenan por similarity() cuando la base soporta pg_trgm.
+     * En H2 (tests) se ordena por apellido/nombre.
+     */
+    public static String buildSearchQuery(String q, Map<String, Object> params, boolean similarityRanking) {
+        StringBuilder query = new StringBuilder(
+                FilterBuilder.buildSearchTextCondition(q, "searchText", params, "s"));
+        if (similarityRanking) {
+            params.put("rankTerm", SearchTextUtils.normalize(q));
+            query.append(" ORDER BY function('similarity', searchText, :rankTerm) DESC, lastName, firstName");
+        } else {
+            query.append(" ORDER BY lastName, firstName");
+        }
+        return query.toString();
+    }
 }
@@ -0,0 +1,56 @@
+package gt.com.xfactory.repository;
+
+import gt.com.xfactory.entity.*;
+import io.quarkus.hibernate.orm.panache.*;
+import jakarta.enterprise.context.*;
+
+import java.util.*;
+
+@ApplicationScoped
+public class PatientTimelineRepository implements PanacheRepositoryBase<PatientTimelineEventEntity, UUID> {
+
+    /**
+     * Inserta o reemplaza el evento de la fila de origen. Nativo para que el alta y la edición
+     * concurrentes de la misma fila no choquen en la clave primaria (los valores opcionales llevan
+     * CAST para que PostgreSQL conozca su tipo cuando llegan null).
+     */
+    public void upsert(PatientTimelineEventEntity event) {
+        getEntityManager().createNativeQuery("""
+                        INSERT INTO patient_timeline_event (source_id, event_type, patient_id, occurred_at, title, summary,
+                                                            status, doctor_id, doctor_name, organization_id, updated_at)
+                        VALUES (:sourceId, :eventType, :patientId, :occurredAt, CAST(:title AS VARCHAR),
+                                CAST(:summary AS VARCHAR), CAST(:status AS VARCHAR), CAST(:doctorId AS UUID),
+                                CAST(:doctorName AS VARCHAR), :organizationId, now())
+                        ON CONFLICT (source_id) DO UPDATE SET
+                            patient_id = EXCLUDED.patient_id, occurred_at = EXCLUDED.occurred_at,
+                            title = EXCLUDED.title, summary = EXCLUDED.summary, status = EXCLUDED.status,
+                            doctor_id = EXCLUDED.doctor_id, doctor_name = EXCLUDED.doctor_name, updated_at = now()
+                        """)
+                .setParameter("sourceId", event.getSourceId())
+                .setParameter("eventType", event.getEventType().name())
+                .setParameter("patientId", event.getPatientId())
+                .setParameter("occurredAt", event.getOccurredAt())
+                .setParameter("title", event.getTitle())
+                .setParameter("summary", event.getSummary())
+                .setParameter("status", event.getStatus())
+                .setParameter("doctorId", event.getDoctorId())
+                .setParameter("doctorName", event.getDoctorName())
+                .setParameter("organizationId", event.getOrganizationId())
+                .executeUpdate();
+    }
+
+    /**
+     * Cambia solo el estado del evento de la fila de origen. Nativo (sin filtro de tenant) para los
+     * cambios hechos bajo otro tenant, como el vencimiento de citas del scheduler.
+     */
+    public int updateStatus(UUID sourceId, String organizationId, String status) {
+        return getEntityManager().createNativeQuery("""
+                        UPDATE patient_timeline_event SET status = :status, updated_at = now()
+                        WHERE source_id = :sourceId AND organization_id = :organizationId
+                        """)
+                .setParameter("status", status)
+                .setParameter("sourceId", sourceId)
+                .setParameter("organizationId", organizationId)
+                .executeUpdate();
+    }
+}
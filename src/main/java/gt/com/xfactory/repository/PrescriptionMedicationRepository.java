@@ -2,14 +2,17 @@ package gt.com.xfactory.repository;
 
 import gt.com.xfactory.entity.PrescriptionMedicationEntity;
 import gt.com.xfactory.entity.PrescriptionMedicationId;
+import gt.com.xfactory.utils.Projection;
 import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
 import jakarta.enterprise.context.ApplicationScoped;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @ApplicationScoped
-public class PrescriptionMedicationRepository implements PanacheRepositoryBase<PrescriptionMedicationEntity, PrescriptionMedicationId> {
+public class PrescriptionMedicationRepository implements PanacheRepositoryBase<PrescriptionMedicationEntity, PrescriptionMedicationId>, ProjectionRepository<PrescriptionMedicationEntity> {
 
     public List<PrescriptionMedicationEntity> findByPrescriptionId(UUID prescriptionId) {
         return find("prescription.id", prescriptionId).list();
@@ -22,4 +25,9 @@ public class PrescriptionMedicationRepository implements PanacheRepositoryBase<P
     public long deleteByPrescriptionId(UUID prescriptionId) {
         return delete("prescription.id", prescriptionId);
     }
+
+    public <D> List<D> projectByPrescriptionIds(Projection<D> projection, Collection<UUID> prescriptionIds) {
+        if (prescriptionIds.isEmpty()) return List.of();
+        return project(projection, "prescription.id IN :prescriptionIds", "createdAt", Map.of("prescriptionIds", prescriptionIds));
+    }
 }
@@ -1,24 +1,19 @@
 package gt.com.xfactory.repository;
 
 import gt.com.xfactory.entity.PrescriptionEntity;
+import gt.com.xfactory.utils.Projection;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
 import jakarta.enterprise.context.ApplicationScoped;
 
 import java.time.LocalDate;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
 @ApplicationScoped
-public class PrescriptionRepository implements PanacheRepository<PrescriptionEntity> {
-
-    public List<PrescriptionEntity> findByPatientId(UUID patientId) {
-        return find("patient.id", patientId).list();
-    }
-
-    public List<PrescriptionEntity> findByPatientIdAndDoctorId(UUID patientId, UUID doctorId) {
-        return find("patient.id = ?1 AND doctor.id = ?2", patientId, doctorId).list();
-    }
+public class PrescriptionRepository implements PanacheRepository<PrescriptionEntity>, ProjectionRepository<PrescriptionEntity> {
 
     public List<PrescriptionEntity> findByMedicalRecordId(UUID medicalRecordId) {
         return find("medicalRecord.id", medicalRecordId).list();
@@ -39,4 +34,32 @@ public class PrescriptionRepository implements PanacheRepository<PrescriptionEnt
     public Optional<PrescriptionEntity> findByIdOptional(UUID id) {
         return find("id", id).firstResultOptional();
     }
+
+    /**
+     * Recetas del paciente con fecha de emisión dentro de [from, to] (extremos opcionales), de la
+     * más reciente a la más antigua, hasta limit filas.
+     */
+    public <D> List<D> projectByPatientId(Projection<D> projection, UUID patientId, UUID doctorId, boolean activeOnly,
+                                          LocalDate from, LocalDate to, int limit) {
+        StringBuilder query = new StringBuilder("patient.id = :patientId");
+        Map<String, Object> params = new HashMap<>();
+        params.put("patientId", patientId);
+        if (doctorId != null) {
+            query.append(" AND doctor.id = :doctorId");
+            params.put("doctorId", doctorId);
+        }
+        if (activeOnly) {
+            query.append(" AND expiryDate >= :today");
+            params.put("today", LocalDate.now());
+        }
+        if (from != null) {
+            query.append(" AND issueDate >= :from");
+            params.put("from", from);
+        }
+        if (to != null) {
+            query.append(" AND issueDate <= :to");
+            params.put("to", to);
+        }
+        return project(projection, query.toString(), "issueDate DESC, id DESC", params, 0, limit);
+    }
 }
@@ -0,0 +1,67 @@
+package gt.com.xfactory.repository;
+
+import gt.com.xfactory.utils.*;
+import io.quarkus.hibernate.orm.panache.*;
+import jakarta.persistence.*;
+import org.hibernate.jpa.*;
+
+import java.util.*;
+import java.util.stream.*;
+
+/**
+ * Consultas de tuplas para listados de solo lectura: "SELECT rutas FROM Entidad WHERE ... ORDER BY ...".
+ * El WHERE usa la misma sintaxis sin alias que las consultas Panache (FilterBuilder), por lo que
+ * un mismo filtro sirve para el count y para la proyección.
+ */
+public interface ProjectionRepository<E> {
+
+    default <D> List<D> project(Projection<D> projection, String where, String orderBy, Map<String, Object> params) {
+        return project(projection, where, orderBy, params, 0, -1);
+    }
+
+    default <D> List<D> project(Projection<D> projection, String where, String orderBy, Map<String, Object> params,
+                                int firstResult, int maxResults) {
+        return projectRows(projection.paths(), where, orderBy, params, firstResult, maxResults).stream()
+                .map(projection::map)
+                .toList();
+    }
+
+    default List<Object[]> projectRows(List<String> paths, String where, String orderBy, Map<String, Object> params,
+                                       int firstResult, int maxResults) {
+        TypedQuery<Object[]> query = createRowsQuery(paths, where, orderBy, params);
+        if (firstResult > 0) {
+            query.setFirstResult(firstResult);
+        }
+        if (maxResults >= 0) {
+            query.setMaxResults(maxResults);
+        }
+        return query.getResultList();
+    }
+
+    /**
+     * Igual que project pero recorre el resultado con un cursor de solo avance, trayendo fetchSize filas
+     * por viaje a la base en lugar del resultado completo. El Stream debe consumirse y cerrarse dentro
+     * de una transacción (el driver de PostgreSQL ignora el fetch size en autocommit).
+     */
+    default <D> Stream<D> streamProjection(Projection<D> projection, String where, String orderBy,
+                                           Map<String, Object> params, int fetchSize) {
+        return createRowsQuery(projection.paths(), where, orderBy, params)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()
+                .map(projection::map);
+    }
+
+    private TypedQuery<Object[]> createRowsQuery(List<String> paths, String where, String orderBy,
+                                                 Map<String, Object> params) {
+        Class<?> entityClass = QueryUtils.entityClassOf(this);
+        EntityManager em = Panache.getEntityManager(entityClass);
+        String hql = "SELECT " + String.join(", ", paths)
+                + " FROM " + em.getMetamodel().entity(entityClass).getName()
+                + (where == null || where.isBlank() ? "" : " WHERE " + where)
+                + (orderBy == null || orderBy.isBlank() ? "" : " ORDER BY " + orderBy);
+        TypedQuery<Object[]> query = em.createQuery(hql, Object[].class);
+        params.forEach(query::setParameter);
+        return query;
+    }
+}
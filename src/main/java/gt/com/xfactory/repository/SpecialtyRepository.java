@@ -1,16 +1,29 @@
 package gt.com.xfactory.repository;
 
 import gt.com.xfactory.entity.SpecialtyEntity;
+import gt.com.xfactory.utils.Projection;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
 import jakarta.enterprise.context.ApplicationScoped;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @ApplicationScoped
-public class SpecialtyRepository implements PanacheRepository<SpecialtyEntity> {
+public class SpecialtyRepository implements PanacheRepository<SpecialtyEntity>, ProjectionRepository<SpecialtyEntity> {
 
     public Optional<SpecialtyEntity> findByIdOptional(UUID id) {
         return find("id", id).firstResultOptional();
     }
+
+    private static final Projection<Map.Entry<UUID, String>> NAME_PROJECTION =
+            Projection.of(row -> Map.entry(row.get("id"), row.get("name")), "id", "name");
+
+    public Map<UUID, String> findNamesByIds(Collection<UUID> ids) {
+        if (ids.isEmpty()) return Map.of();
+        return project(NAME_PROJECTION, "id IN :ids", null, Map.of("ids", ids)).stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
 }
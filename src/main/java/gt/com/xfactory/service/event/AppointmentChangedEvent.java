@@ -0,0 +1,77 @@
+package gt.com.xfactory.service.event;
+
+import gt.com.xfactory.entity.*;
+import gt.com.xfactory.entity.enums.*;
+
+import java.time.*;
+import java.util.*;
+
+/**
+ * Alta, baja o cambio de una cita. Se dispara dentro de la transacción que hace el cambio:
+ * before es null en un alta y after es null en una baja.
+ */
+public record AppointmentChangedEvent(UUID appointmentId, Snapshot before, Snapshot after) {
+
+    /**
+     * Atributos de la cita que determinan en qué contadores del dashboard cuenta.
+     * organizationId puede ser null en una cita recién persistida (se asigna en el insert).
+     */
+    public record Snapshot(String organizationId, UUID clinicId, UUID doctorId, LocalDate day,
+                           AppointmentStatus status) {
+
+        public static Snapshot of(MedicalAppointmentEntity appointment) {
+            return new Snapshot(appointment.getOrganizationId(),
+                    appointment.getClinic() != null ? appointment.getClinic().getId() : null,
+                    appointment.getDoctor() != null ? appointment.getDoctor().getId() : null,
+                    appointment.getAppointmentDate() != null ? appointment.getAppointmentDate().toLocalDate() : null,
+                    appointment.getStatus());
+        }
+
+        boolean sameCounters(Snapshot other) {
+            return other != null && Objects.equals(clinicId, other.clinicId) && Objects.equals(doctorId, other.doctorId)
+                    && Objects.equals(day, other.day) && status == other.status;
+        }
+    }
+
+    public static AppointmentChangedEvent created(MedicalAppointmentEntity appointment) {
+        return new AppointmentChangedEvent(appointment.getId(), null, Snapshot.of(appointment));
+    }
+
+    public static AppointmentChangedEvent updated(Snapshot before, MedicalAppointmentEntity appointment) {
+        return new AppointmentChangedEvent(appointment.getId(), before, Snapshot.of(appointment));
+    }
+
+    public static AppointmentChangedEvent deleted(MedicalAppointmentEntity appointment) {
+        return new AppointmentChangedEvent(appointment.getId(), Snapshot.of(appointment), null);
+    }
+
+    /**
+     * True si el cambio mueve la cita de un contador diario a otro (o la agrega/quita).
+     */
+    public boolean changesCounters() {
+        return before == null || !before.sameCounters(after);
+    }
+
+    /**
+     * Tenant de la cita; null si ninguna foto lo tiene (alta todavía sin insertar).
+     */
+    public String organizationId() {
+        if (before != null && before.organizationId() != null) {
+            return before.organizationId();
+        }
+        return after != null ? after.organizationId() : null;
+    }
+
+    /**
+     * True si la cita estaba o queda dentro del alcance clínica/médico (null = cualquiera).
+     */
+    public boolean affects(UUID clinicId, UUID doctorId) {
+        return inScope(before, clinicId, doctorId) || inScope(after, clinicId, doctorId);
+    }
+
+    private static boolean inScope(Snapshot snapshot, UUID clinicId, UUID doctorId) {
+        return snapshot != null
+                && (clinicId == null || clinicId.equals(snapshot.clinicId()))
+                && (doctorId == null || doctorId.equals(snapshot.doctorId()));
+    }
+}
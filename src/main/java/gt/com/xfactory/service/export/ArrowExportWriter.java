@@ -0,0 +1,118 @@
+package gt.com.xfactory.service.export;
+
+import org.apache.arrow.compression.*;
+import org.apache.arrow.memory.*;
+import org.apache.arrow.vector.*;
+import org.apache.arrow.vector.compression.*;
+import org.apache.arrow.vector.ipc.*;
+import org.apache.arrow.vector.ipc.message.*;
+import org.apache.arrow.vector.types.pojo.*;
+
+import java.io.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+
+/**
+ * Escribe filas en un archivo Arrow IPC (formato file) por lotes de batchRows, comprimiendo cada
+ * lote con codec. En memoria solo vive el lote actual, independientemente del total de filas.
+ */
+public class ArrowExportWriter implements Closeable {
+
+    private final List<ExportColumn> columns;
+    private final int batchRows;
+    private final BufferAllocator allocator;
+    private final VectorSchemaRoot root;
+    private final ArrowFileWriter writer;
+    private int batchCount;
+    private long rowCount;
+
+    public ArrowExportWriter(Path file, List<ExportColumn> columns, int batchRows,
+                             CompressionUtil.CodecType codec) throws IOException {
+        this.columns = columns;
+        this.batchRows = batchRows;
+        this.allocator = new RootAllocator();
+        this.root = VectorSchemaRoot.create(new Schema(columns.stream().map(ExportColumn::field).toList()), allocator);
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        this.writer = new ArrowFileWriter(root, null, channel, Map.of(), IpcOption.DEFAULT,
+                CommonsCompressionFactory.INSTANCE, codec, Optional.empty());
+        writer.start();
+        root.allocateNew();
+    }
+
+    /**
+     * Agrega una fila con los valores normalizados por ExportColumn.read, en el orden de las columnas.
+     */
+    public void append(Object[] row) throws IOException {
+        for (int i = 0; i < columns.size(); i++) {
+            set(root.getVector(i), columns.get(i).type(), batchCount, row[i]);
+        }
+        batchCount++;
+        rowCount++;
+        if (batchCount == batchRows) {
+            flush();
+        }
+    }
+
+    public long rowCount() {
+        return rowCount;
+    }
+
+    private void flush() throws IOException {
+        root.setRowCount(batchCount);
+        writer.writeBatch();
+        batchCount = 0;
+        root.allocateNew();
+    }
+
+    private static void set(FieldVector vector, ExportColumn.Type type, int index, Object value) {
+        switch (type) {
+            case STRING, UUID -> {
+                VarCharVector v = (VarCharVector) vector;
+                if (value == null) v.setNull(index);
+                else v.setSafe(index, value.toString().getBytes(StandardCharsets.UTF_8));
+            }
+            case TIMESTAMP -> {
+                TimeStampMicroVector v = (TimeStampMicroVector) vector;
+                if (value == null) v.setNull(index);
+                else v.setSafe(index, toEpochMicros((LocalDateTime) value));
+            }
+            case DATE -> {
+                DateDayVector v = (DateDayVector) vector;
+                if (value == null) v.setNull(index);
+                else v.setSafe(index, (int) ((LocalDate) value).toEpochDay());
+            }
+            case DOUBLE -> {
+                Float8Vector v = (Float8Vector) vector;
+                if (value == null) v.setNull(index);
+                else v.setSafe(index, ((Number) value).doubleValue());
+            }
+            case BOOLEAN -> {
+                BitVector v = (BitVector) vector;
+                if (value == null) v.setNull(index);
+                else v.setSafe(index, (Boolean) value ? 1 : 0);
+            }
+        }
+    }
+
+    private static long toEpochMicros(LocalDateTime value) {
+        return value.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + value.getNano() / 1_000;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (batchCount > 0) {
+                flush();
+            }
+            writer.end();
+        } finally {
+            writer.close();
+            root.close();
+            allocator.close();
+        }
+    }
+}
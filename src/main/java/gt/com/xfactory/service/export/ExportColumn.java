@@ -0,0 +1,52 @@
+package gt.com.xfactory.service.export;
+
+import org.apache.arrow.vector.types.*;
+import org.apache.arrow.vector.types.pojo.*;
+
+import java.math.*;
+import java.sql.*;
+import java.time.*;
+import java.util.*;
+
+/**
+ * Columna de un dataset exportado: cómo se lee del ResultSet y con qué tipo se escribe en Arrow.
+ */
+public record ExportColumn(String name, Type type) {
+
+    public enum Type {
+        STRING(ArrowType.Utf8.INSTANCE),
+        UUID(ArrowType.Utf8.INSTANCE),
+        TIMESTAMP(new ArrowType.Timestamp(TimeUnit.MICROSECOND, null)),
+        DATE(new ArrowType.Date(DateUnit.DAY)),
+        DOUBLE(new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE)),
+        BOOLEAN(ArrowType.Bool.INSTANCE);
+
+        private final ArrowType arrowType;
+
+        Type(ArrowType arrowType) {
+            this.arrowType = arrowType;
+        }
+    }
+
+    public static ExportColumn of(String name, Type type) {
+        return new ExportColumn(name, type);
+    }
+
+    Field field() {
+        return new Field(name, FieldType.nullable(type.arrowType), null);
+    }
+
+    /**
+     * Valor de la columna normalizado a String, LocalDateTime, LocalDate, Double o Boolean (o null).
+     */
+    public Object read(ResultSet rs, int index) throws SQLException {
+        Object value = switch (type) {
+            case STRING, UUID -> rs.getString(index);
+            case TIMESTAMP -> rs.getObject(index, LocalDateTime.class);
+            case DATE -> rs.getObject(index, LocalDate.class);
+            case DOUBLE -> Optional.ofNullable(rs.getBigDecimal(index)).map(BigDecimal::doubleValue).orElse(null);
+            case BOOLEAN -> rs.getBoolean(index);
+        };
+        return rs.wasNull() ? null : value;
+    }
+}
@@ -0,0 +1,106 @@
+package gt.com.xfactory.service.export;
+
+import gt.com.xfactory.service.export.ExportColumn.*;
+
+import java.util.*;
+
+import static gt.com.xfactory.service.export.ExportColumn.of;
+
+/**
+ * Datasets exportables. Cada consulta recibe organization_id como primer parámetro y expone
+ * export_watermark (última modificación de la fila) para las exportaciones incrementales.
+ * Las bajas (incluidos los diagnósticos que se reescriben al editar la cita) se exportan en los
+ * datasets *-deleted, desde export_tombstone: el consumidor borra esos id.
+ */
+public enum ExportDataset {
+
+    APPOINTMENTS("appointments", """
+            SELECT ma.id, ma.patient_id, ma.doctor_id, ma.clinic_id, ma.specialty_id,
+                   CAST(ma.status AS VARCHAR) AS status, ma.source, ma.appointment_date, ma.check_in_time,
+                   ma.start_time, ma.end_time, ma.created_at, ma.updated_at,
+                   COALESCE(ma.updated_at, ma.created_at, TIMESTAMP '1970-01-01 00:00:00') AS export_watermark
+              FROM medical_appointment ma
+             WHERE ma.organization_id = ?
+            """, List.of(
+            of("id", Type.UUID), of("patient_id", Type.UUID), of("doctor_id", Type.UUID),
+            of("clinic_id", Type.UUID), of("specialty_id", Type.UUID), of("status", Type.STRING),
+            of("source", Type.STRING), of("appointment_date", Type.TIMESTAMP), of("check_in_time", Type.TIMESTAMP),
+            of("start_time", Type.TIMESTAMP), of("end_time", Type.TIMESTAMP), of("created_at", Type.TIMESTAMP),
+            of("updated_at", Type.TIMESTAMP))),
+
+    APPOINTMENT_DIAGNOSES("appointment-diagnoses", """
+            SELECT ad.id, ad.appointment_id, ad.diagnosis_id, dc.code, ad.type, ma.appointment_date, ad.created_at,
+                   COALESCE(GREATEST(ad.created_at, ma.updated_at, ma.created_at),
+                            TIMESTAMP '1970-01-01 00:00:00') AS export_watermark
+              FROM appointment_diagnosis ad
+              JOIN medical_appointment ma ON ma.id = ad.appointment_id
+              JOIN diagnosis_catalog dc ON dc.id = ad.diagnosis_id
+             WHERE ma.organization_id = ?
+            """, List.of(
+            of("id", Type.UUID), of("appointment_id", Type.UUID), of("diagnosis_id", Type.UUID),
+            of("code", Type.STRING), of("type", Type.STRING), of("appointment_date", Type.TIMESTAMP),
+            of("created_at", Type.TIMESTAMP))),
+
+    LAB_RESULTS("lab-results", """
+            SELECT lr.id, lr.lab_order_id, lo.patient_id, lo.doctor_id, lr.test_name, lr.test_code, lr.value,
+                   lr.unit, lr.reference_min, lr.reference_max, lr.is_abnormal, lr.result_date, lr.created_at,
+                   lr.updated_at,
+                   COALESCE(lr.updated_at, lr.created_at, TIMESTAMP '1970-01-01 00:00:00') AS export_watermark
+              FROM lab_result lr
+              JOIN lab_order lo ON lo.id = lr.lab_order_id
+             WHERE lr.organization_id = ?
+            """, List.of(
+            of("id", Type.UUID), of("lab_order_id", Type.UUID), of("patient_id", Type.UUID),
+            of("doctor_id", Type.UUID), of("test_name", Type.STRING), of("test_code", Type.STRING),
+            of("value", Type.STRING), of("unit", Type.STRING), of("reference_min", Type.DOUBLE),
+            of("reference_max", Type.DOUBLE), of("is_abnormal", Type.BOOLEAN), of("result_date", Type.TIMESTAMP),
+            of("created_at", Type.TIMESTAMP), of("updated_at", Type.TIMESTAMP))),
+
+    APPOINTMENTS_DELETED("appointments-deleted", tombstones("appointments"), tombstoneColumns()),
+
+    APPOINTMENT_DIAGNOSES_DELETED("appointment-diagnoses-deleted", tombstones("appointment-diagnoses"), tombstoneColumns()),
+
+    LAB_RESULTS_DELETED("lab-results-deleted", tombstones("lab-results"), tombstoneColumns());
+
+    private final String path;
+    private final String query;
+    private final List<ExportColumn> columns;
+
+    ExportDataset(String path, String query, List<ExportColumn> columns) {
+        this.path = path;
+        this.query = query;
+        this.columns = columns;
+    }
+
+    public String path() {
+        return path;
+    }
+
+    public List<ExportColumn> columns() {
+        return columns;
+    }
+
+    /**
+     * Consulta con dos parámetros: organization_id y la marca de agua desde la que se exporta (exclusiva).
+     * La marca de agua es la última columna del resultado, después de columns().
+     */
+    public String sql() {
+        return "SELECT * FROM (" + query + ") t WHERE t.export_watermark > ?";
+    }
+
+    private static List<ExportColumn> tombstoneColumns() {
+        return List.of(of("id", Type.UUID), of("deleted_at", Type.TIMESTAMP));
+    }
+
+    private static String tombstones(String dataset) {
+        return """
+                SELECT et.source_id AS id, et.deleted_at, et.deleted_at AS export_watermark
+                  FROM export_tombstone et
+                 WHERE et.organization_id = ? AND et.dataset = '%s'
+                """.formatted(dataset);
+    }
+
+    public static Optional<ExportDataset> fromPath(String path) {
+        return Arrays.stream(values()).filter(d -> d.path.equals(path)).findFirst();
+    }
+}
@@ -0,0 +1,107 @@
+package gt.com.xfactory.service.impl;
+
+import gt.com.xfactory.entity.enums.*;
+import gt.com.xfactory.repository.*;
+import gt.com.xfactory.service.event.*;
+import gt.com.xfactory.service.event.AppointmentChangedEvent.*;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.*;
+import jakarta.enterprise.event.*;
+import jakarta.inject.*;
+import jakarta.transaction.*;
+import lombok.extern.slf4j.*;
+import org.eclipse.microprofile.config.inject.*;
+
+import java.time.*;
+import java.util.*;
+
+/**
+ * Mantiene los rollups de analítica (día, semana y mes). Cada cambio de cita marca su día en
+ * analytics_dirty_day dentro de la misma transacción; el job incremental recalcula esos días y las
+ * semanas/meses que los contienen. El job nocturno vuelve a marcar una ventana alrededor de hoy para
+ * corregir cualquier desvío (p. ej. cambios hechos por SQL directo).
+ * Con analytics.rollup.enabled=false no se marca ni se recalcula nada.
+ */
+@ApplicationScoped
+@Slf4j
+public class AnalyticsRollupService {
+
+    @ConfigProperty(name = "analytics.rollup.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "analytics.rollup.batch-days", defaultValue = "1000")
+    int batchDays;
+
+    @ConfigProperty(name = "analytics.rollup.nightly-window-days", defaultValue = "90")
+    int nightlyWindowDays;
+
+    @Inject
+    AnalyticsRollupRepository analyticsRollupRepository;
+
+    @Inject
+    TenantScopedExecutor tenantScopedExecutor;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    void onAppointmentChanged(@Observes AppointmentChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        String organizationId = event.organizationId() != null
+                ? event.organizationId() : tenantScopedExecutor.currentTenantId();
+        Set<LocalDate> days = new HashSet<>();
+        for (Snapshot snapshot : Arrays.asList(event.before(), event.after())) {
+            if (snapshot != null && snapshot.day() != null) {
+                days.add(snapshot.day());
+            }
+        }
+        days.forEach(day -> analyticsRollupRepository.markDirty(organizationId, day));
+    }
+
+    @Scheduled(every = "${analytics.rollup.interval:5m}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    @Transactional
+    public void refreshDirtyDays() {
+        if (!enabled) {
+            return;
+        }
+        Map<String, List<LocalDate>> dirty = analyticsRollupRepository.claimDirtyDays(batchDays);
+        dirty.forEach(this::rebuild);
+        if (!dirty.isEmpty()) {
+            log.info("Analytics rollups refreshed for {} days",
+                    dirty.values().stream().mapToInt(List::size).sum());
+        }
+    }
+
+    @Scheduled(cron = "${analytics.rollup.nightly-cron:0 30 2 * * ?}")
+    @Transactional
+    void markNightlyWindow() {
+        if (!enabled) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        int marked = analyticsRollupRepository.markDirtyRange(null,
+                today.minusDays(nightlyWindowDays), today.plusDays(nightlyWindowDays + 1L));
+        log.info("Analytics nightly refresh: {} days marked", marked);
+    }
+
+    /**
+     * Marca [from, to] del tenant actual para recalcular en la próxima ejecución del job incremental.
+     */
+    @Transactional
+    public int requestRefresh(LocalDate from, LocalDate to) {
+        if (!enabled) {
+            throw new IllegalStateException("Los rollups de analítica no están habilitados");
+        }
+        return analyticsRollupRepository.markDirtyRange(tenantScopedExecutor.currentTenantId(), from, to.plusDays(1));
+    }
+
+    private void rebuild(String organizationId, List<LocalDate> days) {
+        analyticsRollupRepository.rebuildDays(organizationId, days);
+        for (AnalyticsGrain grain : List.of(AnalyticsGrain.week, AnalyticsGrain.month)) {
+            analyticsRollupRepository.rebuildPeriods(organizationId, grain,
+                    days.stream().map(grain::periodStart).distinct().sorted().toList());
+        }
+    }
+}
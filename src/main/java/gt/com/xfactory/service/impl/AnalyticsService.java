@@ -0,0 +1,148 @@
+package gt.com.xfactory.service.impl;
+
+import gt.com.xfactory.dto.response.*;
+import gt.com.xfactory.entity.enums.*;
+import jakarta.enterprise.context.*;
+import jakarta.inject.*;
+import jakarta.ws.rs.*;
+import lombok.extern.slf4j.*;
+
+import java.time.*;
+import java.time.temporal.*;
+import java.util.*;
+
+/**
+ * Consultas históricas sobre los rollups de analítica (AnalyticsRollupService). El rango se alinea
+ * al periodo del grain pedido, así que un rango de varios años en meses lee una fila por mes y grupo
+ * en lugar de recorrer medical_appointment. Se lee desde la réplica cuando está disponible.
+ */
+@ApplicationScoped
+@Slf4j
+public class AnalyticsService {
+
+    private static final long MAX_DAILY_RANGE_DAYS = 366;
+    private static final int MAX_RANKING_LIMIT = 100;
+
+    // groupBy → (id, nombre, join) sobre el rollup r
+    private static final Map<String, String[]> GROUPS = Map.of(
+            "clinic", new String[]{"r.clinicId", "c.name", " LEFT JOIN ClinicEntity c ON c.id = r.clinicId"},
+            "doctor", new String[]{"r.doctorId", "d.firstName || ' ' || d.lastName", " LEFT JOIN DoctorEntity d ON d.id = r.doctorId"},
+            "specialty", new String[]{"r.specialtyId", "s.name", " LEFT JOIN SpecialtyEntity s ON s.id = r.specialtyId"});
+
+    @Inject
+    ReadReplicaRouter readReplicaRouter;
+
+    public List<AppointmentTrendDto> getAppointmentTrends(LocalDate from, LocalDate to, AnalyticsGrain grain,
+                                                          String groupBy, UUID clinicId, UUID doctorId,
+                                                          UUID specialtyId) {
+        AnalyticsGrain effectiveGrain = grain != null ? grain : AnalyticsGrain.month;
+        validateRange(from, to, effectiveGrain);
+        String[] group = null;
+        if (groupBy != null && !groupBy.isBlank() && !"none".equalsIgnoreCase(groupBy)) {
+            group = GROUPS.get(groupBy.toLowerCase(Locale.ROOT));
+            if (group == null) {
+                throw new BadRequestException("Agrupación inválida: " + groupBy);
+            }
+        }
+
+        Map<String, Object> params = new HashMap<>();
+        String where = buildWhere(from, to, effectiveGrain, clinicId, doctorId, specialtyId, params);
+        String groupColumns = group != null ? ", " + group[0] + ", " + group[1] : "";
+        String jpql = "SELECT r.periodStart" + groupColumns
+                + ", SUM(r.totalCount), SUM(r.completedCount), SUM(r.cancelledCount), SUM(r.noShowCount) "
+                + "FROM AnalyticsAppointmentRollupEntity r" + (group != null ? group[2] : "")
+                + " WHERE " + where
+                + " GROUP BY r.periodStart" + groupColumns
+                + " ORDER BY r.periodStart" + (group != null ? ", " + group[1] : "");
+        // Con agrupación las sumas empiezan después del id y el nombre del grupo
+        int sums = group != null ? 3 : 1;
+
+        return readReplicaRouter.read(em -> {
+            var query = em.createQuery(jpql, Object[].class);
+            params.forEach(query::setParameter);
+            return query.getResultList().stream()
+                    .map(row -> {
+                        long total = toLong(row[sums]);
+                        long noShow = toLong(row[sums + 3]);
+                        return AppointmentTrendDto.builder()
+                                .periodStart((LocalDate) row[0])
+                                .groupId(sums > 1 ? (UUID) row[1] : null)
+                                .groupName(sums > 1 ? (String) row[2] : null)
+                                .totalAppointments(total)
+                                .completed(toLong(row[sums + 1]))
+                                .cancelled(toLong(row[sums + 2]))
+                                .noShow(noShow)
+                                .noShowRate(total > 0 ? (double) noShow / total : 0)
+                                .build();
+                    })
+                    .toList();
+        });
+    }
+
+    public List<DiagnosisRankingDto> getTopDiagnoses(LocalDate from, LocalDate to, AnalyticsGrain grain, int limit,
+                                                     UUID clinicId, UUID doctorId, UUID specialtyId) {
+        AnalyticsGrain effectiveGrain = grain != null ? grain : AnalyticsGrain.month;
+        validateRange(from, to, effectiveGrain);
+        if (limit < 1 || limit > MAX_RANKING_LIMIT) {
+            throw new BadRequestException("limit debe estar entre 1 y " + MAX_RANKING_LIMIT);
+        }
+
+        Map<String, Object> params = new HashMap<>();
+        String where = buildWhere(from, to, effectiveGrain, clinicId, doctorId, specialtyId, params);
+        String jpql = "SELECT r.diagnosisId, dc.code, dc.name, SUM(r.diagnosisCount) "
+                + "FROM AnalyticsDiagnosisRollupEntity r JOIN DiagnosisCatalogEntity dc ON dc.id = r.diagnosisId "
+                + "WHERE " + where
+                + " GROUP BY r.diagnosisId, dc.code, dc.name"
+                + " ORDER BY SUM(r.diagnosisCount) DESC, dc.code";
+
+        return readReplicaRouter.read(em -> {
+            var query = em.createQuery(jpql, Object[].class).setMaxResults(limit);
+            params.forEach(query::setParameter);
+            return query.getResultList().stream()
+                    .map(row -> DiagnosisRankingDto.builder()
+                            .diagnosisId((UUID) row[0])
+                            .code((String) row[1])
+                            .name((String) row[2])
+                            .count(toLong(row[3]))
+                            .build())
+                    .toList();
+        });
+    }
+
+    void validateRange(LocalDate from, LocalDate to, AnalyticsGrain grain) {
+        if (from == null || to == null) {
+            throw new BadRequestException("from y to son obligatorios");
+        }
+        if (from.isAfter(to)) {
+            throw new BadRequestException("from no puede ser posterior a to");
+        }
+        if (grain == AnalyticsGrain.day && ChronoUnit.DAYS.between(from, to) >= MAX_DAILY_RANGE_DAYS) {
+            throw new BadRequestException("Para rangos mayores a un año use grain week o month");
+        }
+    }
+
+    private String buildWhere(LocalDate from, LocalDate to, AnalyticsGrain grain, UUID clinicId, UUID doctorId,
+                              UUID specialtyId, Map<String, Object> params) {
+        StringBuilder where = new StringBuilder("r.grain = :grain AND r.periodStart >= :from AND r.periodStart < :to");
+        params.put("grain", grain);
+        params.put("from", grain.periodStart(from));
+        params.put("to", grain.next(grain.periodStart(to)));
+        if (clinicId != null) {
+            where.append(" AND r.clinicId = :clinicId");
+            params.put("clinicId", clinicId);
+        }
+        if (doctorId != null) {
+            where.append(" AND r.doctorId = :doctorId");
+            params.put("doctorId", doctorId);
+        }
+        if (specialtyId != null) {
+            where.append(" AND r.specialtyId = :specialtyId");
+            params.put("specialtyId", specialtyId);
+        }
+        return where.toString();
+    }
+
+    private long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : 0L;
+    }
+}
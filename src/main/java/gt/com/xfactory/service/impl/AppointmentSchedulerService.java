@@ -1,9 +1,13 @@
 package gt.com.xfactory.service.impl;
 
 import gt.com.xfactory.dto.response.NotificationDto;
+import gt.com.xfactory.entity.enums.AppointmentStatus;
 import gt.com.xfactory.repository.MedicalAppointmentRepository;
+import gt.com.xfactory.service.event.AppointmentChangedEvent;
+import gt.com.xfactory.service.event.AppointmentChangedEvent.Snapshot;
 import io.quarkus.scheduler.Scheduled;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
@@ -22,20 +26,27 @@ public class AppointmentSchedulerService {
     @Inject
     NotificationService notificationService;
 
+    @Inject
+    Event<AppointmentChangedEvent> appointmentChanged;
+
     @Scheduled(every = "5m")
     @Transactional
-    void expireOverdueAppointments() {
+    public void expireOverdueAppointments() {
         LocalDateTime cutoff = LocalDateTime.now().minusHours(1);
 
+        // Las citas quedan bloqueadas hasta el commit, así que el estado leído es el que se descuenta
+        // de las estadísticas. Las que otra transacción está editando se dejan para la próxima ejecución.
         @SuppressWarnings("unchecked")
         List<Object[]> rows = medicalAppointmentRepository.getEntityManager()
                 .createNativeQuery(
                         "SELECT ma.id, ma.doctor_id, " +
-                        "p.first_name || ' ' || p.last_name AS patient_name, ma.appointment_date " +
+                        "p.first_name || ' ' || p.last_name AS patient_name, ma.appointment_date, " +
+                        "ma.organization_id, ma.clinic_id, CAST(ma.status AS VARCHAR) " +
                         "FROM medical_appointment ma " +
                         "JOIN patient p ON ma.patient_id = p.id " +
                         "WHERE ma.status IN ('scheduled', 'confirmed') " +
-                        "AND ma.appointment_date < :cutoff")
+                        "AND ma.appointment_date < :cutoff " +
+                        "FOR UPDATE OF ma SKIP LOCKED")
                 .setParameter("cutoff", cutoff)
                 .getResultList();
 
@@ -46,7 +57,8 @@ public class AppointmentSchedulerService {
                 .collect(Collectors.toList());
 
         medicalAppointmentRepository.getEntityManager()
-                .createNativeQuery("UPDATE medical_appointment SET status = 'expired' WHERE id IN (:ids)")
+                .createNativeQuery("UPDATE medical_appointment SET status = 'expired', updated_at = now(), version = version + 1 " +
+                        "WHERE id IN (:ids) AND status IN ('scheduled', 'confirmed')")
                 .setParameter("ids", ids)
                 .executeUpdate();
 
@@ -55,6 +67,15 @@ public class AppointmentSchedulerService {
             String patientName = (String) row[2];
             LocalDateTime date = toLocalDateTime(row[3]);
 
+            // Mantiene las estadísticas diarias: la cita pasa de scheduled/confirmed a expired
+            String organizationId = row[4].toString();
+            UUID clinicId = UUID.fromString(row[5].toString());
+            Snapshot before = new Snapshot(organizationId, clinicId, doctorId, date.toLocalDate(),
+                    AppointmentStatus.valueOf(row[6].toString()));
+            Snapshot after = new Snapshot(organizationId, clinicId, doctorId, date.toLocalDate(),
+                    AppointmentStatus.expired);
+            appointmentChanged.fire(new AppointmentChangedEvent(UUID.fromString(row[0].toString()), before, after));
+
             notificationService.notify(doctorId, NotificationDto.builder()
                     .type("APPOINTMENT_EXPIRED")
                     .appointmentId(UUID.fromString(row[0].toString()))
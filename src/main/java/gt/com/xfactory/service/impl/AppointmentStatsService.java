@@ -0,0 +1,112 @@
+package gt.com.xfactory.service.impl;
+
+import gt.com.xfactory.entity.*;
+import gt.com.xfactory.entity.enums.*;
+import gt.com.xfactory.repository.*;
+import gt.com.xfactory.service.event.*;
+import gt.com.xfactory.service.event.AppointmentChangedEvent.*;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.*;
+import jakarta.enterprise.event.*;
+import jakarta.inject.*;
+import jakarta.persistence.*;
+import jakarta.transaction.*;
+import lombok.extern.slf4j.*;
+import org.eclipse.microprofile.config.inject.*;
+
+import java.time.*;
+import java.util.*;
+
+/**
+ * Estadísticas diarias de citas (appointment_daily_stats) para el dashboard.
+ * Se actualizan en la misma transacción que cambia la cita, observando AppointmentChangedEvent,
+ * y un job nocturno recalcula una ventana alrededor de hoy para corregir cualquier desvío (p. ej.
+ * cambios hechos por SQL directo). Con dashboard.stats.enabled=false no se escriben ni se leen y el
+ * dashboard vuelve a agregar sobre medical_appointment.
+ */
+@ApplicationScoped
+@Slf4j
+public class AppointmentStatsService {
+
+    @ConfigProperty(name = "dashboard.stats.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "dashboard.stats.reconcile-window-days", defaultValue = "30")
+    int reconcileWindowDays;
+
+    @Inject
+    AppointmentDailyStatsRepository appointmentDailyStatsRepository;
+
+    @Inject
+    TenantScopedExecutor tenantScopedExecutor;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    void onAppointmentChanged(@Observes AppointmentChangedEvent event) {
+        if (!enabled || !event.changesCounters()) {
+            return;
+        }
+        apply(event.before(), -1);
+        apply(event.after(), 1);
+    }
+
+    private void apply(Snapshot snapshot, int delta) {
+        if (snapshot == null || snapshot.clinicId() == null || snapshot.doctorId() == null
+                || snapshot.day() == null || snapshot.status() == null) {
+            return;
+        }
+        String organizationId = snapshot.organizationId() != null
+                ? snapshot.organizationId() : tenantScopedExecutor.currentTenantId();
+        appointmentDailyStatsRepository.increment(organizationId,
+                new AppointmentDailyStatsId(snapshot.clinicId(), snapshot.doctorId(), snapshot.day(), snapshot.status()),
+                delta);
+    }
+
+    @Scheduled(cron = "${dashboard.stats.reconcile-cron:0 15 2 * * ?}")
+    @Transactional
+    public void reconcileRecentDays() {
+        if (!enabled) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        int rows = appointmentDailyStatsRepository.recomputeDays(today.minusDays(reconcileWindowDays),
+                today.plusDays(reconcileWindowDays + 1L));
+        log.info("Appointment daily stats reconciled: {} rows", rows);
+    }
+
+    /**
+     * Conteos por día y estado en [from, to) para el tenant actual, opcionalmente por clínica y médico.
+     * Recibe el EntityManager para poder leer desde la réplica (ReadReplicaRouter).
+     */
+    public Map<LocalDate, Map<AppointmentStatus, Long>> countsByDay(EntityManager em, LocalDate from, LocalDate to,
+                                                                    UUID clinicId, UUID doctorId) {
+        StringBuilder jpql = new StringBuilder("SELECT s.id.day, s.id.status, SUM(s.appointmentCount) "
+                + "FROM AppointmentDailyStatsEntity s WHERE s.id.day >= :from AND s.id.day < :to");
+        if (clinicId != null) {
+            jpql.append(" AND s.id.clinicId = :clinicId");
+        }
+        if (doctorId != null) {
+            jpql.append(" AND s.id.doctorId = :doctorId");
+        }
+        jpql.append(" GROUP BY s.id.day, s.id.status");
+
+        var query = em.createQuery(jpql.toString(), Object[].class)
+                .setParameter("from", from)
+                .setParameter("to", to);
+        if (clinicId != null) {
+            query.setParameter("clinicId", clinicId);
+        }
+        if (doctorId != null) {
+            query.setParameter("doctorId", doctorId);
+        }
+
+        Map<LocalDate, Map<AppointmentStatus, Long>> counts = new HashMap<>();
+        for (Object[] row : query.getResultList()) {
+            counts.computeIfAbsent((LocalDate) row[0], d -> new EnumMap<>(AppointmentStatus.class))
+                    .merge((AppointmentStatus) row[1], ((Number) row[2]).longValue(), Long::sum);
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,199 @@
+package gt.com.xfactory.service.impl;
+
+import com.lowagie.text.exceptions.*;
+import com.lowagie.text.pdf.*;
+import gt.com.xfactory.dto.response.*;
+import gt.com.xfactory.entity.*;
+import gt.com.xfactory.entity.enums.*;
+import gt.com.xfactory.service.storage.*;
+import io.micrometer.core.instrument.*;
+import jakarta.annotation.*;
+import jakarta.enterprise.context.*;
+import jakarta.inject.*;
+import lombok.extern.slf4j.*;
+import org.eclipse.microprofile.config.inject.*;
+
+import javax.imageio.*;
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.*;
+
+/**
+ * Vistas previas JPEG de los adjuntos (miniatura de imágenes, primera página de PDFs escaneados),
+ * guardadas como derivado "preview" junto al objeto en el BlobStore; como dependen solo del
+ * contenido, el mismo archivo se procesa una vez. Se generan después de la subida en un pool de
+ * attachment-preview.workers hilos con una cola de attachment-preview.queue-capacity: con la cola
+ * llena la subida no espera, y la vista previa se vuelve a encolar cuando alguien la pide.
+ * Un derivado vacío marca un contenido sin vista previa posible; los fallos de lectura no se marcan.
+ */
+@ApplicationScoped
+@Slf4j
+public class AttachmentPreviewService {
+
+    public static final String VARIANT = "preview";
+    private static final String PDF = "application/pdf";
+    private static final Set<String> SUPPORTED_TYPES = Set.of(PDF, "image/jpeg", "image/png");
+
+    @ConfigProperty(name = "attachment-preview.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "attachment-preview.workers", defaultValue = "2")
+    int workers;
+
+    @ConfigProperty(name = "attachment-preview.queue-capacity", defaultValue = "100")
+    int queueCapacity;
+
+    @ConfigProperty(name = "attachment-preview.max-dimension", defaultValue = "320")
+    int maxDimension;
+
+    @Inject
+    BlobStore blobStore;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    private ThreadPoolExecutor executor;
+    // Hashes encolados o en proceso, para no generar dos veces la misma vista previa
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    void init() {
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("attachment-preview-", 0).daemon().factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        Gauge.builder("attachment.preview.queue", executor, e -> e.getQueue().size())
+                .description("Vistas previas de adjuntos en espera")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Encola la vista previa del adjunto si el tipo la admite y aún no existe. No bloquea: con la
+     * cola llena se descarta.
+     */
+    public void schedule(LabOrderAttachmentEntity attachment) {
+        String contentHash = attachment.getContentHash();
+        String contentType = attachment.getContentType();
+        ContentEncoding encoding = attachment.getContentEncoding();
+        if (!enabled || contentHash == null || !SUPPORTED_TYPES.contains(contentType)
+                || blobStore.derivedExists(contentHash, VARIANT) || !pending.add(contentHash)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    generate(contentHash, contentType, encoding);
+                } finally {
+                    pending.remove(contentHash);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(contentHash);
+            meterRegistry.counter("attachment.preview.rejected").increment();
+            log.warn("Preview queue full, skipping blob {} until it is requested", contentHash);
+        }
+    }
+
+    /**
+     * Vista previa del adjunto, o vacío si no tiene (tipo no admitido, PDF sin imagen) o aún no está
+     * lista; en ese caso se encola.
+     */
+    public Optional<AttachmentDownloadInfo> find(LabOrderAttachmentEntity attachment) {
+        String contentHash = attachment.getContentHash();
+        if (contentHash == null) {
+            return Optional.empty();
+        }
+        byte[] preview;
+        try (InputStream in = blobStore.openDerived(contentHash, VARIANT)) {
+            preview = in.readAllBytes();
+        } catch (NoSuchFileException e) {
+            schedule(attachment);
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (preview.length == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(AttachmentDownloadInfo.builder()
+                .fileName(attachment.getFileName() + "-preview.jpg")
+                .contentType("image/jpeg")
+                .etag(contentHash + "-" + VARIANT)
+                .size(preview.length)
+                .body((offset, length) -> Arrays.copyOfRange(preview, (int) offset, (int) (offset + length)))
+                .build());
+    }
+
+    public void generate(String contentHash, String contentType, ContentEncoding encoding) {
+        long start = System.nanoTime();
+        byte[] preview;
+        try {
+            preview = PDF.equals(contentType) ? renderPdf(contentHash, encoding) : renderImage(contentHash, encoding);
+        } catch (NoSuchFileException e) {
+            // El objeto se purgó mientras esperaba en la cola
+            log.info("Blob {} no longer exists, skipping preview", contentHash);
+            return;
+        } catch (InvalidPdfException | ZipException | IIOException | RuntimeException e) {
+            // Contenido dañado o que no se puede decodificar: se marca para no reintentarlo en cada consulta
+            log.warn("Could not render preview for blob {} ({})", contentHash, contentType, e);
+            preview = null;
+        } catch (IOException e) {
+            // Fallo al leer el almacenamiento: sin marca, se reintenta la próxima vez que se pida
+            log.warn("Could not read blob {} for preview, will retry on request", contentHash, e);
+            return;
+        }
+        storePreview(contentHash, preview != null ? preview : new byte[0]);
+        log.info("Preview for blob {} ({}): {} bytes in {} ms", contentHash, contentType,
+                preview != null ? preview.length : 0, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private void storePreview(String contentHash, byte[] preview) {
+        try {
+            blobStore.putDerived(contentHash, VARIANT, preview);
+            // Si el objeto se purgó mientras se generaba, el derivado quedaría huérfano
+            if (!blobStore.exists(contentHash)) {
+                blobStore.deleteDerived(contentHash, VARIANT);
+            }
+        } catch (IOException e) {
+            log.error("Could not store preview for blob {}", contentHash, e);
+        }
+    }
+
+    private byte[] renderImage(String contentHash, ContentEncoding encoding) throws IOException {
+        try (InputStream in = open(contentHash, encoding)) {
+            return PreviewRenderer.renderImage(in, maxDimension);
+        }
+    }
+
+    private byte[] renderPdf(String contentHash, ContentEncoding encoding) throws IOException {
+        Path file = blobStore.localPath(contentHash);
+        if (file != null && encoding == ContentEncoding.identity) {
+            // Lectura parcial: solo se cargan las partes del PDF que se usan
+            return PreviewRenderer.renderPdf(new RandomAccessFileOrArray(file.toString(), false, true), maxDimension);
+        }
+        try (InputStream in = open(contentHash, encoding)) {
+            return PreviewRenderer.renderPdf(new RandomAccessFileOrArray(in), maxDimension);
+        }
+    }
+
+    private InputStream open(String contentHash, ContentEncoding encoding) throws IOException {
+        InputStream stored = blobStore.open(contentHash);
+        if (encoding != ContentEncoding.gzip) {
+            return stored;
+        }
+        try {
+            return new GZIPInputStream(stored, 64 * 1024);
+        } catch (IOException e) {
+            stored.close();
+            throw e;
+        }
+    }
+}
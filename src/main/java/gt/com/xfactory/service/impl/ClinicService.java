@@ -11,6 +11,7 @@ import jakarta.inject.*;
 import jakarta.transaction.*;
 import jakarta.validation.Valid;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.StreamingOutput;
 import lombok.extern.slf4j.*;
 
 import java.util.*;
@@ -37,6 +38,15 @@ public class ClinicService {
     @Inject
     MedicalAppointmentRepository medicalAppointmentRepository;
 
+    @Inject
+    SearchIndexService searchIndexService;
+
+    @Inject
+    ListingExportService listingExportService;
+
+    @Inject
+    TotalCountService totalCountService;
+
     public List<ClinicDto> getAllClinics() {
         log.info("Fetching all clinics");
         return clinicRepository.listAll()
@@ -45,6 +55,7 @@ public class ClinicService {
                 .collect(Collectors.toList());
     }
 
+    @ReadOnly
     public PageResponse<ClinicDto> getClinicsPaginated(ClinicFilterDto filter, @Valid CommonPageRequest pageRequest) {
         log.info("Fetching clinics with filter - pageRequest: {}, filter: {}", pageRequest, filter);
 
@@ -53,7 +64,8 @@ public class ClinicService {
                 .addLike(filter.address, "address")
                 .addLike(filter.phone, "phone");
 
-        return toPageResponse(clinicRepository, fb.buildQuery(), pageRequest, fb.getParams(), this::toClinicDto);
+        return toPageResponse(clinicRepository, fb.buildQuery(),
+                pageRequest, fb.getParams(), this::toClinicDto, totalCountService::count);
     }
 
     public ClinicDto getClinicById(UUID id) {
@@ -73,6 +85,7 @@ public class ClinicService {
         clinic.setPhone(request.getPhone());
 
         clinicRepository.persist(clinic);
+        searchIndexService.indexClinic(clinic);
         log.info("Clinic created with id: {}", clinic.getId());
 
         return toClinicDto(clinic);
@@ -90,6 +103,7 @@ public class ClinicService {
         clinic.setPhone(request.getPhone());
 
         clinicRepository.persist(clinic);
+        searchIndexService.indexClinic(clinic);
         return toClinicDto(clinic);
     }
 
@@ -101,6 +115,7 @@ public class ClinicService {
                 .orElseThrow(() -> new NotFoundException("Clinic not found with id: " + id));
 
         clinicRepository.delete(clinic);
+        searchIndexService.remove(SearchIndexService.CLINICS, id);
     }
 
     private ClinicDto toClinicDto(ClinicEntity entity) {
@@ -114,6 +129,7 @@ public class ClinicService {
         return dto;
     }
 
+    @ReadOnly
     public PageResponse<DoctorDto> getDoctorsByClinic(UUID clinic, DoctorFilterDto filter, @Valid CommonPageRequest pageRequest) {
         PageResponse<DoctorEntity> entityResponse = doctorClinicRepository.findDoctorsByClinic(clinic, filter, pageRequest);
 
@@ -137,9 +153,20 @@ public class ClinicService {
         log.info("Fetching appointments for clinic: {} with filter - startDate: {}, endDate: {}",
                 clinicId, filter != null ? filter.startDate : null, filter != null ? filter.endDate : null);
 
-        return medicalAppointmentRepository.findByClinicId(clinicId, filter)
-                .stream()
-                .map(medicalAppointmentService::toMedicalAppointmentDto)
-                .collect(Collectors.toList());
+        return medicalAppointmentService.toMedicalAppointmentDtos(medicalAppointmentRepository.findByClinicId(clinicId, filter));
+    }
+
+    /**
+     * Todas las citas de la clínica que cumplen el filtro, sin paginar, en NDJSON o CSV.
+     */
+    public StreamingOutput exportAppointmentsByClinic(UUID clinicId, MedicalAppointmentFilterDto filter,
+                                                      ListingExportService.Format format) {
+        log.info("Exporting appointments for clinic: {} as {}", clinicId, format);
+
+        clinicRepository.findByIdOptional(clinicId)
+                .orElseThrow(() -> new NotFoundException("Clinic not found with id: " + clinicId));
+        return listingExportService.stream(format, MedicalAppointmentDto.class,
+                fetchSize -> medicalAppointmentRepository.streamByClinicId(clinicId, filter, fetchSize),
+                medicalAppointmentService::toMedicalAppointmentDtos);
     }
 }
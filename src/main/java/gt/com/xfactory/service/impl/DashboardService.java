@@ -5,6 +5,7 @@ import gt.com.xfactory.entity.enums.*;
 import gt.com.xfactory.repository.*;
 import jakarta.enterprise.context.*;
 import jakarta.inject.*;
+import jakarta.persistence.*;
 import jakarta.ws.rs.*;
 import lombok.extern.slf4j.*;
 
@@ -16,21 +17,25 @@ import java.util.*;
 @Slf4j
 public class DashboardService {
 
+    private static final List<AppointmentStatus> PENDING_STATUSES = List.of(
+            AppointmentStatus.scheduled, AppointmentStatus.confirmed, AppointmentStatus.reopened);
+
     @Inject
-    MedicalAppointmentRepository medicalAppointmentRepository;
+    ReadReplicaRouter readReplicaRouter;
 
     @Inject
     SecurityContextService securityContextService;
 
+    @Inject
+    AppointmentStatsService appointmentStatsService;
+
     private UUID getCurrentDoctorId() {
         return securityContextService.getCurrentDoctorId();
     }
 
     public DashboardDto getDashboardMetrics(UUID clinicId, UUID doctorId) {
         UUID currentDoctorId = getCurrentDoctorId();
-        if (currentDoctorId != null) {
-            doctorId = currentDoctorId;
-        }
+        UUID effectiveDoctorId = currentDoctorId != null ? currentDoctorId : doctorId;
 
         LocalDate today = LocalDate.now();
         LocalDateTime startOfDay = today.atStartOfDay();
@@ -42,8 +47,8 @@ public class DashboardService {
         LocalDateTime startOfMonth = today.withDayOfMonth(1).atStartOfDay();
         LocalDateTime endOfMonth = today.plusMonths(1).withDayOfMonth(1).atStartOfDay();
 
-        String baseWhere = buildBaseWhere(clinicId, doctorId);
-        Map<String, Object> baseParams = buildBaseParams(clinicId, doctorId);
+        String baseWhere = buildBaseWhere(clinicId, effectiveDoctorId);
+        Map<String, Object> baseParams = buildBaseParams(clinicId, effectiveDoctorId);
 
         // Params for main query (today + monthly)
         Map<String, Object> mainParams = new HashMap<>(baseParams);
@@ -54,8 +59,7 @@ public class DashboardService {
         mainParams.put("completed", AppointmentStatus.completed);
         mainParams.put("cancelled", AppointmentStatus.cancelled);
         mainParams.put("noShow", AppointmentStatus.no_show);
-        mainParams.put("pendingStatuses", List.of(
-                AppointmentStatus.scheduled, AppointmentStatus.confirmed, AppointmentStatus.reopened));
+        mainParams.put("pendingStatuses", PENDING_STATUSES);
 
         // 1 query: today metrics (total, completed, pending, cancelled, no_show) + monthly metrics (total, cancellations)
         String jpql = "SELECT "
@@ -68,33 +72,69 @@ public class DashboardService {
                 + "SUM(CASE WHEN m.appointmentDate >= :startOfMonth AND m.appointmentDate < :endOfMonth AND m.status = :cancelled THEN 1 ELSE 0 END) "
                 + "FROM MedicalAppointmentEntity m WHERE " + baseWhere;
 
-        var mainQuery = medicalAppointmentRepository.getEntityManager().createQuery(jpql, Object[].class);
-        mainParams.forEach(mainQuery::setParameter);
-        Object[] row = mainQuery.getSingleResult();
-
-        // 1 query: weekly distinct patients
-        Map<String, Object> weeklyParams = new HashMap<>(baseParams);
-        weeklyParams.put("startOfWeek", startOfWeek);
-        weeklyParams.put("endOfWeek", endOfWeek);
-        weeklyParams.put("completed", AppointmentStatus.completed);
-
-        String weeklyJpql = "SELECT COUNT(DISTINCT m.patient.id) FROM MedicalAppointmentEntity m WHERE "
-                + baseWhere
-                + " AND m.appointmentDate >= :startOfWeek AND m.appointmentDate < :endOfWeek AND m.status = :completed";
-        var weeklyQuery = medicalAppointmentRepository.getEntityManager().createQuery(weeklyJpql, Long.class);
-        weeklyParams.forEach(weeklyQuery::setParameter);
-        long weeklyPatientsAttended = weeklyQuery.getSingleResult();
-
-        return DashboardDto.builder()
-                .todayAppointments(toLong(row[0]))
-                .todayCompleted(toLong(row[1]))
-                .todayPending(toLong(row[2]))
-                .todayCancelled(toLong(row[3]))
-                .todayNoShow(toLong(row[4]))
-                .weeklyPatientsAttended(weeklyPatientsAttended)
-                .monthlyAppointments(toLong(row[5]))
-                .monthlyCancellations(toLong(row[6]))
-                .build();
+        return readReplicaRouter.read(em -> {
+            Object[] row;
+            if (appointmentStatsService.isEnabled()) {
+                row = metricsFromDailyStats(em, today, clinicId, effectiveDoctorId);
+            } else {
+                var mainQuery = em.createQuery(jpql, Object[].class);
+                mainParams.forEach(mainQuery::setParameter);
+                row = mainQuery.getSingleResult();
+            }
+
+            // 1 query: weekly distinct patients (no es aditivo, no sale de las estadísticas diarias)
+            Map<String, Object> weeklyParams = new HashMap<>(baseParams);
+            weeklyParams.put("startOfWeek", startOfWeek);
+            weeklyParams.put("endOfWeek", endOfWeek);
+            weeklyParams.put("completed", AppointmentStatus.completed);
+
+            String weeklyJpql = "SELECT COUNT(DISTINCT m.patient.id) FROM MedicalAppointmentEntity m WHERE "
+                    + baseWhere
+                    + " AND m.appointmentDate >= :startOfWeek AND m.appointmentDate < :endOfWeek AND m.status = :completed";
+            var weeklyQuery = em.createQuery(weeklyJpql, Long.class);
+            weeklyParams.forEach(weeklyQuery::setParameter);
+            long weeklyPatientsAttended = weeklyQuery.getSingleResult();
+
+            return DashboardDto.builder()
+                    .todayAppointments(toLong(row[0]))
+                    .todayCompleted(toLong(row[1]))
+                    .todayPending(toLong(row[2]))
+                    .todayCancelled(toLong(row[3]))
+                    .todayNoShow(toLong(row[4]))
+                    .weeklyPatientsAttended(weeklyPatientsAttended)
+                    .monthlyAppointments(toLong(row[5]))
+                    .monthlyCancellations(toLong(row[6]))
+                    .build();
+        });
+    }
+
+    /**
+     * Mismos valores que la consulta principal (hoy + mes) a partir de appointment_daily_stats:
+     * a lo sumo una fila por día del mes y estado, en lugar de recorrer las citas.
+     */
+    private Object[] metricsFromDailyStats(EntityManager em, LocalDate today, UUID clinicId, UUID doctorId) {
+        Map<LocalDate, Map<AppointmentStatus, Long>> counts = appointmentStatsService.countsByDay(
+                em, today.withDayOfMonth(1), today.plusMonths(1).withDayOfMonth(1), clinicId, doctorId);
+
+        Map<AppointmentStatus, Long> todayCounts = counts.getOrDefault(today, Map.of());
+        long todayPending = PENDING_STATUSES.stream().mapToLong(st -> todayCounts.getOrDefault(st, 0L)).sum();
+
+        long monthlyTotal = 0;
+        long monthlyCancelled = 0;
+        for (Map<AppointmentStatus, Long> day : counts.values()) {
+            monthlyTotal += day.values().stream().mapToLong(Long::longValue).sum();
+            monthlyCancelled += day.getOrDefault(AppointmentStatus.cancelled, 0L);
+        }
+
+        return new Object[]{
+                todayCounts.values().stream().mapToLong(Long::longValue).sum(),
+                todayCounts.getOrDefault(AppointmentStatus.completed, 0L),
+                todayPending,
+                todayCounts.getOrDefault(AppointmentStatus.cancelled, 0L),
+                todayCounts.getOrDefault(AppointmentStatus.no_show, 0L),
+                monthlyTotal,
+                monthlyCancelled
+        };
     }
 
     private String buildBaseWhere(UUID clinicId, UUID doctorId) {
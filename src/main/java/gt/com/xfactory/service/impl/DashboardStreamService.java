@@ -0,0 +1,214 @@
+package gt.com.xfactory.service.impl;
+
+import gt.com.xfactory.dto.response.*;
+import gt.com.xfactory.entity.DashboardWidgetConfigEntity.*;
+import gt.com.xfactory.entity.enums.*;
+import gt.com.xfactory.service.event.*;
+import gt.com.xfactory.service.widget.*;
+import io.quarkus.scheduler.*;
+import io.smallrye.mutiny.*;
+import io.smallrye.mutiny.operators.multi.processors.*;
+import jakarta.enterprise.context.*;
+import jakarta.enterprise.event.*;
+import jakarta.inject.*;
+import lombok.extern.slf4j.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.stream.*;
+
+/**
+ * Stream SSE de los widgets del dashboard, en lugar del polling a /widgets.
+ * Los suscriptores se agrupan por alcance (tenant, clínica, médico). Cuando cambia una cita del
+ * alcance (AppointmentChangedEvent, tras el commit) los widgets se recalculan una sola vez para todos
+ * sus suscriptores y a cada uno se le envía solo lo que cambió de sus widgets activos.
+ * Varios cambios seguidos mientras hay un recálculo pendiente se agrupan en uno solo.
+ * Los widgets que dependen de la hora o de otros datos (retrasos, próxima cita, órdenes de
+ * laboratorio pendientes) se recalculan además periódicamente.
+ */
+@ApplicationScoped
+@Slf4j
+public class DashboardStreamService {
+
+    @Inject
+    DashboardWidgetService dashboardWidgetService;
+
+    @Inject
+    TenantScopedExecutor tenantScopedExecutor;
+
+    @Inject
+    ReadReplicaRouter readReplicaRouter;
+
+    // Widgets que cambian sin que cambie ninguna cita
+    static final Set<WidgetType> TIME_DRIVEN = EnumSet.of(
+            WidgetType.DELAYS, WidgetType.NEXT_APPOINTMENT, WidgetType.PENDING_LAB_ORDERS);
+
+    private final ConcurrentHashMap<Scope, ScopeChannel> channels = new ConcurrentHashMap<>();
+
+    record Scope(String tenantId, UUID clinicId, UUID doctorId) {
+    }
+
+    // started: ya tiene vista inicial; antes, publish no le envía nada (la vista inicial ya lo incluye)
+    record Subscriber(UnicastProcessor<DashboardWidgetsDto> processor, List<WidgetItem> items, AtomicBoolean started) {
+    }
+
+    static class ScopeChannel {
+        final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+        final AtomicBoolean refreshPending = new AtomicBoolean();
+        // Hay un commit pendiente de recalcular: la réplica puede no tenerlo todavía
+        final AtomicBoolean primaryPending = new AtomicBoolean();
+        // Orden de los recálculos: uno que termina después de otro más reciente no se publica
+        final AtomicLong generation = new AtomicLong();
+        // Último resultado publicado y su generación; se accede con el lock del canal
+        WidgetSnapshot last;
+        long lastGeneration;
+
+        Set<WidgetType> types() {
+            return subscribers.stream()
+                    .flatMap(subscriber -> subscriber.items().stream())
+                    .map(WidgetItem::getType)
+                    .collect(Collectors.toCollection(() -> EnumSet.noneOf(WidgetType.class)));
+        }
+    }
+
+    /**
+     * Registra un stream con los widgets activos del usuario actual. El primer elemento es el
+     * dashboard completo; los siguientes, solo lo que cambió.
+     */
+    public Multi<DashboardWidgetsDto> register(UUID clinicId, UUID doctorId) {
+        Scope scope = new Scope(tenantScopedExecutor.currentTenantId(), clinicId,
+                dashboardWidgetService.effectiveDoctorId(doctorId));
+        // Unicast: los cambios publicados antes de que el cliente se suscriba quedan en cola, no se pierden
+        Subscriber subscriber = new Subscriber(UnicastProcessor.create(),
+                List.copyOf(dashboardWidgetService.getActiveWidgets(clinicId)), new AtomicBoolean());
+        log.info("Registering dashboard stream for scope: {}", scope);
+
+        ScopeChannel channel = channels.compute(scope, (key, existing) -> {
+            ScopeChannel target = existing != null ? existing : new ScopeChannel();
+            target.subscribers.add(subscriber);
+            return target;
+        });
+
+        DashboardWidgetsDto initial = initialView(scope, channel, subscriber);
+
+        return Multi.createBy().concatenating()
+                .streams(Multi.createFrom().item(initial), subscriber.processor())
+                .onTermination().invoke(() -> unregister(scope, subscriber));
+    }
+
+    private DashboardWidgetsDto initialView(Scope scope, ScopeChannel channel, Subscriber subscriber) {
+        List<WidgetType> types = subscriber.items().stream().map(WidgetItem::getType).toList();
+        WidgetSnapshot snapshot = startFrom(channel, subscriber, types, null);
+        if (snapshot == null) {
+            // Se calcula fuera del lock: no bloquea la publicación de los demás suscriptores
+            long generation = channel.generation.incrementAndGet();
+            WidgetSnapshot resolved = dashboardWidgetService.resolve(scope.clinicId(), scope.doctorId(), channel.types());
+            publish(channel, generation, resolved);
+            snapshot = startFrom(channel, subscriber, types, resolved);
+        }
+        return snapshot.toDto(subscriber.items());
+    }
+
+    /**
+     * Fija con el lock del canal la vista inicial del suscriptor: el último resultado publicado si
+     * cubre sus widgets, si no fallback. Desde aquí publish le envía los cambios respecto a esa vista.
+     */
+    private WidgetSnapshot startFrom(ScopeChannel channel, Subscriber subscriber, List<WidgetType> types,
+                                     WidgetSnapshot fallback) {
+        synchronized (channel) {
+            WidgetSnapshot start = channel.last != null && channel.last.covers(types) ? channel.last : fallback;
+            if (start != null) {
+                subscriber.started().set(true);
+            }
+            return start;
+        }
+    }
+
+    void unregister(Scope scope, Subscriber subscriber) {
+        log.info("Unregistering dashboard stream for scope: {}", scope);
+        channels.computeIfPresent(scope, (key, channel) -> {
+            channel.subscribers.remove(subscriber);
+            return channel.subscribers.isEmpty() ? null : channel;
+        });
+    }
+
+    public void onAppointmentChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) AppointmentChangedEvent event) {
+        if (channels.isEmpty()) {
+            return;
+        }
+        String organizationId = event.organizationId() != null
+                ? event.organizationId() : tenantScopedExecutor.currentTenantId();
+
+        channels.forEach((scope, channel) -> {
+            if (scope.tenantId().equals(organizationId) && event.affects(scope.clinicId(), scope.doctorId())) {
+                channel.primaryPending.set(true);
+                scheduleRefresh(scope, channel);
+            }
+        });
+    }
+
+    /**
+     * Recalcula los canales con widgets que dependen de la hora o de datos que no emiten eventos.
+     */
+    @Scheduled(every = "${dashboard.stream.refresh-interval:30s}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    public void refreshTimeDriven() {
+        channels.forEach((scope, channel) -> {
+            if (!Collections.disjoint(channel.types(), TIME_DRIVEN)) {
+                scheduleRefresh(scope, channel);
+            }
+        });
+    }
+
+    private void scheduleRefresh(Scope scope, ScopeChannel channel) {
+        if (channel.refreshPending.compareAndSet(false, true)) {
+            tenantScopedExecutor.submit(scope.tenantId(), () -> refresh(scope, channel))
+                    .exceptionally(e -> {
+                        log.warn("Dashboard stream refresh failed for scope {}: {}", scope, e.getMessage());
+                        return null;
+                    });
+        }
+    }
+
+    private Void refresh(Scope scope, ScopeChannel channel) {
+        // Los cambios que lleguen desde aquí programan otro recálculo
+        channel.refreshPending.set(false);
+        boolean afterCommit = channel.primaryPending.getAndSet(false);
+        if (channel.subscribers.isEmpty()) {
+            return null;
+        }
+        long generation = channel.generation.incrementAndGet();
+        Set<WidgetType> types = channel.types();
+        // Tras un cambio de cita se lee del primario: desde la réplica se publicaría el estado anterior
+        WidgetSnapshot current = afterCommit
+                ? readReplicaRouter.onPrimary(() -> dashboardWidgetService.resolve(scope.clinicId(), scope.doctorId(), types))
+                : dashboardWidgetService.resolve(scope.clinicId(), scope.doctorId(), types);
+        publish(channel, generation, current);
+        return null;
+    }
+
+    /**
+     * Publica el resultado y envía a cada suscriptor lo que cambió. Solo esto se hace con el lock del
+     * canal; devuelve false si ya se publicó un recálculo más reciente.
+     */
+    private boolean publish(ScopeChannel channel, long generation, WidgetSnapshot current) {
+        synchronized (channel) {
+            if (generation < channel.lastGeneration) {
+                return false;
+            }
+            WidgetSnapshot previous = channel.last;
+            channel.last = current;
+            channel.lastGeneration = generation;
+            for (Subscriber subscriber : channel.subscribers) {
+                if (!subscriber.started().get()) {
+                    continue;
+                }
+                DashboardWidgetsDto delta = current.deltaFrom(previous, subscriber.items());
+                if (delta != null) {
+                    subscriber.processor().onNext(delta);
+                }
+            }
+            return true;
+        }
+    }
+}
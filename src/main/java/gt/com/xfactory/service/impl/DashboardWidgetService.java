@@ -9,6 +9,7 @@ import gt.com.xfactory.entity.DashboardWidgetConfigEntity.*;
 import gt.com.xfactory.entity.enums.*;
 import gt.com.xfactory.repository.*;
 import gt.com.xfactory.service.widget.*;
+import gt.com.xfactory.service.widget.WidgetContext.*;
 import jakarta.annotation.*;
 import jakarta.enterprise.context.*;
 import jakarta.enterprise.inject.*;
@@ -50,11 +51,17 @@ public class DashboardWidgetService {
     DashboardWidgetConfigRepository configRepository;
 
     @Inject
-    MedicalAppointmentRepository appointmentRepository;
+    ReadReplicaRouter readReplicaRouter;
 
     @Inject
     SecurityContextService securityContextService;
 
+    @Inject
+    AppointmentStatsService appointmentStatsService;
+
+    @Inject
+    WidgetResultCache widgetResultCache;
+
     @Inject
     Instance<WidgetResolver> widgetResolvers;
 
@@ -128,33 +135,47 @@ public class DashboardWidgetService {
     }
 
     public DashboardWidgetsDto getWidgets(UUID clinicId, UUID doctorId) {
+        List<WidgetItem> activeItems = getActiveWidgets(clinicId);
+        return resolve(clinicId, effectiveDoctorId(doctorId), activeItems.stream().map(WidgetItem::getType).toList())
+                .toDto(activeItems);
+    }
+
+    /**
+     * Un médico solo ve sus propios widgets; los demás roles filtran por el doctorId recibido.
+     */
+    public UUID effectiveDoctorId(UUID doctorId) {
         UUID currentDoctorId = securityContextService.getCurrentDoctorId();
-        UUID effectiveDoctorId = currentDoctorId != null ? currentDoctorId : doctorId;
+        return currentDoctorId != null ? currentDoctorId : doctorId;
+    }
 
+    public List<WidgetItem> getActiveWidgets(UUID clinicId) {
         UUID userId = securityContextService.getCurrentUserId();
-        List<WidgetItem> activeItems = configRepository.findByUserAndClinic(userId, clinicId)
+        return configRepository.findByUserAndClinic(userId, clinicId)
                 .map(DashboardWidgetConfigEntity::getWidgets)
                 .orElseGet(this::getDefaultWidgets);
+    }
 
-        DayStatusDto dayStatus = buildDayStatus(clinicId, effectiveDoctorId);
-
-        List<WidgetDataDto> widgetDataList = activeItems.stream()
-                .sorted(Comparator.comparingInt(WidgetItem::getOrder))
-                .map(item -> {
-                    WidgetResolver resolver = resolverMap.get(item.getType());
-                    Object data = resolver != null ? resolver.resolve(clinicId, effectiveDoctorId) : null;
-                    return WidgetDataDto.builder()
-                            .type(item.getType().name())
-                            .order(item.getOrder())
-                            .data(data)
-                            .build();
-                })
-                .collect(Collectors.toList());
-
-        return DashboardWidgetsDto.builder()
-                .dayStatus(dayStatus)
-                .widgets(widgetDataList)
-                .build();
+    /**
+     * Evalúa los widgets indicados para el alcance, sin depender del usuario actual, de modo que el
+     * resultado se puede compartir entre usuarios (DashboardStreamService).
+     */
+    public WidgetSnapshot resolve(UUID clinicId, UUID doctorId, Collection<WidgetType> types) {
+        // Las citas de la semana se cargan una sola vez (la primera vez que un widget las pide)
+        WidgetContext context = new WidgetContext(clinicId, doctorId, LocalDateTime.now(),
+                this::loadWeekAppointments);
+        boolean needsWeekAppointments = types.stream()
+                .map(resolverMap::get)
+                .filter(Objects::nonNull)
+                .anyMatch(resolver -> resolver.requires().contains(WidgetData.WEEK_APPOINTMENTS));
+
+        DayStatusDto dayStatus = buildDayStatus(context, needsWeekAppointments);
+
+        Map<WidgetType, Object> data = new EnumMap<>(WidgetType.class);
+        for (WidgetType type : types) {
+            WidgetResolver resolver = resolverMap.get(type);
+            data.put(type, resolver != null ? widgetResultCache.get(type, context, () -> resolver.resolve(context)) : null);
+        }
+        return new WidgetSnapshot(dayStatus, data);
     }
 
     private List<WidgetItem> getDefaultWidgets() {
@@ -166,52 +187,61 @@ public class DashboardWidgetService {
         return DEFAULT_WIDGETS.get("doctor");
     }
 
-    private DayStatusDto buildDayStatus(UUID clinicId, UUID doctorId) {
-        LocalDate today = LocalDate.now();
-        LocalDateTime startOfDay = today.atStartOfDay();
-        LocalDateTime endOfDay = today.plusDays(1).atStartOfDay();
+    /**
+     * Con el snapshot de la semana ya necesario para algún widget, el estado del día sale de él
+     * en memoria; si no, de las estadísticas diarias (si están habilitadas) para no cargarlo.
+     */
+    private DayStatusDto buildDayStatus(WidgetContext context, boolean weekAppointmentsLoaded) {
+        if (!weekAppointmentsLoaded && appointmentStatsService.isEnabled()) {
+            LocalDate today = context.today();
+            return readReplicaRouter.read(em -> dayStatusFromCounts(
+                    appointmentStatsService.countsByDay(em, today, today.plusDays(1), context.clinicId(), context.doctorId())
+                            .getOrDefault(today, Map.of())));
+        }
+        return dayStatusFromCounts(context.todayAppointments().stream()
+                .collect(Collectors.groupingBy(AppointmentRow::status,
+                        () -> new EnumMap<>(AppointmentStatus.class), Collectors.counting())));
+    }
 
-        StringBuilder where = new StringBuilder("1 = 1");
+    private List<AppointmentRow> loadWeekAppointments(WidgetContext context) {
+        StringBuilder where = new StringBuilder("m.appointmentDate >= :startOfWeek AND m.appointmentDate < :endOfWeek");
         Map<String, Object> params = new HashMap<>();
+        params.put("startOfWeek", context.startOfWeek());
+        params.put("endOfWeek", context.endOfWeek());
 
-        if (clinicId != null) {
+        if (context.clinicId() != null) {
             where.append(" AND m.clinic.id = :clinicId");
-            params.put("clinicId", clinicId);
+            params.put("clinicId", context.clinicId());
         }
-        if (doctorId != null) {
+        if (context.doctorId() != null) {
             where.append(" AND m.doctor.id = :doctorId");
-            params.put("doctorId", doctorId);
+            params.put("doctorId", context.doctorId());
         }
-        params.put("startOfDay", startOfDay);
-        params.put("endOfDay", endOfDay);
-        params.put("completed", AppointmentStatus.completed);
-        params.put("cancelled", AppointmentStatus.cancelled);
-        params.put("noShow", AppointmentStatus.no_show);
-        params.put("pendingStatuses", List.of(
-                AppointmentStatus.scheduled, AppointmentStatus.confirmed, AppointmentStatus.reopened));
-
-        String jpql = "SELECT "
-                + "SUM(CASE WHEN m.appointmentDate >= :startOfDay AND m.appointmentDate < :endOfDay THEN 1 ELSE 0 END), "
-                + "SUM(CASE WHEN m.appointmentDate >= :startOfDay AND m.appointmentDate < :endOfDay AND m.status = :completed THEN 1 ELSE 0 END), "
-                + "SUM(CASE WHEN m.appointmentDate >= :startOfDay AND m.appointmentDate < :endOfDay AND m.status IN :pendingStatuses THEN 1 ELSE 0 END), "
-                + "SUM(CASE WHEN m.appointmentDate >= :startOfDay AND m.appointmentDate < :endOfDay AND m.status = :cancelled THEN 1 ELSE 0 END), "
-                + "SUM(CASE WHEN m.appointmentDate >= :startOfDay AND m.appointmentDate < :endOfDay AND m.status = :noShow THEN 1 ELSE 0 END) "
-                + "FROM MedicalAppointmentEntity m WHERE " + where;
-
-        var query = appointmentRepository.getEntityManager().createQuery(jpql, Object[].class);
-        params.forEach(query::setParameter);
-        Object[] row = query.getSingleResult();
 
-        return DayStatusDto.builder()
-                .todayAppointments(toLong(row[0]))
-                .todayCompleted(toLong(row[1]))
-                .todayPending(toLong(row[2]))
-                .todayCancelled(toLong(row[3]))
-                .todayNoShow(toLong(row[4]))
-                .build();
+        String jpql = "SELECT m.id, m.appointmentDate, m.status, p.id, p.firstName, p.lastName, s.name, "
+                + "m.reason, m.cancellationReason "
+                + "FROM MedicalAppointmentEntity m JOIN m.patient p LEFT JOIN m.specialty s "
+                + "WHERE " + where;
+
+        return readReplicaRouter.read(em -> {
+            var query = em.createQuery(jpql, Object[].class);
+            params.forEach(query::setParameter);
+            return query.getResultList().stream()
+                    .map(row -> new AppointmentRow((UUID) row[0], (LocalDateTime) row[1], (AppointmentStatus) row[2],
+                            (UUID) row[3], row[4] + " " + row[5], (String) row[6], (String) row[7], (String) row[8]))
+                    .toList();
+        });
     }
 
-    private long toLong(Object value) {
-        return value != null ? ((Number) value).longValue() : 0L;
+    private DayStatusDto dayStatusFromCounts(Map<AppointmentStatus, Long> counts) {
+        return DayStatusDto.builder()
+                .todayAppointments(counts.values().stream().mapToLong(Long::longValue).sum())
+                .todayCompleted(counts.getOrDefault(AppointmentStatus.completed, 0L))
+                .todayPending(counts.getOrDefault(AppointmentStatus.scheduled, 0L)
+                        + counts.getOrDefault(AppointmentStatus.confirmed, 0L)
+                        + counts.getOrDefault(AppointmentStatus.reopened, 0L))
+                .todayCancelled(counts.getOrDefault(AppointmentStatus.cancelled, 0L))
+                .todayNoShow(counts.getOrDefault(AppointmentStatus.no_show, 0L))
+                .build();
     }
 }
@@ -5,6 +5,7 @@ import gt.com.xfactory.dto.request.filter.*;
 import gt.com.xfactory.dto.response.*;
 import gt.com.xfactory.entity.*;
 import gt.com.xfactory.repository.*;
+import gt.com.xfactory.service.search.*;
 import gt.com.xfactory.utils.*;
 import jakarta.enterprise.context.*;
 import jakarta.inject.*;
@@ -14,6 +15,8 @@ import lombok.extern.slf4j.*;
 import org.apache.commons.lang3.*;
 
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
 import java.util.function.*;
 
 import static gt.com.xfactory.dto.response.PageResponse.toPageResponse;
@@ -25,6 +28,27 @@ public class DiagnosisCatalogService {
     @Inject
     DiagnosisCatalogRepository diagnosisCatalogRepository;
 
+    @Inject
+    SearchIndexService searchIndexService;
+
+    @Inject
+    TransactionSynchronizationRegistry transactionRegistry;
+
+    @Inject
+    TotalCountService totalCountService;
+
+    private static final int MAX_AUTOCOMPLETE_RESULTS = 50;
+
+    // Catálogo en memoria para autocomplete; se carga una vez y se invalida en create/update/delete
+    private volatile DiagnosisCatalogIndex catalogIndex;
+    private final AtomicLong catalogGeneration = new AtomicLong();
+    // Carga en curso de la generación: las peticiones concurrentes la esperan en lugar de repetirla
+    private CatalogLoad catalogLoad;
+
+    private record CatalogLoad(long generation, CompletableFuture<DiagnosisCatalogIndex> future) {
+    }
+
+    @ReadOnly
     public PageResponse<DiagnosisCatalogDto> search(DiagnosisCatalogFilterDto filter, CommonPageRequest pageRequest) {
         log.info("Searching diagnosis catalog with filter: {}", filter.search);
 
@@ -34,7 +58,80 @@ public class DiagnosisCatalogService {
                         "search", filter.search)
                 .addLike(filter.code, "code");
 
-        return toPageResponse(diagnosisCatalogRepository, fb.buildQuery(), pageRequest, fb.getParams(), toDto);
+        return toPageResponse(diagnosisCatalogRepository, fb.buildQuery(),
+                pageRequest, fb.getParams(), toDto, totalCountService::count);
+    }
+
+    public List<DiagnosisCatalogDto> autocomplete(String q, int limit) {
+        if (StringUtils.isBlank(q)) {
+            throw new BadRequestException("El término de búsqueda es requerido");
+        }
+        int effectiveLimit = Math.min(Math.max(limit, 1), MAX_AUTOCOMPLETE_RESULTS);
+        return getCatalogIndex().autocomplete(q.trim(), effectiveLimit);
+    }
+
+    private DiagnosisCatalogIndex getCatalogIndex() {
+        DiagnosisCatalogIndex index = catalogIndex;
+        if (index != null) {
+            return index;
+        }
+        CatalogLoad load;
+        boolean owner = false;
+        synchronized (this) {
+            if (catalogIndex != null) {
+                return catalogIndex;
+            }
+            load = catalogLoad;
+            if (load == null || load.generation() != catalogGeneration.get()) {
+                load = new CatalogLoad(catalogGeneration.get(), new CompletableFuture<>());
+                catalogLoad = load;
+                owner = true;
+            }
+        }
+        if (!owner) {
+            try {
+                return load.future().join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException re ? re : e;
+            }
+        }
+
+        // La carga va fuera del lock: solo se toma para publicar el índice
+        try {
+            long start = System.currentTimeMillis();
+            index = DiagnosisCatalogIndex.of(diagnosisCatalogRepository.listAll().stream().map(toDto).toList());
+            log.info("Diagnosis catalog loaded in memory: {} entries in {} ms", index.size(),
+                    System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            finishLoad(load);
+            load.future().completeExceptionally(e);
+            throw e;
+        }
+        synchronized (this) {
+            // Si hubo una escritura mientras se cargaba, no publicar una versión posiblemente desactualizada
+            if (catalogGeneration.get() == load.generation()) {
+                catalogIndex = index;
+            }
+        }
+        finishLoad(load);
+        load.future().complete(index);
+        return index;
+    }
+
+    private synchronized void finishLoad(CatalogLoad load) {
+        if (catalogLoad == load) {
+            catalogLoad = null;
+        }
+    }
+
+    private void invalidateCatalogIndex() {
+        resetCatalogIndex();
+        TransactionUtils.afterCommit(transactionRegistry, this::resetCatalogIndex);
+    }
+
+    private synchronized void resetCatalogIndex() {
+        catalogGeneration.incrementAndGet();
+        catalogIndex = null;
     }
 
     public DiagnosisCatalogDto getById(UUID id) {
@@ -55,6 +152,8 @@ public class DiagnosisCatalogService {
         entity.setChapter(request.getChapter());
 
         diagnosisCatalogRepository.persist(entity);
+        searchIndexService.indexDiagnosis(entity);
+        invalidateCatalogIndex();
         log.info("Diagnosis catalog created with id: {}", entity.getId());
 
         return toDto.apply(entity);
@@ -73,6 +172,8 @@ public class DiagnosisCatalogService {
         entity.setChapter(request.getChapter());
 
         diagnosisCatalogRepository.persist(entity);
+        searchIndexService.indexDiagnosis(entity);
+        invalidateCatalogIndex();
         log.info("Diagnosis catalog updated: {}", id);
 
         return toDto.apply(entity);
@@ -86,6 +187,8 @@ public class DiagnosisCatalogService {
                 .orElseThrow(() -> new NotFoundException("Diagnosis not found with id: " + id));
 
         diagnosisCatalogRepository.delete(entity);
+        searchIndexService.remove(SearchIndexService.DIAGNOSES, id);
+        invalidateCatalogIndex();
         log.info("Diagnosis catalog deleted: {}", id);
     }
 
@@ -26,6 +26,10 @@ public class DistributorService {
     @Inject
     DistributorRepository distributorRepository;
 
+    @Inject
+    TotalCountService totalCountService;
+
+    @ReadOnly
     public PageResponse<DistributorDto> getDistributors(DistributorFilterDto filter, @Valid CommonPageRequest pageRequest) {
         log.info("Fetching distributors with filter - pageRequest: {}, filter: {}", pageRequest, filter);
 
@@ -33,7 +37,8 @@ public class DistributorService {
                 .addLike(filter.name, "name")
                 .addEquals(filter.active, "active");
 
-        return toPageResponse(distributorRepository, fb.buildQuery(), pageRequest, fb.getParams(), toDto);
+        return toPageResponse(distributorRepository, fb.buildQuery(),
+                pageRequest, fb.getParams(), toDto, totalCountService::count);
     }
 
     public DistributorDto getById(UUID id) {
@@ -44,6 +44,16 @@ public class DoctorService {
     @Inject
     MedicalAppointmentRepository medicalAppointmentRepository;
 
+    @Inject
+    SearchIndexService searchIndexService;
+
+    @Inject
+    IdentityCache identityCache;
+
+    @Inject
+    TotalCountService totalCountService;
+
+    @ReadOnly
     public PageResponse<DoctorDto> getDoctors(DoctorFilterDto filter, @Valid CommonPageRequest pageRequest) {
         log.info("Fetching doctors with filter - pageRequest: {}, filter: {}", pageRequest, filter);
 
@@ -60,7 +70,8 @@ public class DoctorService {
                         "id IN (SELECT dc.doctor.id FROM DoctorClinicEntity dc WHERE dc.clinic.id = :clinicId AND dc.active = true)",
                         "clinicId", filter.clinicId);
 
-        PageResponse<DoctorDto> response = toPageResponse(doctorRepository, fb.buildQuery(), pageRequest, fb.getParams(), toDto);
+        PageResponse<DoctorDto> response = toPageResponse(doctorRepository, fb.buildQuery(),
+                pageRequest, fb.getParams(), toDto, totalCountService::count);
 
         // Batch load specialties and clinics (2 queries instead of N*2)
         if (!response.content.isEmpty()) {
@@ -107,6 +118,8 @@ public class DoctorService {
         }
 
         doctorRepository.persist(doctor);
+        evictIdentity(doctor.getUser());
+        searchIndexService.indexDoctor(doctor);
         log.info("Doctor created with id: {}", doctor.getId());
 
         return toDto.apply(doctor);
@@ -126,6 +139,8 @@ public class DoctorService {
         doctor.setEmail(request.getMail());
         doctor.setPhone(request.getPhone());
         doctor.setUpdatedAt(LocalDateTime.now());
+        // El vínculo con el usuario puede cambiar abajo: se invalida el anterior y el nuevo
+        evictIdentity(doctor.getUser());
 
         // Sincronizar email en usuario vinculado
         if (doctor.getUser() != null && request.getMail() != null
@@ -143,6 +158,8 @@ public class DoctorService {
         }
 
         doctorRepository.persist(doctor);
+        evictIdentity(doctor.getUser());
+        searchIndexService.indexDoctor(doctor);
 
         DoctorDto dto = toDto.apply(doctor);
         dto.setSpecialties(toSpecialtyDtos(doctorSpecialtyRepository.findByDoctorId(id)));
@@ -172,9 +189,17 @@ public class DoctorService {
         doctorSpecialtyRepository.deleteByDoctorId(id);
 
         doctorRepository.delete(doctor);
+        evictIdentity(doctor.getUser());
+        searchIndexService.remove(SearchIndexService.DOCTORS, id);
         log.info("Doctor deleted successfully");
     }
 
+    private void evictIdentity(UserEntity user) {
+        if (user != null) {
+            identityCache.evict(user.getKeycloakId());
+        }
+    }
+
     // ============ Specialty Management ============
 
     public List<SpecialtyDto> getDoctorSpecialties(UUID doctorId) {
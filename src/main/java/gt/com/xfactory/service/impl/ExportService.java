@@ -0,0 +1,219 @@
+package gt.com.xfactory.service.impl;
+
+import gt.com.xfactory.dto.response.*;
+import gt.com.xfactory.repository.*;
+import gt.com.xfactory.service.export.*;
+import io.quarkus.narayana.jta.*;
+import jakarta.enterprise.context.*;
+import jakarta.inject.*;
+import jakarta.ws.rs.BadRequestException;
+import lombok.extern.slf4j.*;
+import org.apache.arrow.vector.compression.*;
+import org.eclipse.microprofile.config.inject.*;
+import org.hibernate.Session;
+
+import java.io.*;
+import java.nio.file.*;
+import java.sql.*;
+import java.time.*;
+import java.time.format.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.*;
+
+/**
+ * Exportaciones columnares (Arrow IPC comprimido) de citas, diagnósticos y resultados de laboratorio
+ * para BI, a export.directory/&lt;organización&gt;/&lt;dataset&gt;/. Se lee con un cursor del servidor
+ * (fetch size, fuera de autocommit) desde la réplica si está disponible, y se escribe por lotes, así
+ * que el heap no depende del tamaño del resultado. Las incrementales exportan lo modificado desde
+ * la marca de agua guardada en export_watermark menos export.watermark-lag, para no perder filas con
+ * una marca anterior que se confirmaron (o llegaron a la réplica) después de la exportación previa.
+ * Las filas de ese margen pueden repetirse entre archivos: los consumidores deben cargarlas con
+ * upsert por id.
+ */
+@ApplicationScoped
+@Slf4j
+public class ExportService {
+
+    private static final LocalDateTime FULL_EXPORT_SINCE = LocalDateTime.of(1900, 1, 1, 0, 0);
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    private static final String EXTENSION = ".arrow";
+
+    // newRows: filas con marca posterior a la marca guardada, sin contar las releídas del margen
+    private record StreamResult(long rows, long newRows, LocalDateTime watermark) {
+    }
+
+    @ConfigProperty(name = "export.directory", defaultValue = "exports")
+    String directory;
+
+    @ConfigProperty(name = "export.fetch-size", defaultValue = "1000")
+    int fetchSize;
+
+    @ConfigProperty(name = "export.batch-rows", defaultValue = "8192")
+    int batchRows;
+
+    @ConfigProperty(name = "export.compression", defaultValue = "ZSTD")
+    CompressionUtil.CodecType compression;
+
+    @ConfigProperty(name = "export.transaction-timeout", defaultValue = "1h")
+    Duration transactionTimeout;
+
+    @ConfigProperty(name = "export.watermark-lag", defaultValue = "5m")
+    Duration watermarkLag;
+
+    @Inject
+    ExportWatermarkRepository exportWatermarkRepository;
+
+    @Inject
+    ReadReplicaRouter readReplicaRouter;
+
+    @Inject
+    TenantScopedExecutor tenantScopedExecutor;
+
+    // organización|dataset con una exportación en curso
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Inicia en segundo plano la exportación del dataset para el tenant actual.
+     */
+    public void start(String datasetPath, boolean incremental) {
+        ExportDataset dataset = ExportDataset.fromPath(datasetPath)
+                .orElseThrow(() -> new BadRequestException("Dataset de exportación inválido: " + datasetPath));
+        String tenantId = tenantScopedExecutor.currentTenantId();
+        String key = tenantId + "|" + dataset.path();
+        if (!running.add(key)) {
+            throw new IllegalStateException("Ya hay una exportación de " + dataset.path() + " en curso");
+        }
+        tenantScopedExecutor.submit(tenantId, () -> export(tenantId, dataset, incremental))
+                .whenComplete((file, e) -> {
+                    running.remove(key);
+                    if (e != null) {
+                        log.error("Export {} failed for organization {}", dataset.path(), tenantId, e);
+                    } else if (file == null) {
+                        log.info("Export {} for organization {}: no changes since last watermark", dataset.path(), tenantId);
+                    } else {
+                        log.info("Export {} for organization {} written to {}", dataset.path(), tenantId, file.getFileName());
+                    }
+                });
+    }
+
+    public List<ExportFileDto> listExports() {
+        Path tenantDirectory = tenantDirectory(tenantScopedExecutor.currentTenantId());
+        if (!Files.isDirectory(tenantDirectory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.walk(tenantDirectory, 2)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(EXTENSION))
+                    .map(this::toDto)
+                    .sorted(Comparator.comparing(ExportFileDto::getCreatedAt).reversed())
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Exporta el dataset a un archivo nuevo y avanza la marca de agua. Devuelve null si es incremental
+     * y no hubo cambios. El archivo se escribe como .tmp y se renombra al terminar.
+     */
+    Path export(String tenantId, ExportDataset dataset, boolean incremental) {
+        return QuarkusTransaction.requiringNew()
+                .timeout((int) transactionTimeout.toSeconds())
+                .call(() -> {
+                    LocalDateTime previous = incremental
+                            ? exportWatermarkRepository.find(tenantId, dataset.path()).orElse(null)
+                            : null;
+                    LocalDateTime since = previous != null ? previous.minus(watermarkLag) : FULL_EXPORT_SINCE;
+                    Path datasetDirectory = Files.createDirectories(tenantDirectory(tenantId).resolve(dataset.path()));
+                    String fileName = dataset.path() + "-" + FILE_TIMESTAMP.format(LocalDateTime.now())
+                            + (incremental ? "-incremental" : "") + EXTENSION;
+                    Path tmp = datasetDirectory.resolve(fileName + ".tmp");
+
+                    StreamResult result;
+                    try {
+                        result = readReplicaRouter.read(em -> em.unwrap(Session.class)
+                                .doReturningWork(connection -> stream(connection, dataset, tenantId, since, previous, tmp)));
+                    } catch (RuntimeException e) {
+                        Files.deleteIfExists(tmp);
+                        throw e;
+                    }
+                    // Solo filas del margen: no se escribe archivo ni avanza la marca, así que las que
+                    // hayan llegado tarde se vuelven a leer en la siguiente exportación
+                    if (incremental && result.newRows() == 0) {
+                        Files.deleteIfExists(tmp);
+                        return null;
+                    }
+
+                    Path file = Files.move(tmp, datasetDirectory.resolve(fileName), StandardCopyOption.ATOMIC_MOVE);
+                    // Solo avanza: lo releído del margen no puede retrasar la marca guardada
+                    LocalDateTime watermark = result.watermark() != null ? result.watermark() : since;
+                    if (previous != null && previous.isAfter(watermark)) {
+                        watermark = previous;
+                    }
+                    exportWatermarkRepository.save(tenantId, dataset.path(), watermark);
+                    log.info("Exported {} rows of {} for organization {}", result.rows(), dataset.path(), tenantId);
+                    return file;
+                });
+    }
+
+    private StreamResult stream(Connection connection, ExportDataset dataset, String tenantId, LocalDateTime since,
+                                LocalDateTime previous, Path file) throws SQLException {
+        // El driver de PostgreSQL solo usa un cursor (fetch size) dentro de una transacción
+        boolean autoCommit = connection.getAutoCommit();
+        if (autoCommit) {
+            connection.setAutoCommit(false);
+        }
+        List<ExportColumn> columns = dataset.columns();
+        try (PreparedStatement statement = connection.prepareStatement(dataset.sql(),
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            statement.setFetchSize(fetchSize);
+            statement.setString(1, tenantId);
+            statement.setObject(2, since);
+            try (ResultSet rs = statement.executeQuery();
+                 ArrowExportWriter writer = new ArrowExportWriter(file, columns, batchRows, compression)) {
+                Object[] row = new Object[columns.size()];
+                LocalDateTime watermark = null;
+                long newRows = 0;
+                while (rs.next()) {
+                    for (int i = 0; i < columns.size(); i++) {
+                        row[i] = columns.get(i).read(rs, i + 1);
+                    }
+                    writer.append(row);
+                    LocalDateTime rowWatermark = rs.getObject(columns.size() + 1, LocalDateTime.class);
+                    if (watermark == null || rowWatermark.isAfter(watermark)) {
+                        watermark = rowWatermark;
+                    }
+                    if (previous == null || rowWatermark.isAfter(previous)) {
+                        newRows++;
+                    }
+                }
+                return new StreamResult(writer.rowCount(), newRows, watermark);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        } finally {
+            if (autoCommit) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    private Path tenantDirectory(String tenantId) {
+        // El tenant viene del token; se valida como UUID antes de usarlo como nombre de directorio
+        return Path.of(directory, UUID.fromString(tenantId).toString());
+    }
+
+    private ExportFileDto toDto(Path file) {
+        try {
+            return ExportFileDto.builder()
+                    .dataset(file.getParent().getFileName().toString())
+                    .fileName(file.getFileName().toString())
+                    .size(Files.size(file))
+                    .createdAt(LocalDateTime.ofInstant(Files.getLastModifiedTime(file).toInstant(), ZoneId.systemDefault()))
+                    .build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -1,47 +1,323 @@
 package gt.com.xfactory.service.impl;
 
+import gt.com.xfactory.dto.response.*;
 import gt.com.xfactory.entity.*;
+import gt.com.xfactory.entity.enums.*;
 import gt.com.xfactory.repository.*;
+import gt.com.xfactory.service.storage.*;
+import gt.com.xfactory.utils.*;
+import io.quarkus.narayana.jta.*;
+import io.quarkus.scheduler.Scheduled;
 import jakarta.enterprise.context.*;
 import jakarta.inject.*;
 import jakarta.transaction.*;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.StreamingOutput;
 import lombok.extern.slf4j.*;
+import org.eclipse.microprofile.config.inject.*;
+import org.jboss.resteasy.reactive.PathPart;
 
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.zip.*;
 
+/**
+ * Contenido de los adjuntos de laboratorio. Los bytes viven en el BlobStore bajo su SHA-256 y la
+ * fila guarda solo metadatos y content_hash; el mismo archivo subido varias veces se guarda una vez
+ * y blob_object cuenta sus referencias. El objeto se purga después del commit que suelta la última
+ * referencia (o del rollback de la subida que lo creó). Las filas anteriores siguen en file_data
+ * hasta que el job de migración las mueve (blob-store.migration.enabled).
+ */
 @ApplicationScoped
 @Slf4j
 public class FileStorageService {
 
+    private static final int LEGACY_CHUNK_SIZE = 256 * 1024;
+
+    @ConfigProperty(name = "blob-store.migration.enabled", defaultValue = "false")
+    boolean migrationEnabled;
+
+    @ConfigProperty(name = "blob-store.migration.batch-size", defaultValue = "50")
+    int migrationBatchSize;
+
+    @ConfigProperty(name = "blob-store.compression.enabled", defaultValue = "false")
+    boolean compressionEnabled;
+
+    @ConfigProperty(name = "blob-store.compression.content-types", defaultValue = "application/pdf")
+    Set<String> compressedContentTypes;
+
+    @ConfigProperty(name = "blob-store.compression.min-savings", defaultValue = "0.1")
+    double compressionMinSavings;
+
     @Inject
     LabOrderAttachmentRepository attachmentRepository;
 
+    @Inject
+    BlobStore blobStore;
+
+    @Inject
+    BlobReferenceRepository blobReferenceRepository;
+
+    @Inject
+    TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+
+    @Inject
+    TenantScopedExecutor tenantScopedExecutor;
+
+    /**
+     * Copia el contenido al área temporal del BlobStore, fuera de cualquier transacción. La copia
+     * debe terminar con store o discard.
+     */
+    public StagedBlob stage(InputStream content) throws IOException {
+        return blobStore.stage(content);
+    }
+
+    public void discard(StagedBlob staged) {
+        blobStore.discard(staged);
+    }
+
+    /**
+     * Comprime la copia si su tipo está en blob-store.compression.content-types y el objeto aún no
+     * existe (si existe se reutiliza tal como está). Va fuera de la transacción, después de stage.
+     */
+    public StagedBlob compress(StagedBlob staged, String contentType) {
+        if (!compressionEnabled || !compressedContentTypes.contains(contentType) || blobStore.exists(staged.hash())) {
+            return staged;
+        }
+        try {
+            StagedBlob compressed = blobStore.compress(staged, compressionMinSavings);
+            if (compressed.encoding() != staged.encoding()) {
+                log.info("Blob {} compressed from {} to {} bytes", staged.hash(), staged.size(), Files.size(compressed.path()));
+            }
+            return compressed;
+        } catch (IOException e) {
+            log.warn("Could not compress blob {}, storing it uncompressed", staged.hash(), e);
+            return staged;
+        }
+    }
+
+    /**
+     * Publica una copia ya hecha con stage y registra el adjunto. La transacción cubre solo la
+     * referencia al objeto y el insert de metadatos.
+     */
     @Transactional
-    public LabOrderAttachmentEntity store(LabOrderEntity labOrder, String fileName, String contentType, long fileSize, byte[] fileData, String uploadedBy) {
-        log.info("Storing file '{}' ({} bytes) for lab order: {}", fileName, fileSize, labOrder.getId());
+    public LabOrderAttachmentEntity store(LabOrderEntity labOrder, String fileName, String contentType, StagedBlob staged, String uploadedBy) {
+        log.info("Storing file '{}' ({} bytes) for lab order: {}", fileName, staged.size(), labOrder.getId());
+
+        ContentEncoding encoding = publish(staged);
 
         LabOrderAttachmentEntity attachment = new LabOrderAttachmentEntity();
         attachment.setLabOrder(labOrder);
         attachment.setFileName(fileName);
         attachment.setContentType(contentType);
-        attachment.setFileSize(fileSize);
-        attachment.setFileData(fileData);
+        attachment.setFileSize(staged.size());
+        attachment.setContentHash(staged.hash());
+        attachment.setContentEncoding(encoding);
         attachment.setUploadedBy(uploadedBy);
 
         attachmentRepository.persist(attachment);
-        log.info("File stored with attachment id: {}", attachment.getId());
+        log.info("File stored with attachment id: {} (blob {}, {})", attachment.getId(), staged.hash(), encoding);
         return attachment;
     }
 
-    public byte[] retrieve(LabOrderAttachmentEntity attachment) {
+    /**
+     * Descarga del adjunto sin cargarlo en memoria. El ETag es el hash del contenido; las filas aún
+     * en file_data usan su id (los adjuntos no cambian) y se leen por tramos de LEGACY_CHUNK_SIZE.
+     * Un objeto guardado con gzip se envía tal cual (Content-Encoding: gzip) si el cliente lo acepta,
+     * y si no se descomprime al vuelo.
+     */
+    public AttachmentDownloadInfo download(LabOrderAttachmentEntity attachment, boolean acceptsGzip) {
         log.info("Retrieving file data for attachment: {}", attachment.getId());
-        return attachment.getFileData();
+        AttachmentDownloadInfo.AttachmentDownloadInfoBuilder info = AttachmentDownloadInfo.builder()
+                .fileName(attachment.getFileName())
+                .contentType(attachment.getContentType());
+        String contentHash = attachment.getContentHash();
+        if (contentHash == null) {
+            UUID id = attachment.getId();
+            Long size = attachmentRepository.findLegacyDataLength(id);
+            return info.etag(id.toString())
+                    .size(size != null ? size : 0)
+                    .body((offset, length) -> (StreamingOutput) output -> writeLegacy(id, offset, length, output))
+                    .build();
+        }
+        if (attachment.getContentEncoding() == ContentEncoding.gzip && !acceptsGzip) {
+            return info.etag(contentHash)
+                    .size(attachment.getFileSize())
+                    .body((offset, length) -> (StreamingOutput) output -> writeBlob(contentHash, true, offset, length, output))
+                    .build();
+        }
+        try {
+            // Representación guardada: su propio ETag, distinto del contenido sin comprimir
+            String encoding = attachment.getContentEncoding() == ContentEncoding.gzip ? ContentEncoding.gzip.name() : null;
+            long size = blobStore.size(contentHash);
+            Path file = blobStore.localPath(contentHash);
+            return info.etag(encoding != null ? contentHash + "-" + encoding : contentHash)
+                    .contentEncoding(encoding)
+                    .size(size)
+                    .body(file != null
+                            ? (offset, length) -> new PathPart(file, offset, length)
+                            : (offset, length) -> (StreamingOutput) output -> writeBlob(contentHash, false, offset, length, output))
+                    .build();
+        } catch (IOException e) {
+            log.error("Error reading blob {} for attachment {}", contentHash, attachment.getId(), e);
+            throw new InternalServerErrorException("Error al leer el archivo adjunto");
+        }
     }
 
     @Transactional
     public void delete(LabOrderAttachmentEntity attachment) {
         log.info("Deleting attachment: {}", attachment.getId());
+        String contentHash = attachment.getContentHash();
         attachmentRepository.delete(attachment);
+        if (contentHash != null) {
+            release(contentHash);
+        }
         log.info("Attachment deleted: {}", attachment.getId());
     }
+
+    /**
+     * Suelta las referencias de los adjuntos de la orden antes de borrarla (las filas se borran en
+     * cascada, sin pasar por delete). Los objetos que quedan sin referencias se purgan después del commit.
+     */
+    @Transactional
+    public void releaseAttachments(UUID labOrderId) {
+        for (String contentHash : attachmentRepository.findContentHashesByLabOrderId(labOrderId)) {
+            release(contentHash);
+        }
+    }
+
+    private void release(String contentHash) {
+        if (blobReferenceRepository.release(contentHash) <= 0) {
+            TransactionUtils.afterCommit(transactionSynchronizationRegistry, () -> purgeLater(contentHash));
+        }
+    }
+
+    private void writeBlob(String contentHash, boolean decompress, long offset, long length, OutputStream output)
+            throws IOException {
+        try (InputStream stored = blobStore.open(contentHash);
+             InputStream in = decompress ? new GZIPInputStream(stored, 64 * 1024) : stored) {
+            in.skipNBytes(offset);
+            copy(in, output, length);
+        }
+    }
+
+    private void writeLegacy(UUID id, long offset, long length, OutputStream output) throws IOException {
+        try {
+            QuarkusTransaction.requiringNew().call(() -> {
+                long position = offset;
+                long end = offset + length;
+                while (position < end) {
+                    byte[] chunk = attachmentRepository.findLegacyDataChunk(id, position,
+                            (int) Math.min(LEGACY_CHUNK_SIZE, end - position));
+                    if (chunk == null || chunk.length == 0) {
+                        break;
+                    }
+                    output.write(chunk);
+                    output.flush();
+                    position += chunk.length;
+                }
+                return null;
+            });
+        } catch (QuarkusTransactionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw e;
+        }
+    }
+
+    private static void copy(InputStream in, OutputStream output, long length) throws IOException {
+        byte[] buffer = new byte[8192];
+        long remaining = length;
+        while (remaining > 0) {
+            int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read < 0) {
+                break;
+            }
+            output.write(buffer, 0, read);
+            remaining -= read;
+        }
+    }
+
+    // ========== Migración de file_data al BlobStore ==========
+
+    @Scheduled(every = "${blob-store.migration.interval:1m}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    @Transactional
+    void migrateLegacyAttachments() {
+        if (!migrationEnabled) {
+            return;
+        }
+        int migrated = migrateLegacyBatch(migrationBatchSize);
+        if (migrated > 0) {
+            log.info("Migrated {} legacy attachments to the blob store", migrated);
+        }
+    }
+
+    /**
+     * Mueve hasta limit adjuntos con el contenido en file_data al BlobStore, de uno en uno para no
+     * cargar el lote completo en memoria. Devuelve cuántos movió.
+     */
+    @Transactional
+    public int migrateLegacyBatch(int limit) {
+        List<LabOrderAttachmentRepository.LegacyAttachment> legacy = attachmentRepository.lockLegacy(limit);
+        for (LabOrderAttachmentRepository.LegacyAttachment attachment : legacy) {
+            byte[] data = attachmentRepository.findLegacyData(attachment.id());
+            StagedBlob staged;
+            try {
+                staged = blobStore.stage(new ByteArrayInputStream(data != null ? data : new byte[0]));
+            } catch (IOException e) {
+                log.error("Error staging blob", e);
+                throw new InternalServerErrorException("Error al guardar el archivo adjunto");
+            }
+            staged = compress(staged, attachment.contentType());
+            attachmentRepository.moveToBlob(attachment.id(), staged.hash(), publish(staged), staged.size());
+        }
+        return legacy.size();
+    }
+
+    /**
+     * Toma una referencia al objeto en la transacción actual y, si es el primero, lo publica. La copia
+     * ya está hecha; con el lock del hash tomado solo ocurre la publicación (un rename). Devuelve la
+     * codificación con la que quedó guardado el objeto.
+     */
+    private ContentEncoding publish(StagedBlob staged) {
+        try {
+            BlobReferenceRepository.Reference reference =
+                    blobReferenceRepository.acquire(staged.hash(), staged.size(), staged.encoding());
+            if (!reference.created()) {
+                blobStore.discard(staged);
+                return reference.encoding();
+            }
+            // Archivo sin fila: resto de una subida interrumpida, quizá con otra codificación
+            if (blobStore.exists(staged.hash())) {
+                blobStore.delete(staged.hash());
+            }
+            blobStore.publish(staged);
+            // Si la transacción no llega al commit nadie referencia el objeto recién creado
+            TransactionUtils.afterRollback(transactionSynchronizationRegistry, () -> purgeLater(staged.hash()));
+            return staged.encoding();
+        } catch (IOException e) {
+            blobStore.discard(staged);
+            log.error("Error publishing blob {}", staged.hash(), e);
+            throw new InternalServerErrorException("Error al guardar el archivo adjunto");
+        } catch (RuntimeException e) {
+            blobStore.discard(staged);
+            throw e;
+        }
+    }
+
+    private void purgeLater(String contentHash) {
+        tenantScopedExecutor.submit(tenantScopedExecutor.defaultTenantId(), () -> QuarkusTransaction.requiringNew().call(() -> {
+            if (blobReferenceRepository.removeIfUnreferenced(contentHash)) {
+                blobStore.delete(contentHash);
+                log.info("Purged unreferenced blob {}", contentHash);
+            }
+            return null;
+        })).exceptionally(e -> {
+            log.error("Could not purge blob {}", contentHash, e);
+            return null;
+        });
+    }
 }
@@ -0,0 +1,107 @@
+package gt.com.xfactory.service.impl;
+
+import gt.com.xfactory.utils.*;
+import io.micrometer.core.instrument.*;
+import jakarta.annotation.*;
+import jakarta.enterprise.context.*;
+import jakarta.inject.*;
+import jakarta.transaction.*;
+import lombok.extern.slf4j.*;
+import org.eclipse.microprofile.config.inject.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * Caché de proceso de la resolución sujeto de Keycloak → id de usuario / id de doctor que hace
+ * SecurityContextService. Acotada a security.identity-cache.max-entries (LRU) y con vencimiento
+ * security.identity-cache.ttl; UserService y DoctorService la invalidan al cambiar un vínculo.
+ * Solo se cachean resoluciones exitosas. Métricas: security.identity.cache{kind, result=hit|miss}.
+ */
+@ApplicationScoped
+@Slf4j
+public class IdentityCache {
+
+    public enum Kind {
+        USER, DOCTOR
+    }
+
+    record Key(Kind kind, String subject) {
+    }
+
+    private record Entry(UUID id, long expiresAt) {
+    }
+
+    @ConfigProperty(name = "security.identity-cache.ttl", defaultValue = "5m")
+    Duration ttl;
+
+    @ConfigProperty(name = "security.identity-cache.max-entries", defaultValue = "10000")
+    int maxEntries;
+
+    @Inject
+    TransactionSynchronizationRegistry transactionRegistry;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    private Map<Key, Entry> cache;
+
+    @PostConstruct
+    void init() {
+        cache = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    /**
+     * Id cacheado para el sujeto; si no hay (o venció), lo resuelve con loader. Si loader lanza
+     * excepción no se cachea nada. Un TTL de cero desactiva la caché.
+     */
+    public UUID get(Kind kind, String subject, Supplier<UUID> loader) {
+        if (ttl.isZero() || subject == null) {
+            return loader.get();
+        }
+        long now = System.currentTimeMillis();
+        Key key = new Key(kind, subject);
+        Entry entry = cache.get(key);
+        if (entry != null && entry.expiresAt() > now) {
+            count(kind, "hit");
+            return entry.id();
+        }
+        count(kind, "miss");
+        UUID id = loader.get();
+        cache.put(key, new Entry(id, now + ttl.toMillis()));
+        return id;
+    }
+
+    /**
+     * Descarta las resoluciones del sujeto ahora y de nuevo al confirmar la transacción actual, para
+     * que una petición concurrente no deje cacheado el vínculo anterior.
+     */
+    public void evict(String subject) {
+        if (subject == null) {
+            return;
+        }
+        remove(subject);
+        TransactionUtils.afterCommit(transactionRegistry, () -> remove(subject));
+    }
+
+    int size() {
+        return cache.size();
+    }
+
+    private void remove(String subject) {
+        for (Kind kind : Kind.values()) {
+            cache.remove(new Key(kind, subject));
+        }
+        log.debug("Identity cache evicted for subject {}", subject);
+    }
+
+    private void count(Kind kind, String result) {
+        meterRegistry.counter("security.identity.cache", "kind", kind.name(), "result", result).increment();
+    }
+}
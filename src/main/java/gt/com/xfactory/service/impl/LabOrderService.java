@@ -6,13 +6,17 @@ import gt.com.xfactory.dto.response.*;
 import gt.com.xfactory.entity.*;
 import gt.com.xfactory.entity.enums.*;
 import gt.com.xfactory.repository.*;
+import gt.com.xfactory.service.storage.*;
 import gt.com.xfactory.utils.*;
+import io.quarkus.runtime.configuration.MemorySize;
 import io.quarkus.security.identity.*;
 import jakarta.enterprise.context.*;
 import jakarta.inject.*;
 import jakarta.transaction.*;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.StreamingOutput;
 import lombok.extern.slf4j.*;
+import org.eclipse.microprofile.config.inject.*;
 import org.eclipse.microprofile.jwt.*;
 import org.jboss.resteasy.reactive.multipart.*;
 
@@ -21,12 +25,16 @@ import java.util.*;
 import java.util.function.*;
 import java.util.stream.*;
 
+import static gt.com.xfactory.dto.response.PageResponse.toKeysetPageResponse;
 import static gt.com.xfactory.dto.response.PageResponse.toPageResponse;
 
 @ApplicationScoped
 @Slf4j
 public class LabOrderService {
 
+    @ConfigProperty(name = "lab-order.attachment.max-size", defaultValue = "10M")
+    MemorySize maxAttachmentSize;
+
     @Inject
     LabOrderRepository labOrderRepository;
 
@@ -51,15 +59,59 @@ public class LabOrderService {
     @Inject
     SecurityContextService securityContextService;
 
+    @Inject
+    ListingExportService listingExportService;
+
+    @Inject
+    PatientTimelineService patientTimelineService;
+
+    @Inject
+    AttachmentPreviewService attachmentPreviewService;
+
+    @Inject
+    TotalCountService totalCountService;
+
+    @Inject
+    PatientHistoryLimits patientHistoryLimits;
+
     private UUID getCurrentDoctorId() {
         return securityContextService.getCurrentDoctorId();
     }
 
+    @ReadOnly
     public PageResponse<LabOrderDto> getLabOrders(LabOrderFilterDto filter, CommonPageRequest pageRequest) {
         log.info("Fetching lab orders with filter");
 
+        var fb = buildFilter(filter);
+        PageResponse<LabOrderDto> page = pageRequest.isKeyset()
+                ? toKeysetPageResponse(labOrderRepository, fb.buildQuery(), pageRequest, fb.getParams(), LIST_PROJECTION)
+                : toPageResponse(labOrderRepository, fb.buildQuery(),
+                        pageRequest, fb.getParams(), LIST_PROJECTION, totalCountService::count);
+        attachResultsAndAttachments(page.content);
+        return page;
+    }
+
+    /**
+     * Todas las órdenes que cumplen el filtro de getLabOrders, sin paginar, en NDJSON o CSV.
+     * Resultados y adjuntos se cargan por lote de filas exportadas.
+     */
+    public StreamingOutput exportLabOrders(LabOrderFilterDto filter, ListingExportService.Format format) {
+        log.info("Exporting lab orders as {}", format);
+
+        var fb = buildFilter(filter);
+        String where = fb.buildQuery().toString();
+        Map<String, Object> params = fb.getParams();
+        return listingExportService.stream(format, LabOrderDto.class,
+                fetchSize -> labOrderRepository.streamProjection(LIST_PROJECTION, where, "id", params, fetchSize),
+                chunk -> {
+                    attachResultsAndAttachments(chunk);
+                    return chunk;
+                });
+    }
+
+    private FilterBuilder buildFilter(LabOrderFilterDto filter) {
         UUID currentDoctorId = getCurrentDoctorId();
-        var fb = FilterBuilder.create()
+        return FilterBuilder.create()
                 .addEquals(currentDoctorId, "doctor.id", "currentDoctorId")
                 .addEquals(filter.patientId, "patient.id", "patientId")
                 .addEquals(filter.doctorId, "doctor.id", "doctorId")
@@ -72,21 +124,42 @@ public class LabOrderService {
                 .addCondition(filter.clinicId != null,
                         "appointment.clinic.id = :clinicId",
                         "clinicId", filter.clinicId);
-
-        return toPageResponse(labOrderRepository, fb.buildQuery(), pageRequest, fb.getParams(), toLabOrderDto);
     }
 
-    public List<LabOrderDto> getLabOrdersByPatientId(UUID patientId) {
+    /**
+     * Órdenes del paciente en la ventana pedida, de la más reciente a la más antigua, hasta
+     * patient-history.max-rows. hasMore indica que quedaron fuera; para recorrerlas está la versión paginada.
+     */
+    public HistoryList<LabOrderDto> getLabOrdersByPatientId(UUID patientId, PatientHistoryRequest window) {
         log.info("Fetching lab orders for patient: {}", patientId);
 
         patientRepository.findByIdOptional(patientId)
                 .orElseThrow(() -> new NotFoundException("Patient not found with id: " + patientId));
 
         UUID currentDoctorId = getCurrentDoctorId();
+        int limit = patientHistoryLimits.resolve(window);
         List<LabOrderEntity> orders = currentDoctorId != null
-                ? labOrderRepository.findByPatientIdAndDoctorId(patientId, currentDoctorId)
-                : labOrderRepository.findByPatientId(patientId);
-        return orders.stream().map(toLabOrderDto).collect(Collectors.toList());
+                ? labOrderRepository.findByPatientIdAndDoctorId(patientId, currentDoctorId,
+                        window.getStartDate(), window.getEndDate(), limit + 1)
+                : labOrderRepository.findByPatientId(patientId, window.getStartDate(), window.getEndDate(), limit + 1);
+        return HistoryList.of(orders, limit).map(toLabOrderDto);
+    }
+
+    /**
+     * Historial de órdenes del paciente por cursor (orderDate descendente por defecto).
+     */
+    @ReadOnly
+    public PageResponse<LabOrderDto> getLabOrdersPageByPatientId(UUID patientId, PatientHistoryRequest window,
+                                                                 CommonPageRequest pageRequest) {
+        patientRepository.findByIdOptional(patientId)
+                .orElseThrow(() -> new NotFoundException("Patient not found with id: " + patientId));
+
+        LabOrderFilterDto filter = new LabOrderFilterDto();
+        filter.patientId = patientId;
+        filter.startDate = window.getStartDate();
+        filter.endDate = window.getEndDate();
+        pageRequest.forceKeyset("orderDate.desc");
+        return getLabOrders(filter, pageRequest);
     }
 
     public LabOrderDto getLabOrderById(UUID id) {
@@ -131,6 +204,7 @@ public class LabOrderService {
             }
         }
 
+        patientTimelineService.recordLabOrder(order);
         log.info("Lab order created with id: {}", order.getId());
         return toLabOrderDto.apply(order);
     }
@@ -153,6 +227,7 @@ public class LabOrderService {
         }
 
         labOrderRepository.persist(order);
+        patientTimelineService.recordLabOrder(order);
         log.info("Lab order updated: {}", id);
 
         return toLabOrderDto.apply(order);
@@ -167,6 +242,7 @@ public class LabOrderService {
 
         order.setStatus(status);
         labOrderRepository.persist(order);
+        patientTimelineService.recordLabOrder(order);
 
         return toLabOrderDto.apply(order);
     }
@@ -180,7 +256,9 @@ public class LabOrderService {
 
         securityContextService.validateDoctorOwnership(order.getDoctor().getId());
 
+        fileStorageService.releaseAttachments(id);
         labOrderRepository.delete(order);
+        patientTimelineService.remove(id);
         log.info("Lab order deleted: {}", id);
     }
 
@@ -301,15 +379,71 @@ public class LabOrderService {
                     .updatedAt(entity.getUpdatedAt())
                     .build();
 
+    // Listado: orden sin colecciones; resultados y adjuntos se cargan agrupados por orden
+    static final Projection<LabOrderDto> LIST_PROJECTION = Projection.of(row -> LabOrderDto.builder()
+                    .id(row.get("id"))
+                    .appointmentId(row.get("appointment.id"))
+                    .patientId(row.get("patient.id"))
+                    .patientName(row.get("patient.firstName") + " " + row.get("patient.lastName"))
+                    .doctorId(row.get("doctor.id"))
+                    .doctorName(row.get("doctor.firstName") + " " + row.get("doctor.lastName"))
+                    .orderDate(row.get("orderDate"))
+                    .status(row.get("status"))
+                    .notes(row.get("notes"))
+                    .createdAt(row.get("createdAt"))
+                    .updatedAt(row.get("updatedAt"))
+                    .build(),
+            "id", "appointment.id", "patient.id", "patient.firstName", "patient.lastName",
+            "doctor.id", "doctor.firstName", "doctor.lastName", "orderDate", "status", "notes", "createdAt", "updatedAt");
+
+    static final Projection<LabResultDto> RESULT_PROJECTION = Projection.of(row -> LabResultDto.builder()
+                    .id(row.get("id"))
+                    .labOrderId(row.get("labOrder.id"))
+                    .testName(row.get("testName"))
+                    .testCode(row.get("testCode"))
+                    .value(row.get("value"))
+                    .unit(row.get("unit"))
+                    .referenceMin(row.get("referenceMin"))
+                    .referenceMax(row.get("referenceMax"))
+                    .isAbnormal(row.get("isAbnormal"))
+                    .resultDate(row.get("resultDate"))
+                    .build(),
+            "id", "labOrder.id", "testName", "testCode", "value", "unit", "referenceMin", "referenceMax", "isAbnormal", "resultDate");
+
+    static final Projection<LabOrderAttachmentDto> ATTACHMENT_PROJECTION = Projection.of(row -> LabOrderAttachmentDto.builder()
+                    .id(row.get("id"))
+                    .labOrderId(row.get("labOrder.id"))
+                    .fileName(row.get("fileName"))
+                    .contentType(row.get("contentType"))
+                    .fileSize(row.get("fileSize"))
+                    .uploadedBy(row.get("uploadedBy"))
+                    .createdAt(row.get("createdAt"))
+                    .build(),
+            "id", "labOrder.id", "fileName", "contentType", "fileSize", "uploadedBy", "createdAt");
+
+    private void attachResultsAndAttachments(List<LabOrderDto> orders) {
+        if (orders.isEmpty()) return;
+        List<UUID> orderIds = orders.stream().map(LabOrderDto::getId).toList();
+        Map<UUID, List<LabResultDto>> results = labResultRepository.projectByLabOrderIds(RESULT_PROJECTION, orderIds)
+                .stream().collect(Collectors.groupingBy(LabResultDto::getLabOrderId));
+        Map<UUID, List<LabOrderAttachmentDto>> attachments = labOrderAttachmentRepository.projectByLabOrderIds(ATTACHMENT_PROJECTION, orderIds)
+                .stream().collect(Collectors.groupingBy(LabOrderAttachmentDto::getLabOrderId));
+        for (LabOrderDto order : orders) {
+            order.setResults(results.getOrDefault(order.getId(), new ArrayList<>()));
+            order.setAttachments(attachments.getOrDefault(order.getId(), new ArrayList<>()));
+        }
+    }
+
     // Attachment methods
 
     private static final Set<String> ALLOWED_CONTENT_TYPES = Set.of(
             "application/pdf", "image/jpeg", "image/png"
     );
 
-    private static final long MAX_FILE_SIZE = 10 * 1024 * 1024; // 10MB
-
-    @Transactional
+    /**
+     * Sin transacción propia: el archivo se copia al BlobStore (hash, firma del tipo y tope de tamaño
+     * en la misma pasada) antes de abrirla, y FileStorageService.store solo registra los metadatos.
+     */
     public LabOrderAttachmentDto uploadAttachment(UUID orderId, FileUpload file) {
         log.info("Uploading attachment to lab order: {}", orderId);
 
@@ -323,37 +457,54 @@ public class LabOrderService {
             throw new BadRequestException("Tipo de archivo no permitido. Solo se aceptan: PDF, JPG, PNG");
         }
 
-        long fileSize = file.size();
-        if (fileSize > MAX_FILE_SIZE) {
-            throw new BadRequestException("El archivo excede el tamaño máximo permitido de 10MB");
+        long maxBytes = maxAttachmentSize.asLongValue();
+        if (file.size() > maxBytes) {
+            throw tooLarge(maxBytes);
         }
 
-        byte[] fileData;
-        try {
-            fileData = java.nio.file.Files.readAllBytes(file.filePath());
+        StagedBlob staged;
+        String sniffedType;
+        try (InspectingInputStream content = new InspectingInputStream(
+                java.nio.file.Files.newInputStream(file.filePath()), maxBytes)) {
+            staged = fileStorageService.stage(content);
+            sniffedType = content.sniffedContentType();
+        } catch (InspectingInputStream.TooLargeException e) {
+            throw tooLarge(maxBytes);
         } catch (IOException e) {
             log.error("Error reading uploaded file", e);
             throw new InternalServerErrorException("Error al leer el archivo subido");
         }
+        if (sniffedType == null || !ALLOWED_CONTENT_TYPES.contains(sniffedType)) {
+            fileStorageService.discard(staged);
+            throw new BadRequestException("El contenido del archivo no corresponde a un PDF, JPG o PNG");
+        }
+
+        staged = fileStorageService.compress(staged, sniffedType);
 
         String uploadedBy = securityContextService.getUserName();
         LabOrderAttachmentEntity attachment = fileStorageService.store(
-                order, file.fileName(), contentType, fileSize, fileData, uploadedBy
+                order, file.fileName(), sniffedType, staged, uploadedBy
         );
 
+        attachmentPreviewService.schedule(attachment);
         log.info("Attachment uploaded with id: {}", attachment.getId());
         return toAttachmentDto.apply(attachment);
     }
 
-    public AttachmentDownloadInfo getAttachmentDownload(UUID attachmentId) {
+    private static BadRequestException tooLarge(long maxBytes) {
+        return new BadRequestException("El archivo excede el tamaño máximo permitido de "
+                + maxBytes / (1024 * 1024) + "MB");
+    }
+
+    public AttachmentDownloadInfo getAttachmentDownload(UUID attachmentId, boolean acceptsGzip) {
         log.info("Downloading attachment: {}", attachmentId);
-        LabOrderAttachmentEntity attachment = getAttachmentEntity(attachmentId);
-        byte[] data = fileStorageService.retrieve(attachment);
-        return AttachmentDownloadInfo.builder()
-                .fileName(attachment.getFileName())
-                .contentType(attachment.getContentType())
-                .data(data)
-                .build();
+        return fileStorageService.download(getAttachmentEntity(attachmentId), acceptsGzip);
+    }
+
+    public AttachmentDownloadInfo getAttachmentPreview(UUID attachmentId) {
+        log.info("Fetching preview for attachment: {}", attachmentId);
+        return attachmentPreviewService.find(getAttachmentEntity(attachmentId))
+                .orElseThrow(() -> new NotFoundException("Preview not available for attachment: " + attachmentId));
     }
 
     private LabOrderAttachmentEntity getAttachmentEntity(UUID attachmentId) {
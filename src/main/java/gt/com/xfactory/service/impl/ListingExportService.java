@@ -0,0 +1,214 @@
+package gt.com.xfactory.service.impl;
+
+import com.fasterxml.jackson.core.*;
+import com.fasterxml.jackson.databind.*;
+import com.fasterxml.jackson.databind.introspect.*;
+import io.quarkus.narayana.jta.*;
+import jakarta.enterprise.context.*;
+import jakarta.inject.*;
+import jakarta.persistence.*;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.core.*;
+import lombok.extern.slf4j.*;
+import org.eclipse.microprofile.config.inject.*;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.function.*;
+import java.util.stream.*;
+
+/**
+ * Exportación en streaming (NDJSON o CSV) de listados completos, sin paginar ni contar. La consulta
+ * se recorre con un cursor de solo avance (listing-export.fetch-size) y las filas se convierten y
+ * escriben por lotes de listing-export.chunk-size; tras cada lote se limpia la sesión y se vacía la
+ * salida, así que el heap no depende del tamaño del resultado.
+ */
+@ApplicationScoped
+@Slf4j
+public class ListingExportService {
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String mediaType;
+        private final String extension;
+
+        Format(String mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        public String mediaType() {
+            return mediaType;
+        }
+
+        public String extension() {
+            return extension;
+        }
+
+        public static Format fromValue(String value) {
+            if (value == null || value.isBlank()) {
+                return NDJSON;
+            }
+            return Arrays.stream(values())
+                    .filter(f -> f.extension.equalsIgnoreCase(value.trim()))
+                    .findFirst()
+                    .orElseThrow(() -> new BadRequestException("Formato de exportación inválido: " + value
+                            + " (use ndjson o csv)"));
+        }
+    }
+
+    @ConfigProperty(name = "listing-export.fetch-size", defaultValue = "500")
+    int fetchSize;
+
+    @ConfigProperty(name = "listing-export.chunk-size", defaultValue = "500")
+    int chunkSize;
+
+    @ConfigProperty(name = "listing-export.transaction-timeout", defaultValue = "30m")
+    Duration transactionTimeout;
+
+    @Inject
+    EntityManager entityManager;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    /**
+     * Salida que, al escribirse, abre source con el fetch size configurado y escribe cada fila como
+     * type. chunkMapper convierte cada lote de filas a DTOs (p.ej. cargando datos relacionados en una
+     * sola consulta por lote). Los filtros y la seguridad deben resolverse antes, al construir source.
+     */
+    public <E, D> StreamingOutput stream(Format format, Class<D> type, IntFunction<Stream<E>> source,
+                                         Function<List<E>, List<D>> chunkMapper) {
+        return output -> {
+            long rows;
+            try {
+                rows = QuarkusTransaction.requiringNew()
+                        .timeout((int) transactionTimeout.toSeconds())
+                        .call(() -> write(output, format, type, source, chunkMapper));
+            } catch (QuarkusTransactionException e) {
+                if (e.getCause() instanceof IOException io) {
+                    throw io;
+                }
+                throw e;
+            }
+            log.info("Exported {} {} rows as {}", rows, type.getSimpleName(), format);
+        };
+    }
+
+    private <E, D> long write(OutputStream output, Format format, Class<D> type, IntFunction<Stream<E>> source,
+                              Function<List<E>, List<D>> chunkMapper) throws IOException {
+        RowWriter<D> writer = format == Format.CSV ? new CsvRowWriter<>(output, type) : new NdjsonRowWriter<>(output);
+        long rows = 0;
+        try (Stream<E> stream = source.apply(fetchSize)) {
+            Iterator<E> iterator = stream.iterator();
+            List<E> chunk = new ArrayList<>(chunkSize);
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == chunkSize || !iterator.hasNext()) {
+                    for (D row : chunkMapper.apply(chunk)) {
+                        writer.write(row);
+                    }
+                    rows += chunk.size();
+                    chunk.clear();
+                    // Las filas ya escritas no se vuelven a leer: se sueltan de la sesión
+                    entityManager.clear();
+                    writer.flush();
+                }
+            }
+        }
+        writer.flush();
+        return rows;
+    }
+
+    private interface RowWriter<D> {
+        void write(D row) throws IOException;
+
+        void flush() throws IOException;
+    }
+
+    private class NdjsonRowWriter<D> implements RowWriter<D> {
+        private final JsonGenerator generator;
+
+        NdjsonRowWriter(OutputStream output) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(output)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void write(D row) throws IOException {
+            objectMapper.writeValue(generator, row);
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            generator.flush();
+        }
+    }
+
+    /**
+     * Una columna por propiedad JSON del DTO, en el orden de Jackson. Los valores anidados (listas,
+     * objetos) se escriben como JSON dentro de la celda.
+     */
+    private class CsvRowWriter<D> implements RowWriter<D> {
+        private final Writer writer;
+        private final List<String> columns;
+
+        CsvRowWriter(OutputStream output, Class<D> type) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+            this.columns = objectMapper.getSerializationConfig()
+                    .introspect(objectMapper.constructType(type))
+                    .findProperties().stream()
+                    .map(BeanPropertyDefinition::getName)
+                    .toList();
+            writeLine(columns.stream().map(ListingExportService::csvCell).toList());
+        }
+
+        @Override
+        public void write(D row) throws IOException {
+            JsonNode node = objectMapper.valueToTree(row);
+            List<String> cells = new ArrayList<>(columns.size());
+            for (String column : columns) {
+                JsonNode value = node.get(column);
+                if (value == null || value.isNull()) {
+                    cells.add("");
+                } else if (value.isTextual()) {
+                    cells.add(csvCell(value.asText()));
+                } else {
+                    cells.add(csvEscape(value.isValueNode() ? value.asText() : value.toString()));
+                }
+            }
+            writeLine(cells);
+        }
+
+        private void writeLine(List<String> cells) throws IOException {
+            writer.write(String.join(",", cells));
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+    }
+
+    static String csvCell(String value) {
+        // Evita que hojas de cálculo interpreten el valor como fórmula
+        if (!value.isEmpty() && "=+-@\t\r".indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+        return csvEscape(value);
+    }
+
+    private static String csvEscape(String value) {
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+}
@@ -6,7 +6,11 @@ import gt.com.xfactory.dto.response.*;
 import gt.com.xfactory.entity.*;
 import gt.com.xfactory.entity.enums.*;
 import gt.com.xfactory.repository.*;
+import gt.com.xfactory.service.event.*;
+import gt.com.xfactory.utils.*;
+import gt.com.xfactory.utils.SortUtils.SortKey;
 import jakarta.enterprise.context.*;
+import jakarta.enterprise.event.*;
 import jakarta.inject.*;
 import jakarta.transaction.*;
 import jakarta.ws.rs.*;
@@ -20,6 +24,10 @@ import java.util.stream.*;
 @Slf4j
 public class MedicalAppointmentService {
 
+    // Orden del historial de citas por cursor; también es la firma del cursor
+    private static final List<SortKey> HISTORY_KEYS = List.of(
+            new SortKey("appointmentDate", true), new SortKey("id", true));
+
     @Inject
     PatientRepository patientRepository;
 
@@ -47,6 +55,12 @@ public class MedicalAppointmentService {
     @Inject
     SecurityContextService securityContextService;
 
+    @Inject
+    Event<AppointmentChangedEvent> appointmentChanged;
+
+    @Inject
+    PatientHistoryLimits patientHistoryLimits;
+
     private UUID getCurrentDoctorId() {
         return securityContextService.getCurrentDoctorId();
     }
@@ -98,22 +112,71 @@ public class MedicalAppointmentService {
                 .orElseThrow(() -> new NotFoundException("Medical appointment not found with id: " + appointmentId));
     }
 
-    public List<MedicalAppointmentDto> getMedicalAppointmentsByPatientId(UUID patientId, MedicalAppointmentFilterDto filter) {
+    /**
+     * Citas del paciente que cumplen el filtro, de la más reciente a la más antigua, hasta limit
+     * (como máximo patient-history.max-rows). hasMore indica que quedaron fuera; para recorrerlas está la
+     * versión paginada.
+     */
+    public HistoryList<MedicalAppointmentDto> getMedicalAppointmentsByPatientId(UUID patientId,
+                                                                                MedicalAppointmentFilterDto filter,
+                                                                                Integer limit) {
         log.info("Fetching medical appointments for patient: {} with filter - doctorId: {}, clinicId: {}",
                 patientId, filter != null ? filter.doctorId : null, filter != null ? filter.clinicId : null);
 
         findPatientOrThrow(patientId);
+        filter = scopeToCurrentDoctor(filter);
+
+        int maxRows = patientHistoryLimits.resolve(limit);
+        HistoryList<MedicalAppointmentEntity> appointments = HistoryList.of(
+                medicalAppointmentRepository.findByPatientIdWithFilters(patientId, filter, maxRows + 1), maxRows);
+        return new HistoryList<>(toMedicalAppointmentDtos(appointments.content), appointments.hasMore);
+    }
+
+    /**
+     * Historial de citas del paciente por cursor, de la más reciente a la más antigua.
+     */
+    @ReadOnly
+    public PageResponse<MedicalAppointmentDto> getMedicalAppointmentsPageByPatientId(UUID patientId,
+                                                                                     MedicalAppointmentFilterDto filter,
+                                                                                     CommonPageRequest pageRequest) {
+        log.info("Fetching medical appointments page for patient: {}", patientId);
+
+        findPatientOrThrow(patientId);
+        filter = scopeToCurrentDoctor(filter);
+
+        LocalDateTime afterDate = null;
+        UUID afterId = null;
+        if (pageRequest.getCursor() != null) {
+            List<Object> values = KeysetCursor.decode(pageRequest.getCursor(), HISTORY_KEYS, MedicalAppointmentEntity.class);
+            afterDate = (LocalDateTime) values.get(0);
+            afterId = (UUID) values.get(1);
+        }
+
+        // Se pide una fila extra solo para saber si hay página siguiente
+        int size = pageRequest.getSize();
+        List<MedicalAppointmentEntity> appointments = medicalAppointmentRepository.findPageByPatientId(
+                patientId, filter, afterDate, afterId, size + 1);
 
+        String nextCursor = null;
+        if (appointments.size() > size) {
+            appointments = appointments.subList(0, size);
+            MedicalAppointmentEntity last = appointments.get(size - 1);
+            nextCursor = KeysetCursor.encodeValues(HISTORY_KEYS, List.of(last.getAppointmentDate(), last.getId()));
+        }
+
+        PageResponse<MedicalAppointmentDto> response = new PageResponse<>(toMedicalAppointmentDtos(appointments), 0, -1, -1);
+        response.nextCursor = nextCursor;
+        response.totalStrategy = "none";
+        return response;
+    }
+
+    private MedicalAppointmentFilterDto scopeToCurrentDoctor(MedicalAppointmentFilterDto filter) {
         UUID currentDoctorId = getCurrentDoctorId();
         if (currentDoctorId != null) {
             if (filter == null) filter = new MedicalAppointmentFilterDto();
             filter.doctorId = currentDoctorId;
         }
-
-        return medicalAppointmentRepository.findByPatientIdWithFilters(patientId, filter)
-                .stream()
-                .map(this::toMedicalAppointmentDto)
-                .collect(Collectors.toList());
+        return filter;
     }
 
     @Transactional
@@ -132,6 +195,7 @@ public class MedicalAppointmentService {
 
         medicalAppointmentRepository.persist(appointment);
         persistDiagnoses(appointment, request.getDiagnoses());
+        appointmentChanged.fire(AppointmentChangedEvent.created(appointment));
         log.info("Medical appointment created with id: {}", appointment.getId());
 
         return toMedicalAppointmentDto(appointment);
@@ -146,6 +210,7 @@ public class MedicalAppointmentService {
 
         validateModifiable(appointment);
 
+        var before = AppointmentChangedEvent.Snapshot.of(appointment);
         applyRequestFields(appointment, request);
 
         if (request.getStatus() != null) {
@@ -155,6 +220,7 @@ public class MedicalAppointmentService {
         medicalAppointmentRepository.persist(appointment);
         appointmentDiagnosisRepository.deleteByAppointmentId(appointmentId);
         persistDiagnoses(appointment, request.getDiagnoses());
+        appointmentChanged.fire(AppointmentChangedEvent.updated(before, appointment));
         log.info("Medical appointment updated: {}", appointmentId);
 
         return toMedicalAppointmentDto(appointment);
@@ -171,12 +237,14 @@ public class MedicalAppointmentService {
             throw new IllegalStateException("Solo se pueden reabrir citas con estado 'expired'. Estado actual: " + appointment.getStatus());
         }
 
+        var before = AppointmentChangedEvent.Snapshot.of(appointment);
         appointment.setStatus(AppointmentStatus.reopened);
         appointment.setAppointmentDate(request.getAppointmentDate());
         appointment.setNotified30Min(false);
         appointment.setNotified10Min(false);
 
         medicalAppointmentRepository.persist(appointment);
+        appointmentChanged.fire(AppointmentChangedEvent.updated(before, appointment));
         log.info("Medical appointment reopened: {}", appointmentId);
 
         return toMedicalAppointmentDto(appointment);
@@ -193,6 +261,7 @@ public class MedicalAppointmentService {
 
         appointmentDiagnosisRepository.deleteByAppointmentId(appointmentId);
         medicalAppointmentRepository.delete(appointment);
+        appointmentChanged.fire(AppointmentChangedEvent.deleted(appointment));
         log.info("Medical appointment deleted: {}", appointmentId);
     }
 
@@ -248,19 +317,57 @@ public class MedicalAppointmentService {
         }
     }
 
-    private UUID resolveSpecialtyId(MedicalAppointmentEntity entity) {
-        if (entity.getSpecialty() != null) return entity.getSpecialty().getId();
-        return doctorSpecialtyRepository.findByDoctorId(entity.getDoctor().getId())
-                .stream().findFirst().map(ds -> ds.getSpecialty().getId()).orElse(null);
+    private SpecialtyEntity resolveSpecialty(MedicalAppointmentEntity entity) {
+        if (entity.getSpecialty() != null) return entity.getSpecialty();
+        return firstSpecialty(doctorSpecialtyRepository.findByDoctorId(entity.getDoctor().getId()));
     }
 
-    private String resolveSpecialtyName(MedicalAppointmentEntity entity) {
-        if (entity.getSpecialty() != null) return entity.getSpecialty().getName();
-        return doctorSpecialtyRepository.findByDoctorId(entity.getDoctor().getId())
-                .stream().findFirst().map(ds -> ds.getSpecialty().getName()).orElse(null);
+    private static SpecialtyEntity firstSpecialty(List<DoctorSpecialtyEntity> doctorSpecialties) {
+        return doctorSpecialties.stream().findFirst().map(DoctorSpecialtyEntity::getSpecialty).orElse(null);
     }
 
     public MedicalAppointmentDto toMedicalAppointmentDto(MedicalAppointmentEntity entity) {
+        return buildDto(entity,
+                resolveSpecialty(entity),
+                medicalAppointmentRepository.findChildFollowUpId(entity.getId()).orElse(null),
+                entity.getDiagnoses() != null ? entity.getDiagnoses() : Collections.emptyList(),
+                isSecretary());
+    }
+
+    /**
+     * Mapeo para listados: follow-ups hijos, especialidad por defecto del médico y diagnósticos
+     * se resuelven con una consulta agrupada cada uno, no una por cita.
+     */
+    public List<MedicalAppointmentDto> toMedicalAppointmentDtos(List<MedicalAppointmentEntity> entities) {
+        if (entities.isEmpty()) return Collections.emptyList();
+
+        List<UUID> ids = entities.stream().map(MedicalAppointmentEntity::getId).toList();
+        List<UUID> doctorIdsWithoutSpecialty = entities.stream()
+                .filter(e -> e.getSpecialty() == null)
+                .map(e -> e.getDoctor().getId())
+                .distinct()
+                .toList();
+        boolean secretary = isSecretary();
+
+        Map<UUID, UUID> childFollowUps = medicalAppointmentRepository.findChildFollowUpIds(ids);
+        Map<UUID, List<DoctorSpecialtyEntity>> doctorSpecialties = doctorSpecialtyRepository.findByDoctorIds(doctorIdsWithoutSpecialty);
+        // La secretaria no ve diagnósticos, no hace falta cargarlos
+        Map<UUID, List<AppointmentDiagnosisEntity>> diagnoses = secretary
+                ? Collections.emptyMap()
+                : appointmentDiagnosisRepository.findByAppointmentIds(ids);
+
+        return entities.stream()
+                .map(e -> buildDto(e,
+                        e.getSpecialty() != null ? e.getSpecialty()
+                                : firstSpecialty(doctorSpecialties.getOrDefault(e.getDoctor().getId(), Collections.emptyList())),
+                        childFollowUps.get(e.getId()),
+                        diagnoses.getOrDefault(e.getId(), Collections.emptyList()),
+                        secretary))
+                .collect(Collectors.toList());
+    }
+
+    private MedicalAppointmentDto buildDto(MedicalAppointmentEntity entity, SpecialtyEntity specialty, UUID childFollowUpId,
+                                           List<AppointmentDiagnosisEntity> diagnoses, boolean secretary) {
         MedicalAppointmentDto dto = MedicalAppointmentDto.builder()
                 .id(entity.getId())
                 .patientId(entity.getPatient().getId())
@@ -269,8 +376,8 @@ public class MedicalAppointmentService {
                 .doctorName(entity.getDoctor().getFirstName() + " " + entity.getDoctor().getLastName())
                 .clinicId(entity.getClinic().getId())
                 .clinicName(entity.getClinic().getName())
-                .specialtyId(resolveSpecialtyId(entity))
-                .specialtyName(resolveSpecialtyName(entity))
+                .specialtyId(specialty != null ? specialty.getId() : null)
+                .specialtyName(specialty != null ? specialty.getName() : null)
                 .status(entity.getStatus() != null ? entity.getStatus().name() : null)
                 .appointmentDate(entity.getAppointmentDate())
                 .reason(entity.getReason())
@@ -282,8 +389,8 @@ public class MedicalAppointmentService {
                 .cancellationReason(entity.getCancellationReason())
                 .source(entity.getSource() != null ? entity.getSource().name() : null)
                 .followUpAppointmentId(entity.getFollowUpAppointment() != null ? entity.getFollowUpAppointment().getId() : null)
-                .childFollowUpId(medicalAppointmentRepository.findChildFollowUpId(entity.getId()).orElse(null))
-                .diagnoses(entity.getDiagnoses() != null ? entity.getDiagnoses().stream()
+                .childFollowUpId(childFollowUpId)
+                .diagnoses(diagnoses.stream()
                         .map(d -> AppointmentDiagnosisDto.builder()
                                 .id(d.getId())
                                 .diagnosisId(d.getDiagnosis().getId())
@@ -292,11 +399,11 @@ public class MedicalAppointmentService {
                                 .type(d.getType() != null ? d.getType().name() : null)
                                 .notes(d.getNotes())
                                 .build())
-                        .collect(Collectors.toList()) : Collections.emptyList())
+                        .collect(Collectors.toList()))
                 .createdAt(entity.getCreatedAt())
                 .build();
 
-        if (isSecretary()) {
+        if (secretary) {
             dto.setDiagnosis(null);
             dto.setNotes(null);
             dto.setDiagnoses(null);
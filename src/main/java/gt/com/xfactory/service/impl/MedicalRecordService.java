@@ -18,6 +18,7 @@ import java.util.*;
 import java.util.function.*;
 import java.util.stream.*;
 
+import static gt.com.xfactory.dto.response.PageResponse.toKeysetPageResponse;
 import static gt.com.xfactory.dto.response.PageResponse.toPageResponse;
 
 @ApplicationScoped
@@ -45,10 +46,20 @@ public class MedicalRecordService {
     @Inject
     SecurityContextService securityContextService;
 
+    @Inject
+    PatientTimelineService patientTimelineService;
+
+    @Inject
+    TotalCountService totalCountService;
+
+    @Inject
+    PatientHistoryLimits patientHistoryLimits;
+
     private UUID getCurrentDoctorId() {
         return securityContextService.getCurrentDoctorId();
     }
 
+    @ReadOnly
     public PageResponse<MedicalRecordDto> getMedicalRecordsPaginated(MedicalRecordFilterDto filter, @Valid CommonPageRequest pageRequest) {
         log.info("Fetching medical records with filter - pageRequest: {}, filter: {}", pageRequest, filter);
 
@@ -61,20 +72,48 @@ public class MedicalRecordService {
                 .addDateRange(filter.startDate, "createdAt", "startDate",
                               filter.endDate, "createdAt", "endDate");
 
-        return toPageResponse(medicalRecordRepository, fb.buildQuery(), pageRequest, fb.getParams(), toMedicalRecordDto);
+        PageResponse<MedicalRecordDto> page = pageRequest.isKeyset()
+                ? toKeysetPageResponse(medicalRecordRepository, fb.buildQuery(), pageRequest, fb.getParams(), LIST_PROJECTION)
+                : toPageResponse(medicalRecordRepository, fb.buildQuery(),
+                        pageRequest, fb.getParams(), LIST_PROJECTION, totalCountService::count);
+        attachSpecialtyNames(page.content);
+        return page;
     }
 
-    public List<MedicalRecordDto> getMedicalRecordsByPatientId(UUID patientId) {
+    /**
+     * Expedientes del paciente en la ventana pedida, del más reciente al más antiguo, hasta
+     * patient-history.max-rows. hasMore indica que quedaron fuera; para recorrerlos está la versión paginada.
+     */
+    public HistoryList<MedicalRecordDto> getMedicalRecordsByPatientId(UUID patientId, PatientHistoryRequest window) {
         log.info("Fetching medical records for patient: {}", patientId);
 
         patientRepository.findByIdOptional(patientId)
                 .orElseThrow(() -> new NotFoundException("Patient not found with id: " + patientId));
 
         UUID currentDoctorId = getCurrentDoctorId();
+        int limit = patientHistoryLimits.resolve(window);
         List<MedicalRecordEntity> records = currentDoctorId != null
-                ? medicalRecordRepository.findByPatientIdAndDoctorId(patientId, currentDoctorId)
-                : medicalRecordRepository.findByPatientId(patientId);
-        return records.stream().map(toMedicalRecordDto).collect(Collectors.toList());
+                ? medicalRecordRepository.findByPatientIdAndDoctorId(patientId, currentDoctorId,
+                        window.getStartDate(), window.getEndDate(), limit + 1)
+                : medicalRecordRepository.findByPatientId(patientId, window.getStartDate(), window.getEndDate(), limit + 1);
+        return HistoryList.of(records, limit).map(toMedicalRecordDto);
+    }
+
+    /**
+     * Historial de expedientes del paciente por cursor (createdAt descendente por defecto).
+     */
+    @ReadOnly
+    public PageResponse<MedicalRecordDto> getMedicalRecordsPageByPatientId(UUID patientId, PatientHistoryRequest window,
+                                                                         CommonPageRequest pageRequest) {
+        patientRepository.findByIdOptional(patientId)
+                .orElseThrow(() -> new NotFoundException("Patient not found with id: " + patientId));
+
+        MedicalRecordFilterDto filter = new MedicalRecordFilterDto();
+        filter.patientId = patientId;
+        filter.startDate = window.getStartDate();
+        filter.endDate = window.getEndDate();
+        pageRequest.forceKeyset("createdAt.desc");
+        return getMedicalRecordsPaginated(filter, pageRequest);
     }
 
     public List<MedicalRecordDto> getMedicalRecordsByAppointmentId(UUID appointmentId) {
@@ -141,6 +180,7 @@ public class MedicalRecordService {
         }
 
         medicalRecordRepository.persist(record);
+        patientTimelineService.recordMedicalRecord(record);
         log.info("Medical record created with id: {}", record.getId());
 
         return toMedicalRecordDto.apply(record);
@@ -164,6 +204,7 @@ public class MedicalRecordService {
         if (request.getAttachments() != null) record.setAttachments(request.getAttachments());
 
         medicalRecordRepository.persist(record);
+        patientTimelineService.recordMedicalRecord(record);
         log.info("Medical record updated: {}", recordId);
 
         return toMedicalRecordDto.apply(record);
@@ -178,6 +219,7 @@ public class MedicalRecordService {
 
         securityContextService.validateDoctorOwnership(record.getDoctor().getId());
 
+        patientTimelineService.removeMedicalRecord(recordId);
         medicalRecordRepository.delete(record);
         log.info("Medical record deleted: {}", recordId);
     }
@@ -207,4 +249,39 @@ public class MedicalRecordService {
                     .updatedAt(entity.getUpdatedAt())
                     .build();
 
+    // Listado: la especialidad es opcional, se proyecta solo su id y el nombre se resuelve en lote
+    static final Projection<MedicalRecordDto> LIST_PROJECTION = Projection.of(row -> MedicalRecordDto.builder()
+                    .id(row.get("id"))
+                    .patientId(row.get("patient.id"))
+                    .patientName(row.get("patient.firstName") + " " + row.get("patient.lastName"))
+                    .appointmentId(row.get("appointment.id"))
+                    .specialtyId(row.get("specialty.id"))
+                    .doctorId(row.get("doctor.id"))
+                    .doctorName(row.get("doctor.firstName") + " " + row.get("doctor.lastName"))
+                    .chiefComplaint(row.get("chiefComplaint"))
+                    .presentIllness(row.get("presentIllness"))
+                    .physicalExam(row.get("physicalExam"))
+                    .treatmentPlan(row.get("treatmentPlan"))
+                    .vitalSigns(row.get("vitalSigns"))
+                    .specialtyData(row.get("specialtyData"))
+                    .formTemplateId(row.get("formTemplateId"))
+                    .formTemplateVersion(row.get("formTemplateVersion"))
+                    .attachments(row.get("attachments"))
+                    .createdAt(row.get("createdAt"))
+                    .updatedAt(row.get("updatedAt"))
+                    .build(),
+            "id", "patient.id", "patient.firstName", "patient.lastName", "appointment.id", "specialty.id",
+            "doctor.id", "doctor.firstName", "doctor.lastName", "chiefComplaint", "presentIllness", "physicalExam",
+            "treatmentPlan", "vitalSigns", "specialtyData", "formTemplateId", "formTemplateVersion", "attachments",
+            "createdAt", "updatedAt");
+
+    private void attachSpecialtyNames(List<MedicalRecordDto> records) {
+        Set<UUID> specialtyIds = records.stream()
+                .map(MedicalRecordDto::getSpecialtyId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (specialtyIds.isEmpty()) return;
+        Map<UUID, String> names = specialtyRepository.findNamesByIds(specialtyIds);
+        records.forEach(r -> r.setSpecialtyName(r.getSpecialtyId() != null ? names.get(r.getSpecialtyId()) : null));
+    }
 }
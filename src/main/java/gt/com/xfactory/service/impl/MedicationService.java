@@ -33,6 +33,13 @@ public class MedicationService {
     @Inject
     DistributorRepository distributorRepository;
 
+    @Inject
+    SearchIndexService searchIndexService;
+
+    @Inject
+    TotalCountService totalCountService;
+
+    @ReadOnly
     public PageResponse<MedicationDto> getMedications(MedicationFilterDto filter, @Valid CommonPageRequest pageRequest) {
         log.info("Fetching medications with filter - pageRequest: {}, filter: {}", pageRequest, filter);
 
@@ -48,7 +55,8 @@ public class MedicationService {
                 .addEquals(filter.distributorId, "distributor.id", "distributorId")
                 .addEquals(filter.active, "active");
 
-        return toPageResponse(medicationRepository, fb.buildQuery(), pageRequest, fb.getParams(), toDto);
+        return toPageResponse(medicationRepository, fb.buildQuery(),
+                pageRequest, fb.getParams(), toDto, totalCountService::count);
     }
 
     public MedicationDto getById(UUID id) {
@@ -66,6 +74,7 @@ public class MedicationService {
         mapRequestToEntity(request, entity);
 
         medicationRepository.persist(entity);
+        searchIndexService.indexMedication(entity);
         log.info("Medication created with id: {}", entity.getId());
 
         return toDto.apply(entity);
@@ -81,6 +90,7 @@ public class MedicationService {
         mapRequestToEntity(request, entity);
 
         medicationRepository.persist(entity);
+        searchIndexService.indexMedication(entity);
         log.info("Medication updated with id: {}", entity.getId());
 
         return toDto.apply(entity);
@@ -124,6 +134,7 @@ public class MedicationService {
 
         entity.setActive(false);
         medicationRepository.persist(entity);
+        searchIndexService.indexMedication(entity);
         log.info("Medication soft deleted with id: {}", id);
     }
 
@@ -4,6 +4,7 @@ import gt.com.xfactory.dto.request.*;
 import gt.com.xfactory.dto.response.*;
 import gt.com.xfactory.entity.*;
 import gt.com.xfactory.repository.*;
+import gt.com.xfactory.utils.*;
 import jakarta.enterprise.context.*;
 import jakarta.inject.*;
 import jakarta.persistence.*;
@@ -29,6 +30,7 @@ public class OrganizationService {
         return organizationRepository.getEntityManager();
     }
 
+    @ReadOnly
     public PageResponse<OrganizationDto> getOrganizations(CommonPageRequest pageRequest) {
         long totalItems = ((Number) em()
                 .createNativeQuery("SELECT COUNT(*) FROM organization WHERE active = true")
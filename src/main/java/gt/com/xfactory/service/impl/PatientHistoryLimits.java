@@ -0,0 +1,27 @@
+package gt.com.xfactory.service.impl;
+
+import gt.com.xfactory.dto.request.*;
+import jakarta.enterprise.context.*;
+import org.eclipse.microprofile.config.inject.*;
+
+/**
+ * Tope de filas de los listados sin paginar del historial del paciente (citas, expedientes,
+ * recetas y órdenes de laboratorio).
+ */
+@ApplicationScoped
+public class PatientHistoryLimits {
+
+    @ConfigProperty(name = "patient-history.max-rows", defaultValue = "500")
+    int maxRows;
+
+    /**
+     * Filas a devolver: el limit pedido, como máximo patient-history.max-rows.
+     */
+    public int resolve(Integer requested) {
+        return requested == null ? maxRows : Math.min(requested, maxRows);
+    }
+
+    public int resolve(PatientHistoryRequest window) {
+        return resolve(window.getLimit());
+    }
+}
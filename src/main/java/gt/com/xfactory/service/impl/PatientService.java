@@ -21,6 +21,7 @@ import java.util.*;
 import java.util.function.*;
 import java.util.stream.*;
 
+import static gt.com.xfactory.dto.response.PageResponse.toKeysetPageResponse;
 import static gt.com.xfactory.dto.response.PageResponse.toPageResponse;
 
 @ApplicationScoped
@@ -45,13 +46,54 @@ public class PatientService {
     @Inject
     SecurityContextService securityContextService;
 
+    @Inject
+    SearchIndexService searchIndexService;
+
+    @Inject
+    ListingExportService listingExportService;
+
+    @Inject
+    PatientTimelineService patientTimelineService;
+
+    @Inject
+    TotalCountService totalCountService;
+
     private UUID getCurrentDoctorId() {
         return securityContextService.getCurrentDoctorId();
     }
 
+    // Debe coincidir con el backfill de V27 (nombre, apellido, DPI, teléfono)
+    private static String buildSearchText(PatientEntity patient) {
+        return SearchTextUtils.join(patient.getFirstName(), patient.getLastName(),
+                patient.getDpi(), patient.getPhone());
+    }
+
+    @ReadOnly
     public PageResponse<PatientDto> getPatients(PatientFilterDto filter, @Valid CommonPageRequest pageRequest) {
         log.info("Fetching patients with filter - pageRequest: {}, filter: {}", pageRequest, filter);
 
+        var fb = buildFilter(filter);
+        return pageRequest.isKeyset()
+                ? toKeysetPageResponse(patientRepository, fb.buildQuery(), pageRequest, fb.getParams(), LIST_PROJECTION)
+                : toPageResponse(patientRepository, fb.buildQuery(),
+                        pageRequest, fb.getParams(), LIST_PROJECTION, totalCountService::count);
+    }
+
+    /**
+     * Todos los pacientes que cumplen el filtro de getPatients, sin paginar, en NDJSON o CSV.
+     */
+    public StreamingOutput exportPatients(PatientFilterDto filter, ListingExportService.Format format) {
+        log.info("Exporting patients as {} with filter: {}", format, filter);
+
+        var fb = buildFilter(filter);
+        String where = fb.buildQuery().toString();
+        Map<String, Object> params = fb.getParams();
+        return listingExportService.stream(format, PatientDto.class,
+                fetchSize -> patientRepository.streamProjection(LIST_PROJECTION, where, "id", params, fetchSize),
+                Function.identity());
+    }
+
+    private FilterBuilder buildFilter(PatientFilterDto filter) {
         UUID currentDoctorId = getCurrentDoctorId();
         var fb = FilterBuilder.create();
 
@@ -85,7 +127,7 @@ public class PatientService {
                 .addEquals(StringUtils.isNotBlank(filter.gender) ? GenderType.fromValue(filter.gender) : null, "gender")
                 .addEquals(StringUtils.isNotBlank(filter.bloodGroup) ? BloodType.fromValue(filter.bloodGroup) : null, "bloodGroup");
 
-        return toPageResponse(patientRepository, fb.buildQuery(), pageRequest, fb.getParams(), toDto);
+        return fb;
     }
 
     public List<PatientSearchDto> searchPatients(String q) {
@@ -158,7 +200,10 @@ public class PatientService {
             patient.setBloodGroup(BloodType.fromValue(request.getBloodGroup()));
         }
 
+        patient.setSearchText(buildSearchText(patient));
+
         patientRepository.persist(patient);
+        searchIndexService.indexPatient(patient);
         log.info("Patient created with id: {}", patient.getId());
 
         return toDto.apply(patient);
@@ -198,7 +243,10 @@ public class PatientService {
             patient.setBloodGroup(BloodType.fromValue(request.getBloodGroup()));
         }
 
+        patient.setSearchText(buildSearchText(patient));
+
         patientRepository.persist(patient);
+        searchIndexService.indexPatient(patient);
         log.info("Patient updated: {}", patientId);
 
         return toDto.apply(patient);
@@ -253,6 +301,7 @@ public class PatientService {
         entity.setDescription(request.getDescription());
 
         medicalHistoryPathologicalFamRepository.persist(entity);
+        patientTimelineService.recordMedicalHistory(entity);
         log.info("Medical history pathological fam created with id: {}", entity.getId());
 
         // Actualizar bandera del paciente
@@ -286,6 +335,7 @@ public class PatientService {
         entity.setDescription(request.getDescription());
 
         medicalHistoryPathologicalFamRepository.persist(entity);
+        patientTimelineService.recordMedicalHistory(entity);
         log.info("Medical history pathological fam updated: {}", historyId);
 
         return toMedicalHistoryPathologicalFamDto.apply(entity);
@@ -319,6 +369,7 @@ public class PatientService {
         }
 
         patientRepository.delete(patient);
+        searchIndexService.remove(SearchIndexService.PATIENTS, patientId);
         log.info("Patient deleted: {}", patientId);
     }
 
@@ -349,6 +400,41 @@ public class PatientService {
                     .hasPathologicalHistory(entity.getHasPathologicalHistory())
                     .build();
 
+    // Listado: mismo DTO que toDto, construido desde tuplas sin cargar entidades
+    public static final Projection<PatientDto> LIST_PROJECTION = Projection.of(row -> {
+        LocalDate birthdate = row.get("birthdate");
+        GenderType gender = row.get("gender");
+        BloodType bloodGroup = row.get("bloodGroup");
+        return PatientDto.builder()
+                .id(row.get("id"))
+                .firstName(row.get("firstName"))
+                .lastName(row.get("lastName"))
+                .birthdate(birthdate)
+                .age(birthdate != null ? Period.between(birthdate, LocalDate.now()).getYears() : 0)
+                .gender(gender != null ? gender.name() : null)
+                .bloodGroup(bloodGroup != null ? bloodGroup.name() : null)
+                .phone(row.get("phone"))
+                .email(row.get("email"))
+                .address(row.get("address"))
+                .maritalStatus(row.get("maritalStatus"))
+                .occupation(row.get("occupation"))
+                .emergencyContactName(row.get("emergencyContactName"))
+                .emergencyContactPhone(row.get("emergencyContactPhone"))
+                .allergies(row.get("allergies"))
+                .chronicConditions(row.get("chronicConditions"))
+                .insuranceProvider(row.get("insuranceProvider"))
+                .insuranceNumber(row.get("insuranceNumber"))
+                .dpi(row.get("dpi"))
+                .nationality(row.get("nationality"))
+                .height(row.get("height"))
+                .weight(row.get("weight"))
+                .hasPathologicalHistory(row.get("hasPathologicalHistory"))
+                .build();
+    }, "id", "firstName", "lastName", "birthdate", "gender", "bloodGroup", "phone", "email", "address",
+            "maritalStatus", "occupation", "emergencyContactName", "emergencyContactPhone", "allergies",
+            "chronicConditions", "insuranceProvider", "insuranceNumber", "dpi", "nationality", "height", "weight",
+            "hasPathologicalHistory");
+
     public static final Function<MedicalHistoryPathologicalFamEntity, MedicalHistoryPathologicalFamDto> toMedicalHistoryPathologicalFamDto = entity ->
             MedicalHistoryPathologicalFamDto.builder()
                     .id(entity.getId())
@@ -0,0 +1,232 @@
+package gt.com.xfactory.service.impl;
+
+import gt.com.xfactory.dto.request.*;
+import gt.com.xfactory.dto.response.*;
+import gt.com.xfactory.entity.*;
+import gt.com.xfactory.entity.enums.*;
+import gt.com.xfactory.repository.*;
+import gt.com.xfactory.service.event.*;
+import gt.com.xfactory.utils.*;
+import gt.com.xfactory.utils.SortUtils.SortKey;
+import io.quarkus.panache.common.*;
+import jakarta.enterprise.context.*;
+import jakarta.enterprise.event.*;
+import jakarta.inject.*;
+import jakarta.ws.rs.*;
+import lombok.extern.slf4j.*;
+import org.apache.commons.lang3.*;
+import org.eclipse.microprofile.config.inject.*;
+
+import java.time.*;
+import java.util.*;
+
+/**
+ * Timeline del paciente (patient_timeline_event): una fila resumida por cita, expediente, receta,
+ * orden de laboratorio y antecedente. Los servicios dueños de cada dato la actualizan en la misma
+ * transacción que el cambio (las citas, observando AppointmentChangedEvent), y la pantalla del
+ * paciente la lee paginada por keyset, del evento más reciente al más antiguo, con un rango del
+ * índice (patient_id, occurred_at, source_id). Con patient.timeline.enabled=false no se mantiene
+ * ni se sirve.
+ */
+@ApplicationScoped
+@Slf4j
+public class PatientTimelineService {
+
+    // Orden fijo del timeline; también es la firma del cursor
+    private static final List<SortKey> KEYS = List.of(new SortKey("occurredAt", true), new SortKey("sourceId", true));
+    private static final int TITLE_LENGTH = 255;
+    private static final int SUMMARY_LENGTH = 500;
+
+    @ConfigProperty(name = "patient.timeline.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @Inject
+    PatientTimelineRepository patientTimelineRepository;
+
+    @Inject
+    PatientRepository patientRepository;
+
+    @Inject
+    MedicalAppointmentRepository medicalAppointmentRepository;
+
+    @Inject
+    SecurityContextService securityContextService;
+
+    @Inject
+    TenantScopedExecutor tenantScopedExecutor;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Página del timeline, del más reciente al más antiguo. Un médico ve solo sus propios eventos
+     * y, si atendió al paciente, sus antecedentes (igual que los listados por paciente).
+     */
+    public PageResponse<PatientTimelineEventDto> getTimeline(UUID patientId, List<TimelineEventType> types,
+                                                             CommonPageRequest pageRequest) {
+        log.info("Fetching timeline for patient: {}", patientId);
+
+        if (!enabled) {
+            throw new IllegalStateException("El timeline de pacientes está deshabilitado");
+        }
+        patientRepository.findByIdOptional(patientId)
+                .orElseThrow(() -> new NotFoundException("Patient not found with id: " + patientId));
+
+        Map<String, Object> params = new HashMap<>();
+        StringBuilder where = new StringBuilder("patientId = :patientId");
+        params.put("patientId", patientId);
+        if (types != null && !types.isEmpty()) {
+            where.append(" AND eventType IN :types");
+            params.put("types", types);
+        }
+        UUID currentDoctorId = securityContextService.getCurrentDoctorId();
+        if (currentDoctorId != null) {
+            boolean treatedPatient = medicalAppointmentRepository.count(
+                    "patient.id = ?1 AND doctor.id = ?2", patientId, currentDoctorId) > 0;
+            where.append(treatedPatient
+                    ? " AND (doctorId = :currentDoctorId OR eventType = :historyType)"
+                    : " AND doctorId = :currentDoctorId");
+            params.put("currentDoctorId", currentDoctorId);
+            if (treatedPatient) {
+                params.put("historyType", TimelineEventType.medical_history);
+            }
+        }
+        if (pageRequest.getCursor() != null) {
+            List<Object> values = KeysetCursor.decode(pageRequest.getCursor(), KEYS, PatientTimelineEventEntity.class);
+            where.append(" AND ").append(KeysetCursor.buildPredicate(KEYS, values, params));
+        }
+
+        // Se pide una fila extra solo para saber si hay página siguiente
+        int size = pageRequest.getSize();
+        List<PatientTimelineEventEntity> events = patientTimelineRepository
+                .find(where.toString(), Sort.descending("occurredAt", "sourceId"), params)
+                .range(0, size)
+                .list();
+
+        String nextCursor = null;
+        if (events.size() > size) {
+            events = events.subList(0, size);
+            PatientTimelineEventEntity last = events.get(size - 1);
+            nextCursor = KeysetCursor.encodeValues(KEYS, List.of(last.getOccurredAt(), last.getSourceId()));
+        }
+
+        PageResponse<PatientTimelineEventDto> response = new PageResponse<>(
+                events.stream().map(this::toDto).toList(), 0, -1, -1);
+        response.nextCursor = nextCursor;
+        response.totalStrategy = "none";
+        return response;
+    }
+
+    // ========== Mantenimiento (dentro de la transacción del cambio) ==========
+
+    void onAppointmentChanged(@Observes AppointmentChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (event.after() == null) {
+            remove(event.appointmentId());
+            return;
+        }
+        Optional<MedicalAppointmentEntity> appointment = medicalAppointmentRepository.findByIdOptional(event.appointmentId());
+        if (appointment.isPresent()) {
+            MedicalAppointmentEntity a = appointment.get();
+            upsert(TimelineEventType.appointment, a.getId(), a.getPatient(), a.getAppointmentDate(),
+                    a.getReason(), a.getDiagnosis(), a.getStatus() != null ? a.getStatus().name() : null,
+                    a.getDoctor(), a.getOrganizationId());
+            return;
+        }
+        // Cambio hecho bajo otro tenant (el vencimiento del scheduler corre con el tenant por defecto):
+        // la búsqueda filtrada no ve la cita, así que el estado se toma de la foto del evento
+        String organizationId = event.organizationId();
+        if (organizationId != null && event.after().status() != null) {
+            patientTimelineRepository.updateStatus(event.appointmentId(), organizationId, event.after().status().name());
+        }
+    }
+
+    public void recordMedicalRecord(MedicalRecordEntity record) {
+        if (enabled) {
+            upsert(TimelineEventType.medical_record, record.getId(), record.getPatient(), orNow(record.getCreatedAt()),
+                    record.getChiefComplaint(), record.getTreatmentPlan(), null, record.getDoctor(),
+                    record.getOrganizationId());
+        }
+    }
+
+    public void recordPrescription(PrescriptionEntity prescription) {
+        if (enabled) {
+            upsert(TimelineEventType.prescription, prescription.getId(), prescription.getPatient(),
+                    prescription.getIssueDate() != null ? prescription.getIssueDate().atStartOfDay() : orNow(prescription.getCreatedAt()),
+                    "Receta", prescription.getNotes(), null, prescription.getDoctor(), prescription.getOrganizationId());
+        }
+    }
+
+    public void recordLabOrder(LabOrderEntity order) {
+        if (enabled) {
+            upsert(TimelineEventType.lab_order, order.getId(), order.getPatient(), order.getOrderDate(),
+                    "Orden de laboratorio", order.getNotes(), order.getStatus() != null ? order.getStatus().name() : null,
+                    order.getDoctor(), order.getOrganizationId());
+        }
+    }
+
+    public void recordMedicalHistory(MedicalHistoryPathologicalFamEntity history) {
+        if (enabled) {
+            upsert(TimelineEventType.medical_history, history.getId(), history.getPatient(), orNow(history.getCreatedAt()),
+                    history.getMedicalHistoryType(), history.getDescription(), null, null, history.getOrganizationId());
+        }
+    }
+
+    /**
+     * Quita el evento de una fila de origen eliminada.
+     */
+    public void remove(UUID sourceId) {
+        if (enabled) {
+            patientTimelineRepository.delete("sourceId", sourceId);
+        }
+    }
+
+    /**
+     * Quita el expediente y sus recetas, que la base borra en cascada con él. Debe llamarse antes de borrarlo.
+     */
+    public void removeMedicalRecord(UUID recordId) {
+        if (enabled) {
+            patientTimelineRepository.delete("sourceId = ?1 OR sourceId IN "
+                    + "(SELECT p.id FROM PrescriptionEntity p WHERE p.medicalRecord.id = ?1)", recordId);
+        }
+    }
+
+    private void upsert(TimelineEventType type, UUID sourceId, PatientEntity patient, LocalDateTime occurredAt,
+                        String title, String summary, String status, DoctorEntity doctor, String organizationId) {
+        PatientTimelineEventEntity event = new PatientTimelineEventEntity();
+        event.setSourceId(sourceId);
+        event.setEventType(type);
+        event.setPatientId(patient.getId());
+        event.setOccurredAt(occurredAt);
+        event.setTitle(StringUtils.truncate(title, TITLE_LENGTH));
+        event.setSummary(StringUtils.truncate(summary, SUMMARY_LENGTH));
+        event.setStatus(status);
+        if (doctor != null) {
+            event.setDoctorId(doctor.getId());
+            event.setDoctorName(StringUtils.trimToNull(
+                    StringUtils.defaultString(doctor.getFirstName()) + " " + StringUtils.defaultString(doctor.getLastName())));
+        }
+        event.setOrganizationId(organizationId != null ? organizationId : tenantScopedExecutor.currentTenantId());
+        patientTimelineRepository.upsert(event);
+    }
+
+    private static LocalDateTime orNow(LocalDateTime value) {
+        return value != null ? value : LocalDateTime.now();
+    }
+
+    private PatientTimelineEventDto toDto(PatientTimelineEventEntity entity) {
+        return PatientTimelineEventDto.builder()
+                .eventType(entity.getEventType())
+                .sourceId(entity.getSourceId())
+                .occurredAt(entity.getOccurredAt())
+                .title(entity.getTitle())
+                .summary(entity.getSummary())
+                .status(entity.getStatus())
+                .doctorId(entity.getDoctorId())
+                .doctorName(entity.getDoctorName())
+                .build();
+    }
+}
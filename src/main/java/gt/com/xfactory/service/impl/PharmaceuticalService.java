@@ -26,6 +26,10 @@ public class PharmaceuticalService {
     @Inject
     PharmaceuticalRepository pharmaceuticalRepository;
 
+    @Inject
+    TotalCountService totalCountService;
+
+    @ReadOnly
     public PageResponse<PharmaceuticalDto> getPharmaceuticals(PharmaceuticalFilterDto filter, @Valid CommonPageRequest pageRequest) {
         log.info("Fetching pharmaceuticals with filter - pageRequest: {}, filter: {}", pageRequest, filter);
 
@@ -33,7 +37,8 @@ public class PharmaceuticalService {
                 .addLike(filter.name, "name")
                 .addEquals(filter.active, "active");
 
-        return toPageResponse(pharmaceuticalRepository, fb.buildQuery(), pageRequest, fb.getParams(), toDto);
+        return toPageResponse(pharmaceuticalRepository, fb.buildQuery(),
+                pageRequest, fb.getParams(), toDto, totalCountService::count);
     }
 
     public PharmaceuticalDto getById(UUID id) {
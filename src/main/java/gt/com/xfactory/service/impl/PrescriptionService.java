@@ -4,6 +4,7 @@ import gt.com.xfactory.dto.request.*;
 import gt.com.xfactory.dto.response.*;
 import gt.com.xfactory.entity.*;
 import gt.com.xfactory.repository.*;
+import gt.com.xfactory.utils.*;
 import jakarta.enterprise.context.*;
 import jakarta.inject.*;
 import jakarta.transaction.*;
@@ -40,34 +41,72 @@ public class PrescriptionService {
     @Inject
     SecurityContextService securityContextService;
 
+    @Inject
+    PatientTimelineService patientTimelineService;
+
+    @Inject
+    PatientHistoryLimits patientHistoryLimits;
+
     private UUID getCurrentDoctorId() {
         return securityContextService.getCurrentDoctorId();
     }
 
-    public List<PrescriptionDto> getPrescriptionsByPatientId(UUID patientId) {
+    /**
+     * Recetas del paciente emitidas en la ventana pedida, de la más reciente a la más antigua, hasta
+     * patient-history.max-rows. hasMore indica que quedaron fuera; para recorrerlas está la versión paginada.
+     */
+    public HistoryList<PrescriptionDto> getPrescriptionsByPatientId(UUID patientId, PatientHistoryRequest window) {
         log.info("Fetching prescriptions for patient: {}", patientId);
 
         patientRepository.findByIdOptional(patientId)
                 .orElseThrow(() -> new NotFoundException("Patient not found with id: " + patientId));
 
-        UUID currentDoctorId = getCurrentDoctorId();
-        List<PrescriptionEntity> prescriptions = currentDoctorId != null
-                ? prescriptionRepository.findByPatientIdAndDoctorId(patientId, currentDoctorId)
-                : prescriptionRepository.findByPatientId(patientId);
-        return prescriptions.stream().map(toPrescriptionDto).collect(Collectors.toList());
+        return projectByPatientId(patientId, false, window);
     }
 
-    public List<PrescriptionDto> getActivePrescriptionsByPatientId(UUID patientId) {
+    public HistoryList<PrescriptionDto> getActivePrescriptionsByPatientId(UUID patientId, PatientHistoryRequest window) {
         log.info("Fetching active prescriptions for patient: {}", patientId);
 
         patientRepository.findByIdOptional(patientId)
                 .orElseThrow(() -> new NotFoundException("Patient not found with id: " + patientId));
 
-        UUID currentDoctorId = getCurrentDoctorId();
-        List<PrescriptionEntity> prescriptions = currentDoctorId != null
-                ? prescriptionRepository.findActiveByPatientIdAndDoctorId(patientId, currentDoctorId)
-                : prescriptionRepository.findActiveByPatientId(patientId);
-        return prescriptions.stream().map(toPrescriptionDto).collect(Collectors.toList());
+        return projectByPatientId(patientId, true, window);
+    }
+
+    private HistoryList<PrescriptionDto> projectByPatientId(UUID patientId, boolean activeOnly, PatientHistoryRequest window) {
+        int limit = patientHistoryLimits.resolve(window);
+        List<PrescriptionDto> prescriptions = prescriptionRepository.projectByPatientId(LIST_PROJECTION, patientId,
+                getCurrentDoctorId(), activeOnly, toDate(window.getStartDate()), toDate(window.getEndDate()), limit + 1);
+        HistoryList<PrescriptionDto> history = HistoryList.of(prescriptions, limit);
+        attachMedications(history.content);
+        return history;
+    }
+
+    /**
+     * Historial de recetas del paciente por cursor (issueDate descendente por defecto).
+     */
+    @ReadOnly
+    public PageResponse<PrescriptionDto> getPrescriptionsPageByPatientId(UUID patientId, PatientHistoryRequest window,
+                                                                         CommonPageRequest pageRequest) {
+        log.info("Fetching prescriptions page for patient: {}", patientId);
+
+        patientRepository.findByIdOptional(patientId)
+                .orElseThrow(() -> new NotFoundException("Patient not found with id: " + patientId));
+
+        var fb = FilterBuilder.create()
+                .addEquals(patientId, "patient.id", "patientId")
+                .addEquals(getCurrentDoctorId(), "doctor.id", "currentDoctorId")
+                .addDateRange(toDate(window.getStartDate()), "issueDate", "startDate",
+                              toDate(window.getEndDate()), "issueDate", "endDate");
+        pageRequest.forceKeyset("issueDate.desc");
+        PageResponse<PrescriptionDto> page = PageResponse.toKeysetPageResponse(prescriptionRepository, fb.buildQuery(),
+                pageRequest, fb.getParams(), LIST_PROJECTION);
+        attachMedications(page.content);
+        return page;
+    }
+
+    private static LocalDate toDate(LocalDateTime value) {
+        return value != null ? value.toLocalDate() : null;
     }
 
     public List<PrescriptionDto> getPrescriptionsByMedicalRecordId(UUID medicalRecordId) {
@@ -131,6 +170,7 @@ public class PrescriptionService {
             }
         }
 
+        patientTimelineService.recordPrescription(prescription);
         log.info("Prescription created with id: {}", prescription.getId());
 
         return toPrescriptionDto.apply(prescription);
@@ -157,6 +197,7 @@ public class PrescriptionService {
         securityContextService.validateDoctorOwnership(prescription.getDoctor().getId());
 
         prescriptionRepository.delete(prescription);
+        patientTimelineService.remove(prescriptionId);
         log.info("Prescription deleted: {}", prescriptionId);
     }
 
@@ -194,4 +235,48 @@ public class PrescriptionService {
                     .expiryDate(entity.getExpiryDate())
                     .createdAt(entity.getCreatedAt())
                     .build();
+
+    // Listados por paciente: receta sin medicamentos; los medicamentos se cargan agrupados por receta
+    static final Projection<PrescriptionDto> LIST_PROJECTION = Projection.of(row -> PrescriptionDto.builder()
+                    .id(row.get("id"))
+                    .medicalRecordId(row.get("medicalRecord.id"))
+                    .patientId(row.get("patient.id"))
+                    .patientName(row.get("patient.firstName") + " " + row.get("patient.lastName"))
+                    .doctorId(row.get("doctor.id"))
+                    .doctorName(row.get("doctor.firstName") + " " + row.get("doctor.lastName"))
+                    .notes(row.get("notes"))
+                    .issueDate(row.get("issueDate"))
+                    .expiryDate(row.get("expiryDate"))
+                    .createdAt(row.get("createdAt"))
+                    .build(),
+            "id", "medicalRecord.id", "patient.id", "patient.firstName", "patient.lastName",
+            "doctor.id", "doctor.firstName", "doctor.lastName", "notes", "issueDate", "expiryDate", "createdAt");
+
+    static final Projection<Map.Entry<UUID, PrescriptionMedicationDto>> MEDICATION_PROJECTION = Projection.of(row -> Map.entry(
+                    row.get("prescription.id"),
+                    PrescriptionMedicationDto.builder()
+                            .medicationId(row.get("medication.id"))
+                            .medicationName(row.get("medication.name"))
+                            .medicationCode(row.get("medication.code"))
+                            .concentration(row.get("medication.concentration"))
+                            .presentation(row.get("medication.presentation"))
+                            .dose(row.get("dose"))
+                            .frequency(row.get("frequency"))
+                            .duration(row.get("duration"))
+                            .quantity(row.get("quantity"))
+                            .administrationRoute(row.get("administrationRoute"))
+                            .specificIndications(row.get("specificIndications"))
+                            .build()),
+            "prescription.id", "medication.id", "medication.name", "medication.code", "medication.concentration",
+            "medication.presentation", "dose", "frequency", "duration", "quantity", "administrationRoute", "specificIndications");
+
+    private List<PrescriptionDto> attachMedications(List<PrescriptionDto> prescriptions) {
+        if (prescriptions.isEmpty()) return prescriptions;
+        List<UUID> ids = prescriptions.stream().map(PrescriptionDto::getId).toList();
+        Map<UUID, List<PrescriptionMedicationDto>> medications = prescriptionMedicationRepository.projectByPrescriptionIds(MEDICATION_PROJECTION, ids)
+                .stream()
+                .collect(Collectors.groupingBy(Map.Entry::getKey, Collectors.mapping(Map.Entry::getValue, Collectors.toList())));
+        prescriptions.forEach(p -> p.setMedications(medications.getOrDefault(p.getId(), new ArrayList<>())));
+        return prescriptions;
+    }
 }
@@ -0,0 +1,224 @@
+package gt.com.xfactory.service.impl;
+
+import io.agroal.api.*;
+import io.micrometer.core.instrument.*;
+import io.quarkus.agroal.*;
+import io.quarkus.arc.*;
+import io.quarkus.hibernate.orm.*;
+import io.quarkus.hibernate.orm.runtime.tenant.*;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.annotation.*;
+import jakarta.enterprise.context.*;
+import jakarta.inject.*;
+import jakarta.persistence.*;
+import lombok.extern.slf4j.*;
+import org.eclipse.microprofile.config.inject.*;
+import org.eclipse.microprofile.jwt.*;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+
+import java.sql.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+/**
+ * Enruta consultas de solo lectura (dashboards, reportes) a la réplica de streaming
+ * (datasource "replica", opcional: replica.enabled). Sobre la conexión de la réplica se abre
+ * una sesión del mismo SessionFactory con el tenant actual, por lo que el filtro DISCRIMINATOR
+ * de @TenantId aplica igual que en el primario.
+ * Se usa el primario si la réplica está deshabilitada o no responde, si su lag supera
+ * replica.max-lag, o si el usuario escribió hace menos de replica.read-your-writes-window.
+ */
+@ApplicationScoped
+@Slf4j
+public class ReadReplicaRouter {
+
+    private static final String LAG_SQL = "SELECT CASE WHEN NOT pg_is_in_recovery() THEN 0 "
+            + "WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+            + "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) END";
+
+    @ConfigProperty(name = "replica.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "replica.max-lag", defaultValue = "5s")
+    Duration maxLag;
+
+    @ConfigProperty(name = "replica.read-your-writes-window", defaultValue = "10s")
+    Duration readYourWritesWindow;
+
+    @Inject
+    @DataSource("replica")
+    InjectableInstance<AgroalDataSource> replicaDataSource;
+
+    @Inject
+    SessionFactory sessionFactory;
+
+    @Inject
+    Session primarySession;
+
+    @Inject
+    @PersistenceUnitExtension
+    TenantResolver tenantResolver;
+
+    @Inject
+    JsonWebToken jwt;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    // Último lag medido en segundos; negativo mientras no se haya podido medir
+    private volatile double lagSeconds = -1;
+    // keycloak subject → instante (ms) hasta el que sus lecturas van al primario
+    private final Map<String, Long> recentWrites = new ConcurrentHashMap<>();
+    // Lecturas del hilo actual forzadas al primario (ver onPrimary)
+    private final ThreadLocal<Boolean> primaryRequested = new ThreadLocal<>();
+
+    @PostConstruct
+    void init() {
+        Gauge.builder("replica.lag", this, r -> r.lagSeconds)
+                .baseUnit("seconds")
+                .description("Lag de replicación medido (-1 si no disponible)")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled && !replicaDataSource.listActive().isEmpty();
+    }
+
+    /**
+     * Ejecuta work con un EntityManager de la réplica cuando es seguro; si no, con el del primario.
+     * Las entidades devueltas por la réplica quedan detached al terminar: work debe devolver DTOs
+     * o valores ya inicializados.
+     */
+    public <T> T read(Function<EntityManager, T> work) {
+        String reason = replicaUnusableReason();
+        if (reason == null) {
+            try (Connection connection = replicaDataSource.getActive().getConnection()) {
+                count("replica", "ok");
+                return readOnReplica(connection, work);
+            } catch (SQLException e) {
+                log.warn("Replica unavailable, falling back to primary: {}", e.getMessage());
+                reason = "error";
+            }
+        }
+        count("primary", reason);
+        return work.apply(primarySession);
+    }
+
+    private <T> T readOnReplica(Connection connection, Function<EntityManager, T> work) {
+        try (Session session = sessionFactory.withOptions()
+                .connection(connection)
+                .tenantIdentifier((Object) tenantResolver.resolveTenantId())
+                .autoJoinTransactions(false)
+                .flushMode(FlushMode.MANUAL)
+                .openSession()) {
+            session.setDefaultReadOnly(true);
+            return work.apply(session);
+        }
+    }
+
+    /**
+     * Ejecuta work con todas las lecturas del hilo actual en el primario, p. ej. al recalcular
+     * tras un commit que la réplica puede no haber recibido todavía.
+     */
+    public <T> T onPrimary(Supplier<T> work) {
+        Boolean previous = primaryRequested.get();
+        primaryRequested.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                primaryRequested.remove();
+            }
+        }
+    }
+
+    /**
+     * Registra una escritura del usuario para que sus siguientes lecturas vean sus propios cambios.
+     */
+    public void recordWrite(String subject) {
+        if (enabled && subject != null) {
+            recentWrites.put(subject, System.currentTimeMillis() + readYourWritesWindow.toMillis());
+        }
+    }
+
+    /**
+     * True si read() usaría ahora la réplica para el usuario actual.
+     */
+    public boolean readsFromReplica() {
+        return replicaUnusableReason() == null;
+    }
+
+    /**
+     * True si el usuario actual escribió hace menos de replica.read-your-writes-window: sus lecturas
+     * no deben servirse de nada calculado desde la réplica.
+     */
+    public boolean hasRecentWrite() {
+        String subject = enabled ? currentSubject() : null;
+        if (subject == null) {
+            return false;
+        }
+        Long until = recentWrites.get(subject);
+        return until != null && until > System.currentTimeMillis();
+    }
+
+    /**
+     * True si un cambio confirmado en sinceMillis puede no haber llegado todavía a la réplica.
+     */
+    public boolean mayLagBehind(long sinceMillis) {
+        return System.currentTimeMillis() - sinceMillis < maxLag.toMillis();
+    }
+
+    private String replicaUnusableReason() {
+        if (!isEnabled()) {
+            return "disabled";
+        }
+        if (primaryRequested.get() != null) {
+            return "primary-requested";
+        }
+        if (lagSeconds < 0 || lagSeconds > maxLag.toMillis() / 1000.0) {
+            return "lag";
+        }
+        if (hasRecentWrite()) {
+            return "recent-write";
+        }
+        return null;
+    }
+
+    private String currentSubject() {
+        try {
+            return jwt.getSubject();
+        } catch (ContextNotActiveException e) {
+            return null;
+        }
+    }
+
+    @Scheduled(every = "${replica.lag-check-interval:5s}")
+    public void checkLag() {
+        if (!isEnabled()) {
+            return;
+        }
+        try (Connection connection = replicaDataSource.getActive().getConnection()) {
+            lagSeconds = measureLag(connection);
+        } catch (SQLException e) {
+            log.warn("Could not measure replica lag: {}", e.getMessage());
+            lagSeconds = -1;
+        }
+        long now = System.currentTimeMillis();
+        recentWrites.values().removeIf(until -> until <= now);
+    }
+
+    public double measureLag(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(LAG_SQL)) {
+            return rs.next() ? rs.getDouble(1) : -1;
+        }
+    }
+
+    private void count(String target, String reason) {
+        meterRegistry.counter("replica.reads", "target", target, "reason", reason).increment();
+    }
+}
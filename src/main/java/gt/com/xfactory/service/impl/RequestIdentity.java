@@ -0,0 +1,17 @@
+package gt.com.xfactory.service.impl;
+
+import jakarta.enterprise.context.*;
+
+import java.util.*;
+
+/**
+ * Identidad ya resuelta en la petición actual, para que SecurityContextService consulte
+ * IdentityCache (o la base) una sola vez por petición.
+ */
+@RequestScoped
+public class RequestIdentity {
+
+    UUID userId;
+
+    UUID doctorId;
+}
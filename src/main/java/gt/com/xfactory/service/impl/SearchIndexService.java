@@ -0,0 +1,281 @@
+package gt.com.xfactory.service.impl;
+
+import gt.com.xfactory.entity.*;
+import gt.com.xfactory.repository.*;
+import gt.com.xfactory.service.search.*;
+import gt.com.xfactory.utils.*;
+import io.micrometer.core.instrument.*;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.runtime.*;
+import jakarta.enterprise.context.*;
+import jakarta.enterprise.event.*;
+import jakarta.inject.*;
+import jakarta.persistence.*;
+import jakarta.transaction.*;
+import lombok.extern.slf4j.*;
+import org.eclipse.microprofile.config.inject.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+/**
+ * Índice de búsqueda global en memoria (opcional, search.index.enabled).
+ * Pacientes, médicos y clínicas se indexan por tenant; medicamentos y diagnósticos son catálogos
+ * globales. Se construye al arrancar (y, para las organizaciones creadas después, en la primera
+ * búsqueda) y se mantiene con las escrituras de los servicios (aplicadas tras el commit). Mientras
+ * un índice no está listo, SearchService consulta la BD. El índice solo busca por prefijo: las
+ * búsquedas de pacientes con dígitos (DPI, teléfono) van a la BD, que los busca por subcadena.
+ */
+@ApplicationScoped
+@Slf4j
+public class SearchIndexService {
+
+    public static final String PATIENTS = "patients";
+    public static final String DOCTORS = "doctors";
+    public static final String CLINICS = "clinics";
+    public static final String MEDICATIONS = "medications";
+    public static final String DIAGNOSES = "diagnoses";
+
+    private static final String GLOBAL = "global";
+    private static final Set<String> GLOBAL_TYPES = Set.of(MEDICATIONS, DIAGNOSES);
+    private static final int LOAD_BATCH_SIZE = 2000;
+
+    @ConfigProperty(name = "search.index.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @Inject
+    TenantScopedExecutor tenantScopedExecutor;
+
+    @Inject
+    OrganizationRepository organizationRepository;
+
+    @Inject
+    PatientRepository patientRepository;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @Inject
+    TransactionSynchronizationRegistry transactionRegistry;
+
+    // scope (tenant o "global") → tipo → índice
+    private final Map<String, Map<String, InvertedIndex>> indexes = new ConcurrentHashMap<>();
+    // Cambios recibidos mientras el scope se reconstruye; se aplican al publicar el nuevo índice
+    private final Map<String, Queue<Consumer<Map<String, InvertedIndex>>>> pendingUpdates = new ConcurrentHashMap<>();
+    // Scopes con una construcción en curso, para no lanzar dos
+    private final Set<String> building = ConcurrentHashMap.newKeySet();
+
+    void onStart(@Observes StartupEvent event) {
+        if (!enabled) {
+            return;
+        }
+        buildAsync(GLOBAL);
+        tenantScopedExecutor.submit(tenantScopedExecutor.defaultTenantId(),
+                () -> organizationRepository.listAll().stream().map(o -> o.getId().toString()).toList())
+                .thenAccept(tenantIds -> tenantIds.forEach(this::buildAsync))
+                .exceptionally(e -> {
+                    log.error("Error listing organizations for the search index", e);
+                    return null;
+                });
+    }
+
+    /**
+     * Construye el índice del scope en segundo plano, salvo que ya haya una construcción en curso.
+     */
+    private void buildAsync(String scope) {
+        if (!building.add(scope)) {
+            return;
+        }
+        boolean global = GLOBAL.equals(scope);
+        tenantScopedExecutor.submit(global ? tenantScopedExecutor.defaultTenantId() : scope, () -> {
+            if (global) {
+                rebuildGlobal();
+            } else {
+                rebuildTenant(scope);
+            }
+            return null;
+        }).whenComplete((result, e) -> {
+            building.remove(scope);
+            if (e != null) {
+                log.error("Error building search index for {}", scope, e);
+            }
+        });
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Ids ordenados por relevancia, o vacío si el índice no está disponible (el llamador debe ir a BD).
+     * Un scope sin índice (organización creada después del arranque) se construye en segundo plano.
+     */
+    public Optional<List<UUID>> search(String type, String q, int limit) {
+        if (!enabled || (PATIENTS.equals(type) && hasDigits(q))) {
+            return Optional.empty();
+        }
+        String scopeId = scopeOf(type);
+        Map<String, InvertedIndex> scope = indexes.get(scopeId);
+        if (scope == null) {
+            buildAsync(scopeId);
+            return Optional.empty();
+        }
+        return Optional.of(scope.get(type).search(q, limit));
+    }
+
+    private static boolean hasDigits(String q) {
+        return q != null && q.chars().anyMatch(Character::isDigit);
+    }
+
+    // ========== Reconstrucción (debe ejecutarse dentro de TenantScopedExecutor) ==========
+
+    public void rebuildTenant(String tenantId) {
+        rebuild(tenantId, List.of(PATIENTS, DOCTORS, CLINICS), (type, index) -> {
+            switch (type) {
+                case PATIENTS -> load(index, "SELECT id, firstName, lastName, dpi, phone FROM PatientEntity");
+                case DOCTORS -> load(index, "SELECT id, firstName, lastName FROM DoctorEntity");
+                case CLINICS -> load(index, "SELECT id, name, address FROM ClinicEntity");
+                default -> throw new IllegalArgumentException(type);
+            }
+        });
+    }
+
+    public void rebuildGlobal() {
+        rebuild(GLOBAL, List.of(MEDICATIONS, DIAGNOSES), (type, index) -> {
+            switch (type) {
+                case MEDICATIONS -> load(index,
+                        "SELECT id, name, code, activeIngredient, concentration FROM MedicationEntity WHERE active = true");
+                case DIAGNOSES -> load(index, "SELECT id, code, name FROM DiagnosisCatalogEntity");
+                default -> throw new IllegalArgumentException(type);
+            }
+        });
+    }
+
+    private void rebuild(String scope, List<String> types, BiConsumer<String, InvertedIndex> loader) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        pendingUpdates.put(scope, new ConcurrentLinkedQueue<>());
+        try {
+            Map<String, InvertedIndex> built = new ConcurrentHashMap<>();
+            for (String type : types) {
+                InvertedIndex index = new InvertedIndex();
+                loader.accept(type, index);
+                built.put(type, index);
+            }
+            boolean firstBuild = indexes.put(scope, built) == null;
+            Queue<Consumer<Map<String, InvertedIndex>>> pending = pendingUpdates.remove(scope);
+            if (pending != null) {
+                pending.forEach(update -> update.accept(built));
+            }
+            if (firstBuild) {
+                registerGauges(scope);
+            }
+            long nanos = sample.stop(meterRegistry.timer("search.index.rebuild", "scope", scope));
+            log.info("Search index for {} built in {} ms ({} documents)", scope,
+                    TimeUnit.NANOSECONDS.toMillis(nanos), documentCount(scope));
+        } finally {
+            pendingUpdates.remove(scope);
+        }
+    }
+
+    private void load(InvertedIndex index, String hql) {
+        EntityManager em = patientRepository.getEntityManager();
+        int first = 0;
+        List<Object[]> rows;
+        do {
+            rows = em.createQuery(hql + " ORDER BY id", Object[].class)
+                    .setFirstResult(first)
+                    .setMaxResults(LOAD_BATCH_SIZE)
+                    .getResultList();
+            for (Object[] row : rows) {
+                String[] fields = new String[row.length - 1];
+                for (int i = 1; i < row.length; i++) {
+                    fields[i - 1] = row[i] != null ? row[i].toString() : null;
+                }
+                index.put((UUID) row[0], fields);
+            }
+            first += rows.size();
+            em.clear();
+        } while (rows.size() == LOAD_BATCH_SIZE);
+    }
+
+    private void registerGauges(String scope) {
+        Gauge.builder("search.index.memory", this, s -> s.estimatedBytes(scope))
+                .tag("scope", scope)
+                .baseUnit("bytes")
+                .description("Memoria estimada del índice de búsqueda")
+                .register(meterRegistry);
+        Gauge.builder("search.index.documents", this, s -> s.documentCount(scope))
+                .tag("scope", scope)
+                .register(meterRegistry);
+    }
+
+    private double estimatedBytes(String scope) {
+        Map<String, InvertedIndex> scopeIndexes = indexes.get(scope);
+        return scopeIndexes == null ? 0 : scopeIndexes.values().stream().mapToLong(InvertedIndex::estimatedBytes).sum();
+    }
+
+    private double documentCount(String scope) {
+        Map<String, InvertedIndex> scopeIndexes = indexes.get(scope);
+        return scopeIndexes == null ? 0 : scopeIndexes.values().stream().mapToInt(InvertedIndex::size).sum();
+    }
+
+    // ========== Actualizaciones incrementales desde los servicios ==========
+
+    public void indexPatient(PatientEntity patient) {
+        update(PATIENTS, patient.getOrganizationId(), index -> index.put(patient.getId(),
+                patient.getFirstName(), patient.getLastName(), patient.getDpi(), patient.getPhone()));
+    }
+
+    public void indexDoctor(DoctorEntity doctor) {
+        update(DOCTORS, doctor.getOrganizationId(), index -> index.put(doctor.getId(),
+                doctor.getFirstName(), doctor.getLastName()));
+    }
+
+    public void indexClinic(ClinicEntity clinic) {
+        update(CLINICS, clinic.getOrganizationId(), index -> index.put(clinic.getId(),
+                clinic.getName(), clinic.getAddress()));
+    }
+
+    public void indexMedication(MedicationEntity medication) {
+        update(MEDICATIONS, null, index -> {
+            if (Boolean.TRUE.equals(medication.getActive())) {
+                index.put(medication.getId(), medication.getName(), medication.getCode(),
+                        medication.getActiveIngredient(), medication.getConcentration());
+            } else {
+                index.remove(medication.getId());
+            }
+        });
+    }
+
+    public void indexDiagnosis(DiagnosisCatalogEntity diagnosis) {
+        update(DIAGNOSES, null, index -> index.put(diagnosis.getId(), diagnosis.getCode(), diagnosis.getName()));
+    }
+
+    public void remove(String type, UUID id) {
+        update(type, null, index -> index.remove(id));
+    }
+
+    private void update(String type, String organizationId, Consumer<InvertedIndex> change) {
+        if (!enabled) {
+            return;
+        }
+        String scope = GLOBAL_TYPES.contains(type) ? GLOBAL
+                : organizationId != null ? organizationId : tenantScopedExecutor.currentTenantId();
+        Consumer<Map<String, InvertedIndex>> apply = scopeIndexes -> change.accept(scopeIndexes.get(type));
+        TransactionUtils.afterCommit(transactionRegistry, () -> {
+            Queue<Consumer<Map<String, InvertedIndex>>> pending = pendingUpdates.get(scope);
+            if (pending != null) {
+                pending.add(apply);
+            }
+            Map<String, InvertedIndex> scopeIndexes = indexes.get(scope);
+            if (scopeIndexes != null) {
+                apply.accept(scopeIndexes);
+            }
+        });
+    }
+
+    private String scopeOf(String type) {
+        return GLOBAL_TYPES.contains(type) ? GLOBAL : tenantScopedExecutor.currentTenantId();
+    }
+}
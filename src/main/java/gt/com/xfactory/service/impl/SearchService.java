@@ -4,14 +4,20 @@ import gt.com.xfactory.dto.response.GlobalSearchDto;
 import gt.com.xfactory.dto.response.GlobalSearchDto.*;
 import gt.com.xfactory.entity.*;
 import gt.com.xfactory.repository.*;
+import gt.com.xfactory.utils.DbKindUtils;
 import gt.com.xfactory.utils.FilterBuilder;
+import io.quarkus.hibernate.orm.panache.*;
 import jakarta.enterprise.context.*;
 import jakarta.inject.*;
+import jakarta.persistence.*;
 import jakarta.ws.rs.*;
 import lombok.extern.slf4j.*;
+import org.eclipse.microprofile.config.inject.*;
 
 import java.time.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
 import java.util.stream.*;
 
 @ApplicationScoped
@@ -19,6 +25,7 @@ import java.util.stream.*;
 public class SearchService {
 
     private static final int MAX_RESULTS_PER_TYPE = 5;
+    static final String QUERY_TIMEOUT_HINT = "jakarta.persistence.query.timeout";
 
     @Inject
     PatientRepository patientRepository;
@@ -44,6 +51,27 @@ public class SearchService {
     @Inject
     SecurityContextService securityContextService;
 
+    @Inject
+    DiagnosisCatalogRepository diagnosisCatalogRepository;
+
+    @Inject
+    TenantScopedExecutor tenantScopedExecutor;
+
+    @Inject
+    SearchIndexService searchIndexService;
+
+    @Inject
+    EntityManager entityManager;
+
+    @ConfigProperty(name = "quarkus.datasource.db-kind")
+    String dbKind;
+
+    @ConfigProperty(name = "search.parallel.enabled", defaultValue = "false")
+    boolean parallelEnabled;
+
+    @ConfigProperty(name = "search.parallel.deadline", defaultValue = "2s")
+    Duration parallelDeadline;
+
     public GlobalSearchDto search(String q, List<String> types) {
         if (q == null || q.trim().length() < 3) {
             throw new BadRequestException("El término de búsqueda debe tener al menos 3 caracteres");
@@ -56,6 +84,10 @@ public class SearchService {
 
         UUID currentDoctorId = securityContextService.getCurrentDoctorId();
 
+        if (parallelEnabled) {
+            return searchInParallel(term, requestedTypes, currentDoctorId);
+        }
+
         GlobalSearchDto.GlobalSearchDtoBuilder builder = GlobalSearchDto.builder();
 
         if (requestedTypes.contains("patients")) {
@@ -76,23 +108,96 @@ public class SearchService {
         if (requestedTypes.contains("medications")) {
             builder.medications(searchMedications(term));
         }
+        if (requestedTypes.contains("diagnoses")) {
+            builder.diagnoses(searchDiagnoses(term));
+        }
 
         return builder.build();
     }
 
+    /**
+     * Ejecuta cada sección en su propio virtual thread (sesión Hibernate independiente del mismo tenant).
+     * Las secciones que no terminan antes del deadline se devuelven vacías y se marcan en timedOutSections.
+     * Cancelar el future no detiene la consulta en curso, así que cada sección lleva además un timeout
+     * de consulta con lo que queda del deadline: la base la cancela y libera la conexión y el hilo.
+     */
+    private GlobalSearchDto searchInParallel(String term, Set<String> requestedTypes, UUID currentDoctorId) {
+        String tenantId = tenantScopedExecutor.currentTenantId();
+        long deadlineNanos = System.nanoTime() + parallelDeadline.toNanos();
+
+        var patients = submitSection(requestedTypes, deadlineNanos, "patients", tenantId, () -> searchPatients(term));
+        var appointments = submitSection(requestedTypes, deadlineNanos, "appointments", tenantId, () -> searchAppointments(term, currentDoctorId));
+        var doctors = submitSection(requestedTypes, deadlineNanos, "doctors", tenantId, () -> searchDoctors(term));
+        var clinics = submitSection(requestedTypes, deadlineNanos, "clinics", tenantId, () -> searchClinics(term));
+        var records = submitSection(requestedTypes, deadlineNanos, "records", tenantId, () -> searchRecords(term, currentDoctorId));
+        var medications = submitSection(requestedTypes, deadlineNanos, "medications", tenantId, () -> searchMedications(term));
+        var diagnoses = submitSection(requestedTypes, deadlineNanos, "diagnoses", tenantId, () -> searchDiagnoses(term));
+
+        List<String> timedOut = new ArrayList<>();
+        return GlobalSearchDto.builder()
+                .patients(awaitSection(patients, "patients", deadlineNanos, timedOut))
+                .appointments(awaitSection(appointments, "appointments", deadlineNanos, timedOut))
+                .doctors(awaitSection(doctors, "doctors", deadlineNanos, timedOut))
+                .clinics(awaitSection(clinics, "clinics", deadlineNanos, timedOut))
+                .records(awaitSection(records, "records", deadlineNanos, timedOut))
+                .medications(awaitSection(medications, "medications", deadlineNanos, timedOut))
+                .diagnoses(awaitSection(diagnoses, "diagnoses", deadlineNanos, timedOut))
+                .timedOutSections(timedOut)
+                .build();
+    }
+
+    private <T> CompletableFuture<List<T>> submitSection(Set<String> requestedTypes, long deadlineNanos, String type,
+                                                         String tenantId, Supplier<List<T>> section) {
+        if (!requestedTypes.contains(type)) {
+            return null;
+        }
+        return tenantScopedExecutor.submit(tenantId, () -> {
+            entityManager.setProperty(QUERY_TIMEOUT_HINT, queryTimeoutMillis(deadlineNanos));
+            return section.get();
+        });
+    }
+
+    /**
+     * Lo que queda del deadline, en ms. Hibernate lo redondea a segundos para JDBC (y 0 es sin límite),
+     * así que se sube al segundo siguiente y nunca baja de 1 s.
+     */
+    static int queryTimeoutMillis(long deadlineNanos) {
+        long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+        return (int) Math.max(1, (remainingMillis + 999) / 1000) * 1000;
+    }
+
+    private <T> List<T> awaitSection(CompletableFuture<List<T>> future, String type, long deadlineNanos,
+                                     List<String> timedOut) {
+        if (future == null) {
+            return null;
+        }
+        try {
+            return future.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timedOut.add(type);
+            log.warn("Global search section '{}' exceeded deadline of {}", type, parallelDeadline);
+            return new ArrayList<>();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Búsqueda interrumpida", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
     private List<PatientResult> searchPatients(String q) {
-        Map<String, Object> params = new HashMap<>();
-        String nameCondition = FilterBuilder.buildNameTokenCondition(q, "firstName", "lastName", params, "n");
-        params.put("dpi", q);
-        params.put("phone", q);
-
-        return patientRepository.find(
-                nameCondition +
-                " OR dpi LIKE CONCAT('%', :dpi, '%')" +
-                " OR phone LIKE CONCAT('%', :phone, '%')",
-                params)
-                .page(0, MAX_RESULTS_PER_TYPE)
-                .stream()
+        return indexedOrQuery(SearchIndexService.PATIENTS, q, patientRepository, PatientEntity::getId, () -> {
+                    Map<String, Object> params = new HashMap<>();
+                    String query = PatientRepository.buildSearchQuery(q, params,
+                            DbKindUtils.isPostgres(dbKind));
+                    return patientRepository.find(query, params)
+                            .page(0, MAX_RESULTS_PER_TYPE)
+                            .stream();
+                })
                 .map(p -> PatientResult.builder()
                         .id(p.getId())
                         .name(p.getFirstName() + " " + p.getLastName())
@@ -133,12 +238,15 @@ public class SearchService {
     }
 
     private List<DoctorResult> searchDoctors(String q) {
-        Map<String, Object> params = new HashMap<>();
-        String condition = FilterBuilder.buildNameTokenCondition(q, "firstName", "lastName", params, "d");
-
-        List<DoctorEntity> doctors = doctorRepository.find(condition, params)
-                .page(0, MAX_RESULTS_PER_TYPE)
-                .list();
+        List<DoctorEntity> doctors = indexedOrQuery(SearchIndexService.DOCTORS, q, doctorRepository, DoctorEntity::getId, () -> {
+                    Map<String, Object> params = new HashMap<>();
+                    String condition = FilterBuilder.buildNameTokenCondition(q, "firstName", "lastName", params, "d");
+                    return doctorRepository.find(condition, params)
+                            .page(0, MAX_RESULTS_PER_TYPE)
+                            .list()
+                            .stream();
+                })
+                .collect(Collectors.toList());
 
         List<UUID> doctorIds = doctors.stream().map(DoctorEntity::getId).collect(Collectors.toList());
         Map<UUID, List<DoctorSpecialtyEntity>> specialtyMap = doctorSpecialtyRepository.findByDoctorIds(doctorIds);
@@ -157,12 +265,13 @@ public class SearchService {
     }
 
     private List<ClinicResult> searchClinics(String q) {
-        return clinicRepository.find(
-                "LOWER(name) LIKE LOWER(CONCAT('%', :q, '%')) " +
-                "OR LOWER(address) LIKE LOWER(CONCAT('%', :q, '%'))",
-                Map.of("q", q))
-                .page(0, MAX_RESULTS_PER_TYPE)
-                .stream()
+        return indexedOrQuery(SearchIndexService.CLINICS, q, clinicRepository, ClinicEntity::getId, () ->
+                        clinicRepository.find(
+                                "LOWER(name) LIKE LOWER(CONCAT('%', :q, '%')) " +
+                                "OR LOWER(address) LIKE LOWER(CONCAT('%', :q, '%'))",
+                                Map.of("q", q))
+                                .page(0, MAX_RESULTS_PER_TYPE)
+                                .stream())
                 .map(c -> ClinicResult.builder()
                         .id(c.getId())
                         .name(c.getName())
@@ -202,15 +311,16 @@ public class SearchService {
     }
 
     private List<MedicationResult> searchMedications(String q) {
-        return medicationRepository.find(
-                "active = true AND (" +
-                "LOWER(name) LIKE LOWER(CONCAT('%', :q, '%')) " +
-                "OR LOWER(code) LIKE LOWER(CONCAT('%', :q, '%')) " +
-                "OR LOWER(concentration) LIKE LOWER(CONCAT('%', :q, '%')) " +
-                "OR LOWER(activeIngredient) LIKE LOWER(CONCAT('%', :q, '%')))",
-                Map.of("q", q))
-                .page(0, MAX_RESULTS_PER_TYPE)
-                .stream()
+        return indexedOrQuery(SearchIndexService.MEDICATIONS, q, medicationRepository, MedicationEntity::getId, () ->
+                        medicationRepository.find(
+                                "active = true AND (" +
+                                "LOWER(name) LIKE LOWER(CONCAT('%', :q, '%')) " +
+                                "OR LOWER(code) LIKE LOWER(CONCAT('%', :q, '%')) " +
+                                "OR LOWER(concentration) LIKE LOWER(CONCAT('%', :q, '%')) " +
+                                "OR LOWER(activeIngredient) LIKE LOWER(CONCAT('%', :q, '%')))",
+                                Map.of("q", q))
+                                .page(0, MAX_RESULTS_PER_TYPE)
+                                .stream())
                 .map(m -> MedicationResult.builder()
                         .id(m.getId())
                         .name(m.getName())
@@ -219,4 +329,38 @@ public class SearchService {
                         .build())
                 .collect(Collectors.toList());
     }
+
+    private List<DiagnosisResult> searchDiagnoses(String q) {
+        return indexedOrQuery(SearchIndexService.DIAGNOSES, q, diagnosisCatalogRepository, DiagnosisCatalogEntity::getId, () ->
+                        diagnosisCatalogRepository.find(
+                                "LOWER(code) LIKE LOWER(CONCAT('%', :q, '%')) " +
+                                "OR LOWER(name) LIKE LOWER(CONCAT('%', :q, '%')) ORDER BY code",
+                                Map.of("q", q))
+                                .page(0, MAX_RESULTS_PER_TYPE)
+                                .stream())
+                .map(d -> DiagnosisResult.builder()
+                        .id(d.getId())
+                        .code(d.getCode())
+                        .name(d.getName())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Si el índice en memoria está disponible, solo se consultan a BD los ids top-N (en orden de relevancia).
+     * En caso contrario se usa la query original.
+     */
+    private <T> Stream<T> indexedOrQuery(String type, String q, PanacheRepository<T> repository,
+                                         Function<T, UUID> idOf, Supplier<Stream<T>> fallback) {
+        Optional<List<UUID>> ids = searchIndexService.search(type, q, MAX_RESULTS_PER_TYPE);
+        if (ids.isEmpty()) {
+            return fallback.get();
+        }
+        if (ids.get().isEmpty()) {
+            return Stream.empty();
+        }
+        Map<UUID, T> byId = repository.list("id IN ?1", ids.get()).stream()
+                .collect(Collectors.toMap(idOf, Function.identity()));
+        return ids.get().stream().map(byId::get).filter(Objects::nonNull);
+    }
 }
@@ -2,6 +2,7 @@ package gt.com.xfactory.service.impl;
 
 import gt.com.xfactory.entity.*;
 import gt.com.xfactory.repository.*;
+import io.quarkus.arc.*;
 import io.quarkus.security.identity.*;
 import jakarta.enterprise.context.*;
 import jakarta.inject.*;
@@ -27,16 +28,35 @@ public class SecurityContextService {
     @Inject
     DoctorRepository doctorRepository;
 
+    @Inject
+    IdentityCache identityCache;
+
+    @Inject
+    RequestIdentity requestIdentity;
+
     /**
      * Retorna el UUID del doctor actual si el usuario tiene rol doctor.
      * Retorna null si es admin o secretary (ven todos los recursos).
+     * Se resuelve una vez por petición y se cachea por sujeto en IdentityCache.
      */
-    @SuppressWarnings("unchecked")
     public UUID getCurrentDoctorId() {
         if (securityIdentity.hasRole("admin") || securityIdentity.hasRole("secretary")) {
             return null;
         }
+        RequestIdentity memo = requestIdentity();
+        if (memo != null && memo.doctorId != null) {
+            return memo.doctorId;
+        }
         String keycloakId = jwt.getSubject();
+        UUID doctorId = identityCache.get(IdentityCache.Kind.DOCTOR, keycloakId, () -> findDoctorId(keycloakId));
+        if (memo != null) {
+            memo.doctorId = doctorId;
+        }
+        return doctorId;
+    }
+
+    @SuppressWarnings("unchecked")
+    private UUID findDoctorId(String keycloakId) {
         // Native query para bypasear @TenantId en la resolución del doctor actual
         List<Object[]> results = doctorRepository.getEntityManager()
                 .createNativeQuery("SELECT d.id FROM doctor d JOIN \"user\" u ON d.user_id = u.id WHERE u.keycloak_id = :keycloakId")
@@ -62,9 +82,21 @@ public class SecurityContextService {
         return jwt.getSubject();
     }
 
-    @SuppressWarnings("unchecked")
     public UUID getCurrentUserId() {
+        RequestIdentity memo = requestIdentity();
+        if (memo != null && memo.userId != null) {
+            return memo.userId;
+        }
         String keycloakId = jwt.getSubject();
+        UUID userId = identityCache.get(IdentityCache.Kind.USER, keycloakId, () -> findUserId(keycloakId));
+        if (memo != null) {
+            memo.userId = userId;
+        }
+        return userId;
+    }
+
+    @SuppressWarnings("unchecked")
+    private UUID findUserId(String keycloakId) {
         // Native query para bypasear @TenantId: el tenant podría no estar resuelto
         // correctamente cuando se consulta el usuario del token actual.
         List<Object[]> results = userRepository.getEntityManager()
@@ -79,6 +111,11 @@ public class SecurityContextService {
         return id instanceof UUID ? (UUID) id : UUID.fromString(id.toString());
     }
 
+    // Fuera de una petición (tareas en segundo plano) no hay memo, solo la caché de proceso
+    private RequestIdentity requestIdentity() {
+        return Arc.container().requestContext().isActive() ? requestIdentity : null;
+    }
+
     public void validateOwnAccess(UUID requestedUserId) {
         if (securityIdentity.hasRole("admin")) return;
         UUID currentUserId = getCurrentUserId();
@@ -28,6 +28,9 @@ public class SpecialtyService {
     @Inject
     DoctorSpecialtyRepository doctorSpecialtyRepository;
 
+    @Inject
+    TotalCountService totalCountService;
+
     public List<SpecialtyDto> getAllSpecialties() {
         log.info("Fetching all specialties");
         return specialtyRepository.listAll()
@@ -36,13 +39,15 @@ public class SpecialtyService {
                 .collect(Collectors.toList());
     }
 
+    @ReadOnly
     public PageResponse<SpecialtyDto> getSpecialtiesPaginated(SpecialtyFilterDto filter, @Valid CommonPageRequest pageRequest) {
         log.info("Fetching specialties with filter - pageRequest: {}, filter: {}", pageRequest, filter);
 
         var fb = FilterBuilder.create()
                 .addLike(filter.name, "name");
 
-        return toPageResponse(specialtyRepository, fb.buildQuery(), pageRequest, fb.getParams(), toSpecialtyDto);
+        return toPageResponse(specialtyRepository, fb.buildQuery(),
+                pageRequest, fb.getParams(), toSpecialtyDto, totalCountService::count);
     }
 
     public SpecialtyDto getSpecialtyById(UUID specialtyId) {
@@ -0,0 +1,107 @@
+package gt.com.xfactory.service.impl;
+
+import gt.com.xfactory.utils.*;
+import io.quarkus.arc.*;
+import io.quarkus.hibernate.orm.*;
+import io.quarkus.hibernate.orm.runtime.tenant.*;
+import jakarta.annotation.*;
+import jakarta.enterprise.context.*;
+import jakarta.inject.*;
+import lombok.extern.slf4j.*;
+import org.eclipse.microprofile.config.inject.*;
+
+import java.util.concurrent.*;
+import java.util.function.*;
+
+/**
+ * Ejecuta tareas en virtual threads, cada una con su propio request context.
+ * La sesión Hibernate es request-scoped, por lo que cada tarea abre (y cierra) una sesión
+ * propia, fijada al tenant indicado vía TenantContext (estrategia 1 de CustomTenantResolver).
+ * Como cada tarea puede tomar una conexión, a lo sumo tenant-executor.max-concurrency corren a la vez
+ * (por debajo de quarkus.datasource.jdbc.max-size); el resto espera su turno en su virtual thread.
+ */
+@ApplicationScoped
+@Slf4j
+public class TenantScopedExecutor {
+
+    @Inject
+    @PersistenceUnitExtension
+    TenantResolver tenantResolver;
+
+    @Inject
+    TenantContext tenantContext;
+
+    @ConfigProperty(name = "tenant-executor.max-concurrency", defaultValue = "16")
+    int maxConcurrency;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private Semaphore permits;
+    // Marca las tareas en curso: las que lanzan y esperan otra no vuelven a pedir permiso (deadlock)
+    private final ThreadLocal<Boolean> holdsPermit = new ThreadLocal<>();
+
+    @PostConstruct
+    void init() {
+        permits = new Semaphore(maxConcurrency);
+    }
+
+    public String currentTenantId() {
+        return tenantResolver.resolveTenantId();
+    }
+
+    public String defaultTenantId() {
+        return tenantResolver.getDefaultTenantId();
+    }
+
+    public <T> CompletableFuture<T> submit(String tenantId, Supplier<T> task) {
+        boolean nested = holdsPermit.get() != null;
+        return CompletableFuture.supplyAsync(() -> nested ? runInTenant(tenantId, task) : runBounded(tenantId, task),
+                executor);
+    }
+
+    /**
+     * Igual que submit pero bloquea hasta obtener el resultado.
+     * Las excepciones de la tarea se propagan sin envolver.
+     */
+    public <T> T call(String tenantId, Supplier<T> task) {
+        try {
+            return submit(tenantId, task).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw e;
+        }
+    }
+
+    private <T> T runBounded(String tenantId, Supplier<T> task) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Tarea interrumpida esperando turno");
+        }
+        holdsPermit.set(Boolean.TRUE);
+        try {
+            return runInTenant(tenantId, task);
+        } finally {
+            holdsPermit.remove();
+            permits.release();
+        }
+    }
+
+    private <T> T runInTenant(String tenantId, Supplier<T> task) {
+        ManagedContext requestContext = Arc.container().requestContext();
+        requestContext.activate();
+        try {
+            tenantContext.set(tenantId);
+            return task.get();
+        } finally {
+            requestContext.terminate();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
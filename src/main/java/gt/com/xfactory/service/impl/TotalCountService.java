@@ -0,0 +1,176 @@
+package gt.com.xfactory.service.impl;
+
+import io.quarkus.hibernate.orm.*;
+import io.quarkus.hibernate.orm.panache.*;
+import io.quarkus.hibernate.orm.runtime.tenant.*;
+import jakarta.enterprise.context.*;
+import jakarta.inject.*;
+import jakarta.persistence.*;
+import jakarta.ws.rs.*;
+import lombok.extern.slf4j.*;
+import org.apache.commons.lang3.reflect.*;
+import org.eclipse.microprofile.config.inject.*;
+import org.hibernate.annotations.TenantId;
+
+import java.lang.reflect.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static gt.com.xfactory.utils.DbKindUtils.isPostgres;
+import static gt.com.xfactory.utils.QueryUtils.entityClassOf;
+
+/**
+ * Calcula totalItems para listados paginados según la estrategia configurada
+ * (pagination.total.strategy) o la pedida en CommonPageRequest.total:
+ * - exact: COUNT completo (comportamiento original).
+ * - capped: cuenta hasta pagination.total.cap filas; por encima responde "cap+".
+ * - estimated: estadísticas del planner de PostgreSQL (pg_class/pg_stats) para listados sin
+ *   filtros; con filtros, o si la estimación es pequeña, se comporta como capped.
+ * - cached: COUNT exacto cacheado por tenant + consulta + parámetros durante pagination.total.cache-ttl.
+ * La estrategia devuelta indica cómo se obtuvo el valor (un capped bajo el tope es exacto).
+ */
+@ApplicationScoped
+@Slf4j
+public class TotalCountService {
+
+    public static final String EXACT = "exact";
+    public static final String ESTIMATED = "estimated";
+    public static final String CAPPED = "capped";
+    public static final String CACHED = "cached";
+
+    private static final Set<String> STRATEGIES = Set.of(EXACT, ESTIMATED, CAPPED, CACHED);
+    private static final int MAX_CACHE_ENTRIES = 10_000;
+
+    public record TotalCount(long value, String strategy) {
+    }
+
+    private record CachedCount(long value, long expiresAt) {
+    }
+
+    @ConfigProperty(name = "pagination.total.strategy", defaultValue = EXACT)
+    String defaultStrategy;
+
+    @ConfigProperty(name = "pagination.total.cap", defaultValue = "1000")
+    int cap;
+
+    @ConfigProperty(name = "pagination.total.cache-ttl", defaultValue = "30s")
+    Duration cacheTtl;
+
+    @ConfigProperty(name = "quarkus.datasource.db-kind")
+    String dbKind;
+
+    @Inject
+    @PersistenceUnitExtension
+    TenantResolver tenantResolver;
+
+    private final Map<String, CachedCount> cache = new ConcurrentHashMap<>();
+
+    public TotalCount count(PanacheRepository<?> repository, String query, Map<String, Object> params,
+                            PanacheQuery<?> panacheQuery, String requestedStrategy) {
+        return switch (resolveStrategy(requestedStrategy)) {
+            case CAPPED -> capped(repository, query, params);
+            case ESTIMATED -> estimated(repository, query, params);
+            case CACHED -> cached(repository, query, params, panacheQuery);
+            default -> new TotalCount(panacheQuery.count(), EXACT);
+        };
+    }
+
+    private String resolveStrategy(String requestedStrategy) {
+        if (requestedStrategy == null || requestedStrategy.isBlank()) {
+            return defaultStrategy.toLowerCase(Locale.ROOT);
+        }
+        String strategy = requestedStrategy.toLowerCase(Locale.ROOT);
+        if (!STRATEGIES.contains(strategy)) {
+            throw new BadRequestException("Estrategia de total inválida: " + requestedStrategy);
+        }
+        return strategy;
+    }
+
+    private TotalCount capped(PanacheRepository<?> repository, String query, Map<String, Object> params) {
+        EntityManager em = repository.getEntityManager();
+        String hql = "SELECT 1 FROM " + entityName(repository) + (query.isBlank() ? "" : " WHERE " + query);
+        var countQuery = em.createQuery(hql).setMaxResults(cap + 1);
+        params.forEach(countQuery::setParameter);
+        int rows = countQuery.getResultList().size();
+        return rows > cap ? new TotalCount(cap, CAPPED) : new TotalCount(rows, EXACT);
+    }
+
+    private TotalCount estimated(PanacheRepository<?> repository, String query, Map<String, Object> params) {
+        if (!query.isBlank() || !isPostgres(dbKind)) {
+            return capped(repository, query, params);
+        }
+        Class<?> entityClass = entityClassOf(repository);
+        Table table = entityClass.getAnnotation(Table.class);
+        if (table == null) {
+            return capped(repository, query, params);
+        }
+
+        Long estimate = plannerEstimate(repository.getEntityManager(), table.name(), tenantColumn(entityClass));
+        if (estimate == null || estimate <= cap) {
+            return capped(repository, query, params);
+        }
+        return new TotalCount(estimate, ESTIMATED);
+    }
+
+    /**
+     * reltuples de la tabla; en tablas multi-tenant se multiplica por la frecuencia del tenant
+     * en pg_stats (most_common_vals). Null si no hay estadísticas suficientes.
+     */
+    private Long plannerEstimate(EntityManager em, String tableName, String tenantColumn) {
+        List<?> rows = em.createNativeQuery("""
+                        SELECT c.reltuples::bigint,
+                               (SELECT f.freq
+                                  FROM pg_stats s,
+                                       unnest(s.most_common_vals::text::text[], s.most_common_freqs) AS f(val, freq)
+                                 WHERE s.schemaname = current_schema() AND s.tablename = :table
+                                   AND s.attname = :column AND f.val = :tenant)
+                          FROM pg_class c
+                         WHERE c.oid = to_regclass(:table)""")
+                .setParameter("table", tableName)
+                .setParameter("column", tenantColumn != null ? tenantColumn : "")
+                .setParameter("tenant", tenantResolver.resolveTenantId())
+                .getResultList();
+        Object[] row = rows.isEmpty() ? null : (Object[]) rows.get(0);
+        if (row == null || row[0] == null || ((Number) row[0]).longValue() < 0) {
+            return null;
+        }
+        long reltuples = ((Number) row[0]).longValue();
+        if (tenantColumn == null) {
+            return reltuples;
+        }
+        return row[1] == null ? null : Math.round(reltuples * ((Number) row[1]).doubleValue());
+    }
+
+    private TotalCount cached(PanacheRepository<?> repository, String query, Map<String, Object> params,
+                              PanacheQuery<?> panacheQuery) {
+        String key = tenantResolver.resolveTenantId() + "|" + entityClassOf(repository).getName() + "|" + query + "|" + new TreeMap<>(params);
+        long now = System.currentTimeMillis();
+        CachedCount cachedCount = cache.get(key);
+        if (cachedCount != null && cachedCount.expiresAt() > now) {
+            return new TotalCount(cachedCount.value(), CACHED);
+        }
+        long total = panacheQuery.count();
+        if (cache.size() >= MAX_CACHE_ENTRIES) {
+            cache.values().removeIf(c -> c.expiresAt() <= now);
+            if (cache.size() >= MAX_CACHE_ENTRIES) {
+                cache.clear();
+            }
+        }
+        cache.put(key, new CachedCount(total, now + cacheTtl.toMillis()));
+        return new TotalCount(total, CACHED);
+    }
+
+    private static String entityName(PanacheRepository<?> repository) {
+        return repository.getEntityManager().getMetamodel().entity(entityClassOf(repository)).getName();
+    }
+
+    private static String tenantColumn(Class<?> entityClass) {
+        List<Field> tenantFields = FieldUtils.getFieldsListWithAnnotation(entityClass, TenantId.class);
+        if (tenantFields.isEmpty()) {
+            return null;
+        }
+        Column column = tenantFields.get(0).getAnnotation(Column.class);
+        return column != null && !column.name().isBlank() ? column.name() : "organization_id";
+    }
+}
@@ -37,19 +37,27 @@ public class UserService {
     @Inject
     OrganizationRepository organizationRepository;
 
+    @Inject
+    IdentityCache identityCache;
+
+    @Inject
+    TotalCountService totalCountService;
+
     public List<UserDto> getAllUsers() {
         return userRepository.listAll().stream()
                 .map(toDto)
                 .toList();
     }
 
+    @ReadOnly
     public PageResponse<UserDto> getUsersPaginated(UserFilterDto filter, @Valid CommonPageRequest pageRequest) {
         var fb = FilterBuilder.create()
                 .addLike(filter.username, "username")
                 .addLike(filter.email, "email")
                 .addEquals(filter.role, "role");
 
-        return toPageResponse(userRepository, fb.buildQuery(), pageRequest, fb.getParams(), toDto);
+        return toPageResponse(userRepository, fb.buildQuery(),
+                pageRequest, fb.getParams(), toDto, totalCountService::count);
     }
 
     public UserDto getUserById(UUID id) {
@@ -110,6 +118,7 @@ public class UserService {
         }
 
         userRepository.persist(user);
+        identityCache.evict(user.getKeycloakId());
 
         // Sincronizar email en doctor vinculado
         if (request.getEmail() != null && !request.getEmail().equals(oldEmail)) {
@@ -127,6 +136,7 @@ public class UserService {
 
         boolean newStatus = !Boolean.TRUE.equals(user.getActive());
         user.setActive(newStatus);
+        identityCache.evict(user.getKeycloakId());
 
         if (newStatus) {
             keycloakAdminService.enableUser(user.getKeycloakId());
@@ -0,0 +1,64 @@
+package gt.com.xfactory.service.search;
+
+import gt.com.xfactory.dto.response.*;
+
+import java.util.*;
+
+/**
+ * Catálogo CIE-10 en memoria para autocompletado: trie por código ("J45" → J45, J45.0, J45.1...)
+ * más índice invertido sobre los tokens del nombre. Instancia inmutable una vez construida.
+ */
+public class DiagnosisCatalogIndex {
+
+    private final PrefixTrie<DiagnosisCatalogDto> codes = new PrefixTrie<>();
+    private final InvertedIndex names = new InvertedIndex();
+    private final Map<UUID, DiagnosisCatalogDto> byId = new HashMap<>();
+
+    private DiagnosisCatalogIndex() {
+    }
+
+    public static DiagnosisCatalogIndex of(Collection<DiagnosisCatalogDto> diagnoses) {
+        DiagnosisCatalogIndex index = new DiagnosisCatalogIndex();
+        for (DiagnosisCatalogDto diagnosis : diagnoses) {
+            index.byId.put(diagnosis.getId(), diagnosis);
+            index.codes.put(codeKey(diagnosis.getCode()), diagnosis);
+            index.names.put(diagnosis.getId(), diagnosis.getName());
+        }
+        return index;
+    }
+
+    /**
+     * Primero coincidencias por prefijo de código (en orden de código), luego por nombre (relevancia).
+     */
+    public List<DiagnosisCatalogDto> autocomplete(String q, int limit) {
+        Map<UUID, DiagnosisCatalogDto> result = new LinkedHashMap<>();
+        String codePrefix = codeKey(q);
+        if (!codePrefix.isEmpty()) {
+            codes.findByPrefix(codePrefix, limit).forEach(d -> result.put(d.getId(), d));
+        }
+        if (result.size() < limit) {
+            for (UUID id : names.search(q, limit)) {
+                if (result.size() >= limit) break;
+                result.putIfAbsent(id, byId.get(id));
+            }
+        }
+        return new ArrayList<>(result.values());
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    // "j45.0" → "J450": el punto es opcional al escribir el código
+    static String codeKey(String code) {
+        if (code == null) return "";
+        StringBuilder key = new StringBuilder(code.length());
+        for (int i = 0; i < code.length(); i++) {
+            char c = code.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                key.append(Character.toUpperCase(c));
+            }
+        }
+        return key.toString();
+    }
+}
@@ -0,0 +1,169 @@
+package gt.com.xfactory.service.search;
+
+import gt.com.xfactory.utils.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.*;
+
+/**
+ * Índice invertido en memoria: término normalizado → ids de documentos.
+ * El diccionario de términos está ordenado, por lo que la búsqueda por prefijo es un rango.
+ * Cada token de la consulta debe coincidir (AND) de forma exacta, por prefijo o con un error
+ * de edición (tokens de 4+ caracteres). Lecturas concurrentes sin bloqueo; escrituras serializadas.
+ */
+public class InvertedIndex {
+
+    private static final int EXACT_SCORE = 3;
+    private static final int PREFIX_SCORE = 2;
+    private static final int FUZZY_SCORE = 1;
+    private static final int MIN_FUZZY_LENGTH = 4;
+
+    // Aproximaciones para estimar memoria (JVM 64 bits con compressed oops)
+    private static final int TERM_OVERHEAD_BYTES = 120;
+    private static final int POSTING_BYTES = 48;
+    private static final int DOCUMENT_OVERHEAD_BYTES = 96;
+
+    private final ConcurrentSkipListMap<String, Set<UUID>> postings = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<UUID, Document> documents = new ConcurrentHashMap<>();
+
+    private record Document(List<String> terms, String sortKey) {
+    }
+
+    /**
+     * Indexa (o reindexa) un documento con el texto de sus campos.
+     */
+    public synchronized void put(UUID id, String... fields) {
+        removeTerms(id);
+        String text = SearchTextUtils.join(fields);
+        List<String> terms = SearchTextUtils.tokenize(text).stream().distinct().toList();
+        if (terms.isEmpty()) {
+            return;
+        }
+        for (String term : terms) {
+            postings.computeIfAbsent(term, k -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+        documents.put(id, new Document(terms, text));
+    }
+
+    public synchronized void remove(UUID id) {
+        removeTerms(id);
+    }
+
+    private void removeTerms(UUID id) {
+        Document previous = documents.remove(id);
+        if (previous == null) {
+            return;
+        }
+        for (String term : previous.terms()) {
+            postings.computeIfPresent(term, (k, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    /**
+     * Devuelve hasta limit ids ordenados por relevancia (y luego alfabéticamente).
+     */
+    public List<UUID> search(String query, int limit) {
+        List<String> tokens = SearchTextUtils.tokenize(query);
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+
+        Map<UUID, Integer> scores = null;
+        for (String token : tokens) {
+            Map<UUID, Integer> tokenScores = matchToken(token);
+            if (scores == null) {
+                scores = tokenScores;
+            } else {
+                Map<UUID, Integer> previous = scores;
+                scores = tokenScores.entrySet().stream()
+                        .filter(e -> previous.containsKey(e.getKey()))
+                        .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue() + previous.get(e.getKey())));
+            }
+            if (scores.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        Comparator<Map.Entry<UUID, Integer>> byScore = Map.Entry.comparingByValue(Comparator.reverseOrder());
+        return scores.entrySet().stream()
+                .sorted(byScore.thenComparing(e -> sortKey(e.getKey())))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    private Map<UUID, Integer> matchToken(String token) {
+        Map<UUID, Integer> matches = new HashMap<>();
+        // Prefijo (incluye el término exacto)
+        for (Map.Entry<String, Set<UUID>> entry : postings.subMap(token, true, token + Character.MAX_VALUE, false).entrySet()) {
+            int score = entry.getKey().equals(token) ? EXACT_SCORE : PREFIX_SCORE;
+            entry.getValue().forEach(id -> matches.merge(id, score, Math::max));
+        }
+        // Un error de tipeo: solo términos con la misma inicial y longitud similar
+        if (token.length() >= MIN_FUZZY_LENGTH) {
+            String first = token.substring(0, 1);
+            for (Map.Entry<String, Set<UUID>> entry : postings.subMap(first, true, first + Character.MAX_VALUE, false).entrySet()) {
+                String term = entry.getKey();
+                if (Math.abs(term.length() - token.length()) <= 1 && !term.startsWith(token)
+                        && isWithinOneEdit(token, term)) {
+                    entry.getValue().forEach(id -> matches.merge(id, FUZZY_SCORE, Math::max));
+                }
+            }
+        }
+        return matches;
+    }
+
+    private String sortKey(UUID id) {
+        Document document = documents.get(id);
+        return document != null ? document.sortKey() : "";
+    }
+
+    /**
+     * Distancia de edición ≤ 1 (inserción, borrado, sustitución o transposición adyacente).
+     */
+    static boolean isWithinOneEdit(String a, String b) {
+        if (a.equals(b)) return true;
+        int la = a.length();
+        int lb = b.length();
+        if (Math.abs(la - lb) > 1) return false;
+
+        int i = 0;
+        while (i < la && i < lb && a.charAt(i) == b.charAt(i)) i++;
+
+        if (la == lb) {
+            // sustitución
+            if (a.substring(i + 1).equals(b.substring(i + 1))) return true;
+            // transposición
+            return i + 1 < la
+                    && a.charAt(i) == b.charAt(i + 1)
+                    && a.charAt(i + 1) == b.charAt(i)
+                    && a.substring(i + 2).equals(b.substring(i + 2));
+        }
+        return la > lb
+                ? a.substring(i + 1).equals(b.substring(i))
+                : a.substring(i).equals(b.substring(i + 1));
+    }
+
+    public int size() {
+        return documents.size();
+    }
+
+    public int termCount() {
+        return postings.size();
+    }
+
+    public long estimatedBytes() {
+        long bytes = 0;
+        for (Map.Entry<String, Set<UUID>> entry : postings.entrySet()) {
+            bytes += TERM_OVERHEAD_BYTES + 2L * entry.getKey().length() + (long) POSTING_BYTES * entry.getValue().size();
+        }
+        for (Document document : documents.values()) {
+            bytes += DOCUMENT_OVERHEAD_BYTES + 2L * document.sortKey().length() + 8L * document.terms().size();
+        }
+        return bytes;
+    }
+}
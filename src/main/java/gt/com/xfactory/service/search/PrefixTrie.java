@@ -0,0 +1,108 @@
+package gt.com.xfactory.service.search;
+
+import java.util.*;
+
+/**
+ * Trie de prefijos compacto: cada nodo guarda sus hijos en arreglos ordenados por carácter
+ * (búsqueda binaria), sin mapas por nodo. Los resultados de findByPrefix salen en orden lexicográfico.
+ * No es thread-safe para escritura: se construye completo y luego se publica como solo lectura.
+ */
+public class PrefixTrie<V> {
+
+    private static final char[] NO_KEYS = new char[0];
+
+    private final Node<V> root = new Node<>();
+    private int size;
+
+    private static final class Node<V> {
+        private char[] keys = NO_KEYS;
+        private Node<V>[] children;
+        private V value;
+
+        Node<V> child(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            return i >= 0 ? children[i] : null;
+        }
+
+        Node<V> childOrCreate(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            if (i >= 0) {
+                return children[i];
+            }
+            int insertAt = -i - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Node<V>[] newChildren = newArray(keys.length + 1);
+            System.arraycopy(keys, 0, newKeys, 0, insertAt);
+            newKeys[insertAt] = c;
+            System.arraycopy(keys, insertAt, newKeys, insertAt + 1, keys.length - insertAt);
+            if (children != null) {
+                System.arraycopy(children, 0, newChildren, 0, insertAt);
+                System.arraycopy(children, insertAt, newChildren, insertAt + 1, keys.length - insertAt);
+            }
+            Node<V> created = new Node<>();
+            newChildren[insertAt] = created;
+            keys = newKeys;
+            children = newChildren;
+            return created;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <V> Node<V>[] newArray(int length) {
+            return (Node<V>[]) new Node<?>[length];
+        }
+    }
+
+    /**
+     * Asocia value a key (reemplaza el valor anterior si la clave ya existía).
+     */
+    public void put(String key, V value) {
+        Node<V> node = root;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.childOrCreate(key.charAt(i));
+        }
+        if (node.value == null) {
+            size++;
+        }
+        node.value = value;
+    }
+
+    public V get(String key) {
+        Node<V> node = find(key);
+        return node != null ? node.value : null;
+    }
+
+    public List<V> findByPrefix(String prefix, int limit) {
+        List<V> result = new ArrayList<>();
+        Node<V> node = find(prefix);
+        if (node != null && limit > 0) {
+            collect(node, result, limit);
+        }
+        return result;
+    }
+
+    private Node<V> find(String key) {
+        Node<V> node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        return node;
+    }
+
+    private void collect(Node<V> node, List<V> result, int limit) {
+        Deque<Node<V>> stack = new ArrayDeque<>();
+        stack.push(node);
+        while (!stack.isEmpty() && result.size() < limit) {
+            Node<V> current = stack.pop();
+            if (current.value != null) {
+                result.add(current.value);
+            }
+            for (int i = current.keys.length - 1; i >= 0; i--) {
+                stack.push(current.children[i]);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,74 @@
+package gt.com.xfactory.service.storage;
+
+import java.io.*;
+import java.nio.file.*;
+
+/**
+ * Almacén de contenido direccionado por SHA-256 (hex en minúsculas). El contenido se escribe
+ * primero a un área temporal (stage) y solo es visible bajo su hash al publicarlo; contenidos
+ * idénticos comparten un único objeto. Las referencias las lleva quien lo usa (blob_object).
+ */
+public interface BlobStore {
+
+    /**
+     * Copia content a un archivo temporal calculando su hash y tamaño.
+     */
+    StagedBlob stage(InputStream content) throws IOException;
+
+    /**
+     * Comprime con gzip una copia sin publicar. Si no reduce el tamaño al menos en minSavings
+     * (fracción, p. ej. 0.1) devuelve la copia original sin cambios.
+     */
+    StagedBlob compress(StagedBlob blob, double minSavings) throws IOException;
+
+    /**
+     * Publica el contenido bajo su hash. Devuelve false si ya existía (se descarta la copia).
+     */
+    boolean publish(StagedBlob blob) throws IOException;
+
+    /**
+     * Descarta una copia temporal no publicada.
+     */
+    void discard(StagedBlob blob);
+
+    /**
+     * Lee el objeto tal como está guardado (comprimido si se publicó comprimido).
+     */
+    InputStream open(String hash) throws IOException;
+
+    boolean exists(String hash);
+
+    /**
+     * Archivo local del objeto, para enviarlo sin copiarlo a memoria (sendfile). null si el almacén
+     * no es local; en ese caso se lee con open.
+     */
+    Path localPath(String hash);
+
+    /**
+     * Tamaño guardado del objeto.
+     */
+    long size(String hash) throws IOException;
+
+    /**
+     * Borra el objeto y sus derivados.
+     */
+    void delete(String hash) throws IOException;
+
+    /**
+     * Guarda un derivado del objeto (p. ej. "preview") junto a él, reemplazando el anterior. Solo es
+     * visible completo.
+     */
+    void putDerived(String hash, String variant, byte[] content) throws IOException;
+
+    /**
+     * Lanza NoSuchFileException si el derivado no existe.
+     */
+    InputStream openDerived(String hash, String variant) throws IOException;
+
+    boolean derivedExists(String hash, String variant);
+
+    /**
+     * Borra un derivado sin tocar el objeto; no falla si no existe.
+     */
+    void deleteDerived(String hash, String variant) throws IOException;
+}
@@ -0,0 +1,189 @@
+package gt.com.xfactory.service.storage;
+
+import gt.com.xfactory.entity.enums.*;
+import jakarta.enterprise.context.*;
+import lombok.extern.slf4j.*;
+import org.eclipse.microprofile.config.inject.*;
+
+import java.io.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.security.*;
+import java.util.*;
+import java.util.regex.*;
+import java.util.zip.*;
+
+/**
+ * BlobStore en disco bajo blob-store.directory: objects/ab/cd/&lt;hash&gt; para el contenido,
+ * &lt;hash&gt;.&lt;variante&gt; a su lado para los derivados y tmp/ para las copias en curso. La copia se sincroniza a disco y se publica con un rename atómico, así
+ * que un objeto visible siempre está completo.
+ */
+@ApplicationScoped
+@Slf4j
+public class FileSystemBlobStore implements BlobStore {
+
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+    private static final Pattern VARIANT = Pattern.compile("[a-z]+");
+
+    @ConfigProperty(name = "blob-store.directory", defaultValue = "blobs")
+    String directory;
+
+    @Override
+    public StagedBlob stage(InputStream content) throws IOException {
+        Path tmpDirectory = Files.createDirectories(root().resolve("tmp"));
+        Path tmp = Files.createTempFile(tmpDirectory, "blob-", ".tmp");
+        MessageDigest digest = sha256();
+        long size;
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            OutputStream out = new DigestOutputStream(Channels.newOutputStream(channel), digest);
+            size = content.transferTo(out);
+            out.flush();
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        return new StagedBlob(HexFormat.of().formatHex(digest.digest()), size, tmp, ContentEncoding.identity);
+    }
+
+    @Override
+    public StagedBlob compress(StagedBlob blob, double minSavings) throws IOException {
+        if (blob.encoding() != ContentEncoding.identity) {
+            return blob;
+        }
+        Path compressed = Files.createTempFile(blob.path().getParent(), "blob-", ".gz.tmp");
+        try {
+            try (InputStream in = Files.newInputStream(blob.path());
+                 FileChannel channel = FileChannel.open(compressed, StandardOpenOption.WRITE)) {
+                GZIPOutputStream out = new GZIPOutputStream(Channels.newOutputStream(channel), 64 * 1024);
+                in.transferTo(out);
+                out.finish();
+                out.flush();
+                channel.force(true);
+            }
+            if (Files.size(compressed) > blob.size() * (1 - minSavings)) {
+                Files.delete(compressed);
+                return blob;
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(compressed);
+            throw e;
+        }
+        discard(blob);
+        return new StagedBlob(blob.hash(), blob.size(), compressed, ContentEncoding.gzip);
+    }
+
+    @Override
+    public boolean publish(StagedBlob blob) throws IOException {
+        Path target = objectPath(blob.hash());
+        if (Files.exists(target)) {
+            discard(blob);
+            return false;
+        }
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(blob.path(), target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            discard(blob);
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void discard(StagedBlob blob) {
+        try {
+            Files.deleteIfExists(blob.path());
+        } catch (IOException e) {
+            log.warn("Could not delete staged blob {}", blob.path(), e);
+        }
+    }
+
+    @Override
+    public InputStream open(String hash) throws IOException {
+        return Files.newInputStream(objectPath(hash));
+    }
+
+    @Override
+    public boolean exists(String hash) {
+        return Files.exists(objectPath(hash));
+    }
+
+    @Override
+    public Path localPath(String hash) {
+        return objectPath(hash);
+    }
+
+    @Override
+    public long size(String hash) throws IOException {
+        return Files.size(objectPath(hash));
+    }
+
+    @Override
+    public void delete(String hash) throws IOException {
+        Path object = objectPath(hash);
+        Files.deleteIfExists(object);
+        try (DirectoryStream<Path> derived = Files.newDirectoryStream(object.getParent(), hash + ".*")) {
+            for (Path path : derived) {
+                Files.deleteIfExists(path);
+            }
+        } catch (NoSuchFileException e) {
+            // Sin directorio no hay derivados
+        }
+    }
+
+    @Override
+    public void putDerived(String hash, String variant, byte[] content) throws IOException {
+        Path target = derivedPath(hash, variant);
+        Path tmp = Files.createTempFile(Files.createDirectories(root().resolve("tmp")), "derived-", ".tmp");
+        try {
+            Files.write(tmp, content);
+            Files.createDirectories(target.getParent());
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    @Override
+    public InputStream openDerived(String hash, String variant) throws IOException {
+        return Files.newInputStream(derivedPath(hash, variant));
+    }
+
+    @Override
+    public boolean derivedExists(String hash, String variant) {
+        return Files.exists(derivedPath(hash, variant));
+    }
+
+    @Override
+    public void deleteDerived(String hash, String variant) throws IOException {
+        Files.deleteIfExists(derivedPath(hash, variant));
+    }
+
+    private Path derivedPath(String hash, String variant) {
+        if (variant == null || !VARIANT.matcher(variant).matches()) {
+            throw new IllegalArgumentException("Variante inválida: " + variant);
+        }
+        return objectPath(hash).resolveSibling(hash + "." + variant);
+    }
+
+    Path objectPath(String hash) {
+        // El hash termina en una ruta: solo se aceptan 64 caracteres hex
+        if (hash == null || !HASH.matcher(hash).matches()) {
+            throw new IllegalArgumentException("Hash de contenido inválido: " + hash);
+        }
+        return root().resolve("objects").resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    private Path root() {
+        return Path.of(directory);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package gt.com.xfactory.service.storage;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Envuelve el contenido de una subida mientras se copia al BlobStore: guarda los primeros bytes
+ * para reconocer el tipo por su firma (PDF, JPEG, PNG) y corta la lectura en cuanto se pasa de
+ * maxBytes, sin esperar a terminar la copia.
+ */
+public class InspectingInputStream extends FilterInputStream {
+
+    private static final int HEAD_SIZE = 8;
+    private static final byte[] PDF = {'%', 'P', 'D', 'F', '-'};
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] JPEG = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+
+    /**
+     * El contenido superó el tamaño máximo.
+     */
+    public static class TooLargeException extends IOException {
+        public TooLargeException(long maxBytes) {
+            super("Content exceeds " + maxBytes + " bytes");
+        }
+    }
+
+    private final long maxBytes;
+    private final byte[] head = new byte[HEAD_SIZE];
+    private int headLength;
+    private long count;
+
+    public InspectingInputStream(InputStream in, long maxBytes) {
+        super(in);
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+            inspect(new byte[]{(byte) b}, 0, 1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read = super.read(b, off, len);
+        if (read > 0) {
+            inspect(b, off, read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        throw new IOException("skip not supported");
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /**
+     * Tipo reconocido por la firma del contenido leído, o null si no es PDF, JPEG ni PNG.
+     */
+    public String sniffedContentType() {
+        if (startsWith(PDF)) {
+            return "application/pdf";
+        }
+        if (startsWith(PNG)) {
+            return "image/png";
+        }
+        if (startsWith(JPEG)) {
+            return "image/jpeg";
+        }
+        return null;
+    }
+
+    private void inspect(byte[] b, int off, int len) throws TooLargeException {
+        if (headLength < HEAD_SIZE) {
+            int n = Math.min(len, HEAD_SIZE - headLength);
+            System.arraycopy(b, off, head, headLength, n);
+            headLength += n;
+        }
+        count += len;
+        if (count > maxBytes) {
+            throw new TooLargeException(maxBytes);
+        }
+    }
+
+    private boolean startsWith(byte[] signature) {
+        return headLength >= signature.length
+                && Arrays.equals(head, 0, signature.length, signature, 0, signature.length);
+    }
+}
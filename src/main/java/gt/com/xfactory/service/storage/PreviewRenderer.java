@@ -0,0 +1,100 @@
+package gt.com.xfactory.service.storage;
+
+import com.lowagie.text.pdf.*;
+
+import javax.imageio.*;
+import javax.imageio.stream.*;
+import java.awt.*;
+import java.awt.image.*;
+import java.io.*;
+import java.util.*;
+
+/**
+ * Vistas previas JPEG de adjuntos. Las imágenes se decodifican submuestreadas (nunca a resolución
+ * completa) y se reducen a maxDimension px por lado. De un PDF se toma la imagen JPEG más grande de
+ * la primera página, que en los resultados escaneados es la página misma; un PDF sin imágenes (solo
+ * texto) no tiene vista previa.
+ */
+public final class PreviewRenderer {
+
+    private PreviewRenderer() {
+    }
+
+    /**
+     * JPEG reducido de content, o null si no es una imagen que ImageIO pueda leer.
+     */
+    public static byte[] renderImage(InputStream content, int maxDimension) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(content)) {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : Collections.emptyIterator();
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                // Se lee a ~2x del tamaño final y se reduce con interpolación
+                int step = Math.max(1, Math.max(reader.getWidth(0), reader.getHeight(0)) / (2 * maxDimension));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return toJpeg(scale(reader.read(0, param), maxDimension));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * JPEG reducido de la primera página del PDF, o null si la página no tiene una imagen JPEG.
+     */
+    public static byte[] renderPdf(RandomAccessFileOrArray pdf, int maxDimension) throws IOException {
+        PdfReader reader = new PdfReader(pdf, null);
+        try {
+            PdfDictionary resources = reader.getPageN(1).getAsDict(PdfName.RESOURCES);
+            PdfDictionary xObjects = resources != null ? resources.getAsDict(PdfName.XOBJECT) : null;
+            if (xObjects == null) {
+                return null;
+            }
+            PRStream largest = null;
+            for (PdfName name : xObjects.getKeys()) {
+                if (PdfReader.getPdfObject(xObjects.get(name)) instanceof PRStream stream
+                        && PdfName.IMAGE.equals(stream.getAsName(PdfName.SUBTYPE))
+                        && PdfName.DCTDECODE.equals(stream.getAsName(PdfName.FILTER))
+                        && (largest == null || stream.getLength() > largest.getLength())) {
+                    largest = stream;
+                }
+            }
+            return largest != null
+                    ? renderImage(new ByteArrayInputStream(PdfReader.getStreamBytesRaw(largest)), maxDimension)
+                    : null;
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static BufferedImage scale(BufferedImage source, int maxDimension) {
+        double ratio = Math.min(1.0, (double) maxDimension / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+        // RGB sobre fondo blanco: JPEG no admite transparencia
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    private static byte[] toJpeg(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (!ImageIO.write(image, "jpg", out)) {
+            throw new IOException("No JPEG writer available");
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,12 @@
+package gt.com.xfactory.service.storage;
+
+import gt.com.xfactory.entity.enums.*;
+
+import java.nio.file.*;
+
+/**
+ * Contenido copiado al área temporal del BlobStore, aún sin publicar. hash y size son los del
+ * contenido original; el archivo puede estar comprimido según encoding.
+ */
+public record StagedBlob(String hash, long size, Path path, ContentEncoding encoding) {
+}
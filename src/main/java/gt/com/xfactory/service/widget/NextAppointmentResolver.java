@@ -3,7 +3,8 @@ package gt.com.xfactory.service.widget;
 import gt.com.xfactory.dto.response.DashboardWidgetsDto.*;
 import gt.com.xfactory.entity.*;
 import gt.com.xfactory.entity.enums.*;
-import gt.com.xfactory.repository.*;
+import gt.com.xfactory.service.impl.*;
+import gt.com.xfactory.service.widget.WidgetContext.*;
 import jakarta.enterprise.context.*;
 import jakarta.inject.*;
 import lombok.extern.slf4j.*;
@@ -17,7 +18,7 @@ import java.util.*;
 public class NextAppointmentResolver implements WidgetResolver {
 
     @Inject
-    MedicalAppointmentRepository appointmentRepository;
+    ReadReplicaRouter readReplicaRouter;
 
     @Override
     public WidgetType getType() {
@@ -25,42 +26,68 @@ public class NextAppointmentResolver implements WidgetResolver {
     }
 
     @Override
-    public Object resolve(UUID clinicId, UUID doctorId) {
-        LocalDateTime now = LocalDateTime.now();
+    public Set<WidgetData> requires() {
+        return Set.of(WidgetData.WEEK_APPOINTMENTS);
+    }
+
+    @Override
+    public Object resolve(WidgetContext context) {
+        LocalDateTime now = context.now();
+
+        // La próxima cita casi siempre cae en la semana actual; solo si no, se consulta más allá
+        return context.weekAppointments().stream()
+                .filter(row -> !row.appointmentDate().isBefore(now))
+                .filter(row -> WidgetContext.PENDING_STATUSES.contains(row.status()))
+                .findFirst()
+                .map(row -> NextAppointmentData.builder()
+                        .appointmentId(row.id())
+                        .patientName(row.patientName())
+                        .time(row.appointmentDate().format(DateTimeFormatter.ofPattern("HH:mm")))
+                        .specialtyName(row.specialtyName())
+                        .reason(row.reason())
+                        .minutesUntil(Duration.between(now, row.appointmentDate()).toMinutes())
+                        .build())
+                .orElseGet(() -> findAfterWeek(context));
+    }
+
+    private NextAppointmentData findAfterWeek(WidgetContext context) {
+        LocalDateTime now = context.now();
         StringBuilder where = new StringBuilder("1 = 1");
         Map<String, Object> params = new HashMap<>();
 
-        if (clinicId != null) {
+        if (context.clinicId() != null) {
             where.append(" AND m.clinic.id = :clinicId");
-            params.put("clinicId", clinicId);
+            params.put("clinicId", context.clinicId());
         }
-        if (doctorId != null) {
+        if (context.doctorId() != null) {
             where.append(" AND m.doctor.id = :doctorId");
-            params.put("doctorId", doctorId);
+            params.put("doctorId", context.doctorId());
         }
-        params.put("now", now);
-        params.put("statuses", List.of(AppointmentStatus.scheduled, AppointmentStatus.confirmed, AppointmentStatus.reopened));
+        params.put("endOfWeek", context.endOfWeek());
+        params.put("statuses", WidgetContext.PENDING_STATUSES);
 
         String jpql = "SELECT m FROM MedicalAppointmentEntity m "
                 + "LEFT JOIN FETCH m.patient "
                 + "LEFT JOIN FETCH m.specialty "
                 + "WHERE " + where
-                + " AND m.appointmentDate >= :now AND m.status IN :statuses "
+                + " AND m.appointmentDate >= :endOfWeek AND m.status IN :statuses "
                 + "ORDER BY m.appointmentDate ASC";
 
-        var query = appointmentRepository.getEntityManager().createQuery(jpql, MedicalAppointmentEntity.class);
-        params.forEach(query::setParameter);
-        query.setMaxResults(1);
+        return readReplicaRouter.read(em -> {
+            var query = em.createQuery(jpql, MedicalAppointmentEntity.class);
+            params.forEach(query::setParameter);
+            query.setMaxResults(1);
 
-        return query.getResultStream().findFirst()
-                .map(apt -> NextAppointmentData.builder()
-                        .appointmentId(apt.getId())
-                        .patientName(apt.getPatient().getFirstName() + " " + apt.getPatient().getLastName())
-                        .time(apt.getAppointmentDate().format(DateTimeFormatter.ofPattern("HH:mm")))
-                        .specialtyName(apt.getSpecialty() != null ? apt.getSpecialty().getName() : null)
-                        .reason(apt.getReason())
-                        .minutesUntil(Duration.between(now, apt.getAppointmentDate()).toMinutes())
-                        .build())
-                .orElse(null);
+            return query.getResultStream().findFirst()
+                    .map(apt -> NextAppointmentData.builder()
+                            .appointmentId(apt.getId())
+                            .patientName(apt.getPatient().getFirstName() + " " + apt.getPatient().getLastName())
+                            .time(apt.getAppointmentDate().format(DateTimeFormatter.ofPattern("HH:mm")))
+                            .specialtyName(apt.getSpecialty() != null ? apt.getSpecialty().getName() : null)
+                            .reason(apt.getReason())
+                            .minutesUntil(Duration.between(now, apt.getAppointmentDate()).toMinutes())
+                            .build())
+                    .orElse(null);
+        });
     }
 }
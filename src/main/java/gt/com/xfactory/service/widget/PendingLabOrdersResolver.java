@@ -4,6 +4,7 @@ import gt.com.xfactory.dto.response.DashboardWidgetsDto.*;
 import gt.com.xfactory.entity.*;
 import gt.com.xfactory.entity.enums.*;
 import gt.com.xfactory.repository.*;
+import gt.com.xfactory.service.impl.*;
 import jakarta.enterprise.context.*;
 import jakarta.inject.*;
 import lombok.extern.slf4j.*;
@@ -17,7 +18,7 @@ import java.util.stream.*;
 public class PendingLabOrdersResolver implements WidgetResolver {
 
     @Inject
-    LabOrderRepository labOrderRepository;
+    ReadReplicaRouter readReplicaRouter;
 
     @Override
     public WidgetType getType() {
@@ -25,7 +26,8 @@ public class PendingLabOrdersResolver implements WidgetResolver {
     }
 
     @Override
-    public Object resolve(UUID clinicId, UUID doctorId) {
+    public Object resolve(WidgetContext context) {
+        UUID doctorId = context.doctorId();
         StringBuilder where = new StringBuilder("l.status = :status");
         Map<String, Object> params = new HashMap<>();
         params.put("status", LabOrderStatus.pending);
@@ -41,24 +43,26 @@ public class PendingLabOrdersResolver implements WidgetResolver {
                 + "WHERE " + where
                 + " ORDER BY l.orderDate DESC";
 
-        var query = labOrderRepository.getEntityManager().createQuery(jpql, LabOrderEntity.class);
-        params.forEach(query::setParameter);
-        query.setMaxResults(5);
+        return readReplicaRouter.read(em -> {
+            var query = em.createQuery(jpql, LabOrderEntity.class);
+            params.forEach(query::setParameter);
+            query.setMaxResults(5);
 
-        List<PendingLabItem> items = query.getResultList().stream()
-                .map(lab -> PendingLabItem.builder()
-                        .labOrderId(lab.getId())
-                        .patientName(lab.getPatient().getFirstName() + " " + lab.getPatient().getLastName())
-                        .orderDate(lab.getOrderDate().format(DateTimeFormatter.ofPattern("dd/MM/yyyy")))
-                        .pendingResults(lab.getResults() != null ? (int) lab.getResults().stream()
-                                .filter(r -> r.getValue() == null)
-                                .count() : 0)
-                        .build())
-                .collect(Collectors.toList());
+            List<PendingLabItem> items = query.getResultList().stream()
+                    .map(lab -> PendingLabItem.builder()
+                            .labOrderId(lab.getId())
+                            .patientName(lab.getPatient().getFirstName() + " " + lab.getPatient().getLastName())
+                            .orderDate(lab.getOrderDate().format(DateTimeFormatter.ofPattern("dd/MM/yyyy")))
+                            .pendingResults(lab.getResults() != null ? (int) lab.getResults().stream()
+                                    .filter(r -> r.getValue() == null)
+                                    .count() : 0)
+                            .build())
+                    .collect(Collectors.toList());
 
-        return PendingLabOrdersData.builder()
-                .count(items.size())
-                .items(items)
-                .build();
+            return PendingLabOrdersData.builder()
+                    .count(items.size())
+                    .items(items)
+                    .build();
+        });
     }
 }
@@ -0,0 +1,79 @@
+package gt.com.xfactory.service.widget;
+
+import gt.com.xfactory.entity.enums.*;
+
+import java.time.*;
+import java.time.temporal.*;
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * Contexto de una evaluación de widgets: filtros, instante de referencia y el snapshot de
+ * citas de la semana, que se carga la primera vez que se pide y se reutiliza en todos los widgets.
+ */
+public class WidgetContext {
+
+    public static final List<AppointmentStatus> PENDING_STATUSES = List.of(
+            AppointmentStatus.scheduled, AppointmentStatus.confirmed, AppointmentStatus.reopened);
+
+    private final UUID clinicId;
+    private final UUID doctorId;
+    private final LocalDateTime now;
+    private final Function<WidgetContext, List<AppointmentRow>> weekAppointmentsLoader;
+    private List<AppointmentRow> weekAppointments;
+
+    public record AppointmentRow(UUID id, LocalDateTime appointmentDate, AppointmentStatus status, UUID patientId,
+                                 String patientName, String specialtyName, String reason, String cancellationReason) {
+    }
+
+    public WidgetContext(UUID clinicId, UUID doctorId, LocalDateTime now,
+                         Function<WidgetContext, List<AppointmentRow>> weekAppointmentsLoader) {
+        this.clinicId = clinicId;
+        this.doctorId = doctorId;
+        this.now = now;
+        this.weekAppointmentsLoader = weekAppointmentsLoader;
+    }
+
+    public UUID clinicId() {
+        return clinicId;
+    }
+
+    public UUID doctorId() {
+        return doctorId;
+    }
+
+    public LocalDateTime now() {
+        return now;
+    }
+
+    public LocalDate today() {
+        return now.toLocalDate();
+    }
+
+    public LocalDateTime startOfWeek() {
+        return today().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).atStartOfDay();
+    }
+
+    public LocalDateTime endOfWeek() {
+        return today().with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY)).plusDays(1).atStartOfDay();
+    }
+
+    /**
+     * Citas de [startOfWeek, endOfWeek) ordenadas por fecha.
+     */
+    public List<AppointmentRow> weekAppointments() {
+        if (weekAppointments == null) {
+            weekAppointments = weekAppointmentsLoader.apply(this).stream()
+                    .sorted(Comparator.comparing(AppointmentRow::appointmentDate))
+                    .toList();
+        }
+        return weekAppointments;
+    }
+
+    public List<AppointmentRow> todayAppointments() {
+        LocalDate today = today();
+        return weekAppointments().stream()
+                .filter(row -> row.appointmentDate().toLocalDate().equals(today))
+                .toList();
+    }
+}
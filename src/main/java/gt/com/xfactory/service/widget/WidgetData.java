@@ -0,0 +1,9 @@
+package gt.com.xfactory.service.widget;
+
+/**
+ * Conjuntos de datos compartidos entre widgets (ver WidgetContext).
+ */
+public enum WidgetData {
+    // Citas de la semana actual (lunes a domingo) para la clínica/médico del dashboard
+    WEEK_APPOINTMENTS
+}
@@ -8,5 +8,13 @@ public interface WidgetResolver {
 
     WidgetType getType();
 
-    Object resolve(UUID clinicId, UUID doctorId);
+    /**
+     * Datos compartidos que el resolver lee del WidgetContext. DashboardWidgetService los
+     * obtiene una sola vez por request para todos los widgets activos.
+     */
+    default Set<WidgetData> requires() {
+        return Set.of();
+    }
+
+    Object resolve(WidgetContext context);
 }
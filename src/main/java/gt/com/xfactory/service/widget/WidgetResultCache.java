@@ -0,0 +1,151 @@
+package gt.com.xfactory.service.widget;
+
+import gt.com.xfactory.entity.enums.*;
+import gt.com.xfactory.service.event.*;
+import gt.com.xfactory.service.impl.*;
+import io.micrometer.core.instrument.*;
+import jakarta.annotation.*;
+import jakarta.enterprise.context.*;
+import jakarta.enterprise.event.*;
+import jakarta.inject.*;
+import jakarta.interceptor.Interceptor;
+import lombok.extern.slf4j.*;
+import org.eclipse.microprofile.config.*;
+import org.eclipse.microprofile.config.inject.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+
+/**
+ * Caché corta de resultados de WidgetResolver por tenant, widget, clínica, médico y ventana de
+ * tiempo. Cada widget tiene su TTL (dashboard.widgets.cache.ttl.&lt;widget&gt;) y la ventana es
+ * now / TTL, así que todos los usuarios del mismo alcance comparten la entrada hasta que cierra.
+ * Las entradas de un alcance se descartan en cuanto se confirma un cambio de una cita suya; cada
+ * alcance lleva una versión de invalidación para no guardar resultados calculados antes del cambio,
+ * ni resultados de la réplica que todavía pueda no tenerlo. Los usuarios con una escritura reciente
+ * (read-your-writes de ReadReplicaRouter) no leen ni escriben la caché.
+ * Métricas: dashboard.widget.cache{widget, result=hit|miss}.
+ */
+@ApplicationScoped
+@Slf4j
+public class WidgetResultCache {
+
+    private static final int MAX_ENTRIES = 10_000;
+
+    private static final Map<WidgetType, Duration> DEFAULT_TTLS = Map.of(
+            WidgetType.NEXT_APPOINTMENT, Duration.ofSeconds(15),
+            WidgetType.DELAYS, Duration.ofSeconds(15),
+            WidgetType.TODAY_CANCELLATIONS, Duration.ofSeconds(30),
+            WidgetType.PENDING_LAB_ORDERS, Duration.ofSeconds(30),
+            WidgetType.WEEKLY_SUMMARY, Duration.ofMinutes(5));
+
+    record Key(String tenantId, WidgetType type, UUID clinicId, UUID doctorId, long bucket) {
+    }
+
+    private record Scope(String tenantId, UUID clinicId, UUID doctorId) {
+    }
+
+    // version cambia con cada invalidación del alcance; invalidatedAt es su instante (ms)
+    private record ScopeState(long version, long invalidatedAt) {
+    }
+
+    private record Entry(Object value, long expiresAt, long version) {
+    }
+
+    @ConfigProperty(name = "dashboard.widgets.cache.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @Inject
+    Config config;
+
+    @Inject
+    TenantScopedExecutor tenantScopedExecutor;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @Inject
+    ReadReplicaRouter readReplicaRouter;
+
+    private final Map<WidgetType, Long> ttlMillis = new EnumMap<>(WidgetType.class);
+    private final Map<Key, Entry> cache = new ConcurrentHashMap<>();
+    private final Map<Scope, ScopeState> scopes = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        for (WidgetType type : WidgetType.values()) {
+            Duration ttl = config.getOptionalValue("dashboard.widgets.cache.ttl." + type.name().toLowerCase(Locale.ROOT),
+                    Duration.class).orElse(DEFAULT_TTLS.getOrDefault(type, Duration.ZERO));
+            ttlMillis.put(type, ttl.toMillis());
+        }
+    }
+
+    /**
+     * Resultado cacheado del widget para el alcance del contexto; si no hay, lo calcula con resolver.
+     * Un TTL de cero desactiva la caché para ese widget.
+     */
+    public Object get(WidgetType type, WidgetContext context, Supplier<Object> resolver) {
+        long ttl = ttlMillis.getOrDefault(type, 0L);
+        if (!enabled || ttl <= 0 || readReplicaRouter.hasRecentWrite()) {
+            return resolver.get();
+        }
+        long now = System.currentTimeMillis();
+        String tenantId = tenantScopedExecutor.currentTenantId();
+        Scope scope = new Scope(tenantId, context.clinicId(), context.doctorId());
+        ScopeState state = scopes.computeIfAbsent(scope, s -> new ScopeState(invalidations.get(), 0));
+        Key key = new Key(tenantId, type, context.clinicId(), context.doctorId(), now / ttl);
+        Entry entry = cache.get(key);
+        if (entry != null && entry.expiresAt() > now && entry.version() == state.version()) {
+            count(type, "hit");
+            return entry.value();
+        }
+        count(type, "miss");
+        boolean fromReplica = readReplicaRouter.readsFromReplica();
+        Object value = resolver.get();
+        if (cache.size() >= MAX_ENTRIES || scopes.size() >= MAX_ENTRIES) {
+            cache.values().removeIf(e -> e.expiresAt() <= now);
+            if (cache.size() >= MAX_ENTRIES || scopes.size() >= MAX_ENTRIES) {
+                cache.clear();
+                scopes.clear();
+            }
+        }
+        // Si el alcance se invalidó mientras se calculaba, el valor puede ser anterior al cambio; si vino
+        // de la réplica poco después de una invalidación, puede no incluirlo todavía
+        ScopeState current = scopes.get(scope);
+        if (current != null && current.version() == state.version()
+                && !(fromReplica && readReplicaRouter.mayLagBehind(current.invalidatedAt()))) {
+            cache.put(key, new Entry(value, (key.bucket() + 1) * ttl, state.version()));
+        }
+        return value;
+    }
+
+    /**
+     * Se ejecuta antes que los demás observadores AFTER_SUCCESS (p. ej. el stream del dashboard)
+     * para que recalculen sin leer entradas viejas.
+     */
+    void onAppointmentChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS)
+                              @Priority(Interceptor.Priority.APPLICATION) AppointmentChangedEvent event) {
+        if (scopes.isEmpty()) {
+            return;
+        }
+        String organizationId = event.organizationId() != null
+                ? event.organizationId() : tenantScopedExecutor.currentTenantId();
+        ScopeState invalidated = new ScopeState(invalidations.incrementAndGet(), System.currentTimeMillis());
+        scopes.replaceAll((scope, state) -> scope.tenantId().equals(organizationId)
+                && event.affects(scope.clinicId(), scope.doctorId()) ? invalidated : state);
+        cache.keySet().removeIf(key -> key.tenantId().equals(organizationId)
+                && event.affects(key.clinicId(), key.doctorId()));
+    }
+
+    int size() {
+        return cache.size();
+    }
+
+    private void count(WidgetType type, String result) {
+        meterRegistry.counter("dashboard.widget.cache", "widget", type.name(), "result", result).increment();
+    }
+}
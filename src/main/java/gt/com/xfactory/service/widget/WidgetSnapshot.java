@@ -0,0 +1,64 @@
+package gt.com.xfactory.service.widget;
+
+import gt.com.xfactory.dto.response.*;
+import gt.com.xfactory.dto.response.DashboardWidgetsDto.*;
+import gt.com.xfactory.entity.DashboardWidgetConfigEntity.*;
+import gt.com.xfactory.entity.enums.*;
+
+import java.util.*;
+
+/**
+ * Resultado de evaluar un conjunto de widgets para un alcance (clínica/médico), independiente
+ * del orden que cada usuario tenga configurado. data puede tener valores null (widget sin datos).
+ */
+public record WidgetSnapshot(DayStatusDto dayStatus, Map<WidgetType, Object> data) {
+
+    public boolean covers(Collection<WidgetType> types) {
+        return data.keySet().containsAll(types);
+    }
+
+    /**
+     * Vista completa para los widgets activos de un usuario, en su orden.
+     */
+    public DashboardWidgetsDto toDto(List<WidgetItem> items) {
+        return DashboardWidgetsDto.builder()
+                .dayStatus(dayStatus)
+                .widgets(items.stream()
+                        .sorted(Comparator.comparingInt(WidgetItem::getOrder))
+                        .map(this::toWidgetData)
+                        .toList())
+                .build();
+    }
+
+    /**
+     * Solo lo que cambió respecto a previous para los widgets activos del usuario: dayStatus es null
+     * si no cambió y widgets trae únicamente los que cambiaron. Devuelve null si no hay nada que enviar.
+     */
+    public DashboardWidgetsDto deltaFrom(WidgetSnapshot previous, List<WidgetItem> items) {
+        if (previous == null) {
+            return toDto(items);
+        }
+        DayStatusDto changedDayStatus = Objects.equals(dayStatus, previous.dayStatus) ? null : dayStatus;
+        List<WidgetDataDto> changedWidgets = items.stream()
+                .filter(item -> !previous.data.containsKey(item.getType())
+                        || !Objects.equals(data.get(item.getType()), previous.data.get(item.getType())))
+                .sorted(Comparator.comparingInt(WidgetItem::getOrder))
+                .map(this::toWidgetData)
+                .toList();
+        if (changedDayStatus == null && changedWidgets.isEmpty()) {
+            return null;
+        }
+        return DashboardWidgetsDto.builder()
+                .dayStatus(changedDayStatus)
+                .widgets(changedWidgets)
+                .build();
+    }
+
+    private WidgetDataDto toWidgetData(WidgetItem item) {
+        return WidgetDataDto.builder()
+                .type(item.getType().name())
+                .order(item.getOrder())
+                .data(data.get(item.getType()))
+                .build();
+    }
+}
@@ -0,0 +1,59 @@
+package gt.com.xfactory.utils;
+
+import java.util.*;
+
+/**
+ * Rango de bytes pedido con el header Range (RFC 9110): [offset, offset + length). Solo se atiende
+ * un rango "bytes="; un header ausente, inválido o con varios rangos se ignora y se envía el
+ * contenido completo. Un rango fuera del contenido se devuelve con length 0 (respuesta 416).
+ */
+public record ByteRange(long offset, long length) {
+
+    private static final String UNIT = "bytes=";
+
+    public static Optional<ByteRange> parse(String header, long size) {
+        if (header == null || !header.regionMatches(true, 0, UNIT, 0, UNIT.length())) {
+            return Optional.empty();
+        }
+        String spec = header.substring(UNIT.length()).trim();
+        int dash = spec.indexOf('-');
+        if (spec.contains(",") || dash < 0) {
+            return Optional.empty();
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                // bytes=-n: los últimos n bytes
+                long suffix = Long.parseLong(last);
+                if (suffix < 0) {
+                    return Optional.empty();
+                }
+                long length = Math.min(suffix, size);
+                return Optional.of(new ByteRange(size - length, length));
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? Long.MAX_VALUE : Long.parseLong(last);
+            if (start < 0 || end < start) {
+                return Optional.empty();
+            }
+            if (start >= size) {
+                return Optional.of(new ByteRange(size, 0));
+            }
+            return Optional.of(new ByteRange(start, Math.min(end, size - 1) - start + 1));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    public boolean satisfiable() {
+        return length > 0;
+    }
+
+    /**
+     * Valor del header Content-Range para este rango.
+     */
+    public String contentRange(long size) {
+        return "bytes " + offset + "-" + (offset + length - 1) + "/" + size;
+    }
+}
@@ -0,0 +1,19 @@
+package gt.com.xfactory.utils;
+
+import java.util.*;
+
+/**
+ * Detección del motor configurado en quarkus.datasource.db-kind, para activar funciones solo
+ * disponibles en PostgreSQL (SET TRANSACTION READ ONLY, similarity(), estadísticas del planner).
+ */
+public final class DbKindUtils {
+
+    public static final Set<String> POSTGRES_DB_KINDS = Set.of("postgresql", "postgres", "pgsql", "pg");
+
+    private DbKindUtils() {
+    }
+
+    public static boolean isPostgres(String dbKind) {
+        return dbKind != null && POSTGRES_DB_KINDS.contains(dbKind.toLowerCase(Locale.ROOT));
+    }
+}
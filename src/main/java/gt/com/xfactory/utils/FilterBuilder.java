@@ -70,6 +70,26 @@ public class FilterBuilder {
         return "(" + String.join(" AND ", groups) + ")";
     }
 
+    /**
+     * Búsqueda sobre una columna ya normalizada (ver SearchTextUtils).
+     * "José Pérez" → searchText LIKE '%jose%' AND searchText LIKE '%perez%'
+     * En PostgreSQL cada LIKE se resuelve con el índice GIN gin_trgm_ops de la columna.
+     */
+    public static String buildSearchTextCondition(String q, String searchField,
+                                                  Map<String, Object> params, String prefix) {
+        List<String> tokens = SearchTextUtils.tokenize(q);
+        if (tokens.isEmpty()) {
+            return "(1 = 0)";
+        }
+        List<String> groups = new ArrayList<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            String p = prefix + i;
+            params.put(p, "%" + tokens.get(i) + "%");
+            groups.add(searchField + " LIKE :" + p);
+        }
+        return "(" + String.join(" AND ", groups) + ")";
+    }
+
     public FilterBuilder addCondition(boolean condition, String jpql, Map<String, Object> multiParams) {
         if (condition) {
             conditions.add(jpql);
@@ -0,0 +1,145 @@
+package gt.com.xfactory.utils;
+
+import com.fasterxml.jackson.core.*;
+import com.fasterxml.jackson.databind.*;
+import gt.com.xfactory.utils.SortUtils.SortKey;
+import jakarta.ws.rs.*;
+import org.apache.commons.lang3.reflect.*;
+
+import java.io.*;
+import java.lang.reflect.*;
+import java.math.*;
+import java.nio.charset.*;
+import java.time.*;
+import java.util.*;
+import java.util.stream.*;
+
+/**
+ * Cursor opaco para paginación por keyset: valores de las claves de ordenamiento de la
+ * última fila entregada, codificados en base64url junto con la firma del orden.
+ * Un cursor solo es válido con el mismo "sort" con el que se generó.
+ */
+public final class KeysetCursor {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    record Token(String s, List<String> v) {
+    }
+
+    private KeysetCursor() {
+    }
+
+    /**
+     * Codifica los valores de las claves de la última fila, ya leídos de la fila proyectada
+     * en el mismo orden que keys.
+     */
+    public static String encodeValues(List<SortKey> keys, List<Object> keyValues) {
+        List<String> values = new ArrayList<>(keys.size());
+        for (Object value : keyValues) {
+            values.add(value == null ? null : value instanceof Enum<?> e ? e.name() : value.toString());
+        }
+        try {
+            byte[] json = MAPPER.writeValueAsBytes(new Token(signature(keys), values));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo generar el cursor", e);
+        }
+    }
+
+    /**
+     * Decodifica el cursor y convierte cada valor al tipo del campo en la entidad.
+     */
+    public static List<Object> decode(String cursor, List<SortKey> keys, Class<?> entityClass) {
+        Token token;
+        try {
+            byte[] json = Base64.getUrlDecoder().decode(cursor.getBytes(StandardCharsets.US_ASCII));
+            token = MAPPER.readValue(json, Token.class);
+        } catch (IllegalArgumentException | IOException e) {
+            throw new BadRequestException("Cursor de paginación inválido");
+        }
+        if (token.v() == null || token.v().size() != keys.size() || !signature(keys).equals(token.s())) {
+            throw new BadRequestException("El cursor no corresponde al ordenamiento solicitado");
+        }
+
+        List<Object> values = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            String raw = token.v().get(i);
+            values.add(raw == null ? null : convert(raw, fieldType(entityClass, keys.get(i).field())));
+        }
+        return values;
+    }
+
+    /**
+     * Predicado "fila posterior al cursor" en orden lexicográfico sobre las claves:
+     * (k1 > v1) OR (k1 = v1 AND k2 > v2) OR ...
+     * NULL se trata como el valor más alto, igual que SortUtils.toKeysetOrderBy.
+     */
+    public static String buildPredicate(List<SortKey> keys, List<Object> values, Map<String, Object> params) {
+        List<String> branches = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            String after = afterCondition(keys.get(i), values.get(i), "ks" + i);
+            if (after == null) {
+                continue;
+            }
+            List<String> parts = new ArrayList<>();
+            for (int j = 0; j < i; j++) {
+                parts.add(values.get(j) == null
+                        ? keys.get(j).field() + " IS NULL"
+                        : keys.get(j).field() + " = :ks" + j);
+            }
+            parts.add(after);
+            branches.add("(" + String.join(" AND ", parts) + ")");
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            if (values.get(i) != null) {
+                params.put("ks" + i, values.get(i));
+            }
+        }
+        return branches.isEmpty() ? "(1 = 0)" : "(" + String.join(" OR ", branches) + ")";
+    }
+
+    private static String afterCondition(SortKey key, Object value, String param) {
+        String field = key.field();
+        if (key.descending()) {
+            return value == null ? field + " IS NOT NULL" : field + " < :" + param;
+        }
+        return value == null ? null : "(" + field + " > :" + param + " OR " + field + " IS NULL)";
+    }
+
+    private static String signature(List<SortKey> keys) {
+        return keys.stream()
+                .map(k -> k.field() + (k.descending() ? ".desc" : ".asc"))
+                .collect(Collectors.joining(","));
+    }
+
+    private static Class<?> fieldType(Class<?> entityClass, String field) {
+        Field f = FieldUtils.getField(entityClass, field, true);
+        if (f == null) {
+            throw new BadRequestException("Campo de ordenamiento inválido: " + field);
+        }
+        return f.getType();
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static Object convert(String raw, Class<?> type) {
+        try {
+            if (type == String.class) return raw;
+            if (type == UUID.class) return UUID.fromString(raw);
+            if (type == LocalDate.class) return LocalDate.parse(raw);
+            if (type == LocalDateTime.class) return LocalDateTime.parse(raw);
+            if (type == LocalTime.class) return LocalTime.parse(raw);
+            if (type == Instant.class) return Instant.parse(raw);
+            if (type == OffsetDateTime.class) return OffsetDateTime.parse(raw);
+            if (type == Integer.class || type == int.class) return Integer.valueOf(raw);
+            if (type == Long.class || type == long.class) return Long.valueOf(raw);
+            if (type == Short.class || type == short.class) return Short.valueOf(raw);
+            if (type == Double.class || type == double.class) return Double.valueOf(raw);
+            if (type == BigDecimal.class) return new BigDecimal(raw);
+            if (type == Boolean.class || type == boolean.class) return Boolean.valueOf(raw);
+            if (type.isEnum()) return Enum.valueOf((Class<Enum>) type, raw);
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Cursor de paginación inválido");
+        }
+        throw new BadRequestException("Campo no soportado para paginación por cursor: " + type.getSimpleName());
+    }
+}
@@ -0,0 +1,67 @@
+package gt.com.xfactory.utils;
+
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * Proyección de un listado: rutas HQL que se seleccionan (relativas a la entidad raíz) y el mapeo
+ * de cada fila al DTO. Permite construir DTOs con una sola consulta de tuplas, sin cargar entidades
+ * en la sesión. Las asociaciones opcionales deben proyectarse solo por id ("appointment.id"):
+ * navegar a otro atributo ("specialty.name") genera un inner join y descarta las filas sin asociación.
+ */
+public final class Projection<D> {
+
+    private final List<String> paths;
+    private final Map<String, Integer> indexes;
+    private final Function<Row, D> mapper;
+
+    private Projection(List<String> paths, Function<Row, D> mapper) {
+        this.paths = List.copyOf(paths);
+        this.mapper = mapper;
+        Map<String, Integer> map = new HashMap<>();
+        for (int i = 0; i < this.paths.size(); i++) {
+            map.put(this.paths.get(i), i);
+        }
+        this.indexes = Map.copyOf(map);
+    }
+
+    public static <D> Projection<D> of(Function<Row, D> mapper, String... paths) {
+        return new Projection<>(Arrays.asList(paths), mapper);
+    }
+
+    public List<String> paths() {
+        return paths;
+    }
+
+    public D map(Object[] values) {
+        return mapper.apply(new Row(indexes, values, 0));
+    }
+
+    /**
+     * Mapea una fila cuyos primeros offset valores no pertenecen a la proyección (p.ej. claves del cursor).
+     */
+    public D map(Object[] values, int offset) {
+        return mapper.apply(new Row(indexes, values, offset));
+    }
+
+    public static final class Row {
+        private final Map<String, Integer> indexes;
+        private final Object[] values;
+        private final int offset;
+
+        private Row(Map<String, Integer> indexes, Object[] values, int offset) {
+            this.indexes = indexes;
+            this.values = values;
+            this.offset = offset;
+        }
+
+        @SuppressWarnings("unchecked")
+        public <T> T get(String path) {
+            Integer index = indexes.get(path);
+            if (index == null) {
+                throw new IllegalArgumentException("La proyección no incluye " + path);
+            }
+            return (T) values[offset + index];
+        }
+    }
+}
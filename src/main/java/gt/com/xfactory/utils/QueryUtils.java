@@ -1,9 +1,12 @@
 package gt.com.xfactory.utils;
 
+import gt.com.xfactory.repository.*;
+import io.quarkus.hibernate.orm.panache.*;
 import jakarta.persistence.*;
 import jakarta.persistence.criteria.*;
 import org.apache.commons.lang3.*;
 
+import java.lang.reflect.*;
 import java.util.*;
 
 public class QueryUtils {
@@ -91,4 +94,22 @@ public class QueryUtils {
         countQuery.where(predicate);
         return em.createQuery(countQuery).getSingleResult();
     }
+
+    /**
+     * Clase de entidad de un repositorio Panache o ProjectionRepository
+     * (también para proxies CDI y mocks, que son subclases).
+     */
+    public static Class<?> entityClassOf(Object repository) {
+        for (Class<?> c = repository.getClass(); c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Type type : c.getGenericInterfaces()) {
+                if (type instanceof ParameterizedType pt
+                        && pt.getRawType() instanceof Class<?> raw
+                        && (PanacheRepositoryBase.class.isAssignableFrom(raw) || ProjectionRepository.class.isAssignableFrom(raw))
+                        && pt.getActualTypeArguments()[0] instanceof Class<?> entityClass) {
+                    return entityClass;
+                }
+            }
+        }
+        throw new IllegalStateException("No se pudo determinar la entidad del repositorio " + repository.getClass().getName());
+    }
 }
@@ -0,0 +1,17 @@
+package gt.com.xfactory.utils;
+
+import jakarta.interceptor.*;
+
+import java.lang.annotation.*;
+
+/**
+ * Ejecuta el método en una transacción de solo lectura (ver ReadOnlyInterceptor).
+ * Pensado para listados y consultas GET: las entidades cargadas no guardan snapshot para
+ * dirty-checking y la sesión nunca hace flush.
+ */
+@InterceptorBinding
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface ReadOnly {
+}
@@ -0,0 +1,71 @@
+package gt.com.xfactory.utils;
+
+import jakarta.annotation.*;
+import jakarta.inject.*;
+import jakarta.interceptor.*;
+import jakarta.transaction.*;
+import lombok.extern.slf4j.*;
+import org.eclipse.microprofile.config.inject.*;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+
+import java.sql.Statement;
+
+/**
+ * Abre una transacción propia para el método @ReadOnly con la sesión en modo solo lectura
+ * (setDefaultReadOnly + FlushMode.MANUAL) y, en PostgreSQL, SET TRANSACTION READ ONLY.
+ * La sesión está ligada a la transacción, así que la configuración no sobrevive al método.
+ * Si ya hay una transacción activa (p.ej. un @Transactional que llama a un listado) se une
+ * a ella sin modificarla, para no volver de solo lectura entidades que el llamador va a escribir.
+ */
+@ReadOnly
+@Interceptor
+@Priority(Interceptor.Priority.PLATFORM_BEFORE + 190)
+@Slf4j
+public class ReadOnlyInterceptor {
+
+    @Inject
+    TransactionManager transactionManager;
+
+    @Inject
+    Session session;
+
+    @ConfigProperty(name = "quarkus.datasource.db-kind")
+    String dbKind;
+
+    @AroundInvoke
+    Object readOnly(InvocationContext context) throws Exception {
+        if (transactionManager.getStatus() != Status.STATUS_NO_TRANSACTION) {
+            return context.proceed();
+        }
+
+        transactionManager.begin();
+        Object result;
+        try {
+            session.setDefaultReadOnly(true);
+            session.setHibernateFlushMode(FlushMode.MANUAL);
+            if (DbKindUtils.isPostgres(dbKind)) {
+                // Debe ser la primera sentencia de la transacción; termina con ella
+                session.doWork(connection -> {
+                    try (Statement statement = connection.createStatement()) {
+                        statement.execute("SET TRANSACTION READ ONLY");
+                    }
+                });
+            }
+            result = context.proceed();
+        } catch (Throwable e) {
+            rollbackQuietly();
+            throw e;
+        }
+        transactionManager.commit();
+        return result;
+    }
+
+    private void rollbackQuietly() {
+        try {
+            transactionManager.rollback();
+        } catch (Exception e) {
+            log.warn("Error rolling back read-only transaction", e);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package gt.com.xfactory.utils;
+
+import gt.com.xfactory.service.impl.*;
+import jakarta.inject.*;
+import jakarta.ws.rs.container.*;
+import jakarta.ws.rs.ext.Provider;
+import org.eclipse.microprofile.jwt.*;
+
+import java.util.*;
+
+/**
+ * Tras una escritura exitosa (POST/PUT/PATCH/DELETE) registra al usuario en ReadReplicaRouter
+ * para que sus lecturas inmediatas no vayan a una réplica que aún no tiene el cambio.
+ */
+@Provider
+public class ReadYourWritesFilter implements ContainerResponseFilter {
+
+    private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+    @Inject
+    JsonWebToken jwt;
+
+    @Inject
+    ReadReplicaRouter readReplicaRouter;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        if (READ_METHODS.contains(requestContext.getMethod()) || responseContext.getStatus() >= 400) {
+            return;
+        }
+        if (jwt != null && jwt.getSubject() != null) {
+            readReplicaRouter.recordWrite(jwt.getSubject());
+        }
+    }
+}
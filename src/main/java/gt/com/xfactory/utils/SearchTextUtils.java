@@ -0,0 +1,47 @@
+package gt.com.xfactory.utils;
+
+import org.apache.commons.lang3.*;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.regex.*;
+import java.util.stream.*;
+
+/**
+ * Normalización de texto para columnas de búsqueda (search_text).
+ * Debe producir el mismo resultado que lower(unaccent(...)) en PostgreSQL para que
+ * los índices trigram (pg_trgm) sirvan tanto a los datos migrados como a los nuevos.
+ */
+public final class SearchTextUtils {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^a-z0-9]+");
+
+    private SearchTextUtils() {
+    }
+
+    /**
+     * "José  Pérez-Núñez" → "jose perez nunez"
+     */
+    public static String normalize(String value) {
+        if (StringUtils.isBlank(value)) return "";
+        String folded = DIACRITICS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("");
+        return NON_ALPHANUMERIC.matcher(folded.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    public static List<String> tokenize(String value) {
+        String normalized = normalize(value);
+        if (normalized.isEmpty()) return List.of();
+        return Arrays.asList(normalized.split(" "));
+    }
+
+    /**
+     * Concatena los valores normalizados ignorando nulos/vacíos.
+     */
+    public static String join(String... values) {
+        return Arrays.stream(values)
+                .map(SearchTextUtils::normalize)
+                .filter(s -> !s.isEmpty())
+                .collect(Collectors.joining(" "));
+    }
+}
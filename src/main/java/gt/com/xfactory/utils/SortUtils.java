@@ -4,11 +4,22 @@ import io.quarkus.panache.common.Sort;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.Order;
 import jakarta.persistence.criteria.Path;
+import jakarta.ws.rs.BadRequestException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 public class SortUtils {
 
+    private static final Pattern SORT_FIELD = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+
+    /**
+     * Campo de ordenamiento ya parseado (formato "campo.dir").
+     */
+    public record SortKey(String field, boolean descending) {
+    }
+
     public static Sort parseSortParameters(List<String> sortParams) {
         if (sortParams == null || sortParams.isEmpty()) {
             return Sort.by("id", Sort.Direction.Ascending);
@@ -30,6 +41,58 @@ public class SortUtils {
         return sorting != null ? sorting : Sort.by("id", Sort.Direction.Ascending);
     }
 
+    /**
+     * Claves de ordenamiento para paginación por cursor: siempre terminan en "id"
+     * para que el orden sea total y el cursor no salte ni repita filas.
+     */
+    public static List<SortKey> parseSortKeys(List<String> sortParams) {
+        List<SortKey> keys = new ArrayList<>();
+        if (sortParams != null) {
+            for (String sortParam : sortParams) {
+                String[] parts = splitSortParameter(sortParam);
+                if (keys.stream().noneMatch(k -> k.field().equals(parts[0]))) {
+                    keys.add(new SortKey(parts[0], "desc".equalsIgnoreCase(parts[1])));
+                }
+            }
+        }
+        if (keys.stream().noneMatch(k -> k.field().equals("id"))) {
+            keys.add(new SortKey("id", false));
+        }
+        return keys;
+    }
+
+    /**
+     * ORDER BY (sin la palabra clave) para consultas HQL armadas a mano, con la misma
+     * semántica que parseSortParameters.
+     */
+    public static String toOrderBy(List<String> sortParams) {
+        if (sortParams == null || sortParams.isEmpty()) {
+            return "id ASC";
+        }
+        return sortParams.stream()
+                .map(SortUtils::splitSortParameter)
+                .map(parts -> validField(parts[0]) + ("desc".equalsIgnoreCase(parts[1]) ? " DESC" : " ASC"))
+                .collect(Collectors.joining(", "));
+    }
+
+    /**
+     * ORDER BY de la paginación por keyset: NULL como el valor más alto (NULLS LAST en asc,
+     * NULLS FIRST en desc), igual que PostgreSQL, para que el predicado del cursor sea consistente
+     * en cualquier BD.
+     */
+    public static String toKeysetOrderBy(List<SortKey> keys) {
+        return keys.stream()
+                .map(k -> validField(k.field()) + (k.descending() ? " DESC NULLS FIRST" : " ASC NULLS LAST"))
+                .collect(Collectors.joining(", "));
+    }
+
+    private static String validField(String field) {
+        if (!SORT_FIELD.matcher(field).matches()) {
+            throw new BadRequestException("Campo de ordenamiento inválido: " + field);
+        }
+        return field;
+    }
+
     private static String[] splitSortParameter(String sortParam) {
         if (sortParam == null || sortParam.trim().isEmpty()) {
             return new String[]{"id", "asc"};
@@ -0,0 +1,53 @@
+package gt.com.xfactory.utils;
+
+import jakarta.transaction.*;
+
+public final class TransactionUtils {
+
+    private TransactionUtils() {
+    }
+
+    /**
+     * Ejecuta action cuando la transacción actual haga commit (no se ejecuta en rollback).
+     * Sin transacción activa se ejecuta de inmediato.
+     */
+    public static void afterCommit(TransactionSynchronizationRegistry registry, Runnable action) {
+        if (registry.getTransactionStatus() != Status.STATUS_ACTIVE) {
+            action.run();
+            return;
+        }
+        registry.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == Status.STATUS_COMMITTED) {
+                    action.run();
+                }
+            }
+        });
+    }
+
+    /**
+     * Ejecuta action si la transacción actual termina sin commit. Sin transacción activa no hace nada.
+     */
+    public static void afterRollback(TransactionSynchronizationRegistry registry, Runnable action) {
+        if (registry.getTransactionStatus() != Status.STATUS_ACTIVE) {
+            return;
+        }
+        registry.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status != Status.STATUS_COMMITTED) {
+                    action.run();
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,14 @@
+-- Búsqueda de pacientes con índice trigram (pg_trgm)
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE EXTENSION IF NOT EXISTS unaccent;
+
+-- Nombre + DPI + teléfono normalizados: minúsculas, sin tildes, solo [a-z0-9] separados por un espacio.
+-- Debe coincidir con SearchTextUtils.normalize (la aplicación la mantiene en create/update).
+ALTER TABLE patient ADD COLUMN search_text VARCHAR(600);
+
+UPDATE patient
+SET search_text = trim(regexp_replace(
+        lower(unaccent(concat_ws(' ', first_name, last_name, dpi, phone))),
+        '[^a-z0-9]+', ' ', 'g'));
+
+CREATE INDEX idx_patient_search_text_trgm ON patient USING gin (search_text gin_trgm_ops);
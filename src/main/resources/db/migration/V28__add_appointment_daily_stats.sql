@@ -0,0 +1,18 @@
+-- Conteo diario de citas por clínica, médico y estado (dashboard).
+-- Se mantiene de forma incremental desde la aplicación (AppointmentStatsService).
+CREATE TABLE appointment_daily_stats (
+    clinic_id UUID NOT NULL,
+    doctor_id UUID NOT NULL,
+    day DATE NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    appointment_count INTEGER NOT NULL DEFAULT 0,
+    organization_id VARCHAR(36) NOT NULL REFERENCES organization(id),
+    PRIMARY KEY (clinic_id, doctor_id, day, status)
+);
+
+CREATE INDEX idx_appointment_daily_stats_org_day ON appointment_daily_stats (organization_id, day);
+
+INSERT INTO appointment_daily_stats (clinic_id, doctor_id, day, status, appointment_count, organization_id)
+SELECT clinic_id, doctor_id, CAST(appointment_date AS DATE), status::text, COUNT(*), organization_id
+FROM medical_appointment
+GROUP BY clinic_id, doctor_id, CAST(appointment_date AS DATE), status::text, organization_id;
@@ -0,0 +1,45 @@
+-- Rollups históricos de citas y diagnósticos por día, semana y mes (API de analítica).
+-- Los recalcula AnalyticsRollupService a partir de los días marcados en analytics_dirty_day.
+CREATE TABLE analytics_appointment_rollup (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    grain VARCHAR(5) NOT NULL,
+    period_start DATE NOT NULL,
+    clinic_id UUID NOT NULL,
+    doctor_id UUID NOT NULL,
+    specialty_id UUID,
+    total_count INTEGER NOT NULL,
+    completed_count INTEGER NOT NULL,
+    cancelled_count INTEGER NOT NULL,
+    no_show_count INTEGER NOT NULL,
+    organization_id VARCHAR(36) NOT NULL REFERENCES organization(id)
+);
+
+CREATE INDEX idx_analytics_appointment_rollup_period
+    ON analytics_appointment_rollup (organization_id, grain, period_start);
+
+CREATE TABLE analytics_diagnosis_rollup (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    grain VARCHAR(5) NOT NULL,
+    period_start DATE NOT NULL,
+    clinic_id UUID NOT NULL,
+    doctor_id UUID NOT NULL,
+    specialty_id UUID,
+    diagnosis_id UUID NOT NULL REFERENCES diagnosis_catalog(id),
+    diagnosis_count INTEGER NOT NULL,
+    organization_id VARCHAR(36) NOT NULL REFERENCES organization(id)
+);
+
+CREATE INDEX idx_analytics_diagnosis_rollup_period
+    ON analytics_diagnosis_rollup (organization_id, grain, period_start);
+
+-- Días con citas modificadas pendientes de recalcular (se marcan en la misma transacción del cambio)
+CREATE TABLE analytics_dirty_day (
+    organization_id VARCHAR(36) NOT NULL REFERENCES organization(id),
+    day DATE NOT NULL,
+    PRIMARY KEY (organization_id, day)
+);
+
+-- Carga inicial: todos los días con citas quedan pendientes para el primer recálculo
+INSERT INTO analytics_dirty_day (organization_id, day)
+SELECT DISTINCT organization_id, CAST(appointment_date AS DATE)
+FROM medical_appointment;
@@ -0,0 +1,8 @@
+-- Marca de agua de las exportaciones columnares por organización y dataset (ExportService).
+CREATE TABLE export_watermark (
+    organization_id VARCHAR(36) NOT NULL REFERENCES organization(id),
+    dataset VARCHAR(40) NOT NULL,
+    watermark TIMESTAMP NOT NULL,
+    exported_at TIMESTAMP NOT NULL DEFAULT now(),
+    PRIMARY KEY (organization_id, dataset)
+);
@@ -0,0 +1,55 @@
+-- Timeline desnormalizado por paciente (citas, expedientes, recetas, órdenes de laboratorio y
+-- antecedentes). Se mantiene desde la aplicación en la misma transacción que el cambio
+-- (PatientTimelineService). source_id es el id de la fila de origen: todos son UUID aleatorios,
+-- así que no colisionan entre tablas.
+CREATE TABLE patient_timeline_event (
+    source_id UUID PRIMARY KEY,
+    event_type VARCHAR(30) NOT NULL,
+    patient_id UUID NOT NULL REFERENCES patient(id) ON DELETE CASCADE,
+    occurred_at TIMESTAMP NOT NULL,
+    title VARCHAR(255),
+    summary VARCHAR(500),
+    status VARCHAR(30),
+    doctor_id UUID,
+    doctor_name VARCHAR(255),
+    organization_id VARCHAR(36) NOT NULL REFERENCES organization(id),
+    updated_at TIMESTAMP NOT NULL DEFAULT now()
+);
+
+-- Lectura de una página: un rango del índice, del más reciente al más antiguo
+CREATE INDEX idx_patient_timeline_patient_occurred
+    ON patient_timeline_event (patient_id, occurred_at DESC, source_id DESC);
+
+INSERT INTO patient_timeline_event (source_id, event_type, patient_id, occurred_at, title, summary, status,
+                                    doctor_id, doctor_name, organization_id)
+SELECT a.id, 'appointment', a.patient_id, a.appointment_date, LEFT(a.reason, 255), LEFT(a.diagnosis, 500),
+       a.status::text, a.doctor_id, TRIM(CONCAT(d.first_name, ' ', d.last_name)), a.organization_id
+FROM medical_appointment a
+LEFT JOIN doctor d ON d.id = a.doctor_id;
+
+INSERT INTO patient_timeline_event (source_id, event_type, patient_id, occurred_at, title, summary, status,
+                                    doctor_id, doctor_name, organization_id)
+SELECT r.id, 'medical_record', r.patient_id, COALESCE(r.created_at, now()), LEFT(r.chief_complaint, 255),
+       LEFT(r.treatment_plan, 500), NULL, r.doctor_id, TRIM(CONCAT(d.first_name, ' ', d.last_name)), r.organization_id
+FROM medical_record r
+LEFT JOIN doctor d ON d.id = r.doctor_id;
+
+INSERT INTO patient_timeline_event (source_id, event_type, patient_id, occurred_at, title, summary, status,
+                                    doctor_id, doctor_name, organization_id)
+SELECT p.id, 'prescription', p.patient_id, CAST(p.issue_date AS TIMESTAMP), 'Receta', LEFT(p.notes, 500), NULL,
+       p.doctor_id, TRIM(CONCAT(d.first_name, ' ', d.last_name)), p.organization_id
+FROM prescription p
+LEFT JOIN doctor d ON d.id = p.doctor_id;
+
+INSERT INTO patient_timeline_event (source_id, event_type, patient_id, occurred_at, title, summary, status,
+                                    doctor_id, doctor_name, organization_id)
+SELECT o.id, 'lab_order', o.patient_id, o.order_date, 'Orden de laboratorio', LEFT(o.notes, 500), o.status,
+       o.doctor_id, TRIM(CONCAT(d.first_name, ' ', d.last_name)), o.organization_id
+FROM lab_order o
+LEFT JOIN doctor d ON d.id = o.doctor_id;
+
+INSERT INTO patient_timeline_event (source_id, event_type, patient_id, occurred_at, title, summary, status,
+                                    doctor_id, doctor_name, organization_id)
+SELECT h.id, 'medical_history', h.patient_id, COALESCE(h.created_at, now()), LEFT(h.medical_history_type, 255),
+       LEFT(h.description, 500), NULL, NULL, NULL, h.organization_id
+FROM medical_history_pathological_fam h;
@@ -0,0 +1,15 @@
+-- Contenido de adjuntos fuera de la tabla: BlobStore direccionado por SHA-256 (FileStorageService).
+-- blob_object lleva las referencias de cada objeto; es global porque el mismo contenido se guarda una vez.
+CREATE TABLE blob_object (
+    hash VARCHAR(64) PRIMARY KEY,
+    size_bytes BIGINT NOT NULL,
+    ref_count INTEGER NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT now()
+);
+
+ALTER TABLE lab_order_attachment ADD COLUMN content_hash VARCHAR(64);
+-- file_data queda solo para filas anteriores; el job de migración las pasa al BlobStore y la vacía
+ALTER TABLE lab_order_attachment ALTER COLUMN file_data DROP NOT NULL;
+CREATE INDEX idx_lab_order_attachment_legacy ON lab_order_attachment(created_at) WHERE content_hash IS NULL;
+
+ALTER TABLE lab_order_attachment_aud ADD COLUMN content_hash VARCHAR(64);
@@ -0,0 +1,5 @@
+-- Compresión de adjuntos en el BlobStore: codec de cada objeto y copia en el adjunto para servirlo
+ALTER TABLE blob_object ADD COLUMN codec VARCHAR(16) NOT NULL DEFAULT 'identity';
+
+ALTER TABLE lab_order_attachment ADD COLUMN content_encoding VARCHAR(16) NOT NULL DEFAULT 'identity';
+ALTER TABLE lab_order_attachment_aud ADD COLUMN content_encoding VARCHAR(16);
@@ -0,0 +1,41 @@
+-- Bajas de las filas exportadas (ExportService): las incrementales las publican como datasets *-deleted.
+-- Se registran con triggers para cubrir también los borrados en cascada y los nativos.
+CREATE TABLE export_tombstone (
+    organization_id VARCHAR(36) NOT NULL REFERENCES organization(id),
+    dataset VARCHAR(40) NOT NULL,
+    source_id UUID NOT NULL,
+    deleted_at TIMESTAMP NOT NULL DEFAULT now(),
+    PRIMARY KEY (dataset, source_id)
+);
+
+CREATE INDEX idx_export_tombstone_org ON export_tombstone (organization_id, dataset, deleted_at);
+
+CREATE FUNCTION export_tombstone_on_delete() RETURNS trigger AS $$
+BEGIN
+    INSERT INTO export_tombstone (organization_id, dataset, source_id)
+    VALUES (OLD.organization_id, TG_ARGV[0], OLD.id)
+    ON CONFLICT (dataset, source_id) DO UPDATE SET deleted_at = now();
+    RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
+
+-- appointment_diagnosis no tiene organization_id: se toma de la cita, que se borra después de sus diagnósticos
+CREATE FUNCTION export_tombstone_on_diagnosis_delete() RETURNS trigger AS $$
+BEGIN
+    INSERT INTO export_tombstone (organization_id, dataset, source_id)
+    SELECT ma.organization_id, 'appointment-diagnoses', OLD.id
+      FROM medical_appointment ma
+     WHERE ma.id = OLD.appointment_id
+    ON CONFLICT (dataset, source_id) DO UPDATE SET deleted_at = now();
+    RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_medical_appointment_export_tombstone AFTER DELETE ON medical_appointment
+    FOR EACH ROW EXECUTE FUNCTION export_tombstone_on_delete('appointments');
+
+CREATE TRIGGER trg_appointment_diagnosis_export_tombstone AFTER DELETE ON appointment_diagnosis
+    FOR EACH ROW EXECUTE FUNCTION export_tombstone_on_diagnosis_delete();
+
+CREATE TRIGGER trg_lab_result_export_tombstone AFTER DELETE ON lab_result
+    FOR EACH ROW EXECUTE FUNCTION export_tombstone_on_delete('lab-results');
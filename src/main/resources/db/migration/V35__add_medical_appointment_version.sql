@@ -0,0 +1,3 @@
+-- Bloqueo optimista de las citas: dos ediciones concurrentes partían de la misma foto y descontaban
+-- dos veces el mismo contador de appointment_daily_stats. Envers no audita la columna.
+ALTER TABLE medical_appointment ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
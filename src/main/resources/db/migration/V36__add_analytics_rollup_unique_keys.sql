@@ -0,0 +1,37 @@
+-- Un solo rollup por periodo y dimensiones. Los grupos ya duplicados por recálculos concurrentes se
+-- borran y su día queda pendiente: el recálculo del día rehace también su semana y su mes.
+INSERT INTO analytics_dirty_day (organization_id, day)
+SELECT organization_id, period_start
+FROM analytics_appointment_rollup
+GROUP BY organization_id, grain, period_start, clinic_id, doctor_id, specialty_id
+HAVING COUNT(*) > 1
+UNION
+SELECT organization_id, period_start
+FROM analytics_diagnosis_rollup
+GROUP BY organization_id, grain, period_start, clinic_id, doctor_id, specialty_id, diagnosis_id
+HAVING COUNT(*) > 1
+ON CONFLICT DO NOTHING;
+
+DELETE FROM analytics_appointment_rollup a
+USING analytics_appointment_rollup b
+WHERE a.id <> b.id
+  AND a.organization_id = b.organization_id AND a.grain = b.grain AND a.period_start = b.period_start
+  AND a.clinic_id = b.clinic_id AND a.doctor_id = b.doctor_id
+  AND a.specialty_id IS NOT DISTINCT FROM b.specialty_id;
+
+DELETE FROM analytics_diagnosis_rollup a
+USING analytics_diagnosis_rollup b
+WHERE a.id <> b.id
+  AND a.organization_id = b.organization_id AND a.grain = b.grain AND a.period_start = b.period_start
+  AND a.clinic_id = b.clinic_id AND a.doctor_id = b.doctor_id
+  AND a.specialty_id IS NOT DISTINCT FROM b.specialty_id
+  AND a.diagnosis_id = b.diagnosis_id;
+
+-- specialty_id es opcional: COALESCE para que dos filas sin especialidad también choquen
+CREATE UNIQUE INDEX uq_analytics_appointment_rollup_key
+    ON analytics_appointment_rollup (organization_id, grain, period_start, clinic_id, doctor_id,
+        COALESCE(specialty_id, '00000000-0000-0000-0000-000000000000'::uuid));
+
+CREATE UNIQUE INDEX uq_analytics_diagnosis_rollup_key
+    ON analytics_diagnosis_rollup (organization_id, grain, period_start, clinic_id, doctor_id,
+        COALESCE(specialty_id, '00000000-0000-0000-0000-000000000000'::uuid), diagnosis_id);
@@ -9,14 +9,19 @@ import io.quarkus.test.junit.*;
 import io.quarkus.test.security.*;
 import io.restassured.http.*;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.StreamingOutput;
 import org.junit.jupiter.api.*;
 
+import java.io.*;
+import java.nio.charset.*;
 import java.time.*;
 import java.util.*;
+import java.util.zip.*;
 
 import static io.restassured.RestAssured.*;
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @QuarkusTest
@@ -108,7 +113,7 @@ class LabOrderControllerTest {
     @Test
     @TestSecurity(user = "doctor-user", roles = {"doctor"})
     void getLabOrdersByPatient_asDoctor_returns200() {
-        when(labOrderService.getLabOrdersByPatientId(any())).thenReturn(List.of());
+        when(labOrderService.getLabOrdersByPatientId(any(), any())).thenReturn(new HistoryList<>(List.of(), false));
 
         given()
             .when().get("/api/v1/lab-orders/patient/" + UUID.randomUUID())
@@ -118,11 +123,13 @@ class LabOrderControllerTest {
     @Test
     @TestSecurity(user = "admin-user", roles = {"admin"})
     void getLabOrdersByPatient_asAdmin_returns200() {
-        when(labOrderService.getLabOrdersByPatientId(any())).thenReturn(List.of(labOrderDto()));
+        when(labOrderService.getLabOrdersByPatientId(any(), any()))
+                .thenReturn(new HistoryList<>(List.of(labOrderDto()), true));
 
         given()
             .when().get("/api/v1/lab-orders/patient/" + UUID.randomUUID())
             .then().statusCode(200)
+                   .header("X-Has-More", "true")
                    .body("size()", is(1));
     }
 
@@ -344,6 +351,164 @@ class LabOrderControllerTest {
             .then().statusCode(403);
     }
 
+    // ========== GET /lab-orders/attachments/{attachmentId}/download ==========
+
+    @Test
+    @TestSecurity(user = "doctor-user", roles = {"doctor"})
+    void downloadAttachment_withoutRange_returnsFullContentWithEtag() {
+        when(labOrderService.getAttachmentDownload(any(), anyBoolean())).thenReturn(downloadInfo("0123456789"));
+
+        given()
+            .when().get("/api/v1/lab-orders/attachments/" + UUID.randomUUID() + "/download")
+            .then().statusCode(200)
+            .header("ETag", "\"abc\"")
+            .header("Accept-Ranges", "bytes")
+            .header("Content-Length", "10")
+            .body(equalTo("0123456789"));
+    }
+
+    @Test
+    @TestSecurity(user = "doctor-user", roles = {"doctor"})
+    void downloadAttachment_withRange_returns206() {
+        when(labOrderService.getAttachmentDownload(any(), anyBoolean())).thenReturn(downloadInfo("0123456789"));
+
+        given()
+            .header("Range", "bytes=2-5")
+            .when().get("/api/v1/lab-orders/attachments/" + UUID.randomUUID() + "/download")
+            .then().statusCode(206)
+            .header("Content-Range", "bytes 2-5/10")
+            .header("Content-Length", "4")
+            .body(equalTo("2345"));
+    }
+
+    @Test
+    @TestSecurity(user = "doctor-user", roles = {"doctor"})
+    void downloadAttachment_rangeWithMatchingIfRange_returns206() {
+        when(labOrderService.getAttachmentDownload(any(), anyBoolean())).thenReturn(downloadInfo("0123456789"));
+
+        given()
+            .header("Range", "bytes=2-5")
+            .header("If-Range", "\"abc\"")
+            .when().get("/api/v1/lab-orders/attachments/" + UUID.randomUUID() + "/download")
+            .then().statusCode(206)
+            .body(equalTo("2345"));
+    }
+
+    @Test
+    @TestSecurity(user = "doctor-user", roles = {"doctor"})
+    void downloadAttachment_rangeWithWeakIfRange_returnsFullContent() {
+        when(labOrderService.getAttachmentDownload(any(), anyBoolean())).thenReturn(downloadInfo("0123456789"));
+
+        given()
+            .header("Range", "bytes=2-5")
+            .header("If-Range", "W/\"abc\"")
+            .when().get("/api/v1/lab-orders/attachments/" + UUID.randomUUID() + "/download")
+            .then().statusCode(200)
+            .header("Content-Length", "10")
+            .body(equalTo("0123456789"));
+    }
+
+    @Test
+    @TestSecurity(user = "doctor-user", roles = {"doctor"})
+    void downloadAttachment_rangeWithStaleIfRange_returnsFullContent() {
+        when(labOrderService.getAttachmentDownload(any(), anyBoolean())).thenReturn(downloadInfo("0123456789"));
+
+        given()
+            .header("Range", "bytes=2-5")
+            .header("If-Range", "\"old\"")
+            .when().get("/api/v1/lab-orders/attachments/" + UUID.randomUUID() + "/download")
+            .then().statusCode(200)
+            .body(equalTo("0123456789"));
+    }
+
+    @Test
+    @TestSecurity(user = "doctor-user", roles = {"doctor"})
+    void downloadAttachment_rangeOutOfBounds_returns416() {
+        when(labOrderService.getAttachmentDownload(any(), anyBoolean())).thenReturn(downloadInfo("0123456789"));
+
+        given()
+            .header("Range", "bytes=20-")
+            .when().get("/api/v1/lab-orders/attachments/" + UUID.randomUUID() + "/download")
+            .then().statusCode(416)
+            .header("Content-Range", "bytes */10");
+    }
+
+    @Test
+    @TestSecurity(user = "doctor-user", roles = {"doctor"})
+    void downloadAttachment_matchingIfNoneMatch_returns304() {
+        when(labOrderService.getAttachmentDownload(any(), anyBoolean())).thenReturn(downloadInfo("0123456789"));
+
+        given()
+            .header("If-None-Match", "\"abc\"")
+            .when().get("/api/v1/lab-orders/attachments/" + UUID.randomUUID() + "/download")
+            .then().statusCode(304);
+    }
+
+    @Test
+    @TestSecurity(user = "doctor-user", roles = {"doctor"})
+    void downloadAttachment_compressedAndAccepted_sendsContentEncoding() throws Exception {
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(gzip)) {
+            out.write("%PDF-1.7 resultado".getBytes(StandardCharsets.UTF_8));
+        }
+        byte[] data = gzip.toByteArray();
+        AttachmentDownloadInfo info = AttachmentDownloadInfo.builder()
+                .fileName("resultado.pdf")
+                .contentType("application/pdf")
+                .etag("abc-gzip")
+                .contentEncoding("gzip")
+                .size(data.length)
+                .body((offset, length) -> (StreamingOutput) output -> output.write(data, (int) offset, (int) length))
+                .build();
+        when(labOrderService.getAttachmentDownload(any(), eq(true))).thenReturn(info);
+
+        given()
+            .header("Accept-Encoding", "gzip")
+            .when().get("/api/v1/lab-orders/attachments/" + UUID.randomUUID() + "/download")
+            .then().statusCode(200)
+            .header("Content-Encoding", "gzip")
+            .header("Vary", containsString("Accept-Encoding"))
+            .body(equalTo("%PDF-1.7 resultado"));
+    }
+
+    @Test
+    @TestSecurity(user = "doctor-user", roles = {"doctor"})
+    void downloadAttachment_gzipRefused_requestsDecodedContent() {
+        when(labOrderService.getAttachmentDownload(any(), anyBoolean())).thenReturn(downloadInfo("0123456789"));
+
+        given()
+            .header("Accept-Encoding", "gzip;q=0, identity")
+            .when().get("/api/v1/lab-orders/attachments/" + UUID.randomUUID() + "/download")
+            .then().statusCode(200);
+
+        verify(labOrderService).getAttachmentDownload(any(), eq(false));
+    }
+
+    // ========== GET /lab-orders/attachments/{attachmentId}/preview ==========
+
+    @Test
+    @TestSecurity(user = "doctor-user", roles = {"doctor"})
+    void previewAttachment_available_returnsInlineCachedImage() {
+        when(labOrderService.getAttachmentPreview(any())).thenReturn(downloadInfo("jpeg"));
+
+        given()
+            .when().get("/api/v1/lab-orders/attachments/" + UUID.randomUUID() + "/preview")
+            .then().statusCode(200)
+            .header("Content-Disposition", containsString("inline;"))
+            .header("Cache-Control", containsString("max-age=86400"))
+            .body(equalTo("jpeg"));
+    }
+
+    @Test
+    @TestSecurity(user = "doctor-user", roles = {"doctor"})
+    void previewAttachment_notAvailable_returns404() {
+        when(labOrderService.getAttachmentPreview(any())).thenThrow(new NotFoundException("Preview not available"));
+
+        given()
+            .when().get("/api/v1/lab-orders/attachments/" + UUID.randomUUID() + "/preview")
+            .then().statusCode(404);
+    }
+
     // ========== DELETE /lab-orders/attachments/{attachmentId} ==========
 
     @Test
@@ -366,6 +531,17 @@ class LabOrderControllerTest {
 
     // ========== helpers ==========
 
+    private AttachmentDownloadInfo downloadInfo(String content) {
+        byte[] data = content.getBytes(StandardCharsets.UTF_8);
+        return AttachmentDownloadInfo.builder()
+                .fileName("resultado.txt")
+                .contentType("text/plain")
+                .etag("abc")
+                .size(data.length)
+                .body((offset, length) -> (StreamingOutput) output -> output.write(data, (int) offset, (int) length))
+                .build();
+    }
+
     private LabOrderDto labOrderDto() {
         return LabOrderDto.builder()
                 .id(UUID.randomUUID())
@@ -35,7 +35,7 @@ class MedicalRecordControllerTest {
     @Test
     @TestSecurity(user = "admin-user", roles = {"admin"})
     void getMedicalRecordsByPatient_asAdmin_returns200() {
-        when(medicalRecordService.getMedicalRecordsByPatientId(any())).thenReturn(List.of());
+        when(medicalRecordService.getMedicalRecordsByPatientId(any(), any())).thenReturn(new HistoryList<>(List.of(), false));
 
         given()
             .when().get("/api/v1/medical-records/patient/" + UUID.randomUUID())
@@ -45,13 +45,34 @@ class MedicalRecordControllerTest {
     @Test
     @TestSecurity(user = "doctor-user", roles = {"doctor"})
     void getMedicalRecordsByPatient_asDoctor_returns200() {
-        when(medicalRecordService.getMedicalRecordsByPatientId(any())).thenReturn(List.of());
+        when(medicalRecordService.getMedicalRecordsByPatientId(any(), any())).thenReturn(new HistoryList<>(List.of(), false));
 
         given()
             .when().get("/api/v1/medical-records/patient/" + UUID.randomUUID())
             .then().statusCode(200);
     }
 
+    @Test
+    @TestSecurity(user = "doctor-user", roles = {"doctor"})
+    void getMedicalRecordsByPatient_limitZero_returns400() {
+        given()
+            .queryParam("limit", 0)
+            .when().get("/api/v1/medical-records/patient/" + UUID.randomUUID())
+            .then().statusCode(400);
+    }
+
+    @Test
+    @TestSecurity(user = "doctor-user", roles = {"doctor"})
+    void getMedicalRecordsPageByPatient_asDoctor_returns200() {
+        when(medicalRecordService.getMedicalRecordsPageByPatientId(any(), any(), any()))
+                .thenReturn(new PageResponse<>(List.of(), 0, -1, -1));
+
+        given()
+            .queryParam("size", 20)
+            .when().get("/api/v1/medical-records/patient/" + UUID.randomUUID() + "/page")
+            .then().statusCode(200);
+    }
+
     @Test
     @TestSecurity(user = "secretary-user", roles = {"secretary"})
     void getMedicalRecordsByPatient_asSecretary_returns403() {
@@ -247,7 +268,7 @@ class MedicalRecordControllerTest {
     @Test
     @TestSecurity(user = "doctor-user", roles = {"doctor"})
     void getPrescriptionsByPatient_asDoctor_returns200() {
-        when(prescriptionService.getPrescriptionsByPatientId(any())).thenReturn(List.of());
+        when(prescriptionService.getPrescriptionsByPatientId(any(), any())).thenReturn(new HistoryList<>(List.of(), false));
 
         given()
             .when().get("/api/v1/medical-records/prescriptions/patient/" + UUID.randomUUID())
@@ -257,7 +278,7 @@ class MedicalRecordControllerTest {
     @Test
     @TestSecurity(user = "admin-user", roles = {"admin"})
     void getPrescriptionsByPatient_asAdmin_returns200() {
-        when(prescriptionService.getPrescriptionsByPatientId(any())).thenReturn(List.of());
+        when(prescriptionService.getPrescriptionsByPatientId(any(), any())).thenReturn(new HistoryList<>(List.of(), false));
 
         given()
             .when().get("/api/v1/medical-records/prescriptions/patient/" + UUID.randomUUID())
@@ -269,7 +290,7 @@ class MedicalRecordControllerTest {
     @Test
     @TestSecurity(user = "doctor-user", roles = {"doctor"})
     void getActivePrescriptionsByPatient_asDoctor_returns200() {
-        when(prescriptionService.getActivePrescriptionsByPatientId(any())).thenReturn(List.of());
+        when(prescriptionService.getActivePrescriptionsByPatientId(any(), any())).thenReturn(new HistoryList<>(List.of(), false));
 
         given()
             .when().get("/api/v1/medical-records/prescriptions/patient/" + UUID.randomUUID() + "/active")
@@ -2,6 +2,7 @@ package gt.com.xfactory.controller;
 
 import gt.com.xfactory.dto.request.*;
 import gt.com.xfactory.dto.response.*;
+import gt.com.xfactory.entity.enums.*;
 import gt.com.xfactory.service.impl.*;
 import io.quarkus.test.InjectMock;
 import io.quarkus.test.junit.*;
@@ -16,6 +17,7 @@ import java.util.*;
 import static io.restassured.RestAssured.*;
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @QuarkusTest
@@ -27,6 +29,9 @@ class PatientControllerTest {
     @InjectMock
     MedicalAppointmentService medicalAppointmentService;
 
+    @InjectMock
+    PatientTimelineService patientTimelineService;
+
     // ========== GET /patients ==========
 
     @Test
@@ -51,6 +56,67 @@ class PatientControllerTest {
             .then().statusCode(200);
     }
 
+    // ========== GET /patients/export ==========
+
+    @Test
+    @TestSecurity(user = "admin-user", roles = {"admin"})
+    void exportPatients_csvAsAdmin_returns200WithAttachment() {
+        when(patientService.exportPatients(any(), eq(ListingExportService.Format.CSV)))
+                .thenReturn(output -> output.write("id,firstName\r\n".getBytes()));
+
+        given()
+            .queryParam("format", "csv")
+            .when().get("/api/v1/patients/export")
+            .then().statusCode(200)
+                   .contentType(containsString("text/csv"))
+                   .header("Content-Disposition", containsString("pacientes.csv"))
+                   .body(containsString("id,firstName"));
+    }
+
+    @Test
+    @TestSecurity(user = "admin-user", roles = {"admin"})
+    void exportPatients_unknownFormat_returns400() {
+        given()
+            .queryParam("format", "xlsx")
+            .when().get("/api/v1/patients/export")
+            .then().statusCode(400);
+    }
+
+    @Test
+    @TestSecurity(user = "doctor-user", roles = {"doctor"})
+    void exportPatients_asDoctor_returns403() {
+        given()
+            .when().get("/api/v1/patients/export")
+            .then().statusCode(403);
+    }
+
+    // ========== GET /patients/{id}/timeline ==========
+
+    @Test
+    @TestSecurity(user = "doctor-user", roles = {"doctor"})
+    void getTimeline_asDoctor_returns200WithCursor() {
+        UUID patientId = UUID.randomUUID();
+        PageResponse<PatientTimelineEventDto> page = new PageResponse<>(List.of(
+                PatientTimelineEventDto.builder().eventType(TimelineEventType.appointment)
+                        .sourceId(UUID.randomUUID()).occurredAt(LocalDateTime.now()).build()), 0, -1, -1);
+        page.nextCursor = "next";
+        when(patientTimelineService.getTimeline(eq(patientId), any(), any())).thenReturn(page);
+
+        given()
+            .when().get("/api/v1/patients/" + patientId + "/timeline")
+            .then().statusCode(200)
+                   .body("content.size()", is(1))
+                   .body("nextCursor", is("next"));
+    }
+
+    @Test
+    @TestSecurity(user = "secretary-user", roles = {"secretary"})
+    void getTimeline_asSecretary_returns403() {
+        given()
+            .when().get("/api/v1/patients/" + UUID.randomUUID() + "/timeline")
+            .then().statusCode(403);
+    }
+
     // ========== GET /patients/search ==========
 
     @Test
@@ -0,0 +1,131 @@
+package gt.com.xfactory.repository;
+
+import gt.com.xfactory.entity.enums.*;
+import jakarta.persistence.*;
+import org.junit.jupiter.api.*;
+
+import java.sql.Date;
+import java.time.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AnalyticsRollupRepositoryTest {
+
+    private final EntityManager em = mock(EntityManager.class);
+    private final AnalyticsRollupRepository repository = spy(new AnalyticsRollupRepository());
+
+    // Sentencias en el orden en que se crean, con su Query
+    private final List<String> statements = new ArrayList<>();
+    private final List<Query> queries = new ArrayList<>();
+    private List<Object[]> dirtyRows = List.of();
+
+    @BeforeEach
+    void setUp() {
+        when(em.createNativeQuery(anyString())).thenAnswer(inv -> {
+            String sql = inv.getArgument(0);
+            Query query = mock(Query.class);
+            when(query.setParameter(anyString(), any())).thenReturn(query);
+            when(query.getResultList()).thenAnswer(r -> dirtyRows);
+            statements.add(sql);
+            queries.add(query);
+            return query;
+        });
+        doReturn(em).when(repository).getEntityManager();
+    }
+
+    @Test
+    void claimDirtyDays_locksSkippingClaimedRowsAndDeletesPerOrganization() {
+        LocalDate day = LocalDate.of(2025, 3, 10);
+        dirtyRows = List.of(
+                new Object[]{"org-1", Date.valueOf(day)},
+                new Object[]{"org-1", Date.valueOf(day.plusDays(1))},
+                new Object[]{"org-2", day});
+
+        Map<String, List<LocalDate>> claimed = repository.claimDirtyDays(50);
+
+        assertEquals(Map.of("org-1", List.of(day, day.plusDays(1)), "org-2", List.of(day)), claimed);
+        // Otro job concurrente salta las filas tomadas en lugar de esperar su commit
+        assertTrue(statements.get(0).contains("FOR UPDATE SKIP LOCKED"));
+        verify(queries.get(0)).setParameter("limit", 50);
+        assertEquals(3, statements.size());
+        assertTrue(statements.get(1).startsWith("DELETE FROM analytics_dirty_day"));
+        verify(queries.get(1)).setParameter("organizationId", "org-1");
+        verify(queries.get(1)).setParameter("days", List.of(day, day.plusDays(1)));
+        verify(queries.get(2)).setParameter("organizationId", "org-2");
+        verify(queries.get(2)).setParameter("days", List.of(day));
+    }
+
+    @Test
+    void claimDirtyDays_nothingPending_deletesNothing() {
+        assertTrue(repository.claimDirtyDays(50).isEmpty());
+
+        assertEquals(1, statements.size());
+    }
+
+    @Test
+    void rebuildDays_replacesDayRollupsWithinDayRange() {
+        LocalDate first = LocalDate.of(2025, 3, 10);
+        LocalDate last = LocalDate.of(2025, 3, 14);
+        List<LocalDate> days = List.of(last, first);
+
+        repository.rebuildDays("org-1", days);
+
+        // Bloqueo por organización y, por tabla, primero se borran los días y luego se vuelven a insertar
+        assertEquals(5, statements.size());
+        assertTrue(statements.get(0).contains("pg_advisory_xact_lock"));
+        verify(queries.get(0)).setParameter("key", "analytics_rollup:org-1");
+        assertTrue(statements.get(1).startsWith("DELETE FROM analytics_appointment_rollup"));
+        assertTrue(statements.get(2).contains("INSERT INTO analytics_appointment_rollup"));
+        assertTrue(statements.get(3).startsWith("DELETE FROM analytics_diagnosis_rollup"));
+        assertTrue(statements.get(4).contains("INSERT INTO analytics_diagnosis_rollup"));
+        verify(queries.get(1)).setParameter("grain", "day");
+        verify(queries.get(1)).setParameter("periods", days);
+        for (Query insert : List.of(queries.get(2), queries.get(4))) {
+            verify(insert).setParameter("organizationId", "org-1");
+            verify(insert).setParameter("from", first.atStartOfDay());
+            verify(insert).setParameter("to", last.plusDays(1).atStartOfDay());
+            verify(insert).setParameter("days", days);
+            verify(insert).executeUpdate();
+        }
+    }
+
+    @Test
+    void rebuildPeriods_week_sumsDayRollupsUpToEndOfLastWeek() {
+        LocalDate firstWeek = LocalDate.of(2025, 3, 3);
+        LocalDate lastWeek = LocalDate.of(2025, 3, 10);
+        List<LocalDate> weeks = List.of(firstWeek, lastWeek);
+
+        repository.rebuildPeriods("org-1", AnalyticsGrain.week, weeks);
+
+        // Dos jobs con días de la misma semana duplicarían el rollup semanal sin el bloqueo
+        assertEquals(5, statements.size());
+        assertTrue(statements.get(0).contains("pg_advisory_xact_lock"));
+        verify(queries.get(0)).setParameter("key", "analytics_rollup:org-1");
+        verify(queries.get(1)).setParameter("grain", "week");
+        verify(queries.get(1)).setParameter("periods", weeks);
+        assertTrue(statements.get(2).contains("FROM analytics_appointment_rollup"));
+        assertTrue(statements.get(2).contains("grain = 'day'"));
+        for (Query insert : List.of(queries.get(2), queries.get(4))) {
+            verify(insert).setParameter("grain", "week");
+            verify(insert).setParameter("from", firstWeek);
+            verify(insert).setParameter("to", lastWeek.plusWeeks(1));
+            verify(insert).setParameter("periods", weeks);
+        }
+    }
+
+    @Test
+    void markDirtyRange_allOrganizations_bindsNullOrganizationAndHalfOpenRange() {
+        LocalDate from = LocalDate.of(2025, 1, 1);
+        LocalDate to = LocalDate.of(2025, 2, 1);
+
+        repository.markDirtyRange(null, from, to);
+
+        assertTrue(statements.get(0).contains("CAST(:organizationId AS VARCHAR) IS NULL"));
+        verify(queries.get(0)).setParameter("organizationId", null);
+        verify(queries.get(0)).setParameter("from", from.atStartOfDay());
+        verify(queries.get(0)).setParameter("to", to.atStartOfDay());
+    }
+}
@@ -0,0 +1,71 @@
+package gt.com.xfactory.repository;
+
+import gt.com.xfactory.entity.*;
+import gt.com.xfactory.entity.enums.*;
+import jakarta.persistence.*;
+import org.junit.jupiter.api.*;
+import org.mockito.*;
+
+import java.time.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AppointmentDailyStatsRepositoryTest {
+
+    private final EntityManager em = mock(EntityManager.class);
+    private final Query query = mock(Query.class);
+    private final AppointmentDailyStatsRepository repository = spy(new AppointmentDailyStatsRepository());
+
+    @BeforeEach
+    void setUp() {
+        when(query.setParameter(anyString(), any())).thenReturn(query);
+        when(em.createNativeQuery(anyString())).thenReturn(query);
+        doReturn(em).when(repository).getEntityManager();
+    }
+
+    @Test
+    void increment_upsertsAddingDeltaToExistingCount() {
+        UUID clinicId = UUID.randomUUID();
+        UUID doctorId = UUID.randomUUID();
+        LocalDate day = LocalDate.of(2025, 3, 10);
+
+        repository.increment("org-1", new AppointmentDailyStatsId(clinicId, doctorId, day, AppointmentStatus.confirmed), -1);
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(em).createNativeQuery(sql.capture());
+        // Un solo statement: el upsert no puede perder incrementos concurrentes del mismo día
+        assertTrue(sql.getValue().contains("ON CONFLICT (clinic_id, doctor_id, day, status)"));
+        assertTrue(sql.getValue().contains(
+                "appointment_count = appointment_daily_stats.appointment_count + EXCLUDED.appointment_count"));
+        verify(query).setParameter("clinicId", clinicId);
+        verify(query).setParameter("doctorId", doctorId);
+        verify(query).setParameter("day", day);
+        // El enum se guarda por nombre, igual que en la entidad
+        verify(query).setParameter("status", "confirmed");
+        verify(query).setParameter("delta", -1);
+        verify(query).setParameter("organizationId", "org-1");
+        verify(query).executeUpdate();
+    }
+
+    @Test
+    void recomputeDays_locksAndReplacesWindowFromAppointments() {
+        LocalDate from = LocalDate.of(2025, 3, 1);
+        LocalDate to = LocalDate.of(2025, 4, 1);
+
+        repository.recomputeDays(from, to);
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(em, times(3)).createNativeQuery(sql.capture());
+        // Los increment concurrentes esperan al recálculo en lugar de perderse entre el DELETE y el INSERT
+        assertTrue(sql.getAllValues().get(0).startsWith("LOCK TABLE appointment_daily_stats"));
+        assertTrue(sql.getAllValues().get(1).startsWith("DELETE FROM appointment_daily_stats"));
+        assertTrue(sql.getAllValues().get(2).contains("FROM medical_appointment"));
+        verify(query).setParameter("from", from);
+        verify(query).setParameter("to", to);
+        verify(query).setParameter("from", from.atStartOfDay());
+        verify(query).setParameter("to", to.atStartOfDay());
+    }
+}
@@ -0,0 +1,116 @@
+package gt.com.xfactory.service;
+
+import gt.com.xfactory.entity.enums.*;
+import gt.com.xfactory.repository.*;
+import gt.com.xfactory.service.event.*;
+import gt.com.xfactory.service.event.AppointmentChangedEvent.*;
+import gt.com.xfactory.service.impl.*;
+import io.quarkus.test.InjectMock;
+import io.quarkus.test.junit.*;
+import jakarta.enterprise.event.*;
+import jakarta.inject.*;
+import org.junit.jupiter.api.*;
+
+import java.time.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@QuarkusTest
+@TestProfile(AnalyticsRollupServiceTest.RollupsEnabled.class)
+class AnalyticsRollupServiceTest {
+
+    public static class RollupsEnabled implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            // Sin scheduler: los jobs se invocan a mano y no deben correr a la vez
+            return Map.of("analytics.rollup.enabled", "true", "analytics.rollup.batch-days", "200",
+                    "quarkus.scheduler.enabled", "false");
+        }
+    }
+
+    @InjectMock
+    AnalyticsRollupRepository analyticsRollupRepository;
+
+    @Inject
+    AnalyticsRollupService analyticsRollupService;
+
+    @Inject
+    Event<AppointmentChangedEvent> appointmentChanged;
+
+    @Inject
+    TenantScopedExecutor tenantScopedExecutor;
+
+    // Lunes 10 y miércoles 12 de marzo, domingo 30 y lunes 31 (otra semana, mismo mes)
+    private final LocalDate monday = LocalDate.of(2025, 3, 10);
+    private final LocalDate wednesday = LocalDate.of(2025, 3, 12);
+    private final LocalDate sunday = LocalDate.of(2025, 3, 30);
+    private final LocalDate nextMonday = LocalDate.of(2025, 3, 31);
+
+    @Test
+    void appointmentChanged_rescheduled_marksBothDays() {
+        appointmentChanged.fire(new AppointmentChangedEvent(UUID.randomUUID(),
+                snapshot(monday, AppointmentStatus.scheduled), snapshot(wednesday, AppointmentStatus.scheduled)));
+
+        verify(analyticsRollupRepository).markDirty("org-1", monday);
+        verify(analyticsRollupRepository).markDirty("org-1", wednesday);
+        verifyNoMoreInteractions(analyticsRollupRepository);
+    }
+
+    @Test
+    void appointmentChanged_statusChangeSameDay_marksDayOnce() {
+        appointmentChanged.fire(new AppointmentChangedEvent(UUID.randomUUID(),
+                snapshot(monday, AppointmentStatus.confirmed), snapshot(monday, AppointmentStatus.completed)));
+
+        verify(analyticsRollupRepository).markDirty("org-1", monday);
+        verifyNoMoreInteractions(analyticsRollupRepository);
+    }
+
+    @Test
+    void refreshDirtyDays_rebuildsClaimedDaysAndTheirWeeksAndMonths() {
+        Map<String, List<LocalDate>> claimed = new TreeMap<>();
+        claimed.put("org-1", List.of(monday, wednesday, sunday, nextMonday));
+        claimed.put("org-2", List.of(monday));
+        when(analyticsRollupRepository.claimDirtyDays(200)).thenReturn(claimed);
+
+        analyticsRollupService.refreshDirtyDays();
+
+        verify(analyticsRollupRepository).claimDirtyDays(200);
+        verify(analyticsRollupRepository).rebuildDays("org-1", List.of(monday, wednesday, sunday, nextMonday));
+        verify(analyticsRollupRepository).rebuildPeriods("org-1", AnalyticsGrain.week,
+                List.of(LocalDate.of(2025, 3, 10), LocalDate.of(2025, 3, 24), nextMonday));
+        verify(analyticsRollupRepository).rebuildPeriods("org-1", AnalyticsGrain.month, List.of(LocalDate.of(2025, 3, 1)));
+        verify(analyticsRollupRepository).rebuildDays("org-2", List.of(monday));
+        verify(analyticsRollupRepository).rebuildPeriods("org-2", AnalyticsGrain.week, List.of(monday));
+        verify(analyticsRollupRepository).rebuildPeriods("org-2", AnalyticsGrain.month, List.of(LocalDate.of(2025, 3, 1)));
+    }
+
+    @Test
+    void refreshDirtyDays_nothingClaimed_rebuildsNothing() {
+        // Días tomados por otro job (SKIP LOCKED): esta ejecución no recibe ninguno
+        when(analyticsRollupRepository.claimDirtyDays(anyInt())).thenReturn(Map.of());
+
+        analyticsRollupService.refreshDirtyDays();
+
+        verify(analyticsRollupRepository, never()).rebuildDays(any(), any());
+        verify(analyticsRollupRepository, never()).rebuildPeriods(any(), any(), any());
+    }
+
+    @Test
+    void requestRefresh_marksCurrentTenantIncludingLastDay() {
+        String tenantId = UUID.randomUUID().toString();
+        when(analyticsRollupRepository.markDirtyRange(any(), any(), any())).thenReturn(5);
+
+        int marked = tenantScopedExecutor.call(tenantId, () -> analyticsRollupService.requestRefresh(monday, sunday));
+
+        assertEquals(5, marked);
+        // El rango del repositorio es semiabierto: to se corre un día para incluir el domingo
+        verify(analyticsRollupRepository).markDirtyRange(tenantId, monday, nextMonday);
+    }
+
+    private Snapshot snapshot(LocalDate day, AppointmentStatus status) {
+        return new Snapshot("org-1", UUID.randomUUID(), UUID.randomUUID(), day, status);
+    }
+}
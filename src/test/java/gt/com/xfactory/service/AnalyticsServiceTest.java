@@ -0,0 +1,89 @@
+package gt.com.xfactory.service;
+
+import gt.com.xfactory.entity.enums.*;
+import gt.com.xfactory.repository.*;
+import gt.com.xfactory.service.event.*;
+import gt.com.xfactory.service.event.AppointmentChangedEvent.*;
+import gt.com.xfactory.service.impl.*;
+import io.quarkus.test.InjectMock;
+import io.quarkus.test.junit.*;
+import jakarta.enterprise.event.*;
+import jakarta.inject.*;
+import jakarta.ws.rs.*;
+import org.junit.jupiter.api.*;
+
+import java.time.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@QuarkusTest
+class AnalyticsServiceTest {
+
+    @InjectMock
+    AnalyticsRollupRepository analyticsRollupRepository;
+
+    @Inject
+    AnalyticsService analyticsService;
+
+    @Inject
+    AnalyticsRollupService analyticsRollupService;
+
+    @Inject
+    Event<AppointmentChangedEvent> appointmentChanged;
+
+    private final LocalDate from = LocalDate.of(2024, 1, 1);
+    private final LocalDate to = LocalDate.of(2026, 12, 31);
+
+    @Test
+    void getAppointmentTrends_missingRange_throwsBadRequest() {
+        assertThrows(BadRequestException.class,
+                () -> analyticsService.getAppointmentTrends(null, to, AnalyticsGrain.month, null, null, null, null));
+    }
+
+    @Test
+    void getAppointmentTrends_fromAfterTo_throwsBadRequest() {
+        assertThrows(BadRequestException.class,
+                () -> analyticsService.getAppointmentTrends(to, from, AnalyticsGrain.month, null, null, null, null));
+    }
+
+    @Test
+    void getAppointmentTrends_multiYearDaily_throwsBadRequest() {
+        assertThrows(BadRequestException.class,
+                () -> analyticsService.getAppointmentTrends(from, to, AnalyticsGrain.day, null, null, null, null));
+    }
+
+    @Test
+    void getAppointmentTrends_unknownGroup_throwsBadRequest() {
+        assertThrows(BadRequestException.class,
+                () -> analyticsService.getAppointmentTrends(from, to, AnalyticsGrain.month, "patient", null, null, null));
+    }
+
+    @Test
+    void getTopDiagnoses_limitOutOfRange_throwsBadRequest() {
+        assertThrows(BadRequestException.class,
+                () -> analyticsService.getTopDiagnoses(from, to, AnalyticsGrain.month, 0, null, null, null));
+    }
+
+    @Test
+    void grain_periodStart_alignsToWeekAndMonth() {
+        LocalDate wednesday = LocalDate.of(2026, 10, 14);
+
+        assertEquals(wednesday, AnalyticsGrain.day.periodStart(wednesday));
+        assertEquals(LocalDate.of(2026, 10, 12), AnalyticsGrain.week.periodStart(wednesday));
+        assertEquals(LocalDate.of(2026, 10, 1), AnalyticsGrain.month.periodStart(wednesday));
+        assertEquals(LocalDate.of(2026, 11, 1), AnalyticsGrain.month.next(LocalDate.of(2026, 10, 1)));
+    }
+
+    @Test
+    void appointmentChanged_rollupsDisabled_doesNotMarkDays() {
+        Snapshot snapshot = new Snapshot("org", UUID.randomUUID(), UUID.randomUUID(), LocalDate.now(),
+                AppointmentStatus.scheduled);
+
+        appointmentChanged.fire(new AppointmentChangedEvent(UUID.randomUUID(), null, snapshot));
+
+        assertFalse(analyticsRollupService.isEnabled());
+        verifyNoInteractions(analyticsRollupRepository);
+    }
+}
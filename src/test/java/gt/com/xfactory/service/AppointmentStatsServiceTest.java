@@ -0,0 +1,212 @@
+package gt.com.xfactory.service;
+
+import gt.com.xfactory.entity.*;
+import gt.com.xfactory.entity.enums.*;
+import gt.com.xfactory.repository.*;
+import gt.com.xfactory.service.event.*;
+import gt.com.xfactory.service.event.AppointmentChangedEvent.*;
+import gt.com.xfactory.service.impl.*;
+import io.quarkus.test.InjectMock;
+import io.quarkus.test.junit.*;
+import jakarta.enterprise.event.*;
+import jakarta.inject.*;
+import jakarta.persistence.*;
+import org.junit.jupiter.api.*;
+import org.mockito.*;
+
+import java.time.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@QuarkusTest
+@TestProfile(AppointmentStatsServiceTest.StatsEnabled.class)
+class AppointmentStatsServiceTest {
+
+    public static class StatsEnabled implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            // Sin scheduler: la expiración se invoca a mano y no debe correr a la vez
+            return Map.of("dashboard.stats.enabled", "true", "quarkus.scheduler.enabled", "false");
+        }
+    }
+
+    @InjectMock
+    AppointmentDailyStatsRepository appointmentDailyStatsRepository;
+
+    @InjectMock
+    MedicalAppointmentRepository medicalAppointmentRepository;
+
+    @InjectMock
+    NotificationService notificationService;
+
+    @Inject
+    Event<AppointmentChangedEvent> appointmentChanged;
+
+    @Inject
+    AppointmentStatsService appointmentStatsService;
+
+    @Inject
+    AppointmentSchedulerService appointmentSchedulerService;
+
+    @Inject
+    TenantScopedExecutor tenantScopedExecutor;
+
+    private final UUID clinicId = UUID.randomUUID();
+    private final UUID doctorId = UUID.randomUUID();
+    private final LocalDate day = LocalDate.of(2025, 3, 10);
+
+    @Test
+    void appointmentChanged_created_incrementsNewCounter() {
+        appointmentChanged.fire(new AppointmentChangedEvent(UUID.randomUUID(), null,
+                snapshot("org-1", day, AppointmentStatus.scheduled)));
+
+        verify(appointmentDailyStatsRepository).increment("org-1", id(day, AppointmentStatus.scheduled), 1);
+        verifyNoMoreInteractions(appointmentDailyStatsRepository);
+    }
+
+    @Test
+    void appointmentChanged_statusTransition_movesCounter() {
+        appointmentChanged.fire(new AppointmentChangedEvent(UUID.randomUUID(),
+                snapshot("org-1", day, AppointmentStatus.confirmed), snapshot("org-1", day, AppointmentStatus.completed)));
+
+        verify(appointmentDailyStatsRepository).increment("org-1", id(day, AppointmentStatus.confirmed), -1);
+        verify(appointmentDailyStatsRepository).increment("org-1", id(day, AppointmentStatus.completed), 1);
+        verifyNoMoreInteractions(appointmentDailyStatsRepository);
+    }
+
+    @Test
+    void appointmentChanged_rescheduled_movesCounterToNewDay() {
+        LocalDate newDay = day.plusDays(3);
+
+        appointmentChanged.fire(new AppointmentChangedEvent(UUID.randomUUID(),
+                snapshot("org-1", day, AppointmentStatus.scheduled), snapshot("org-1", newDay, AppointmentStatus.scheduled)));
+
+        verify(appointmentDailyStatsRepository).increment("org-1", id(day, AppointmentStatus.scheduled), -1);
+        verify(appointmentDailyStatsRepository).increment("org-1", id(newDay, AppointmentStatus.scheduled), 1);
+        verifyNoMoreInteractions(appointmentDailyStatsRepository);
+    }
+
+    @Test
+    void appointmentChanged_sameCounters_writesNothing() {
+        // Un cambio de hora o de motivo dentro del mismo día no mueve contadores
+        appointmentChanged.fire(new AppointmentChangedEvent(UUID.randomUUID(),
+                snapshot("org-1", day, AppointmentStatus.scheduled), snapshot("org-1", day, AppointmentStatus.scheduled)));
+
+        verifyNoInteractions(appointmentDailyStatsRepository);
+    }
+
+    @Test
+    void appointmentChanged_deleted_decrementsCounter() {
+        appointmentChanged.fire(new AppointmentChangedEvent(UUID.randomUUID(),
+                snapshot("org-1", day, AppointmentStatus.cancelled), null));
+
+        verify(appointmentDailyStatsRepository).increment("org-1", id(day, AppointmentStatus.cancelled), -1);
+        verifyNoMoreInteractions(appointmentDailyStatsRepository);
+    }
+
+    @Test
+    void appointmentChanged_newAppointmentWithoutOrganization_usesCurrentTenant() {
+        String tenantId = UUID.randomUUID().toString();
+
+        // Alta todavía sin insertar: organizationId se asigna en el insert
+        tenantScopedExecutor.call(tenantId, () -> {
+            appointmentChanged.fire(new AppointmentChangedEvent(UUID.randomUUID(), null,
+                    snapshot(null, day, AppointmentStatus.scheduled)));
+            return null;
+        });
+
+        verify(appointmentDailyStatsRepository).increment(tenantId, id(day, AppointmentStatus.scheduled), 1);
+    }
+
+    @Test
+    void expireOverdueAppointments_movesCountersToExpiredInAppointmentTenant() {
+        UUID appointmentId = UUID.randomUUID();
+        LocalDateTime date = day.atTime(9, 30);
+        Query select = query();
+        when(select.getResultList()).thenReturn(List.<Object[]>of(new Object[]{appointmentId.toString(), doctorId.toString(),
+                "María López", date, "org-2", clinicId.toString(), "confirmed"}));
+        Query update = query();
+        EntityManager em = mock(EntityManager.class);
+        when(em.createNativeQuery(startsWith("SELECT"))).thenReturn(select);
+        when(em.createNativeQuery(startsWith("UPDATE"))).thenReturn(update);
+        when(medicalAppointmentRepository.getEntityManager()).thenReturn(em);
+
+        // El job corre con el tenant por defecto; el contador es el de la organización de la cita
+        appointmentSchedulerService.expireOverdueAppointments();
+
+        // Solo se descuenta el estado leído con la cita bloqueada, y el UPDATE vuelve a comprobarlo
+        verify(em).createNativeQuery(contains("FOR UPDATE OF ma SKIP LOCKED"));
+        verify(em).createNativeQuery(contains("AND status IN ('scheduled', 'confirmed')"));
+        verify(update).executeUpdate();
+        verify(appointmentDailyStatsRepository).increment("org-2", id(day, AppointmentStatus.confirmed), -1);
+        verify(appointmentDailyStatsRepository).increment("org-2", id(day, AppointmentStatus.expired), 1);
+        verifyNoMoreInteractions(appointmentDailyStatsRepository);
+    }
+
+    @Test
+    void expireOverdueAppointments_nothingToExpire_firesNoEvents() {
+        Query select = query();
+        when(select.getResultList()).thenReturn(List.of());
+        EntityManager em = mock(EntityManager.class);
+        when(em.createNativeQuery(anyString())).thenReturn(select);
+        when(medicalAppointmentRepository.getEntityManager()).thenReturn(em);
+
+        // Citas ya tomadas por otra transacción (SKIP LOCKED) o cambiadas de estado: no se tocan
+        appointmentSchedulerService.expireOverdueAppointments();
+
+        verify(em, never()).createNativeQuery(startsWith("UPDATE"));
+        verifyNoInteractions(appointmentDailyStatsRepository);
+    }
+
+    @Test
+    void reconcileRecentDays_recomputesWindowAroundToday() {
+        LocalDate today = LocalDate.now();
+
+        appointmentStatsService.reconcileRecentDays();
+
+        verify(appointmentDailyStatsRepository).recomputeDays(today.minusDays(30), today.plusDays(31));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void countsByDay_clinicFilter_groupsRowsByDayAndStatus() {
+        TypedQuery<Object[]> query = mock(TypedQuery.class);
+        when(query.setParameter(anyString(), any())).thenReturn(query);
+        when(query.getResultList()).thenReturn(List.of(
+                new Object[]{day, AppointmentStatus.completed, 3L},
+                new Object[]{day, AppointmentStatus.cancelled, 1L},
+                new Object[]{day.plusDays(1), AppointmentStatus.completed, 2L}));
+        EntityManager em = mock(EntityManager.class);
+        when(em.createQuery(anyString(), eq(Object[].class))).thenReturn(query);
+
+        Map<LocalDate, Map<AppointmentStatus, Long>> counts =
+                appointmentStatsService.countsByDay(em, day, day.plusDays(7), clinicId, null);
+
+        assertEquals(Map.of(AppointmentStatus.completed, 3L, AppointmentStatus.cancelled, 1L), counts.get(day));
+        assertEquals(Map.of(AppointmentStatus.completed, 2L), counts.get(day.plusDays(1)));
+        ArgumentCaptor<String> jpql = ArgumentCaptor.forClass(String.class);
+        verify(em).createQuery(jpql.capture(), eq(Object[].class));
+        assertTrue(jpql.getValue().contains("s.id.clinicId = :clinicId"));
+        assertFalse(jpql.getValue().contains(":doctorId"));
+        verify(query).setParameter("from", day);
+        verify(query).setParameter("to", day.plusDays(7));
+        verify(query).setParameter("clinicId", clinicId);
+    }
+
+    private Snapshot snapshot(String organizationId, LocalDate snapshotDay, AppointmentStatus status) {
+        return new Snapshot(organizationId, clinicId, doctorId, snapshotDay, status);
+    }
+
+    private AppointmentDailyStatsId id(LocalDate statsDay, AppointmentStatus status) {
+        return new AppointmentDailyStatsId(clinicId, doctorId, statsDay, status);
+    }
+
+    private Query query() {
+        Query query = mock(Query.class);
+        when(query.setParameter(anyString(), any())).thenReturn(query);
+        return query;
+    }
+}
@@ -0,0 +1,85 @@
+package gt.com.xfactory.service;
+
+import gt.com.xfactory.entity.enums.*;
+import gt.com.xfactory.service.impl.*;
+import gt.com.xfactory.service.storage.*;
+import io.quarkus.test.junit.*;
+import io.quarkus.test.junit.mockito.*;
+import jakarta.inject.*;
+import org.junit.jupiter.api.*;
+
+import javax.imageio.*;
+import java.awt.image.*;
+import java.io.*;
+import java.nio.charset.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@QuarkusTest
+class AttachmentPreviewServiceTest {
+
+    @InjectSpy
+    BlobStore blobStore;
+
+    @Inject
+    AttachmentPreviewService attachmentPreviewService;
+
+    @Test
+    void generate_undecodablePdf_storesEmptyMarker() throws Exception {
+        String hash = publish(("%PDF-1.4 dañado " + UUID.randomUUID()).getBytes(StandardCharsets.UTF_8));
+
+        attachmentPreviewService.generate(hash, "application/pdf", ContentEncoding.identity);
+
+        try (InputStream in = blobStore.openDerived(hash, AttachmentPreviewService.VARIANT)) {
+            assertEquals(0, in.readAllBytes().length);
+        }
+    }
+
+    @Test
+    void generate_readFailure_leavesNoMarker() throws Exception {
+        String hash = publish(png());
+        doThrow(new IOException("disco no disponible")).when(blobStore).open(hash);
+
+        attachmentPreviewService.generate(hash, "image/png", ContentEncoding.identity);
+
+        // Sin marca: la próxima consulta lo vuelve a intentar
+        assertFalse(blobStore.derivedExists(hash, AttachmentPreviewService.VARIANT));
+    }
+
+    @Test
+    void generate_objectPurgedWhileRendering_leavesNoOrphanPreview() throws Exception {
+        String hash = publish(png());
+        doAnswer(inv -> {
+            byte[] content;
+            try (InputStream in = (InputStream) inv.callRealMethod()) {
+                content = in.readAllBytes();
+            }
+            // La purga borra el objeto mientras se genera la vista previa
+            blobStore.delete(hash);
+            return new ByteArrayInputStream(content);
+        }).when(blobStore).open(hash);
+
+        attachmentPreviewService.generate(hash, "image/png", ContentEncoding.identity);
+
+        verify(blobStore).putDerived(eq(hash), eq(AttachmentPreviewService.VARIANT), any());
+        assertFalse(blobStore.derivedExists(hash, AttachmentPreviewService.VARIANT));
+    }
+
+    private String publish(byte[] content) throws IOException {
+        StagedBlob staged = blobStore.stage(new ByteArrayInputStream(content));
+        blobStore.publish(staged);
+        return staged.hash();
+    }
+
+    private byte[] png() throws IOException {
+        // Contenido distinto en cada prueba para no compartir el objeto
+        BufferedImage image = new BufferedImage(40, 20, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, new Random().nextInt());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}
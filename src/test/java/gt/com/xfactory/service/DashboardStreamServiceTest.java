@@ -0,0 +1,202 @@
+package gt.com.xfactory.service;
+
+import gt.com.xfactory.dto.response.*;
+import gt.com.xfactory.dto.response.DashboardWidgetsDto.*;
+import gt.com.xfactory.entity.DashboardWidgetConfigEntity.*;
+import gt.com.xfactory.entity.enums.*;
+import gt.com.xfactory.service.event.*;
+import gt.com.xfactory.service.event.AppointmentChangedEvent.*;
+import gt.com.xfactory.service.impl.*;
+import gt.com.xfactory.service.widget.*;
+import io.quarkus.test.InjectMock;
+import io.quarkus.test.junit.mockito.*;
+import io.quarkus.test.junit.*;
+import io.smallrye.mutiny.*;
+import io.smallrye.mutiny.helpers.test.*;
+import jakarta.inject.*;
+import org.junit.jupiter.api.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@QuarkusTest
+class DashboardStreamServiceTest {
+
+    @InjectMock
+    DashboardWidgetService dashboardWidgetService;
+
+    @Inject
+    DashboardStreamService dashboardStreamService;
+
+    @Inject
+    TenantScopedExecutor tenantScopedExecutor;
+
+    @InjectSpy
+    ReadReplicaRouter readReplicaRouter;
+
+    // Cada prueba usa su propia clínica: los canales no se comparten entre pruebas
+    private final UUID clinicId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        when(dashboardWidgetService.effectiveDoctorId(any())).thenAnswer(inv -> inv.getArgument(0));
+    }
+
+    @Test
+    void register_emitsFullViewThenOnlyChanges() {
+        activeWidgets(new WidgetItem(WidgetType.WEEKLY_SUMMARY, 2), new WidgetItem(WidgetType.TODAY_CANCELLATIONS, 1));
+        when(dashboardWidgetService.resolve(eq(clinicId), any(), any()))
+                .thenReturn(snapshot(3, 0, 5), snapshot(3, 1, 5));
+
+        AssertSubscriber<DashboardWidgetsDto> stream = subscribe();
+        stream.awaitItems(1);
+        DashboardWidgetsDto initial = stream.getItems().get(0);
+        assertEquals(List.of("TODAY_CANCELLATIONS", "WEEKLY_SUMMARY"),
+                initial.getWidgets().stream().map(WidgetDataDto::getType).toList());
+
+        dashboardStreamService.onAppointmentChanged(appointmentChanged());
+
+        stream.awaitItems(2);
+        DashboardWidgetsDto delta = stream.getItems().get(1);
+        assertNull(delta.getDayStatus());
+        assertEquals(List.of("TODAY_CANCELLATIONS"), delta.getWidgets().stream().map(WidgetDataDto::getType).toList());
+        stream.cancel();
+    }
+
+    @Test
+    void refreshTimeDriven_refreshesChannelsWithTimeDrivenWidgets() {
+        activeWidgets(new WidgetItem(WidgetType.DELAYS, 1));
+        when(dashboardWidgetService.resolve(eq(clinicId), any(), any()))
+                .thenReturn(snapshot(3, 0, 5), snapshot(3, 0, 5), snapshot(4, 0, 5));
+
+        AssertSubscriber<DashboardWidgetsDto> stream = subscribe();
+        stream.awaitItems(1);
+
+        // Sin cambios no se envía nada; con cambios, solo el delta
+        dashboardStreamService.refreshTimeDriven();
+        verify(dashboardWidgetService, timeout(5000).times(2)).resolve(eq(clinicId), any(), any());
+        dashboardStreamService.refreshTimeDriven();
+
+        stream.awaitItems(2);
+        assertEquals(4, stream.getItems().get(1).getDayStatus().getTodayAppointments());
+        stream.cancel();
+    }
+
+    @Test
+    void refreshTimeDriven_eventDrivenWidgetsOnly_skipsChannel() {
+        activeWidgets(new WidgetItem(WidgetType.WEEKLY_SUMMARY, 1));
+        when(dashboardWidgetService.resolve(eq(clinicId), any(), any())).thenReturn(snapshot(3, 0, 5));
+
+        AssertSubscriber<DashboardWidgetsDto> stream = subscribe();
+        stream.awaitItems(1);
+
+        dashboardStreamService.refreshTimeDriven();
+
+        verify(dashboardWidgetService, after(300).times(1)).resolve(eq(clinicId), any(), any());
+        stream.cancel();
+    }
+
+    @Test
+    void register_whileRefreshComputing_doesNotWaitForIt() throws Exception {
+        activeWidgets(new WidgetItem(WidgetType.TODAY_CANCELLATIONS, 1));
+        CountDownLatch computing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(dashboardWidgetService.resolve(eq(clinicId), any(), any()))
+                .thenReturn(snapshot(3, 0, 5))
+                .thenAnswer(inv -> {
+                    computing.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                    return snapshot(3, 2, 5);
+                });
+
+        AssertSubscriber<DashboardWidgetsDto> first = subscribe();
+        first.awaitItems(1);
+        dashboardStreamService.onAppointmentChanged(appointmentChanged());
+        assertTrue(computing.await(5, TimeUnit.SECONDS));
+
+        // La consulta en curso no retiene el lock del canal: el nuevo suscriptor recibe el último resultado
+        AssertSubscriber<DashboardWidgetsDto> second = subscribe();
+        second.awaitItems(1, Duration.ofSeconds(2));
+        assertEquals(0, cancellations(second.getItems().get(0)));
+
+        release.countDown();
+        first.awaitItems(2);
+        second.awaitItems(2);
+        assertEquals(2, cancellations(second.getItems().get(1)));
+        first.cancel();
+        second.cancel();
+    }
+
+    @Test
+    void onAppointmentChanged_readsFromPrimaryButTimeDrivenRefreshDoesNot() {
+        activeWidgets(new WidgetItem(WidgetType.DELAYS, 1));
+        when(dashboardWidgetService.resolve(eq(clinicId), any(), any())).thenReturn(snapshot(3, 0, 5));
+
+        AssertSubscriber<DashboardWidgetsDto> stream = subscribe();
+        stream.awaitItems(1);
+
+        // El evento llega tras el commit en el primario; la réplica puede no tenerlo todavía
+        dashboardStreamService.onAppointmentChanged(appointmentChanged());
+        verify(dashboardWidgetService, timeout(5000).times(2)).resolve(eq(clinicId), any(), any());
+        verify(readReplicaRouter).onPrimary(any());
+
+        dashboardStreamService.refreshTimeDriven();
+        verify(dashboardWidgetService, timeout(5000).times(3)).resolve(eq(clinicId), any(), any());
+        verify(readReplicaRouter, times(1)).onPrimary(any());
+        stream.cancel();
+    }
+
+    @Test
+    void register_changePublishedBeforeSubscribe_isDelivered() {
+        activeWidgets(new WidgetItem(WidgetType.TODAY_CANCELLATIONS, 1));
+        when(dashboardWidgetService.resolve(eq(clinicId), any(), any()))
+                .thenReturn(snapshot(3, 0, 5), snapshot(3, 1, 5));
+
+        Multi<DashboardWidgetsDto> registered = register();
+        // Publicado entre el registro y la suscripción del cliente
+        dashboardStreamService.onAppointmentChanged(appointmentChanged());
+        verify(dashboardWidgetService, timeout(5000).times(2)).resolve(eq(clinicId), any(), any());
+
+        AssertSubscriber<DashboardWidgetsDto> stream = registered.subscribe().withSubscriber(AssertSubscriber.create(10));
+        stream.awaitItems(2);
+        assertEquals(0, cancellations(stream.getItems().get(0)));
+        assertEquals(1, cancellations(stream.getItems().get(1)));
+        stream.cancel();
+    }
+
+    private AssertSubscriber<DashboardWidgetsDto> subscribe() {
+        return register().subscribe().withSubscriber(AssertSubscriber.create(10));
+    }
+
+    private Multi<DashboardWidgetsDto> register() {
+        return tenantScopedExecutor.call(tenantScopedExecutor.defaultTenantId(),
+                () -> dashboardStreamService.register(clinicId, null));
+    }
+
+    private void activeWidgets(WidgetItem... items) {
+        when(dashboardWidgetService.getActiveWidgets(clinicId)).thenReturn(List.of(items));
+    }
+
+    private AppointmentChangedEvent appointmentChanged() {
+        Snapshot snapshot = new Snapshot(tenantScopedExecutor.defaultTenantId(), clinicId, UUID.randomUUID(),
+                LocalDate.now(), AppointmentStatus.cancelled);
+        return new AppointmentChangedEvent(UUID.randomUUID(), null, snapshot);
+    }
+
+    private long cancellations(DashboardWidgetsDto dto) {
+        return ((TodayCancellationsData) dto.getWidgets().get(0).getData()).getCount();
+    }
+
+    private WidgetSnapshot snapshot(long appointments, int cancellations, int weekTotal) {
+        Map<WidgetType, Object> data = new EnumMap<>(WidgetType.class);
+        data.put(WidgetType.DELAYS, DelaysData.builder().count(0).items(List.of()).build());
+        data.put(WidgetType.TODAY_CANCELLATIONS, TodayCancellationsData.builder().count(cancellations).items(List.of()).build());
+        data.put(WidgetType.WEEKLY_SUMMARY, weekTotal);
+        return new WidgetSnapshot(DayStatusDto.builder().todayAppointments(appointments).build(), data);
+    }
+}
@@ -0,0 +1,62 @@
+package gt.com.xfactory.service;
+
+import gt.com.xfactory.dto.response.*;
+import gt.com.xfactory.entity.*;
+import gt.com.xfactory.repository.*;
+import gt.com.xfactory.service.impl.*;
+import io.quarkus.test.InjectMock;
+import io.quarkus.test.junit.*;
+import jakarta.inject.*;
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@QuarkusTest
+class DiagnosisCatalogServiceTest {
+
+    @InjectMock
+    DiagnosisCatalogRepository diagnosisCatalogRepository;
+
+    @Inject
+    DiagnosisCatalogService diagnosisCatalogService;
+
+    @Test
+    void autocomplete_concurrentColdReads_loadCatalogOnce() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(diagnosisCatalogRepository.listAll()).thenAnswer(inv -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of(diagnosis("J45", "Asma"));
+        });
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<List<DiagnosisCatalogDto>>> results = new ArrayList<>();
+            results.add(executor.submit(() -> diagnosisCatalogService.autocomplete("asma", 10)));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            // Llegan mientras se carga: esperan esa carga en lugar de releer el catálogo
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(() -> diagnosisCatalogService.autocomplete("asma", 10)));
+            }
+            Thread.sleep(200);
+            release.countDown();
+
+            for (Future<List<DiagnosisCatalogDto>> result : results) {
+                assertEquals("J45", result.get(5, TimeUnit.SECONDS).get(0).getCode());
+            }
+        }
+        verify(diagnosisCatalogRepository, times(1)).listAll();
+    }
+
+    private DiagnosisCatalogEntity diagnosis(String code, String name) {
+        DiagnosisCatalogEntity entity = new DiagnosisCatalogEntity();
+        entity.setId(UUID.randomUUID());
+        entity.setCode(code);
+        entity.setName(name);
+        return entity;
+    }
+}
@@ -0,0 +1,306 @@
+package gt.com.xfactory.service;
+
+import gt.com.xfactory.dto.response.*;
+import gt.com.xfactory.entity.*;
+import gt.com.xfactory.entity.enums.*;
+import gt.com.xfactory.repository.*;
+import gt.com.xfactory.service.impl.*;
+import gt.com.xfactory.service.storage.*;
+import io.quarkus.narayana.jta.*;
+import io.quarkus.test.InjectMock;
+import io.quarkus.test.junit.*;
+import io.quarkus.test.junit.mockito.*;
+import jakarta.inject.*;
+import jakarta.ws.rs.core.*;
+import org.jboss.resteasy.reactive.*;
+import org.junit.jupiter.api.*;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@QuarkusTest
+@TestProfile(FileStorageServiceTest.CompressionEnabled.class)
+class FileStorageServiceTest {
+
+    public static class CompressionEnabled implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of("blob-store.compression.enabled", "true");
+        }
+    }
+
+    @InjectMock
+    LabOrderAttachmentRepository attachmentRepository;
+
+    @InjectMock
+    BlobReferenceRepository blobReferenceRepository;
+
+    @InjectSpy
+    BlobStore blobStore;
+
+    @Inject
+    FileStorageService fileStorageService;
+
+    // ========== store ==========
+
+    @Test
+    void store_newContent_acquiresReferenceAndPublishes() throws Exception {
+        StagedBlob staged = fileStorageService.stage(new ByteArrayInputStream(randomContent()));
+        when(blobReferenceRepository.acquire(staged.hash(), staged.size(), ContentEncoding.identity))
+                .thenReturn(new BlobReferenceRepository.Reference(ContentEncoding.identity, true));
+
+        LabOrderAttachmentEntity attachment = fileStorageService.store(buildOrder(), "resultado.png", "image/png", staged, "user");
+
+        assertEquals(staged.hash(), attachment.getContentHash());
+        assertEquals(ContentEncoding.identity, attachment.getContentEncoding());
+        assertEquals(staged.size(), attachment.getFileSize());
+        assertTrue(blobStore.exists(staged.hash()));
+        verify(attachmentRepository).persist(attachment);
+    }
+
+    @Test
+    void store_rolledBack_purgesCreatedObject() throws Exception {
+        StagedBlob staged = fileStorageService.stage(new ByteArrayInputStream(randomContent()));
+        when(blobReferenceRepository.acquire(staged.hash(), staged.size(), ContentEncoding.identity))
+                .thenReturn(new BlobReferenceRepository.Reference(ContentEncoding.identity, true));
+        when(blobReferenceRepository.removeIfUnreferenced(staged.hash())).thenReturn(true);
+        CountDownLatch deleted = deletion(staged.hash());
+
+        // Falla después de publicar, dentro de la misma transacción
+        assertThrows(IllegalStateException.class, () -> QuarkusTransaction.requiringNew().run(() -> {
+            fileStorageService.store(buildOrder(), "resultado.png", "image/png", staged, "user");
+            throw new IllegalStateException("rollback");
+        }));
+
+        assertTrue(deleted.await(5, TimeUnit.SECONDS));
+        assertFalse(blobStore.exists(staged.hash()));
+    }
+
+    @Test
+    void store_contentAlreadyStoredCompressed_reusesExistingEncoding() throws Exception {
+        StagedBlob staged = fileStorageService.stage(new ByteArrayInputStream(compressibleContent()));
+        when(blobReferenceRepository.acquire(staged.hash(), staged.size(), ContentEncoding.identity))
+                .thenReturn(new BlobReferenceRepository.Reference(ContentEncoding.gzip, false));
+
+        LabOrderAttachmentEntity attachment = fileStorageService.store(buildOrder(), "resultado.pdf", "application/pdf", staged, "user");
+
+        // El objeto existente manda: la copia nueva se descarta sin publicarse
+        assertEquals(ContentEncoding.gzip, attachment.getContentEncoding());
+        assertEquals(staged.size(), attachment.getFileSize());
+        assertFalse(Files.exists(staged.path()));
+        verify(blobStore, never()).publish(staged);
+    }
+
+    // ========== download ==========
+
+    @Test
+    void download_gzipObjectWithoutGzipSupport_decodesRequestedRange() throws Exception {
+        byte[] content = compressibleContent();
+        String hash = publishCompressed(content);
+        LabOrderAttachmentEntity attachment = buildAttachment(hash);
+        attachment.setContentEncoding(ContentEncoding.gzip);
+        attachment.setFileSize((long) content.length);
+
+        AttachmentDownloadInfo info = fileStorageService.download(attachment, false);
+
+        assertEquals(hash, info.getEtag());
+        assertNull(info.getContentEncoding());
+        assertEquals(content.length, info.getSize());
+        StreamingOutput body = assertInstanceOf(StreamingOutput.class, info.getBody().range(1000, 300));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.write(out);
+        assertArrayEquals(Arrays.copyOfRange(content, 1000, 1300), out.toByteArray());
+    }
+
+    @Test
+    void download_gzipObjectWithGzipSupport_sendsStoredRepresentation() throws Exception {
+        byte[] content = compressibleContent();
+        String hash = publishCompressed(content);
+        LabOrderAttachmentEntity attachment = buildAttachment(hash);
+        attachment.setContentEncoding(ContentEncoding.gzip);
+        attachment.setFileSize((long) content.length);
+
+        AttachmentDownloadInfo info = fileStorageService.download(attachment, true);
+
+        assertEquals(hash + "-gzip", info.getEtag());
+        assertEquals("gzip", info.getContentEncoding());
+        assertEquals(blobStore.size(hash), info.getSize());
+        assertTrue(info.getSize() < content.length);
+        assertInstanceOf(PathPart.class, info.getBody().range(0, info.getSize()));
+    }
+
+    // ========== delete / releaseAttachments ==========
+
+    @Test
+    void delete_lastReference_purgesAfterCommit() throws Exception {
+        String hash = publish(randomContent());
+        when(blobReferenceRepository.release(hash)).thenReturn(0);
+        when(blobReferenceRepository.removeIfUnreferenced(hash)).thenReturn(true);
+
+        CountDownLatch deleted = deletion(hash);
+
+        fileStorageService.delete(buildAttachment(hash));
+
+        assertTrue(deleted.await(5, TimeUnit.SECONDS));
+        assertFalse(blobStore.exists(hash));
+    }
+
+    @Test
+    void delete_sharedContent_keepsObject() throws Exception {
+        String hash = publish(randomContent());
+        when(blobReferenceRepository.release(hash)).thenReturn(1);
+
+        fileStorageService.delete(buildAttachment(hash));
+
+        verify(blobReferenceRepository).release(hash);
+        verify(blobReferenceRepository, never()).removeIfUnreferenced(hash);
+        assertTrue(blobStore.exists(hash));
+    }
+
+    @Test
+    void delete_reReferencedBeforePurge_keepsObject() throws Exception {
+        String hash = publish(randomContent());
+        when(blobReferenceRepository.release(hash)).thenReturn(0);
+        when(blobReferenceRepository.removeIfUnreferenced(hash)).thenReturn(false);
+
+        fileStorageService.delete(buildAttachment(hash));
+
+        verify(blobReferenceRepository, timeout(5000)).removeIfUnreferenced(hash);
+        verify(blobStore, never()).delete(hash);
+        assertTrue(blobStore.exists(hash));
+    }
+
+    @Test
+    void releaseAttachments_releasesEachReferenceAndPurgesUnused() throws Exception {
+        UUID labOrderId = UUID.randomUUID();
+        String shared = publish(randomContent());
+        String unused = publish(randomContent());
+        // Dos adjuntos de la orden con el mismo contenido: dos referencias
+        when(attachmentRepository.findContentHashesByLabOrderId(labOrderId)).thenReturn(List.of(unused, shared, unused));
+        when(blobReferenceRepository.release(unused)).thenReturn(1, 0);
+        when(blobReferenceRepository.release(shared)).thenReturn(2);
+        when(blobReferenceRepository.removeIfUnreferenced(unused)).thenReturn(true);
+
+        fileStorageService.releaseAttachments(labOrderId);
+
+        verify(blobReferenceRepository, times(2)).release(unused);
+        verify(blobReferenceRepository).release(shared);
+        verify(blobStore, timeout(5000)).delete(unused);
+        verify(blobReferenceRepository, never()).removeIfUnreferenced(shared);
+        assertTrue(blobStore.exists(shared));
+    }
+
+    // La purga corre en otro hilo: el latch se libera cuando el borrado termina, no cuando empieza
+    private CountDownLatch deletion(String hash) throws IOException {
+        CountDownLatch deleted = new CountDownLatch(1);
+        doAnswer(inv -> {
+            inv.callRealMethod();
+            deleted.countDown();
+            return null;
+        }).when(blobStore).delete(hash);
+        return deleted;
+    }
+
+    // ========== migrateLegacyBatch ==========
+
+    @Test
+    void migrateLegacyBatch_movesFileDataToBlobStore() throws Exception {
+        UUID id = UUID.randomUUID();
+        byte[] content = randomContent();
+        when(attachmentRepository.lockLegacy(10))
+                .thenReturn(List.of(new LabOrderAttachmentRepository.LegacyAttachment(id, "image/png")));
+        when(attachmentRepository.findLegacyData(id)).thenReturn(content);
+        when(blobReferenceRepository.acquire(anyString(), eq((long) content.length), eq(ContentEncoding.identity)))
+                .thenReturn(new BlobReferenceRepository.Reference(ContentEncoding.identity, true));
+
+        assertEquals(1, fileStorageService.migrateLegacyBatch(10));
+
+        String hash = hash(content);
+        verify(attachmentRepository).moveToBlob(id, hash, ContentEncoding.identity, content.length);
+        try (InputStream in = blobStore.open(hash)) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+    }
+
+    @Test
+    void migrateLegacyBatch_compressibleType_storesGzip() throws Exception {
+        UUID id = UUID.randomUUID();
+        byte[] content = compressibleContent();
+        when(attachmentRepository.lockLegacy(10))
+                .thenReturn(List.of(new LabOrderAttachmentRepository.LegacyAttachment(id, "application/pdf")));
+        when(attachmentRepository.findLegacyData(id)).thenReturn(content);
+        when(blobReferenceRepository.acquire(anyString(), eq((long) content.length), eq(ContentEncoding.gzip)))
+                .thenReturn(new BlobReferenceRepository.Reference(ContentEncoding.gzip, true));
+
+        assertEquals(1, fileStorageService.migrateLegacyBatch(10));
+
+        String hash = hash(content);
+        verify(attachmentRepository).moveToBlob(id, hash, ContentEncoding.gzip, content.length);
+        try (InputStream in = new GZIPInputStream(blobStore.open(hash))) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+    }
+
+    @Test
+    void migrateLegacyBatch_noLegacyRows_returnsZero() {
+        when(attachmentRepository.lockLegacy(10)).thenReturn(List.of());
+
+        assertEquals(0, fileStorageService.migrateLegacyBatch(10));
+
+        verify(attachmentRepository, never()).moveToBlob(any(), any(), any(), anyLong());
+    }
+
+    // ========== helpers ==========
+
+    private String publish(byte[] content) throws IOException {
+        StagedBlob staged = blobStore.stage(new ByteArrayInputStream(content));
+        blobStore.publish(staged);
+        return staged.hash();
+    }
+
+    private String publishCompressed(byte[] content) throws IOException {
+        StagedBlob compressed = fileStorageService.compress(blobStore.stage(new ByteArrayInputStream(content)), "application/pdf");
+        assertEquals(ContentEncoding.gzip, compressed.encoding());
+        blobStore.publish(compressed);
+        return compressed.hash();
+    }
+
+    private String hash(byte[] content) throws IOException {
+        StagedBlob staged = blobStore.stage(new ByteArrayInputStream(content));
+        blobStore.discard(staged);
+        return staged.hash();
+    }
+
+    private byte[] randomContent() {
+        byte[] content = new byte[2048];
+        new Random().nextBytes(content);
+        return content;
+    }
+
+    private byte[] compressibleContent() {
+        // Texto repetitivo (como un PDF de resultados) con un prefijo único por prueba
+        return ("%PDF-1.4 " + UUID.randomUUID() + " hemoglobina 13.5 g/dL ".repeat(400)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private LabOrderEntity buildOrder() {
+        LabOrderEntity o = new LabOrderEntity();
+        o.setId(UUID.randomUUID());
+        return o;
+    }
+
+    private LabOrderAttachmentEntity buildAttachment(String contentHash) {
+        LabOrderAttachmentEntity a = new LabOrderAttachmentEntity();
+        a.setId(UUID.randomUUID());
+        a.setContentHash(contentHash);
+        a.setContentEncoding(ContentEncoding.identity);
+        return a;
+    }
+}
@@ -0,0 +1,72 @@
+package gt.com.xfactory.service;
+
+import gt.com.xfactory.service.impl.*;
+import io.quarkus.test.junit.*;
+import jakarta.inject.*;
+import jakarta.ws.rs.*;
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+class IdentityCacheTest {
+
+    @Inject
+    IdentityCache identityCache;
+
+    private final String subject = UUID.randomUUID().toString();
+    private final AtomicInteger lookups = new AtomicInteger();
+
+    @Test
+    void get_sameSubject_resolvesOnce() {
+        UUID id = UUID.randomUUID();
+
+        UUID first = identityCache.get(IdentityCache.Kind.DOCTOR, subject, () -> lookup(id));
+        UUID second = identityCache.get(IdentityCache.Kind.DOCTOR, subject, () -> lookup(UUID.randomUUID()));
+
+        assertEquals(id, first);
+        assertEquals(id, second);
+        assertEquals(1, lookups.get());
+    }
+
+    @Test
+    void get_userAndDoctor_areCachedSeparately() {
+        UUID userId = UUID.randomUUID();
+        UUID doctorId = UUID.randomUUID();
+
+        assertEquals(userId, identityCache.get(IdentityCache.Kind.USER, subject, () -> lookup(userId)));
+        assertEquals(doctorId, identityCache.get(IdentityCache.Kind.DOCTOR, subject, () -> lookup(doctorId)));
+        assertEquals(2, lookups.get());
+    }
+
+    @Test
+    void evict_forcesNewLookup() {
+        UUID before = UUID.randomUUID();
+        UUID after = UUID.randomUUID();
+        identityCache.get(IdentityCache.Kind.DOCTOR, subject, () -> lookup(before));
+
+        identityCache.evict(subject);
+
+        assertEquals(after, identityCache.get(IdentityCache.Kind.DOCTOR, subject, () -> lookup(after)));
+        assertEquals(2, lookups.get());
+    }
+
+    @Test
+    void get_failedLookup_isNotCached() {
+        UUID id = UUID.randomUUID();
+
+        assertThrows(ForbiddenException.class, () -> identityCache.get(IdentityCache.Kind.DOCTOR, subject, () -> {
+            throw new ForbiddenException("Doctor no encontrado para el usuario actual");
+        }));
+
+        assertEquals(id, identityCache.get(IdentityCache.Kind.DOCTOR, subject, () -> lookup(id)));
+    }
+
+    private UUID lookup(UUID id) {
+        lookups.incrementAndGet();
+        return id;
+    }
+}
@@ -6,12 +6,17 @@ import gt.com.xfactory.entity.*;
 import gt.com.xfactory.entity.enums.*;
 import gt.com.xfactory.repository.*;
 import gt.com.xfactory.service.impl.*;
+import gt.com.xfactory.service.storage.*;
 import io.quarkus.test.InjectMock;
 import io.quarkus.test.junit.*;
 import jakarta.inject.*;
 import jakarta.ws.rs.*;
+import org.jboss.resteasy.reactive.multipart.*;
 import org.junit.jupiter.api.*;
 
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.Path;
 import java.time.*;
 import java.util.*;
 
@@ -58,13 +63,13 @@ class LabOrderServiceTest {
         LabOrderEntity order = buildOrder(UUID.randomUUID(), patient, buildDoctor(UUID.randomUUID()));
         when(patientRepository.findByIdOptional(patientId)).thenReturn(Optional.of(patient));
         when(securityContextService.getCurrentDoctorId()).thenReturn(null);
-        when(labOrderRepository.findByPatientId(patientId)).thenReturn(List.of(order));
+        when(labOrderRepository.findByPatientId(patientId, null, null, 501)).thenReturn(List.of(order));
 
-        List<LabOrderDto> result = labOrderService.getLabOrdersByPatientId(patientId);
+        HistoryList<LabOrderDto> result = labOrderService.getLabOrdersByPatientId(patientId, new PatientHistoryRequest());
 
-        assertEquals(1, result.size());
-        verify(labOrderRepository).findByPatientId(patientId);
-        verify(labOrderRepository, never()).findByPatientIdAndDoctorId(any(), any());
+        assertEquals(1, result.content.size());
+        verify(labOrderRepository).findByPatientId(patientId, null, null, 501);
+        verify(labOrderRepository, never()).findByPatientIdAndDoctorId(any(), any(), any(), any(), anyInt());
     }
 
     @Test
@@ -76,13 +81,13 @@ class LabOrderServiceTest {
         LabOrderEntity order = buildOrder(UUID.randomUUID(), patient, doctor);
         when(patientRepository.findByIdOptional(patientId)).thenReturn(Optional.of(patient));
         when(securityContextService.getCurrentDoctorId()).thenReturn(doctorId);
-        when(labOrderRepository.findByPatientIdAndDoctorId(patientId, doctorId)).thenReturn(List.of(order));
+        when(labOrderRepository.findByPatientIdAndDoctorId(patientId, doctorId, null, null, 501)).thenReturn(List.of(order));
 
-        List<LabOrderDto> result = labOrderService.getLabOrdersByPatientId(patientId);
+        HistoryList<LabOrderDto> result = labOrderService.getLabOrdersByPatientId(patientId, new PatientHistoryRequest());
 
-        assertEquals(1, result.size());
-        verify(labOrderRepository).findByPatientIdAndDoctorId(patientId, doctorId);
-        verify(labOrderRepository, never()).findByPatientId(any());
+        assertEquals(1, result.content.size());
+        verify(labOrderRepository).findByPatientIdAndDoctorId(patientId, doctorId, null, null, 501);
+        verify(labOrderRepository, never()).findByPatientId(any(), any(), any(), anyInt());
     }
 
     @Test
@@ -91,7 +96,7 @@ class LabOrderServiceTest {
         when(patientRepository.findByIdOptional(patientId)).thenReturn(Optional.empty());
 
         assertThrows(NotFoundException.class,
-                () -> labOrderService.getLabOrdersByPatientId(patientId));
+                () -> labOrderService.getLabOrdersByPatientId(patientId, new PatientHistoryRequest()));
     }
 
     // ========== getLabOrderById ==========
@@ -281,7 +286,10 @@ class LabOrderServiceTest {
         doNothing().when(securityContextService).validateDoctorOwnership(doctorId);
 
         assertDoesNotThrow(() -> labOrderService.deleteLabOrder(id));
-        verify(labOrderRepository).delete(order);
+        // Las referencias a los blobs se sueltan antes del borrado en cascada de los adjuntos
+        var inOrder = inOrder(fileStorageService, labOrderRepository);
+        inOrder.verify(fileStorageService).releaseAttachments(id);
+        inOrder.verify(labOrderRepository).delete(order);
     }
 
     @Test
@@ -297,6 +305,7 @@ class LabOrderServiceTest {
         assertThrows(ForbiddenException.class,
                 () -> labOrderService.deleteLabOrder(id));
         verify(labOrderRepository, never()).delete(any(LabOrderEntity.class));
+        verify(fileStorageService, never()).releaseAttachments(any());
     }
 
     @Test
@@ -407,8 +416,81 @@ class LabOrderServiceTest {
                 () -> labOrderService.deleteResult(resultId));
     }
 
+    // ========== uploadAttachment ==========
+
+    @Test
+    void uploadAttachment_validPdf_storesWithSniffedType() throws Exception {
+        LabOrderEntity order = buildOrder(UUID.randomUUID(), buildPatient(UUID.randomUUID()), buildDoctor(UUID.randomUUID()));
+        when(labOrderRepository.findByIdOptional(order.getId())).thenReturn(Optional.of(order));
+        stageByReading();
+        when(fileStorageService.store(any(), any(), any(), any(), any())).thenAnswer(inv -> {
+            LabOrderAttachmentEntity a = new LabOrderAttachmentEntity();
+            a.setLabOrder(inv.getArgument(0));
+            a.setContentType(inv.getArgument(2));
+            a.setFileSize(inv.<StagedBlob>getArgument(3).size());
+            return a;
+        });
+
+        LabOrderAttachmentDto result = labOrderService.uploadAttachment(order.getId(),
+                upload("application/pdf", "%PDF-1.7 resultado".getBytes()));
+
+        assertEquals("application/pdf", result.getContentType());
+        assertEquals(18L, result.getFileSize());
+        verify(fileStorageService).compress(any(), eq("application/pdf"));
+        verify(fileStorageService, never()).discard(any());
+    }
+
+    @Test
+    void uploadAttachment_contentNotMatchingAllowedType_discardsAndThrows400() throws Exception {
+        LabOrderEntity order = buildOrder(UUID.randomUUID(), buildPatient(UUID.randomUUID()), buildDoctor(UUID.randomUUID()));
+        when(labOrderRepository.findByIdOptional(order.getId())).thenReturn(Optional.of(order));
+        stageByReading();
+
+        assertThrows(BadRequestException.class, () -> labOrderService.uploadAttachment(order.getId(),
+                upload("image/png", "<html>no es imagen</html>".getBytes())));
+
+        verify(fileStorageService).discard(any());
+        verify(fileStorageService, never()).store(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void uploadAttachment_exceedsMaxSizeWhileStreaming_throws400() throws Exception {
+        LabOrderEntity order = buildOrder(UUID.randomUUID(), buildPatient(UUID.randomUUID()), buildDoctor(UUID.randomUUID()));
+        when(labOrderRepository.findByIdOptional(order.getId())).thenReturn(Optional.of(order));
+        stageByReading();
+        byte[] content = new byte[10 * 1024 * 1024 + 1];
+        System.arraycopy("%PDF-".getBytes(), 0, content, 0, 5);
+        FileUpload file = upload("application/pdf", content);
+        // El tamaño declarado no es confiable: el tope se aplica sobre lo leído
+        when(file.size()).thenReturn(1L);
+
+        assertThrows(BadRequestException.class, () -> labOrderService.uploadAttachment(order.getId(), file));
+
+        verify(fileStorageService, never()).store(any(), any(), any(), any(), any());
+    }
+
     // ========== helpers ==========
 
+    private void stageByReading() throws IOException {
+        when(fileStorageService.stage(any())).thenAnswer(inv -> {
+            long size = inv.<InputStream>getArgument(0).transferTo(OutputStream.nullOutputStream());
+            return new StagedBlob("0".repeat(64), size, Path.of("staged.tmp"), ContentEncoding.identity);
+        });
+        when(fileStorageService.compress(any(), any())).thenAnswer(inv -> inv.getArgument(0));
+    }
+
+    private FileUpload upload(String contentType, byte[] content) throws IOException {
+        Path path = Files.createTempFile("upload-", ".tmp");
+        path.toFile().deleteOnExit();
+        Files.write(path, content);
+        FileUpload file = mock(FileUpload.class);
+        when(file.contentType()).thenReturn(contentType);
+        when(file.fileName()).thenReturn("resultado");
+        when(file.filePath()).thenReturn(path);
+        when(file.size()).thenReturn((long) content.length);
+        return file;
+    }
+
     private PatientEntity buildPatient(UUID id) {
         PatientEntity p = new PatientEntity();
         p.setId(id);
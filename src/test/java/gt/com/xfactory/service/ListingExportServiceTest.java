@@ -0,0 +1,78 @@
+package gt.com.xfactory.service;
+
+import gt.com.xfactory.dto.response.*;
+import gt.com.xfactory.service.impl.*;
+import gt.com.xfactory.service.impl.ListingExportService.*;
+import io.quarkus.test.junit.*;
+import jakarta.inject.*;
+import jakarta.ws.rs.*;
+import org.junit.jupiter.api.*;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.util.*;
+import java.util.stream.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+class ListingExportServiceTest {
+
+    @Inject
+    ListingExportService listingExportService;
+
+    @Test
+    void stream_ndjson_writesOneJsonObjectPerLine() throws IOException {
+        String output = export(Format.NDJSON, Stream.of(patient("Ana", "López"), patient("Luis", "Pérez")));
+
+        String[] lines = output.split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{") && lines[0].contains("\"firstName\":\"Ana\""));
+        assertTrue(lines[1].contains("\"lastName\":\"Pérez\""));
+    }
+
+    @Test
+    void stream_csv_writesHeaderAndEscapesCells() throws IOException {
+        String output = export(Format.CSV, Stream.of(patient("=HYPERLINK(\"x\")", "Gómez, Jr.")));
+
+        String[] lines = output.split("\r\n");
+        assertEquals(2, lines.length);
+        List<String> header = List.of(lines[0].split(","));
+        assertTrue(header.containsAll(List.of("id", "firstName", "lastName", "age")));
+        assertTrue(lines[1].contains("\"'=HYPERLINK(\"\"x\"\")\""));
+        assertTrue(lines[1].contains("\"Gómez, Jr.\""));
+    }
+
+    @Test
+    void stream_moreRowsThanChunk_mapsEachChunkOnce() throws IOException {
+        List<Integer> chunkSizes = new ArrayList<>();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        listingExportService.stream(Format.NDJSON, PatientDto.class,
+                fetchSize -> IntStream.range(0, 1200).boxed(),
+                chunk -> {
+                    chunkSizes.add(chunk.size());
+                    return chunk.stream().map(i -> patient("P" + i, "X")).toList();
+                }).write(out);
+
+        assertEquals(List.of(500, 500, 200), chunkSizes);
+        assertEquals(1200, out.toString(StandardCharsets.UTF_8).lines().count());
+    }
+
+    @Test
+    void format_fromValue_defaultsToNdjsonAndRejectsUnknown() {
+        assertEquals(Format.NDJSON, Format.fromValue(null));
+        assertEquals(Format.CSV, Format.fromValue("CSV"));
+        assertThrows(BadRequestException.class, () -> Format.fromValue("xlsx"));
+    }
+
+    private String export(Format format, Stream<PatientDto> rows) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        listingExportService.stream(format, PatientDto.class, fetchSize -> rows, chunk -> chunk).write(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private PatientDto patient(String firstName, String lastName) {
+        return PatientDto.builder().id(UUID.randomUUID()).firstName(firstName).lastName(lastName).age(30).build();
+    }
+}
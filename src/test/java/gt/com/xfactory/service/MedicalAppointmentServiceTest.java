@@ -5,9 +5,12 @@ import gt.com.xfactory.dto.response.*;
 import gt.com.xfactory.entity.*;
 import gt.com.xfactory.entity.enums.*;
 import gt.com.xfactory.repository.*;
+import gt.com.xfactory.service.event.*;
 import gt.com.xfactory.service.impl.*;
 import io.quarkus.test.InjectMock;
 import io.quarkus.test.junit.*;
+import jakarta.enterprise.context.*;
+import jakarta.enterprise.event.*;
 import jakarta.inject.*;
 import jakarta.ws.rs.*;
 import org.junit.jupiter.api.*;
@@ -52,6 +55,14 @@ class MedicalAppointmentServiceTest {
     @Inject
     MedicalAppointmentService medicalAppointmentService;
 
+    @Inject
+    AppointmentEventRecorder appointmentEventRecorder;
+
+    @BeforeEach
+    void clearEvents() {
+        appointmentEventRecorder.clear();
+    }
+
     // ========== getMedicalAppointmentById ==========
 
     @Test
@@ -87,14 +98,14 @@ class MedicalAppointmentServiceTest {
         MedicalAppointmentEntity entity = buildAppointmentEntity(UUID.randomUUID(), AppointmentStatus.scheduled);
         when(patientRepository.findByIdOptional(patientId)).thenReturn(Optional.of(patient));
         when(securityContextService.getCurrentDoctorId()).thenReturn(null); // admin no filtra
-        when(medicalAppointmentRepository.findByPatientIdWithFilters(eq(patientId), any())).thenReturn(List.of(entity));
+        when(medicalAppointmentRepository.findByPatientIdWithFilters(eq(patientId), any(), eq(501))).thenReturn(List.of(entity));
         when(medicalAppointmentRepository.findChildFollowUpId(any())).thenReturn(Optional.empty());
         when(doctorSpecialtyRepository.findByDoctorId(any())).thenReturn(List.of());
         when(securityContextService.hasRole("secretary")).thenReturn(false);
 
-        List<MedicalAppointmentDto> result = medicalAppointmentService.getMedicalAppointmentsByPatientId(patientId, null);
+        HistoryList<MedicalAppointmentDto> result = medicalAppointmentService.getMedicalAppointmentsByPatientId(patientId, null, null);
 
-        assertEquals(1, result.size());
+        assertEquals(1, result.content.size());
     }
 
     @Test
@@ -104,11 +115,11 @@ class MedicalAppointmentServiceTest {
         PatientEntity patient = buildPatient(patientId);
         when(patientRepository.findByIdOptional(patientId)).thenReturn(Optional.of(patient));
         when(securityContextService.getCurrentDoctorId()).thenReturn(doctorId);
-        when(medicalAppointmentRepository.findByPatientIdWithFilters(eq(patientId), any())).thenReturn(List.of());
+        when(medicalAppointmentRepository.findByPatientIdWithFilters(eq(patientId), any(), eq(501))).thenReturn(List.of());
 
-        List<MedicalAppointmentDto> result = medicalAppointmentService.getMedicalAppointmentsByPatientId(patientId, null);
+        HistoryList<MedicalAppointmentDto> result = medicalAppointmentService.getMedicalAppointmentsByPatientId(patientId, null, null);
 
-        assertEquals(0, result.size());
+        assertEquals(0, result.content.size());
         // Verificar que el filtro fue modificado para incluir el doctorId del contexto
         verify(securityContextService).getCurrentDoctorId();
     }
@@ -119,7 +130,46 @@ class MedicalAppointmentServiceTest {
         when(patientRepository.findByIdOptional(patientId)).thenReturn(Optional.empty());
 
         assertThrows(NotFoundException.class,
-                () -> medicalAppointmentService.getMedicalAppointmentsByPatientId(patientId, null));
+                () -> medicalAppointmentService.getMedicalAppointmentsByPatientId(patientId, null, null));
+    }
+
+    @Test
+    void getMedicalAppointmentsByPatientId_limitAboveCap_clampsToMaxRows() {
+        UUID patientId = UUID.randomUUID();
+        when(patientRepository.findByIdOptional(patientId)).thenReturn(Optional.of(buildPatient(patientId)));
+        when(securityContextService.getCurrentDoctorId()).thenReturn(null);
+
+        medicalAppointmentService.getMedicalAppointmentsByPatientId(patientId, null, 10_000);
+
+        verify(medicalAppointmentRepository).findByPatientIdWithFilters(eq(patientId), any(), eq(501));
+    }
+
+    // ========== getMedicalAppointmentsPageByPatientId ==========
+
+    @Test
+    void getMedicalAppointmentsPageByPatientId_cursorRoundTrip_continuesAfterLastRow() {
+        UUID patientId = UUID.randomUUID();
+        MedicalAppointmentEntity first = buildAppointmentEntity(UUID.randomUUID(), AppointmentStatus.completed);
+        MedicalAppointmentEntity second = buildAppointmentEntity(UUID.randomUUID(), AppointmentStatus.completed);
+        when(patientRepository.findByIdOptional(patientId)).thenReturn(Optional.of(buildPatient(patientId)));
+        when(securityContextService.getCurrentDoctorId()).thenReturn(null);
+        when(medicalAppointmentRepository.findPageByPatientId(eq(patientId), any(), isNull(), isNull(), eq(2)))
+                .thenReturn(List.of(first, second));
+        CommonPageRequest pageRequest = new CommonPageRequest();
+        pageRequest.setSize(1);
+
+        PageResponse<MedicalAppointmentDto> page =
+                medicalAppointmentService.getMedicalAppointmentsPageByPatientId(patientId, null, pageRequest);
+
+        assertEquals(1, page.content.size());
+        assertEquals(first.getId(), page.content.get(0).getId());
+        assertNotNull(page.nextCursor);
+
+        pageRequest.setCursor(page.nextCursor);
+        medicalAppointmentService.getMedicalAppointmentsPageByPatientId(patientId, null, pageRequest);
+
+        verify(medicalAppointmentRepository).findPageByPatientId(eq(patientId), any(),
+                eq(first.getAppointmentDate()), eq(first.getId()), eq(2));
     }
 
     // ========== createMedicalAppointment ==========
@@ -321,6 +371,29 @@ class MedicalAppointmentServiceTest {
         verify(medicalAppointmentRepository).persist(entity);
     }
 
+    @Test
+    void reopenMedicalAppointment_expired_firesChangedEventFromExpired() {
+        UUID id = UUID.randomUUID();
+        MedicalAppointmentEntity entity = buildAppointmentEntity(id, AppointmentStatus.expired);
+        LocalDate previousDay = entity.getAppointmentDate().toLocalDate();
+        ReopenAppointmentRequest request = new ReopenAppointmentRequest();
+        request.setAppointmentDate(LocalDateTime.now().plusDays(3));
+        when(medicalAppointmentRepository.findByIdOptional(id)).thenReturn(Optional.of(entity));
+        when(medicalAppointmentRepository.findChildFollowUpId(any())).thenReturn(Optional.empty());
+        when(doctorSpecialtyRepository.findByDoctorId(any())).thenReturn(List.of());
+
+        medicalAppointmentService.reopenMedicalAppointment(id, request);
+
+        assertEquals(1, appointmentEventRecorder.events().size());
+        AppointmentChangedEvent event = appointmentEventRecorder.events().get(0);
+        assertEquals(id, event.appointmentId());
+        assertEquals(AppointmentStatus.expired, event.before().status());
+        assertEquals(previousDay, event.before().day());
+        assertEquals(AppointmentStatus.reopened, event.after().status());
+        assertEquals(request.getAppointmentDate().toLocalDate(), event.after().day());
+        assertTrue(event.changesCounters());
+    }
+
     @Test
     void reopenMedicalAppointment_nonExpired_throwsIllegalState() {
         UUID id = UUID.randomUUID();
@@ -357,6 +430,9 @@ class MedicalAppointmentServiceTest {
         assertDoesNotThrow(() -> medicalAppointmentService.deleteMedicalAppointment(id));
         verify(appointmentDiagnosisRepository).deleteByAppointmentId(id);
         verify(medicalAppointmentRepository).delete(entity);
+        assertEquals(1, appointmentEventRecorder.events().size());
+        assertEquals(AppointmentStatus.scheduled, appointmentEventRecorder.events().get(0).before().status());
+        assertNull(appointmentEventRecorder.events().get(0).after());
     }
 
     @Test
@@ -379,6 +455,61 @@ class MedicalAppointmentServiceTest {
                 () -> medicalAppointmentService.deleteMedicalAppointment(id));
     }
 
+    // ========== toMedicalAppointmentDtos — mapeo en lote ==========
+
+    @Test
+    void toMedicalAppointmentDtos_resolvesLookupsWithGroupedQueries() {
+        MedicalAppointmentEntity parent = buildAppointmentEntity(UUID.randomUUID(), AppointmentStatus.completed);
+        MedicalAppointmentEntity other = buildAppointmentEntity(UUID.randomUUID(), AppointmentStatus.scheduled);
+        UUID childId = UUID.randomUUID();
+
+        SpecialtyEntity specialty = new SpecialtyEntity();
+        specialty.setId(UUID.randomUUID());
+        specialty.setName("Pediatría");
+        DoctorSpecialtyEntity doctorSpecialty = new DoctorSpecialtyEntity();
+        doctorSpecialty.setSpecialty(specialty);
+
+        DiagnosisCatalogEntity catalog = new DiagnosisCatalogEntity();
+        catalog.setId(UUID.randomUUID());
+        catalog.setCode("J00");
+        catalog.setName("Rinofaringitis aguda");
+        AppointmentDiagnosisEntity diagnosis = new AppointmentDiagnosisEntity();
+        diagnosis.setId(UUID.randomUUID());
+        diagnosis.setAppointment(parent);
+        diagnosis.setDiagnosis(catalog);
+
+        when(medicalAppointmentRepository.findChildFollowUpIds(any())).thenReturn(Map.of(parent.getId(), childId));
+        when(doctorSpecialtyRepository.findByDoctorIds(any()))
+                .thenReturn(Map.of(parent.getDoctor().getId(), List.of(doctorSpecialty)));
+        when(appointmentDiagnosisRepository.findByAppointmentIds(any())).thenReturn(Map.of(parent.getId(), List.of(diagnosis)));
+        when(securityContextService.hasRole("secretary")).thenReturn(false);
+
+        List<MedicalAppointmentDto> result = medicalAppointmentService.toMedicalAppointmentDtos(List.of(parent, other));
+
+        assertEquals(2, result.size());
+        assertEquals(childId, result.get(0).getChildFollowUpId());
+        assertEquals("Pediatría", result.get(0).getSpecialtyName());
+        assertEquals("J00", result.get(0).getDiagnoses().get(0).getCode());
+        assertNull(result.get(1).getChildFollowUpId());
+        assertNull(result.get(1).getSpecialtyId());
+        assertTrue(result.get(1).getDiagnoses().isEmpty());
+        verify(medicalAppointmentRepository, never()).findChildFollowUpId(any());
+        verify(doctorSpecialtyRepository, never()).findByDoctorId(any());
+        verify(doctorSpecialtyRepository, times(1)).findByDoctorIds(any());
+    }
+
+    @Test
+    void toMedicalAppointmentDtos_asSecretary_skipsDiagnosesQuery() {
+        MedicalAppointmentEntity entity = buildAppointmentEntity(UUID.randomUUID(), AppointmentStatus.scheduled);
+        when(securityContextService.hasRole("secretary")).thenReturn(true);
+        when(securityContextService.hasRole("admin")).thenReturn(false);
+
+        List<MedicalAppointmentDto> result = medicalAppointmentService.toMedicalAppointmentDtos(List.of(entity));
+
+        assertNull(result.get(0).getDiagnoses());
+        verify(appointmentDiagnosisRepository, never()).findByAppointmentIds(any());
+    }
+
     // ========== toMedicalAppointmentDto — secretary privacy ==========
 
     @Test
@@ -474,4 +605,22 @@ class MedicalAppointmentServiceTest {
         when(clinicRepository.findByIdOptional(request.getClinicId()))
                 .thenReturn(Optional.of(buildClinic(request.getClinicId())));
     }
+
+    @ApplicationScoped
+    static class AppointmentEventRecorder {
+
+        private final List<AppointmentChangedEvent> events = Collections.synchronizedList(new ArrayList<>());
+
+        void onChanged(@Observes AppointmentChangedEvent event) {
+            events.add(event);
+        }
+
+        List<AppointmentChangedEvent> events() {
+            return events;
+        }
+
+        void clear() {
+            events.clear();
+        }
+    }
 }
@@ -54,13 +54,14 @@ class MedicalRecordServiceTest {
         MedicalRecordEntity record = buildRecord(UUID.randomUUID(), patient, buildDoctor(UUID.randomUUID()));
         when(patientRepository.findByIdOptional(patientId)).thenReturn(Optional.of(patient));
         when(securityContextService.getCurrentDoctorId()).thenReturn(null);
-        when(medicalRecordRepository.findByPatientId(patientId)).thenReturn(List.of(record));
+        when(medicalRecordRepository.findByPatientId(patientId, null, null, 501)).thenReturn(List.of(record));
 
-        List<MedicalRecordDto> result = medicalRecordService.getMedicalRecordsByPatientId(patientId);
+        HistoryList<MedicalRecordDto> result = medicalRecordService.getMedicalRecordsByPatientId(patientId, new PatientHistoryRequest());
 
-        assertEquals(1, result.size());
-        verify(medicalRecordRepository).findByPatientId(patientId);
-        verify(medicalRecordRepository, never()).findByPatientIdAndDoctorId(any(), any());
+        assertEquals(1, result.content.size());
+        assertFalse(result.hasMore);
+        verify(medicalRecordRepository).findByPatientId(patientId, null, null, 501);
+        verify(medicalRecordRepository, never()).findByPatientIdAndDoctorId(any(), any(), any(), any(), anyInt());
     }
 
     @Test
@@ -71,13 +72,13 @@ class MedicalRecordServiceTest {
         MedicalRecordEntity record = buildRecord(UUID.randomUUID(), patient, buildDoctor(doctorId));
         when(patientRepository.findByIdOptional(patientId)).thenReturn(Optional.of(patient));
         when(securityContextService.getCurrentDoctorId()).thenReturn(doctorId);
-        when(medicalRecordRepository.findByPatientIdAndDoctorId(patientId, doctorId)).thenReturn(List.of(record));
+        when(medicalRecordRepository.findByPatientIdAndDoctorId(patientId, doctorId, null, null, 501)).thenReturn(List.of(record));
 
-        List<MedicalRecordDto> result = medicalRecordService.getMedicalRecordsByPatientId(patientId);
+        HistoryList<MedicalRecordDto> result = medicalRecordService.getMedicalRecordsByPatientId(patientId, new PatientHistoryRequest());
 
-        assertEquals(1, result.size());
-        verify(medicalRecordRepository).findByPatientIdAndDoctorId(patientId, doctorId);
-        verify(medicalRecordRepository, never()).findByPatientId(any());
+        assertEquals(1, result.content.size());
+        verify(medicalRecordRepository).findByPatientIdAndDoctorId(patientId, doctorId, null, null, 501);
+        verify(medicalRecordRepository, never()).findByPatientId(any(), any(), any(), anyInt());
     }
 
     @Test
@@ -86,7 +87,43 @@ class MedicalRecordServiceTest {
         when(patientRepository.findByIdOptional(patientId)).thenReturn(Optional.empty());
 
         assertThrows(NotFoundException.class,
-                () -> medicalRecordService.getMedicalRecordsByPatientId(patientId));
+                () -> medicalRecordService.getMedicalRecordsByPatientId(patientId, new PatientHistoryRequest()));
+    }
+
+    @Test
+    void getMedicalRecordsByPatientId_withWindow_passesRangeAndClampsLimit() {
+        UUID patientId = UUID.randomUUID();
+        when(patientRepository.findByIdOptional(patientId)).thenReturn(Optional.of(buildPatient(patientId)));
+        when(securityContextService.getCurrentDoctorId()).thenReturn(null);
+        PatientHistoryRequest window = new PatientHistoryRequest();
+        window.setStartDate(LocalDateTime.of(2020, 1, 1, 0, 0));
+        window.setEndDate(LocalDateTime.of(2020, 12, 31, 23, 59));
+        window.setLimit(10_000);
+
+        medicalRecordService.getMedicalRecordsByPatientId(patientId, window);
+
+        verify(medicalRecordRepository).findByPatientId(patientId, window.getStartDate(), window.getEndDate(), 501);
+    }
+
+    @Test
+    void getMedicalRecordsByPatientId_moreRowsThanLimit_trimsAndFlagsHasMore() {
+        UUID patientId = UUID.randomUUID();
+        PatientEntity patient = buildPatient(patientId);
+        DoctorEntity doctor = buildDoctor(UUID.randomUUID());
+        MedicalRecordEntity newest = buildRecord(UUID.randomUUID(), patient, doctor);
+        MedicalRecordEntity older = buildRecord(UUID.randomUUID(), patient, doctor);
+        when(patientRepository.findByIdOptional(patientId)).thenReturn(Optional.of(patient));
+        when(securityContextService.getCurrentDoctorId()).thenReturn(null);
+        // Se pide una fila de más: si llega, hay historial fuera del listado
+        when(medicalRecordRepository.findByPatientId(patientId, null, null, 2)).thenReturn(List.of(newest, older));
+        PatientHistoryRequest window = new PatientHistoryRequest();
+        window.setLimit(1);
+
+        HistoryList<MedicalRecordDto> result = medicalRecordService.getMedicalRecordsByPatientId(patientId, window);
+
+        assertEquals(1, result.content.size());
+        assertEquals(newest.getId(), result.content.get(0).getId());
+        assertTrue(result.hasMore);
     }
 
     // ========== getMedicalRecordsByAppointmentId ==========
@@ -1,10 +1,14 @@
 package gt.com.xfactory.service;
 
 import gt.com.xfactory.dto.request.*;
+import gt.com.xfactory.dto.request.filter.*;
 import gt.com.xfactory.dto.response.*;
 import gt.com.xfactory.entity.*;
+import gt.com.xfactory.entity.enums.*;
 import gt.com.xfactory.repository.*;
 import gt.com.xfactory.service.impl.*;
+import gt.com.xfactory.utils.*;
+import io.quarkus.hibernate.orm.panache.*;
 import io.quarkus.test.InjectMock;
 import io.quarkus.test.junit.*;
 import jakarta.inject.*;
@@ -56,7 +60,8 @@ class PatientServiceTest {
         assertNotNull(result);
         assertEquals("Juan", result.getFirstName());
         assertEquals("Perez", result.getLastName());
-        verify(patientRepository).persist(any(PatientEntity.class));
+        verify(patientRepository).persist(argThat((PatientEntity p) ->
+                p.getSearchText() != null && p.getSearchText().startsWith("juan perez")));
     }
 
     @Test
@@ -172,6 +177,79 @@ class PatientServiceTest {
         assertThrows(NotFoundException.class, () -> patientService.getPatientById(patientId));
     }
 
+    // ========== getPatients ==========
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getPatients_cachedTotal_countsOncePerFilter() {
+        PanacheQuery<PatientEntity> mockQuery = mock(PanacheQuery.class);
+        when(patientRepository.find(anyString(), anyMap())).thenReturn(mockQuery);
+        when(mockQuery.count()).thenReturn(42L);
+
+        PatientFilterDto filter = new PatientFilterDto();
+        filter.phone = UUID.randomUUID().toString();
+        CommonPageRequest pageRequest = new CommonPageRequest();
+        pageRequest.setSize(10);
+        pageRequest.setTotal("cached");
+
+        PageResponse<PatientDto> first = patientService.getPatients(filter, pageRequest);
+        PageResponse<PatientDto> second = patientService.getPatients(filter, pageRequest);
+
+        assertEquals(42L, first.totalItems);
+        assertEquals(42L, second.totalItems);
+        assertEquals("cached", second.totalStrategy);
+        assertEquals(5, second.totalPages);
+        verify(mockQuery, times(1)).count();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getPatients_invalidTotalStrategy_throwsBadRequest() {
+        PanacheQuery<PatientEntity> mockQuery = mock(PanacheQuery.class);
+        when(patientRepository.find(anyString(), anyMap())).thenReturn(mockQuery);
+
+        CommonPageRequest pageRequest = new CommonPageRequest();
+        pageRequest.setSize(10);
+        pageRequest.setTotal("aproximado");
+
+        assertThrows(BadRequestException.class, () -> patientService.getPatients(new PatientFilterDto(), pageRequest));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getPatients_mapsProjectedRowsWithoutLoadingEntities() {
+        PanacheQuery<PatientEntity> mockQuery = mock(PanacheQuery.class);
+        when(patientRepository.find(anyString(), anyMap())).thenReturn(mockQuery);
+        when(mockQuery.count()).thenReturn(1L);
+
+        UUID patientId = UUID.randomUUID();
+        List<String> paths = PatientService.LIST_PROJECTION.paths();
+        Object[] row = new Object[paths.size()];
+        row[paths.indexOf("id")] = patientId;
+        row[paths.indexOf("firstName")] = "Maria";
+        row[paths.indexOf("lastName")] = "Gonzalez";
+        row[paths.indexOf("birthdate")] = LocalDate.now().minusYears(30);
+        row[paths.indexOf("gender")] = GenderType.female;
+        when(patientRepository.project(any(Projection.class), anyString(), anyString(), anyMap(), anyInt(), anyInt()))
+                .thenCallRealMethod();
+        when(patientRepository.projectRows(eq(paths), anyString(), anyString(), anyMap(), eq(0), eq(10)))
+                .thenReturn(List.<Object[]>of(row));
+
+        CommonPageRequest pageRequest = new CommonPageRequest();
+        pageRequest.setSize(10);
+
+        PageResponse<PatientDto> result = patientService.getPatients(new PatientFilterDto(), pageRequest);
+
+        assertEquals(1, result.content.size());
+        PatientDto dto = result.content.get(0);
+        assertEquals(patientId, dto.getId());
+        assertEquals("Maria", dto.getFirstName());
+        assertEquals(30, dto.getAge());
+        assertEquals("female", dto.getGender());
+        assertNull(dto.getBloodGroup());
+        verify(mockQuery, never()).list();
+    }
+
     // ========== searchPatients ==========
 
     @Test
@@ -0,0 +1,103 @@
+package gt.com.xfactory.service;
+
+import gt.com.xfactory.entity.*;
+import gt.com.xfactory.entity.enums.*;
+import gt.com.xfactory.repository.*;
+import gt.com.xfactory.service.event.*;
+import gt.com.xfactory.service.event.AppointmentChangedEvent.*;
+import io.quarkus.test.InjectMock;
+import io.quarkus.test.junit.*;
+import jakarta.enterprise.event.*;
+import jakarta.inject.*;
+import org.junit.jupiter.api.*;
+import org.mockito.*;
+
+import java.time.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@QuarkusTest
+@TestProfile(PatientTimelineMaintenanceTest.TimelineEnabled.class)
+class PatientTimelineMaintenanceTest {
+
+    public static class TimelineEnabled implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of("patient.timeline.enabled", "true");
+        }
+    }
+
+    @InjectMock
+    PatientTimelineRepository patientTimelineRepository;
+
+    @InjectMock
+    MedicalAppointmentRepository medicalAppointmentRepository;
+
+    @Inject
+    Event<AppointmentChangedEvent> appointmentChanged;
+
+    @Test
+    void appointmentChanged_visibleAppointment_upsertsFullEvent() {
+        MedicalAppointmentEntity appointment = buildAppointment();
+        when(medicalAppointmentRepository.findByIdOptional(appointment.getId())).thenReturn(Optional.of(appointment));
+
+        appointmentChanged.fire(AppointmentChangedEvent.created(appointment));
+
+        ArgumentCaptor<PatientTimelineEventEntity> captor = ArgumentCaptor.forClass(PatientTimelineEventEntity.class);
+        verify(patientTimelineRepository).upsert(captor.capture());
+        PatientTimelineEventEntity event = captor.getValue();
+        assertEquals(appointment.getId(), event.getSourceId());
+        assertEquals(TimelineEventType.appointment, event.getEventType());
+        assertEquals(appointment.getPatient().getId(), event.getPatientId());
+        assertEquals("Control anual", event.getTitle());
+        assertEquals("scheduled", event.getStatus());
+        assertEquals("org-1", event.getOrganizationId());
+        verify(patientTimelineRepository, never()).updateStatus(any(), any(), any());
+    }
+
+    @Test
+    void appointmentChanged_expiredBySchedulerInOtherTenant_updatesStatusFromSnapshot() {
+        UUID appointmentId = UUID.randomUUID();
+        // El scheduler corre con el tenant por defecto: la búsqueda filtrada no encuentra la cita
+        when(medicalAppointmentRepository.findByIdOptional(appointmentId)).thenReturn(Optional.empty());
+        LocalDate day = LocalDate.now().minusDays(1);
+        Snapshot before = new Snapshot("org-2", UUID.randomUUID(), UUID.randomUUID(), day, AppointmentStatus.confirmed);
+        Snapshot after = new Snapshot("org-2", before.clinicId(), before.doctorId(), day, AppointmentStatus.expired);
+
+        appointmentChanged.fire(new AppointmentChangedEvent(appointmentId, before, after));
+
+        verify(patientTimelineRepository).updateStatus(appointmentId, "org-2", "expired");
+        verify(patientTimelineRepository, never()).upsert(any());
+    }
+
+    @Test
+    void appointmentChanged_deleted_removesEvent() {
+        MedicalAppointmentEntity appointment = buildAppointment();
+
+        appointmentChanged.fire(AppointmentChangedEvent.deleted(appointment));
+
+        verify(patientTimelineRepository).delete("sourceId", appointment.getId());
+        verifyNoInteractions(medicalAppointmentRepository);
+    }
+
+    private MedicalAppointmentEntity buildAppointment() {
+        PatientEntity patient = new PatientEntity();
+        patient.setId(UUID.randomUUID());
+        DoctorEntity doctor = new DoctorEntity();
+        doctor.setId(UUID.randomUUID());
+        doctor.setFirstName("Dra. Elena");
+        doctor.setLastName("Vásquez");
+        MedicalAppointmentEntity a = new MedicalAppointmentEntity();
+        a.setId(UUID.randomUUID());
+        a.setPatient(patient);
+        a.setDoctor(doctor);
+        a.setAppointmentDate(LocalDateTime.now().plusDays(1));
+        a.setReason("Control anual");
+        a.setStatus(AppointmentStatus.scheduled);
+        a.setOrganizationId("org-1");
+        return a;
+    }
+}
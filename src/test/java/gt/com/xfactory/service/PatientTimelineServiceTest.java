@@ -0,0 +1,55 @@
+package gt.com.xfactory.service;
+
+import gt.com.xfactory.dto.request.*;
+import gt.com.xfactory.entity.*;
+import gt.com.xfactory.entity.enums.*;
+import gt.com.xfactory.repository.*;
+import gt.com.xfactory.service.event.*;
+import gt.com.xfactory.service.event.AppointmentChangedEvent.*;
+import gt.com.xfactory.service.impl.*;
+import io.quarkus.test.InjectMock;
+import io.quarkus.test.junit.*;
+import jakarta.enterprise.event.*;
+import jakarta.inject.*;
+import org.junit.jupiter.api.*;
+
+import java.time.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@QuarkusTest
+class PatientTimelineServiceTest {
+
+    @InjectMock
+    PatientTimelineRepository patientTimelineRepository;
+
+    @Inject
+    PatientTimelineService patientTimelineService;
+
+    @Inject
+    Event<AppointmentChangedEvent> appointmentChanged;
+
+    @Test
+    void getTimeline_disabled_throwsConflict() {
+        assertFalse(patientTimelineService.isEnabled());
+        assertThrows(IllegalStateException.class,
+                () -> patientTimelineService.getTimeline(UUID.randomUUID(), List.of(), new CommonPageRequest()));
+    }
+
+    @Test
+    void maintenance_disabled_doesNotWriteTimeline() {
+        Snapshot snapshot = new Snapshot("org", UUID.randomUUID(), UUID.randomUUID(), LocalDate.now(),
+                AppointmentStatus.scheduled);
+        LabOrderEntity order = new LabOrderEntity();
+        order.setId(UUID.randomUUID());
+
+        appointmentChanged.fire(new AppointmentChangedEvent(UUID.randomUUID(), null, snapshot));
+        patientTimelineService.recordLabOrder(order);
+        patientTimelineService.remove(order.getId());
+        patientTimelineService.removeMedicalRecord(UUID.randomUUID());
+
+        verifyNoInteractions(patientTimelineRepository);
+    }
+}
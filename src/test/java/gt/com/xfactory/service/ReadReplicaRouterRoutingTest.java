@@ -0,0 +1,89 @@
+package gt.com.xfactory.service;
+
+import gt.com.xfactory.service.impl.*;
+import io.micrometer.core.instrument.*;
+import io.quarkus.test.junit.*;
+import io.quarkus.test.junit.mockito.*;
+import jakarta.inject.*;
+import jakarta.persistence.*;
+import org.hibernate.Session;
+import org.junit.jupiter.api.*;
+
+import java.sql.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@QuarkusTest
+@TestProfile(ReadReplicaRouterRoutingTest.ReplicaEnabled.class)
+class ReadReplicaRouterRoutingTest {
+
+    public static class ReplicaEnabled implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            // La réplica es otra base H2; el lag se simula porque H2 no tiene las funciones de PostgreSQL.
+            // Sin scheduler: checkLag se invoca a mano y no debe correr a la vez que se stubbea el spy
+            return Map.of(
+                    "replica.enabled", "true",
+                    "quarkus.scheduler.enabled", "false",
+                    "quarkus.datasource.\"replica\".db-kind", "h2",
+                    "quarkus.datasource.\"replica\".jdbc.driver", "org.h2.Driver",
+                    "quarkus.datasource.\"replica\".jdbc.url", "jdbc:h2:mem:replica");
+        }
+    }
+
+    @InjectSpy
+    ReadReplicaRouter readReplicaRouter;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @Test
+    void read_replicaHealthy_runsOnReplica() throws Exception {
+        doReturn(0.5).when(readReplicaRouter).measureLag(any());
+        readReplicaRouter.checkLag();
+        double before = reads("replica", "ok");
+
+        String url = readReplicaRouter.read(this::connectionUrl);
+
+        assertTrue(readReplicaRouter.isEnabled());
+        assertEquals("jdbc:h2:mem:replica", url);
+        assertEquals(before + 1, reads("replica", "ok"));
+    }
+
+    @Test
+    void read_replicaLagging_fallsBackToPrimary() throws Exception {
+        doReturn(30.0).when(readReplicaRouter).measureLag(any());
+        readReplicaRouter.checkLag();
+        double before = reads("primary", "lag");
+
+        String url = readReplicaRouter.read(this::connectionUrl);
+
+        assertEquals("jdbc:h2:mem:testdb", url);
+        assertEquals(before + 1, reads("primary", "lag"));
+    }
+
+    @Test
+    void read_replicaUnhealthy_fallsBackToPrimary() throws Exception {
+        doThrow(new SQLException("connection refused")).when(readReplicaRouter).measureLag(any());
+        readReplicaRouter.checkLag();
+        double before = reads("primary", "lag");
+
+        String url = readReplicaRouter.read(this::connectionUrl);
+
+        // Sin lag medido no se confía en la réplica
+        assertEquals("jdbc:h2:mem:testdb", url);
+        assertEquals(before + 1, reads("primary", "lag"));
+    }
+
+    private String connectionUrl(EntityManager em) {
+        return em.unwrap(Session.class).doReturningWork(connection -> connection.getMetaData().getURL());
+    }
+
+    private double reads(String target, String reason) {
+        Counter counter = meterRegistry.find("replica.reads").tags("target", target, "reason", reason).counter();
+        return counter != null ? counter.count() : 0;
+    }
+}
@@ -0,0 +1,46 @@
+package gt.com.xfactory.service;
+
+import gt.com.xfactory.service.impl.*;
+import io.micrometer.core.instrument.*;
+import io.quarkus.test.junit.*;
+import jakarta.inject.*;
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+class ReadReplicaRouterTest {
+
+    @Inject
+    ReadReplicaRouter readReplicaRouter;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @Test
+    void read_replicaDisabled_runsOnPrimary() {
+        double before = primaryReads("disabled");
+
+        String result = readReplicaRouter.read(em -> {
+            assertNotNull(em);
+            return "ok";
+        });
+
+        assertFalse(readReplicaRouter.isEnabled());
+        assertEquals("ok", result);
+        assertEquals(before + 1, primaryReads("disabled"));
+    }
+
+    @Test
+    void recordWrite_replicaDisabled_isNoOp() {
+        readReplicaRouter.recordWrite("user-1");
+
+        assertEquals("ok", readReplicaRouter.read(em -> "ok"));
+        assertEquals(0, primaryReads("recent-write"));
+    }
+
+    private double primaryReads(String reason) {
+        Counter counter = meterRegistry.find("replica.reads").tags("target", "primary", "reason", reason).counter();
+        return counter != null ? counter.count() : 0;
+    }
+}
@@ -0,0 +1,114 @@
+package gt.com.xfactory.service;
+
+import gt.com.xfactory.entity.*;
+import gt.com.xfactory.repository.*;
+import gt.com.xfactory.service.impl.*;
+import io.quarkus.test.InjectMock;
+import io.quarkus.test.junit.*;
+import jakarta.inject.*;
+import jakarta.persistence.*;
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@QuarkusTest
+@TestProfile(SearchIndexServiceTest.IndexEnabled.class)
+class SearchIndexServiceTest {
+
+    public static class IndexEnabled implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of("search.index.enabled", "true");
+        }
+    }
+
+    @InjectMock
+    PatientRepository patientRepository;
+
+    @Inject
+    SearchIndexService searchIndexService;
+
+    @Inject
+    TenantScopedExecutor tenantScopedExecutor;
+
+    private final UUID maria = UUID.randomUUID();
+    private final UUID pedro = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        EntityManager em = mock(EntityManager.class);
+        TypedQuery<Object[]> patients = rows(List.of(
+                new Object[]{maria, "María José", "López", "1234567890101", "55501234"},
+                new Object[]{pedro, "Pedro", "Marroquín", "9876543210101", "44409876"}));
+        TypedQuery<Object[]> empty = rows(List.of());
+        when(em.createQuery(anyString(), eq(Object[].class))).thenReturn(empty);
+        when(em.createQuery(contains("PatientEntity"), eq(Object[].class))).thenReturn(patients);
+        when(patientRepository.getEntityManager()).thenReturn(em);
+    }
+
+    @Test
+    void search_organizationCreatedAfterStartup_buildsIndexOnFirstAccess() throws Exception {
+        String tenantId = UUID.randomUUID().toString();
+
+        // Sin índice todavía: va a BD y lanza la construcción
+        assertTrue(search(tenantId, "mar").isEmpty());
+
+        assertEquals(Optional.of(List.of(maria, pedro)), awaitIndex(tenantId, "mar"));
+        assertEquals(Optional.of(List.of(pedro)), search(tenantId, "pedro"));
+    }
+
+    @Test
+    void search_patientQueryWithDigits_fallsBackToDatabase() throws Exception {
+        String tenantId = UUID.randomUUID().toString();
+        awaitIndex(tenantId, "maria");
+
+        // DPI y teléfono se buscan por subcadena en BD; el índice solo resuelve prefijos
+        assertTrue(search(tenantId, "5678901").isEmpty());
+        assertTrue(search(tenantId, "maria 1234").isEmpty());
+        assertEquals(Optional.of(List.of(maria)), search(tenantId, "maria"));
+    }
+
+    @Test
+    void indexPatient_builtScope_appliesChangeAfterCommit() throws Exception {
+        String tenantId = UUID.randomUUID().toString();
+        awaitIndex(tenantId, "maria");
+        PatientEntity patient = new PatientEntity();
+        patient.setId(UUID.randomUUID());
+        patient.setFirstName("Lucía");
+        patient.setLastName("Herrera");
+        patient.setOrganizationId(tenantId);
+
+        // Sin transacción activa se aplica de inmediato
+        searchIndexService.indexPatient(patient);
+
+        assertEquals(Optional.of(List.of(patient.getId())), search(tenantId, "herrera"));
+    }
+
+    private Optional<List<UUID>> awaitIndex(String tenantId, String q) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            Optional<List<UUID>> result = search(tenantId, q);
+            if (result.isPresent()) {
+                return result;
+            }
+            Thread.sleep(50);
+        }
+        return fail("El índice del tenant " + tenantId + " no se construyó");
+    }
+
+    private Optional<List<UUID>> search(String tenantId, String q) {
+        return tenantScopedExecutor.call(tenantId, () -> searchIndexService.search(SearchIndexService.PATIENTS, q, 10));
+    }
+
+    @SuppressWarnings("unchecked")
+    private TypedQuery<Object[]> rows(List<Object[]> rows) {
+        TypedQuery<Object[]> query = mock(TypedQuery.class);
+        when(query.setFirstResult(anyInt())).thenReturn(query);
+        when(query.setMaxResults(anyInt())).thenReturn(query);
+        when(query.getResultList()).thenReturn(rows);
+        return query;
+    }
+}
@@ -0,0 +1,115 @@
+package gt.com.xfactory.service;
+
+import gt.com.xfactory.dto.response.*;
+import gt.com.xfactory.entity.*;
+import gt.com.xfactory.repository.*;
+import gt.com.xfactory.service.impl.*;
+import io.quarkus.hibernate.orm.panache.*;
+import io.quarkus.test.InjectMock;
+import io.quarkus.test.junit.*;
+import jakarta.inject.*;
+import jakarta.persistence.*;
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+import java.util.stream.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@QuarkusTest
+@TestProfile(SearchServiceParallelTest.ParallelSearch.class)
+class SearchServiceParallelTest {
+
+    public static class ParallelSearch implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of("search.parallel.enabled", "true", "search.parallel.deadline", "300ms");
+        }
+    }
+
+    @InjectMock
+    PatientRepository patientRepository;
+
+    @InjectMock
+    ClinicRepository clinicRepository;
+
+    @InjectMock
+    MedicationRepository medicationRepository;
+
+    @InjectMock
+    SecurityContextService securityContextService;
+
+    @Inject
+    SearchService searchService;
+
+    @Inject
+    EntityManager entityManager;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void search_parallel_runsSectionsWithQueryTimeout() {
+        PatientEntity patient = new PatientEntity();
+        patient.setId(UUID.randomUUID());
+        patient.setFirstName("María");
+        patient.setLastName("López");
+        List<Object> timeouts = new CopyOnWriteArrayList<>();
+        PanacheQuery<PatientEntity> patientQuery = mock(PanacheQuery.class);
+        when(patientRepository.find(anyString(), any(Map.class))).thenReturn(patientQuery);
+        when(patientQuery.page(anyInt(), anyInt())).thenReturn(patientQuery);
+        when(patientQuery.stream()).thenAnswer(inv -> {
+            // Se lee en el hilo de la sección: es la sesión con la que corre su consulta
+            timeouts.add(entityManager.getProperties().get("jakarta.persistence.query.timeout"));
+            return Stream.of(patient);
+        });
+        stubClinics(Stream::empty);
+
+        GlobalSearchDto result = searchService.search("mar", List.of("patients", "clinics"));
+
+        assertEquals(1, result.getPatients().size());
+        assertEquals("María López", result.getPatients().get(0).getName());
+        assertTrue(result.getClinics().isEmpty());
+        assertTrue(result.getTimedOutSections().isEmpty());
+        assertNull(result.getDoctors());
+        // 300 ms de deadline: Hibernate usa segundos, se redondea hacia arriba
+        assertEquals(List.of(1000), timeouts);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void search_sectionExceedsDeadline_returnsPartialResult() {
+        CountDownLatch release = new CountDownLatch(1);
+        PanacheQuery<MedicationEntity> medicationQuery = mock(PanacheQuery.class);
+        when(medicationRepository.find(anyString(), any(Map.class))).thenReturn(medicationQuery);
+        when(medicationQuery.page(anyInt(), anyInt())).thenReturn(medicationQuery);
+        when(medicationQuery.stream()).thenAnswer(inv -> {
+            release.await(5, TimeUnit.SECONDS);
+            return Stream.empty();
+        });
+        ClinicEntity clinic = new ClinicEntity();
+        clinic.setId(UUID.randomUUID());
+        clinic.setName("Clínica Central");
+        stubClinics(() -> Stream.of(clinic));
+
+        long start = System.nanoTime();
+        GlobalSearchDto result = searchService.search("cen", List.of("clinics", "medications"));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        release.countDown();
+
+        assertEquals(List.of("medications"), result.getTimedOutSections());
+        assertTrue(result.getMedications().isEmpty());
+        assertEquals(1, result.getClinics().size());
+        assertTrue(elapsedMillis < 2000, "No debe esperar a la sección lenta: " + elapsedMillis + " ms");
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubClinics(Supplier<Stream<ClinicEntity>> results) {
+        PanacheQuery<ClinicEntity> clinicQuery = mock(PanacheQuery.class);
+        when(clinicRepository.find(anyString(), any(Map.class))).thenReturn(clinicQuery);
+        when(clinicQuery.page(anyInt(), anyInt())).thenReturn(clinicQuery);
+        when(clinicQuery.stream()).thenAnswer(inv -> results.get());
+    }
+}
@@ -0,0 +1,82 @@
+package gt.com.xfactory.service;
+
+import gt.com.xfactory.service.impl.*;
+import io.quarkus.test.junit.*;
+import jakarta.inject.*;
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+@TestProfile(TenantScopedExecutorTest.TwoPermits.class)
+class TenantScopedExecutorTest {
+
+    public static class TwoPermits implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of("tenant-executor.max-concurrency", "2", "quarkus.scheduler.enabled", "false");
+        }
+    }
+
+    @Inject
+    TenantScopedExecutor tenantScopedExecutor;
+
+    @Test
+    void submit_runsAtMostMaxConcurrencyTasksAtOnce() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<CompletableFuture<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            tasks.add(tenantScopedExecutor.submit(tenantScopedExecutor.defaultTenantId(), () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                await(release);
+                running.decrementAndGet();
+                return null;
+            }));
+        }
+
+        // Las tareas sin permiso esperan su turno en lugar de tomar más conexiones del pool
+        Thread.sleep(300);
+        assertEquals(2, running.get());
+        release.countDown();
+        CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+        assertEquals(2, maxRunning.get());
+    }
+
+    @Test
+    void call_fromRunningTasks_doesNotDeadlockWhenSaturated() throws Exception {
+        String tenantId = tenantScopedExecutor.defaultTenantId();
+        CyclicBarrier bothRunning = new CyclicBarrier(2);
+
+        // Las dos tareas ocupan todos los permisos y esperan a una subtarea cada una
+        List<CompletableFuture<String>> tasks = List.of(
+                tenantScopedExecutor.submit(tenantId, () -> nested(bothRunning, tenantId)),
+                tenantScopedExecutor.submit(tenantId, () -> nested(bothRunning, tenantId)));
+
+        for (CompletableFuture<String> task : tasks) {
+            assertEquals(tenantId, task.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    private String nested(CyclicBarrier bothRunning, String tenantId) {
+        try {
+            bothRunning.await(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return tenantScopedExecutor.call(tenantId, tenantScopedExecutor::currentTenantId);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
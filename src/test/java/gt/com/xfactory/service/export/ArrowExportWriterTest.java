@@ -0,0 +1,90 @@
+package gt.com.xfactory.service.export;
+
+import org.apache.arrow.compression.*;
+import org.apache.arrow.memory.*;
+import org.apache.arrow.vector.*;
+import org.apache.arrow.vector.compression.*;
+import org.apache.arrow.vector.ipc.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArrowExportWriterTest {
+
+    private static final List<ExportColumn> COLUMNS = List.of(
+            ExportColumn.of("id", ExportColumn.Type.UUID),
+            ExportColumn.of("created_at", ExportColumn.Type.TIMESTAMP),
+            ExportColumn.of("visit_date", ExportColumn.Type.DATE),
+            ExportColumn.of("value", ExportColumn.Type.DOUBLE),
+            ExportColumn.of("abnormal", ExportColumn.Type.BOOLEAN));
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void append_moreRowsThanBatch_writesAllBatchesCompressed() throws Exception {
+        Path file = tempDir.resolve("appointments.arrow");
+        LocalDateTime createdAt = LocalDateTime.of(2026, 10, 14, 8, 30, 15, 123_456_000);
+        LocalDate visitDate = LocalDate.of(2026, 10, 14);
+
+        try (ArrowExportWriter writer = new ArrowExportWriter(file, COLUMNS, 3, CompressionUtil.CodecType.ZSTD)) {
+            for (int i = 0; i < 7; i++) {
+                writer.append(new Object[]{"row-" + i, createdAt.plusDays(i), visitDate, i * 1.5, i % 2 == 0});
+            }
+            writer.append(new Object[]{null, null, null, null, null});
+            assertEquals(8, writer.rowCount());
+        }
+
+        List<Object[]> rows = readAll(file);
+        assertEquals(8, rows.size());
+        assertEquals("row-0", rows.get(0)[0]);
+        assertEquals(createdAt, rows.get(0)[1]);
+        assertEquals(visitDate, rows.get(0)[2]);
+        assertEquals(9.0, rows.get(6)[3]);
+        assertEquals(true, rows.get(6)[4]);
+        assertEquals(false, rows.get(5)[4]);
+        assertArrayEquals(new Object[]{null, null, null, null, null}, rows.get(7));
+    }
+
+    @Test
+    void close_noRows_writesReadableEmptyFile() throws Exception {
+        Path file = tempDir.resolve("empty.arrow");
+
+        try (ArrowExportWriter writer = new ArrowExportWriter(file, COLUMNS, 3, CompressionUtil.CodecType.ZSTD)) {
+            assertEquals(0, writer.rowCount());
+        }
+
+        assertTrue(readAll(file).isEmpty());
+    }
+
+    private List<Object[]> readAll(Path file) throws Exception {
+        List<Object[]> rows = new ArrayList<>();
+        try (BufferAllocator allocator = new RootAllocator();
+             FileChannel channel = FileChannel.open(file);
+             ArrowFileReader reader = new ArrowFileReader(channel, allocator, CommonsCompressionFactory.INSTANCE)) {
+            VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            while (reader.loadNextBatch()) {
+                for (int r = 0; r < root.getRowCount(); r++) {
+                    VarCharVector id = (VarCharVector) root.getVector(0);
+                    TimeStampMicroVector createdAt = (TimeStampMicroVector) root.getVector(1);
+                    DateDayVector visitDate = (DateDayVector) root.getVector(2);
+                    Float8Vector value = (Float8Vector) root.getVector(3);
+                    BitVector abnormal = (BitVector) root.getVector(4);
+                    rows.add(new Object[]{
+                            id.isNull(r) ? null : new String(id.get(r)),
+                            createdAt.getObject(r),
+                            visitDate.isNull(r) ? null : LocalDate.ofEpochDay(visitDate.get(r)),
+                            value.getObject(r),
+                            abnormal.getObject(r)});
+                }
+            }
+        }
+        return rows;
+    }
+}
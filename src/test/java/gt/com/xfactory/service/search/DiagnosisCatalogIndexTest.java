@@ -0,0 +1,73 @@
+package gt.com.xfactory.service.search;
+
+import gt.com.xfactory.dto.response.*;
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiagnosisCatalogIndexTest {
+
+    private DiagnosisCatalogIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = DiagnosisCatalogIndex.of(List.of(
+                diagnosis("J45.1", "Asma no alérgica"),
+                diagnosis("J45.0", "Asma predominantemente alérgica"),
+                diagnosis("J45", "Asma"),
+                diagnosis("E11", "Diabetes mellitus tipo 2"),
+                diagnosis("E10", "Diabetes mellitus tipo 1"),
+                diagnosis("I10", "Hipertensión esencial (primaria)")
+        ));
+    }
+
+    @Test
+    void autocomplete_codePrefix_returnsCodesInOrder() {
+        List<String> codes = codes(index.autocomplete("j45", 10));
+        assertEquals(List.of("J45", "J45.0", "J45.1"), codes);
+    }
+
+    @Test
+    void autocomplete_codeWithDot_isOptional() {
+        assertEquals(List.of("J45.0"), codes(index.autocomplete("J45.0", 10)));
+        assertEquals(List.of("J45.0"), codes(index.autocomplete("J450", 10)));
+    }
+
+    @Test
+    void autocomplete_nameTokens_matchAccentInsensitive() {
+        assertEquals(List.of("I10"), codes(index.autocomplete("hipertension", 10)));
+        assertEquals(Set.of("E10", "E11"), new HashSet<>(codes(index.autocomplete("diab mell", 10))));
+    }
+
+    @Test
+    void autocomplete_respectsLimit() {
+        assertEquals(2, index.autocomplete("asma", 2).size());
+    }
+
+    @Test
+    void autocomplete_noMatch_returnsEmpty() {
+        assertTrue(index.autocomplete("zzz", 10).isEmpty());
+    }
+
+    @Test
+    void prefixTrie_replacesValueForSameKey() {
+        PrefixTrie<String> trie = new PrefixTrie<>();
+        trie.put("A01", "uno");
+        trie.put("A01", "otro");
+        trie.put("A011", "hijo");
+        assertEquals(2, trie.size());
+        assertEquals("otro", trie.get("A01"));
+        assertEquals(List.of("otro", "hijo"), trie.findByPrefix("A0", 10));
+        assertTrue(trie.findByPrefix("B", 10).isEmpty());
+    }
+
+    private static DiagnosisCatalogDto diagnosis(String code, String name) {
+        return DiagnosisCatalogDto.builder().id(UUID.randomUUID()).code(code).name(name).build();
+    }
+
+    private static List<String> codes(List<DiagnosisCatalogDto> diagnoses) {
+        return diagnoses.stream().map(DiagnosisCatalogDto::getCode).toList();
+    }
+}
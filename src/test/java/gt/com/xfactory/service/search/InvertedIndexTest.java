@@ -0,0 +1,92 @@
+package gt.com.xfactory.service.search;
+
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InvertedIndexTest {
+
+    private final UUID maria = UUID.randomUUID();
+    private final UUID mario = UUID.randomUUID();
+    private final UUID pedro = UUID.randomUUID();
+
+    private InvertedIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new InvertedIndex();
+        index.put(maria, "María José", "López", "1234567890101");
+        index.put(mario, "Mario", "Pérez");
+        index.put(pedro, "Pedro", "Marroquín");
+    }
+
+    @Test
+    void search_prefix_matchesAccentFolded() {
+        List<UUID> result = index.search("mari", 10);
+        assertEquals(List.of(maria, mario), result);
+    }
+
+    @Test
+    void search_exactMatch_ranksBeforePrefix() {
+        index.put(pedro, "Aarón", "Mariovich");
+        // exacto (3) > prefijo (2) > un error de tipeo (1), aunque el orden alfabético diga lo contrario
+        assertEquals(List.of(mario, pedro, maria), index.search("mario", 10));
+    }
+
+    @Test
+    void search_multipleTokens_requiresAll() {
+        assertEquals(List.of(maria), index.search("maria lopez", 10));
+        assertTrue(index.search("maria gomez", 10).isEmpty());
+    }
+
+    @Test
+    void search_oneTypo_matchesFuzzy() {
+        assertEquals(List.of(pedro), index.search("pedor", 10));
+        assertEquals(List.of(mario), index.search("perz", 10));
+    }
+
+    @Test
+    void search_byDocumentNumberPrefix() {
+        assertEquals(List.of(maria), index.search("123456", 10));
+    }
+
+    @Test
+    void put_existingId_replacesTerms() {
+        index.put(mario, "Mario", "Gómez");
+        assertTrue(index.search("perez", 10).isEmpty());
+        assertEquals(List.of(mario), index.search("gomez", 10));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void remove_dropsDocumentAndUnusedTerms() {
+        int terms = index.termCount();
+        index.remove(pedro);
+        assertTrue(index.search("pedro", 10).isEmpty());
+        assertEquals(2, index.size());
+        assertEquals(terms - 2, index.termCount());
+    }
+
+    @Test
+    void search_respectsLimit() {
+        assertEquals(1, index.search("mar", 1).size());
+    }
+
+    @Test
+    void estimatedBytes_growsWithDocuments() {
+        long before = index.estimatedBytes();
+        index.put(UUID.randomUUID(), "Ana", "Gómez");
+        assertTrue(index.estimatedBytes() > before);
+    }
+
+    @Test
+    void isWithinOneEdit_coversEditKinds() {
+        assertTrue(InvertedIndex.isWithinOneEdit("maria", "marai"));
+        assertTrue(InvertedIndex.isWithinOneEdit("maria", "mara"));
+        assertTrue(InvertedIndex.isWithinOneEdit("mara", "maria"));
+        assertTrue(InvertedIndex.isWithinOneEdit("maria", "marta"));
+        assertFalse(InvertedIndex.isWithinOneEdit("maria", "mirta"));
+    }
+}
@@ -0,0 +1,144 @@
+package gt.com.xfactory.service.storage;
+
+import gt.com.xfactory.entity.enums.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.security.*;
+import java.util.*;
+import java.util.stream.*;
+import java.util.zip.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileSystemBlobStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private FileSystemBlobStore blobStore;
+
+    @BeforeEach
+    void setUp() {
+        blobStore = new FileSystemBlobStore();
+        blobStore.directory = tempDir.toString();
+    }
+
+    @Test
+    void stageAndPublish_storesContentUnderSha256() throws Exception {
+        byte[] content = "resultado de laboratorio".getBytes(StandardCharsets.UTF_8);
+
+        StagedBlob staged = blobStore.stage(new ByteArrayInputStream(content));
+
+        assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content)), staged.hash());
+        assertEquals(content.length, staged.size());
+        assertFalse(blobStore.exists(staged.hash()));
+
+        assertTrue(blobStore.publish(staged));
+        assertTrue(blobStore.exists(staged.hash()));
+        assertEquals(content.length, blobStore.size(staged.hash()));
+        try (InputStream in = blobStore.open(staged.hash())) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+        assertTrue(tempFiles().isEmpty());
+    }
+
+    @Test
+    void publish_sameContentTwice_keepsSingleObject() throws Exception {
+        byte[] content = "mismo archivo".getBytes(StandardCharsets.UTF_8);
+        StagedBlob first = blobStore.stage(new ByteArrayInputStream(content));
+        StagedBlob second = blobStore.stage(new ByteArrayInputStream(content));
+
+        assertTrue(blobStore.publish(first));
+        assertFalse(blobStore.publish(second));
+
+        assertEquals(first.hash(), second.hash());
+        assertFalse(Files.exists(second.path()));
+        assertTrue(tempFiles().isEmpty());
+    }
+
+    @Test
+    void compress_compressibleContent_storesGzipUnderOriginalHash() throws Exception {
+        byte[] content = "0 0 0 RG 1 0 0 1 72 720 Tm (Hemograma) Tj\n".repeat(500).getBytes(StandardCharsets.UTF_8);
+        StagedBlob staged = blobStore.stage(new ByteArrayInputStream(content));
+
+        StagedBlob compressed = blobStore.compress(staged, 0.1);
+
+        assertEquals(ContentEncoding.gzip, compressed.encoding());
+        assertEquals(staged.hash(), compressed.hash());
+        assertEquals(content.length, compressed.size());
+        assertFalse(Files.exists(staged.path()));
+        assertTrue(blobStore.publish(compressed));
+        assertTrue(blobStore.size(compressed.hash()) < content.length);
+        try (InputStream in = new GZIPInputStream(blobStore.open(compressed.hash()))) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+    }
+
+    @Test
+    void compress_incompressibleContent_keepsOriginal() throws Exception {
+        byte[] content = new byte[4096];
+        new Random(42).nextBytes(content);
+        StagedBlob staged = blobStore.stage(new ByteArrayInputStream(content));
+
+        StagedBlob result = blobStore.compress(staged, 0.1);
+
+        assertSame(staged, result);
+        assertTrue(Files.exists(staged.path()));
+        assertEquals(1, tempFiles().size());
+    }
+
+    @Test
+    void delete_removesObject() throws Exception {
+        StagedBlob staged = blobStore.stage(new ByteArrayInputStream(new byte[]{1, 2, 3}));
+        blobStore.publish(staged);
+
+        blobStore.delete(staged.hash());
+
+        assertFalse(blobStore.exists(staged.hash()));
+    }
+
+    @Test
+    void putDerived_storedNextToObjectAndDeletedWithIt() throws Exception {
+        StagedBlob staged = blobStore.stage(new ByteArrayInputStream(new byte[]{4, 5, 6}));
+        blobStore.publish(staged);
+
+        blobStore.putDerived(staged.hash(), "preview", new byte[]{9});
+
+        assertTrue(blobStore.derivedExists(staged.hash(), "preview"));
+        try (InputStream in = blobStore.openDerived(staged.hash(), "preview")) {
+            assertArrayEquals(new byte[]{9}, in.readAllBytes());
+        }
+        blobStore.delete(staged.hash());
+        assertFalse(blobStore.derivedExists(staged.hash(), "preview"));
+        assertThrows(IllegalArgumentException.class, () -> blobStore.derivedExists(staged.hash(), "../x"));
+    }
+
+    @Test
+    void deleteDerived_keepsObject() throws Exception {
+        StagedBlob staged = blobStore.stage(new ByteArrayInputStream(new byte[]{7, 8}));
+        blobStore.publish(staged);
+        blobStore.putDerived(staged.hash(), "preview", new byte[]{9});
+
+        blobStore.deleteDerived(staged.hash(), "preview");
+        blobStore.deleteDerived(staged.hash(), "preview");
+
+        assertFalse(blobStore.derivedExists(staged.hash(), "preview"));
+        assertTrue(blobStore.exists(staged.hash()));
+    }
+
+    @Test
+    void open_invalidHash_throwsIllegalArgument() {
+        assertThrows(IllegalArgumentException.class, () -> blobStore.open("../../etc/passwd"));
+        assertThrows(IllegalArgumentException.class, () -> blobStore.open("ABC"));
+    }
+
+    private List<Path> tempFiles() throws IOException {
+        try (Stream<Path> files = Files.list(tempDir.resolve("tmp"))) {
+            return files.toList();
+        }
+    }
+}
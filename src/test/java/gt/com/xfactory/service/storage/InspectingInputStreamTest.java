@@ -0,0 +1,39 @@
+package gt.com.xfactory.service.storage;
+
+import org.junit.jupiter.api.*;
+
+import java.io.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InspectingInputStreamTest {
+
+    @Test
+    void sniffedContentType_recognizesSignatures() throws IOException {
+        assertEquals("application/pdf", sniff(new byte[]{'%', 'P', 'D', 'F', '-', '1', '.', '7'}));
+        assertEquals("image/png", sniff(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0}));
+        assertEquals("image/jpeg", sniff(new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0}));
+        assertNull(sniff("GIF89a".getBytes()));
+        assertNull(sniff(new byte[]{'%', 'P'}));
+    }
+
+    @Test
+    void read_beyondMaxBytes_throwsTooLarge() {
+        InspectingInputStream in = new InspectingInputStream(new ByteArrayInputStream(new byte[101]), 100);
+
+        assertThrows(InspectingInputStream.TooLargeException.class, () -> in.transferTo(OutputStream.nullOutputStream()));
+    }
+
+    @Test
+    void read_exactlyMaxBytes_passes() throws IOException {
+        InspectingInputStream in = new InspectingInputStream(new ByteArrayInputStream(new byte[100]), 100);
+
+        assertEquals(100, in.transferTo(OutputStream.nullOutputStream()));
+    }
+
+    private static String sniff(byte[] content) throws IOException {
+        InspectingInputStream in = new InspectingInputStream(new ByteArrayInputStream(content), 1024);
+        in.transferTo(OutputStream.nullOutputStream());
+        return in.sniffedContentType();
+    }
+}
@@ -0,0 +1,65 @@
+package gt.com.xfactory.service.storage;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.Image;
+import com.lowagie.text.Paragraph;
+import com.lowagie.text.pdf.*;
+import org.junit.jupiter.api.*;
+
+import javax.imageio.*;
+import java.awt.image.*;
+import java.io.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PreviewRendererTest {
+
+    @Test
+    void renderImage_largePng_fitsMaxDimension() throws IOException {
+        byte[] preview = PreviewRenderer.renderImage(new ByteArrayInputStream(encode(2000, 1000, "png")), 320);
+
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(preview));
+        assertEquals(320, image.getWidth());
+        assertEquals(160, image.getHeight());
+    }
+
+    @Test
+    void renderImage_notAnImage_returnsNull() throws IOException {
+        assertNull(PreviewRenderer.renderImage(new ByteArrayInputStream("%PDF-1.7".getBytes()), 320));
+    }
+
+    @Test
+    void renderPdf_scannedPage_usesEmbeddedJpeg() throws Exception {
+        ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+        Document document = new Document();
+        PdfWriter.getInstance(document, pdf);
+        document.open();
+        document.add(Image.getInstance(encode(1200, 1600, "jpg")));
+        document.close();
+
+        byte[] preview = PreviewRenderer.renderPdf(new RandomAccessFileOrArray(pdf.toByteArray()), 320);
+
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(preview));
+        assertEquals(240, image.getWidth());
+        assertEquals(320, image.getHeight());
+    }
+
+    @Test
+    void renderPdf_textOnly_returnsNull() throws Exception {
+        ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+        Document document = new Document();
+        PdfWriter.getInstance(document, pdf);
+        document.open();
+        document.add(new Paragraph("Hemograma completo"));
+        document.close();
+
+        assertNull(PreviewRenderer.renderPdf(new RandomAccessFileOrArray(pdf.toByteArray()), 320));
+    }
+
+    private static byte[] encode(int width, int height, String format) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, format, out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,97 @@
+package gt.com.xfactory.service.widget;
+
+import gt.com.xfactory.dto.response.DashboardWidgetsDto.*;
+import gt.com.xfactory.entity.enums.*;
+import gt.com.xfactory.service.widget.WidgetContext.*;
+import org.junit.jupiter.api.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WidgetContextTest {
+
+    // Miércoles: la semana va del lunes 14 al domingo 20
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 10, 14, 10, 0);
+
+    private final UUID patientA = UUID.randomUUID();
+    private final UUID patientB = UUID.randomUUID();
+    private final AtomicInteger loads = new AtomicInteger();
+    private WidgetContext context;
+
+    @BeforeEach
+    void setUp() {
+        List<AppointmentRow> rows = List.of(
+                row(NOW.minusDays(2), AppointmentStatus.completed, patientA),
+                row(NOW.minusHours(2), AppointmentStatus.scheduled, patientA),
+                row(NOW.minusHours(1), AppointmentStatus.cancelled, patientB),
+                row(NOW.plusHours(3), AppointmentStatus.confirmed, patientB),
+                row(NOW.plusHours(1), AppointmentStatus.completed, patientB),
+                row(NOW.plusDays(2), AppointmentStatus.no_show, patientB));
+        context = new WidgetContext(null, null, NOW, ctx -> {
+            loads.incrementAndGet();
+            return rows;
+        });
+    }
+
+    @Test
+    void weekAppointments_loadedOnceAndSortedByDate() {
+        new DelaysResolver().resolve(context);
+        new TodayCancellationsResolver().resolve(context);
+        new WeeklySummaryResolver().resolve(context);
+
+        assertEquals(1, loads.get());
+        List<AppointmentRow> week = context.weekAppointments();
+        assertEquals(NOW.minusDays(2), week.get(0).appointmentDate());
+        assertEquals(NOW.plusDays(2), week.get(week.size() - 1).appointmentDate());
+        assertEquals(4, context.todayAppointments().size());
+    }
+
+    @Test
+    void delays_onlyPendingAppointmentsBeforeNow() {
+        DelaysData data = (DelaysData) new DelaysResolver().resolve(context);
+
+        assertEquals(1, data.getCount());
+        assertEquals(120, data.getItems().get(0).getDelayMinutes());
+    }
+
+    @Test
+    void todayCancellations_onlyCancelledToday() {
+        TodayCancellationsData data = (TodayCancellationsData) new TodayCancellationsResolver().resolve(context);
+
+        assertEquals(1, data.getCount());
+        assertEquals("09:00", data.getItems().get(0).getScheduledTime());
+    }
+
+    @Test
+    void weeklySummary_countsStatusesAndDistinctPatients() {
+        WeeklySummaryData data = (WeeklySummaryData) new WeeklySummaryResolver().resolve(context);
+
+        assertEquals(6, data.getTotalAppointments());
+        assertEquals(2, data.getCompleted());
+        assertEquals(1, data.getCancelled());
+        assertEquals(1, data.getNoShow());
+        assertEquals(2, data.getPatientsAttended());
+    }
+
+    @Test
+    void nextAppointment_firstPendingFromNowInSnapshot() {
+        NextAppointmentData data = (NextAppointmentData) new NextAppointmentResolver().resolve(context);
+
+        assertEquals(180, data.getMinutesUntil());
+        assertEquals("Paciente " + patientB, data.getPatientName());
+    }
+
+    @Test
+    void weekBounds_mondayToNextMonday() {
+        assertEquals(LocalDateTime.of(2026, 10, 12, 0, 0), context.startOfWeek());
+        assertEquals(LocalDateTime.of(2026, 10, 19, 0, 0), context.endOfWeek());
+    }
+
+    private AppointmentRow row(LocalDateTime date, AppointmentStatus status, UUID patientId) {
+        return new AppointmentRow(UUID.randomUUID(), date, status, patientId, "Paciente " + patientId,
+                null, null, null);
+    }
+}
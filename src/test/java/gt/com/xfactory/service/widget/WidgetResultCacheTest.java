@@ -0,0 +1,143 @@
+package gt.com.xfactory.service.widget;
+
+import gt.com.xfactory.entity.enums.*;
+import gt.com.xfactory.service.event.*;
+import gt.com.xfactory.service.event.AppointmentChangedEvent.*;
+import gt.com.xfactory.service.impl.*;
+import io.micrometer.core.instrument.*;
+import io.quarkus.test.InjectMock;
+import io.quarkus.test.junit.*;
+import jakarta.enterprise.event.*;
+import jakarta.inject.*;
+import org.junit.jupiter.api.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@QuarkusTest
+class WidgetResultCacheTest {
+
+    @Inject
+    WidgetResultCache widgetResultCache;
+
+    @Inject
+    TenantScopedExecutor tenantScopedExecutor;
+
+    @Inject
+    Event<AppointmentChangedEvent> appointmentChanged;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @InjectMock
+    ReadReplicaRouter readReplicaRouter;
+
+    private final UUID clinicId = UUID.randomUUID();
+    private final UUID doctorId = UUID.randomUUID();
+    private final AtomicInteger resolutions = new AtomicInteger();
+
+    @Test
+    void get_sameScope_resolvesOnce() {
+        double hitsBefore = count(WidgetType.WEEKLY_SUMMARY, "hit");
+
+        Object first = widgetResultCache.get(WidgetType.WEEKLY_SUMMARY, context(clinicId, null), this::resolve);
+        Object second = widgetResultCache.get(WidgetType.WEEKLY_SUMMARY, context(clinicId, null), this::resolve);
+
+        assertEquals(1, resolutions.get());
+        assertEquals(first, second);
+        assertEquals(hitsBefore + 1, count(WidgetType.WEEKLY_SUMMARY, "hit"));
+    }
+
+    @Test
+    void get_differentScope_resolvesAgain() {
+        widgetResultCache.get(WidgetType.WEEKLY_SUMMARY, context(clinicId, null), this::resolve);
+        widgetResultCache.get(WidgetType.WEEKLY_SUMMARY, context(clinicId, doctorId), this::resolve);
+
+        assertEquals(2, resolutions.get());
+    }
+
+    @Test
+    void appointmentChanged_inScope_evictsEntry() {
+        widgetResultCache.get(WidgetType.WEEKLY_SUMMARY, context(clinicId, doctorId), this::resolve);
+
+        appointmentChanged.fire(change(clinicId, doctorId));
+        widgetResultCache.get(WidgetType.WEEKLY_SUMMARY, context(clinicId, doctorId), this::resolve);
+
+        assertEquals(2, resolutions.get());
+    }
+
+    @Test
+    void appointmentChanged_otherDoctor_keepsEntry() {
+        widgetResultCache.get(WidgetType.WEEKLY_SUMMARY, context(clinicId, doctorId), this::resolve);
+
+        appointmentChanged.fire(change(clinicId, UUID.randomUUID()));
+        widgetResultCache.get(WidgetType.WEEKLY_SUMMARY, context(clinicId, doctorId), this::resolve);
+
+        assertEquals(1, resolutions.get());
+    }
+
+    @Test
+    void appointmentChanged_whileResolving_doesNotCacheOldValue() {
+        // El valor se calculó antes de que se confirmara el cambio
+        widgetResultCache.get(WidgetType.WEEKLY_SUMMARY, context(clinicId, doctorId), () -> {
+            appointmentChanged.fire(change(clinicId, doctorId));
+            return resolve();
+        });
+        widgetResultCache.get(WidgetType.WEEKLY_SUMMARY, context(clinicId, doctorId), this::resolve);
+
+        assertEquals(2, resolutions.get());
+    }
+
+    @Test
+    void get_recentWrite_bypassesCache() {
+        widgetResultCache.get(WidgetType.WEEKLY_SUMMARY, context(clinicId, doctorId), this::resolve);
+        when(readReplicaRouter.hasRecentWrite()).thenReturn(true);
+
+        Object value = widgetResultCache.get(WidgetType.WEEKLY_SUMMARY, context(clinicId, doctorId), this::resolve);
+        widgetResultCache.get(WidgetType.WEEKLY_SUMMARY, context(clinicId, doctorId), this::resolve);
+
+        assertEquals("resultado-2", value);
+        assertEquals(3, resolutions.get());
+    }
+
+    @Test
+    void get_replicaReadRightAfterInvalidation_isNotCached() {
+        widgetResultCache.get(WidgetType.WEEKLY_SUMMARY, context(clinicId, doctorId), this::resolve);
+        appointmentChanged.fire(change(clinicId, doctorId));
+        when(readReplicaRouter.readsFromReplica()).thenReturn(true);
+        when(readReplicaRouter.mayLagBehind(anyLong())).thenReturn(true);
+
+        // La réplica puede no tener todavía el cambio: no se comparte su resultado
+        widgetResultCache.get(WidgetType.WEEKLY_SUMMARY, context(clinicId, doctorId), this::resolve);
+        widgetResultCache.get(WidgetType.WEEKLY_SUMMARY, context(clinicId, doctorId), this::resolve);
+
+        assertEquals(3, resolutions.get());
+    }
+
+    private Object resolve() {
+        return "resultado-" + resolutions.incrementAndGet();
+    }
+
+    private WidgetContext context(UUID clinicId, UUID doctorId) {
+        return new WidgetContext(clinicId, doctorId, LocalDateTime.now(), ctx -> List.of());
+    }
+
+    private AppointmentChangedEvent change(UUID clinicId, UUID doctorId) {
+        Snapshot before = new Snapshot(tenantScopedExecutor.defaultTenantId(), clinicId, doctorId, LocalDate.now(),
+                AppointmentStatus.scheduled);
+        Snapshot after = new Snapshot(tenantScopedExecutor.defaultTenantId(), clinicId, doctorId, LocalDate.now(),
+                AppointmentStatus.cancelled);
+        return new AppointmentChangedEvent(UUID.randomUUID(), before, after);
+    }
+
+    private double count(WidgetType type, String result) {
+        Counter counter = meterRegistry.find("dashboard.widget.cache")
+                .tags("widget", type.name(), "result", result).counter();
+        return counter != null ? counter.count() : 0;
+    }
+}
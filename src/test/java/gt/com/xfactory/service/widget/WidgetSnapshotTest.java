@@ -0,0 +1,123 @@
+package gt.com.xfactory.service.widget;
+
+import gt.com.xfactory.dto.response.*;
+import gt.com.xfactory.dto.response.DashboardWidgetsDto.*;
+import gt.com.xfactory.entity.DashboardWidgetConfigEntity.*;
+import gt.com.xfactory.entity.enums.*;
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WidgetSnapshotTest {
+
+    private final List<WidgetItem> items = List.of(
+            new WidgetItem(WidgetType.DELAYS, 2),
+            new WidgetItem(WidgetType.TODAY_CANCELLATIONS, 1));
+
+    @Test
+    void toDto_followsUserOrder() {
+        WidgetSnapshot snapshot = snapshot(dayStatus(3), delays(1), cancellations(0));
+
+        DashboardWidgetsDto dto = snapshot.toDto(items);
+
+        assertEquals(3, dto.getDayStatus().getTodayAppointments());
+        assertEquals(List.of("TODAY_CANCELLATIONS", "DELAYS"),
+                dto.getWidgets().stream().map(WidgetDataDto::getType).toList());
+    }
+
+    @Test
+    void deltaFrom_onlyChangedWidgets() {
+        WidgetSnapshot previous = snapshot(dayStatus(3), delays(1), cancellations(0));
+        WidgetSnapshot current = snapshot(dayStatus(3), delays(1), cancellations(1));
+
+        DashboardWidgetsDto delta = current.deltaFrom(previous, items);
+
+        assertNull(delta.getDayStatus());
+        assertEquals(1, delta.getWidgets().size());
+        assertEquals("TODAY_CANCELLATIONS", delta.getWidgets().get(0).getType());
+        assertEquals(1, delta.getWidgets().get(0).getOrder());
+    }
+
+    @Test
+    void deltaFrom_nothingChanged_returnsNull() {
+        WidgetSnapshot previous = snapshot(dayStatus(3), delays(1), cancellations(0));
+        WidgetSnapshot current = snapshot(dayStatus(3), delays(1), cancellations(0));
+
+        assertNull(current.deltaFrom(previous, items));
+        assertNull(current.deltaFrom(previous, List.of()));
+    }
+
+    @Test
+    void deltaFrom_dayStatusChanged_sentWithoutWidgets() {
+        WidgetSnapshot previous = snapshot(dayStatus(3), delays(1), cancellations(0));
+        WidgetSnapshot current = snapshot(dayStatus(4), delays(1), cancellations(0));
+
+        DashboardWidgetsDto delta = current.deltaFrom(previous, items);
+
+        assertEquals(4, delta.getDayStatus().getTodayAppointments());
+        assertTrue(delta.getWidgets().isEmpty());
+    }
+
+    @Test
+    void deltaFrom_widgetMissingInPrevious_isSent() {
+        WidgetSnapshot previous = new WidgetSnapshot(dayStatus(3), Map.of(WidgetType.DELAYS, delays(1)));
+        WidgetSnapshot current = snapshot(dayStatus(3), delays(1), cancellations(0));
+
+        DashboardWidgetsDto delta = current.deltaFrom(previous, items);
+
+        assertEquals(List.of("TODAY_CANCELLATIONS"),
+                delta.getWidgets().stream().map(WidgetDataDto::getType).toList());
+    }
+
+    @Test
+    void deltaFrom_noPrevious_returnsFullView() {
+        WidgetSnapshot current = snapshot(dayStatus(3), delays(1), cancellations(0));
+
+        DashboardWidgetsDto delta = current.deltaFrom(null, items);
+
+        assertEquals(3, delta.getDayStatus().getTodayAppointments());
+        assertEquals(List.of("TODAY_CANCELLATIONS", "DELAYS"),
+                delta.getWidgets().stream().map(WidgetDataDto::getType).toList());
+    }
+
+    @Test
+    void deltaFrom_widgetLostData_isSentAsNull() {
+        WidgetSnapshot previous = snapshot(dayStatus(3), delays(1), cancellations(0));
+        WidgetSnapshot current = snapshot(dayStatus(3), null, cancellations(0));
+
+        DashboardWidgetsDto delta = current.deltaFrom(previous, items);
+
+        assertEquals(1, delta.getWidgets().size());
+        assertEquals("DELAYS", delta.getWidgets().get(0).getType());
+        assertNull(delta.getWidgets().get(0).getData());
+    }
+
+    @Test
+    void deltaFrom_changeOutsideUserWidgets_returnsNull() {
+        WidgetSnapshot previous = snapshot(dayStatus(3), delays(1), cancellations(0));
+        WidgetSnapshot current = snapshot(dayStatus(3), delays(2), cancellations(0));
+
+        assertNull(current.deltaFrom(previous, List.of(new WidgetItem(WidgetType.TODAY_CANCELLATIONS, 1))));
+    }
+
+    private WidgetSnapshot snapshot(DayStatusDto dayStatus, DelaysData delays, TodayCancellationsData cancellations) {
+        Map<WidgetType, Object> data = new EnumMap<>(WidgetType.class);
+        data.put(WidgetType.DELAYS, delays);
+        data.put(WidgetType.TODAY_CANCELLATIONS, cancellations);
+        return new WidgetSnapshot(dayStatus, data);
+    }
+
+    private DayStatusDto dayStatus(long appointments) {
+        return DayStatusDto.builder().todayAppointments(appointments).build();
+    }
+
+    private DelaysData delays(int count) {
+        return DelaysData.builder().count(count).items(List.of()).build();
+    }
+
+    private TodayCancellationsData cancellations(int count) {
+        return TodayCancellationsData.builder().count(count).items(List.of()).build();
+    }
+}
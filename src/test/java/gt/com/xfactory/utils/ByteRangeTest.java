@@ -0,0 +1,45 @@
+package gt.com.xfactory.utils;
+
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ByteRangeTest {
+
+    @Test
+    void parse_closedRange_clampsToSize() {
+        assertEquals(Optional.of(new ByteRange(2, 4)), ByteRange.parse("bytes=2-5", 10));
+        assertEquals(Optional.of(new ByteRange(8, 2)), ByteRange.parse("bytes=8-100", 10));
+    }
+
+    @Test
+    void parse_openAndSuffixRanges() {
+        assertEquals(Optional.of(new ByteRange(3, 7)), ByteRange.parse("bytes=3-", 10));
+        assertEquals(Optional.of(new ByteRange(7, 3)), ByteRange.parse("bytes=-3", 10));
+        assertEquals(Optional.of(new ByteRange(0, 10)), ByteRange.parse("bytes=-50", 10));
+    }
+
+    @Test
+    void parse_startBeyondSize_isUnsatisfiable() {
+        ByteRange range = ByteRange.parse("bytes=10-", 10).orElseThrow();
+
+        assertFalse(range.satisfiable());
+        assertFalse(ByteRange.parse("bytes=-0", 10).orElseThrow().satisfiable());
+    }
+
+    @Test
+    void parse_absentInvalidOrMultiple_isIgnored() {
+        assertTrue(ByteRange.parse(null, 10).isEmpty());
+        assertTrue(ByteRange.parse("items=0-1", 10).isEmpty());
+        assertTrue(ByteRange.parse("bytes=5-2", 10).isEmpty());
+        assertTrue(ByteRange.parse("bytes=a-b", 10).isEmpty());
+        assertTrue(ByteRange.parse("bytes=0-1,4-5", 10).isEmpty());
+    }
+
+    @Test
+    void contentRange_formatsInclusiveEnd() {
+        assertEquals("bytes 2-5/10", new ByteRange(2, 4).contentRange(10));
+    }
+}
@@ -0,0 +1,21 @@
+package gt.com.xfactory.utils;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DbKindUtilsTest {
+
+    @Test
+    void isPostgres_aliasesInAnyCase() {
+        assertTrue(DbKindUtils.isPostgres("postgresql"));
+        assertTrue(DbKindUtils.isPostgres("PostgreSQL"));
+        assertTrue(DbKindUtils.isPostgres("PG"));
+    }
+
+    @Test
+    void isPostgres_otherOrMissing_returnsFalse() {
+        assertFalse(DbKindUtils.isPostgres("h2"));
+        assertFalse(DbKindUtils.isPostgres(null));
+    }
+}
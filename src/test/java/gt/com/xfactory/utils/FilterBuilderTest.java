@@ -157,6 +157,25 @@ class FilterBuilderTest {
         assertEquals(2, params.size(), "Prefijos distintos no deben sobrescribirse entre sí");
     }
 
+    // ========== buildSearchTextCondition ==========
+
+    @Test
+    void buildSearchTextCondition_normalizesTokens() {
+        Map<String, Object> params = new HashMap<>();
+        String condition = FilterBuilder.buildSearchTextCondition("José  PÉREZ", "searchText", params, "s");
+        assertEquals("(searchText LIKE :s0 AND searchText LIKE :s1)", condition);
+        assertEquals("%jose%", params.get("s0"));
+        assertEquals("%perez%", params.get("s1"));
+    }
+
+    @Test
+    void buildSearchTextCondition_withoutTokens_matchesNothing() {
+        Map<String, Object> params = new HashMap<>();
+        String condition = FilterBuilder.buildSearchTextCondition(" -- ", "searchText", params, "s");
+        assertEquals("(1 = 0)", condition);
+        assertTrue(params.isEmpty());
+    }
+
     // ========== addDateRange ==========
 
     @Test
@@ -0,0 +1,83 @@
+package gt.com.xfactory.utils;
+
+import gt.com.xfactory.entity.*;
+import gt.com.xfactory.entity.enums.*;
+import gt.com.xfactory.repository.*;
+import gt.com.xfactory.utils.SortUtils.SortKey;
+import jakarta.ws.rs.*;
+import org.junit.jupiter.api.*;
+
+import java.time.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeysetCursorTest {
+
+    @Test
+    void parseSortKeys_appendsIdTiebreaker() {
+        List<SortKey> keys = SortUtils.parseSortKeys(List.of("lastName.desc"));
+        assertEquals(List.of(new SortKey("lastName", true), new SortKey("id", false)), keys);
+        assertEquals(List.of(new SortKey("id", false)), SortUtils.parseSortKeys(null));
+    }
+
+    @Test
+    void encodeDecode_roundTripsTypedValues() {
+        UUID id = UUID.randomUUID();
+        List<SortKey> keys = SortUtils.parseSortKeys(List.of("birthdate.desc", "gender.asc", "lastName.asc"));
+        String cursor = KeysetCursor.encodeValues(keys, List.of(LocalDate.of(1990, 5, 1), GenderType.male, "Pérez", id));
+
+        List<Object> values = KeysetCursor.decode(cursor, keys, PatientEntity.class);
+
+        assertEquals(List.of(LocalDate.of(1990, 5, 1), GenderType.male, "Pérez", id), values);
+    }
+
+    @Test
+    void decode_withDifferentSort_throwsBadRequest() {
+        List<SortKey> keys = SortUtils.parseSortKeys(List.of("lastName.asc"));
+        String cursor = KeysetCursor.encodeValues(keys, List.of("Pérez", UUID.randomUUID()));
+
+        List<SortKey> otherKeys = SortUtils.parseSortKeys(List.of("lastName.desc"));
+        assertThrows(BadRequestException.class, () -> KeysetCursor.decode(cursor, otherKeys, PatientEntity.class));
+    }
+
+    @Test
+    void decode_withGarbage_throwsBadRequest() {
+        List<SortKey> keys = SortUtils.parseSortKeys(null);
+        assertThrows(BadRequestException.class, () -> KeysetCursor.decode("no-es-un-cursor", keys, PatientEntity.class));
+    }
+
+    @Test
+    void buildPredicate_expandsLexicographicOrder() {
+        List<SortKey> keys = SortUtils.parseSortKeys(List.of("lastName.asc"));
+        UUID id = UUID.randomUUID();
+        Map<String, Object> params = new HashMap<>();
+
+        String predicate = KeysetCursor.buildPredicate(keys, List.of("Pérez", id), params);
+
+        assertEquals("(((lastName > :ks0 OR lastName IS NULL)) OR (lastName = :ks0 AND (id > :ks1 OR id IS NULL)))",
+                predicate);
+        assertEquals("Pérez", params.get("ks0"));
+        assertEquals(id, params.get("ks1"));
+    }
+
+    @Test
+    void buildPredicate_withNullValue_usesIsNull() {
+        List<SortKey> keys = SortUtils.parseSortKeys(List.of("birthdate.asc"));
+        UUID id = UUID.randomUUID();
+        Map<String, Object> params = new HashMap<>();
+        List<Object> values = new ArrayList<>();
+        values.add(null);
+        values.add(id);
+
+        String predicate = KeysetCursor.buildPredicate(keys, values, params);
+
+        assertEquals("((birthdate IS NULL AND (id > :ks1 OR id IS NULL)))", predicate);
+        assertFalse(params.containsKey("ks0"));
+    }
+
+    @Test
+    void entityClassOf_resolvesRepositoryGenericType() {
+        assertEquals(PatientEntity.class, QueryUtils.entityClassOf(new PatientRepository()));
+    }
+}
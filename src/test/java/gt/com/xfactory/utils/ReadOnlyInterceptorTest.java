@@ -0,0 +1,89 @@
+package gt.com.xfactory.utils;
+
+import io.quarkus.test.junit.*;
+import jakarta.enterprise.context.*;
+import jakarta.inject.*;
+import jakarta.transaction.*;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+class ReadOnlyInterceptorTest {
+
+    @Inject
+    ReadOnlyProbe probe;
+
+    @Inject
+    WritingCaller writingCaller;
+
+    @Inject
+    TransactionManager transactionManager;
+
+    @Test
+    void readOnlyMethod_runsInReadOnlySessionAndTransaction() throws Exception {
+        SessionState state = probe.state();
+
+        assertTrue(state.inTransaction());
+        assertTrue(state.defaultReadOnly());
+        assertEquals(FlushMode.MANUAL, state.flushMode());
+        assertEquals(Status.STATUS_NO_TRANSACTION, transactionManager.getStatus());
+    }
+
+    @Test
+    void readOnlyMethod_insideExistingTransaction_doesNotChangeSession() {
+        SessionState state = writingCaller.callProbe();
+
+        assertTrue(state.inTransaction());
+        assertFalse(state.defaultReadOnly());
+        assertNotEquals(FlushMode.MANUAL, state.flushMode());
+    }
+
+    @Test
+    void readOnlyMethod_exception_propagatesAndEndsTransaction() throws Exception {
+        assertThrows(IllegalStateException.class, () -> probe.fail());
+        assertEquals(Status.STATUS_NO_TRANSACTION, transactionManager.getStatus());
+    }
+
+    record SessionState(boolean inTransaction, boolean defaultReadOnly, FlushMode flushMode) {
+    }
+
+    @ApplicationScoped
+    static class ReadOnlyProbe {
+
+        @Inject
+        Session session;
+
+        @Inject
+        TransactionManager transactionManager;
+
+        @ReadOnly
+        SessionState state() throws SystemException {
+            return new SessionState(transactionManager.getStatus() == Status.STATUS_ACTIVE,
+                    session.isDefaultReadOnly(), session.getHibernateFlushMode());
+        }
+
+        @ReadOnly
+        void fail() {
+            throw new IllegalStateException("fallo");
+        }
+    }
+
+    @ApplicationScoped
+    static class WritingCaller {
+
+        @Inject
+        ReadOnlyProbe probe;
+
+        @Transactional
+        SessionState callProbe() {
+            try {
+                return probe.state();
+            } catch (SystemException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package gt.com.xfactory.utils;
+
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchTextUtilsTest {
+
+    @Test
+    void normalize_removesAccentsAndLowercases() {
+        assertEquals("jose perez nunez", SearchTextUtils.normalize("José  Pérez-Núñez"));
+    }
+
+    @Test
+    void normalize_nullOrBlank_returnsEmpty() {
+        assertEquals("", SearchTextUtils.normalize(null));
+        assertEquals("", SearchTextUtils.normalize("   "));
+    }
+
+    @Test
+    void tokenize_splitsNormalizedTokens() {
+        assertEquals(List.of("maria", "lopez"), SearchTextUtils.tokenize(" María   LÓPEZ "));
+        assertTrue(SearchTextUtils.tokenize("--").isEmpty());
+    }
+
+    @Test
+    void join_skipsNullAndBlankValues() {
+        assertEquals("ana gomez 1234567890101", SearchTextUtils.join("Ana", "Gómez", null, " ", "1234567890101"));
+    }
+}